@@ -0,0 +1,79 @@
+package com.fscip.benchmarks;
+
+import com.fscip.identity.entity.OtpCode;
+import com.fscip.identity.repository.OtpCodeRepository;
+import com.fscip.identity.repository.UserRepository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Map-backed stand-ins for the Spring Data repositories, implementing only the
+ * methods OtpServiceImpl calls. Anything else fails loudly so a new repository call
+ * on the hot path shows up here instead of silently costing nothing.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static OtpCodeRepository otpCodes() {
+        // A user holds at most one OTP row, see OtpServiceImpl.requestOtp
+        ConcurrentHashMap<UUID, OtpCode> byUserId = new ConcurrentHashMap<>();
+        AtomicLong ids = new AtomicLong();
+
+        return proxy(OtpCodeRepository.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "save":
+                    OtpCode otp = (OtpCode) args[0];
+                    otp.setOtpId(ids.incrementAndGet());
+                    byUserId.put(otp.getUserId(), otp);
+                    return otp;
+                case "deleteByUserId":
+                    byUserId.remove((UUID) args[0]);
+                    return null;
+                case "findTopByUserIdOrderByCreatedAtDesc":
+                    return Optional.ofNullable(byUserId.get((UUID) args[0]));
+                case "incrementAttemptsByUserId":
+                    OtpCode current = byUserId.get((UUID) args[0]);
+                    if (current == null) {
+                        return 0;
+                    }
+                    current.incrementAttempts();
+                    return 1;
+                default:
+                    return unsupported(proxy, method.getName(), args);
+            }
+        });
+    }
+
+    static UserRepository users() {
+        return proxy(UserRepository.class, (proxy, method, args) -> {
+            if (method.getName().equals("updateLastLogin")) {
+                return 1;
+            }
+            return unsupported(proxy, method.getName(), args);
+        });
+    }
+
+    private static Object unsupported(Object proxy, String method, Object[] args) {
+        switch (method) {
+            case "toString":
+                return proxy.getClass().getInterfaces()[0].getSimpleName() + " (in memory)";
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                throw new UnsupportedOperationException(method + " is not faked");
+        }
+    }
+
+    private static <T> T proxy(Class<T> repository, InvocationHandler handler) {
+        return repository.cast(Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[] {repository}, handler));
+    }
+}
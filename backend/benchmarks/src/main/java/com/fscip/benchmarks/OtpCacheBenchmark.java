@@ -0,0 +1,111 @@
+package com.fscip.benchmarks;
+
+import com.fscip.identity.service.OtpVerifyResult;
+import com.fscip.identity.service.impl.InMemoryOtpCacheServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InMemoryOtpCacheServiceImpl} operations under contention. With one key every
+ * thread hits the same map bin; with 1024 keys the load spreads across bins.
+ * The mixed group runs readers and writers against the same keys at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class OtpCacheBenchmark {
+
+    private static final long EXPIRATION_SECONDS = 600;
+
+    @Param({"1", "1024"})
+    public int keyCount;
+
+    private InMemoryOtpCacheServiceImpl cache;
+    private UUID[] userIds;
+
+    @Setup
+    public void setUp() {
+        cache = new InMemoryOtpCacheServiceImpl();
+        userIds = new UUID[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            userIds[i] = UUID.randomUUID();
+            cache.storeOtp(userIds[i], "123456", EXPIRATION_SECONDS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        UUID nextKey(UUID[] userIds) {
+            next = next + 1 == userIds.length ? 0 : next + 1;
+            return userIds[next];
+        }
+    }
+
+    @Benchmark
+    public void store(Cursor cursor) {
+        cache.storeOtp(cursor.nextKey(userIds), "123456", EXPIRATION_SECONDS);
+    }
+
+    @Benchmark
+    public String get(Cursor cursor) {
+        return cache.getOtp(cursor.nextKey(userIds));
+    }
+
+    @Benchmark
+    public int decrement(Cursor cursor) {
+        return cache.decrementAttempts(cursor.nextKey(userIds));
+    }
+
+    @Benchmark
+    public OtpVerifyResult verifyMismatch(Cursor cursor) {
+        return cache.verifyAndConsume(cursor.nextKey(userIds), "000000");
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public String mixedGet(Cursor cursor) {
+        return cache.getOtp(cursor.nextKey(userIds));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void mixedStore(Cursor cursor) {
+        cache.storeOtp(cursor.nextKey(userIds), "123456", EXPIRATION_SECONDS);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public int mixedDecrement(Cursor cursor) {
+        return cache.decrementAttempts(cursor.nextKey(userIds));
+    }
+}
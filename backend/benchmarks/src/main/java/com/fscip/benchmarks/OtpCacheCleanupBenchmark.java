@@ -0,0 +1,67 @@
+package com.fscip.benchmarks;
+
+import com.fscip.identity.service.impl.InMemoryOtpCacheServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link InMemoryOtpCacheServiceImpl#cleanupExpiredEntries()} sweep over caches of
+ * 10k to 10M entries, a tenth of which have expired. The sweep only visits due expiry
+ * buckets, so its time should follow the expired count rather than the cache size.
+ *
+ * The 10M case needs a few GB of heap; the fork is started with -Xmx4g.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OtpCacheCleanupBenchmark {
+
+    private static final int EXPIRED_EVERY = 10;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int entries;
+
+    private SettableClock clock;
+    private InMemoryOtpCacheServiceImpl cache;
+
+    @Setup(Level.Iteration)
+    public void fill() {
+        clock = new SettableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        cache = new InMemoryOtpCacheServiceImpl(clock);
+        for (int i = 0; i < entries; i++) {
+            long expirationSeconds = i % EXPIRED_EVERY == 0 ? 1 : 600;
+            cache.storeOtp(UUID.randomUUID(), "123456", expirationSeconds);
+        }
+        clock.advance(Duration.ofSeconds(3));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        cache.shutdown();
+        cache = null;
+    }
+
+    @Benchmark
+    public int sweep() {
+        return cache.cleanupExpiredEntries();
+    }
+}
@@ -0,0 +1,80 @@
+package com.fscip.benchmarks;
+
+import com.fscip.identity.service.OtpCacheService;
+import com.fscip.identity.service.impl.InMemoryOtpCacheServiceImpl;
+import com.fscip.identity.service.impl.PackedOtpCacheServiceImpl;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Clock;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+/**
+ * Retained heap per pending OTP for the map-based and the packed cache. JMH measures
+ * time, not footprint, so this is a plain main: for each cache it fills a fresh
+ * instance, forces a full collection and reports the growth of used heap.
+ *
+ *   java -Xmx6g -cp benchmarks/target/benchmarks.jar com.fscip.benchmarks.OtpCacheFootprint 1000000 10000000
+ *
+ * Entry counts default to one million. The map-based cache needs roughly 200 bytes
+ * per entry, so give it enough heap for the largest count; each result is printed as
+ * a table row and as a JSON line for comparison across releases.
+ */
+public class OtpCacheFootprint {
+
+    private static final int SETTLE_ROUNDS = 5;
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] counts = args.length == 0 ? new int[]{1_000_000} : new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            counts[i] = Integer.parseInt(args[i]);
+        }
+
+        System.out.printf("%-10s %12s %14s %12s%n", "cache", "entries", "retained MB", "bytes/entry");
+        for (int count : counts) {
+            report("map", count, n -> new InMemoryOtpCacheServiceImpl(Clock.systemUTC()));
+            report("packed", count, n -> new PackedOtpCacheServiceImpl(n, Clock.systemUTC()));
+        }
+    }
+
+    private static void report(String name, int count, IntFunction<OtpCacheService> factory)
+            throws InterruptedException {
+        long before = settledHeapUsed();
+        OtpCacheService cache = factory.apply(count);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < count; i++) {
+            cache.storeOtp(new UUID(random.nextLong(), random.nextLong()), String.format("%06d", i % 1_000_000), 600);
+        }
+        long retained = settledHeapUsed() - before;
+
+        double bytesPerEntry = retained / (double) count;
+        System.out.printf(Locale.ROOT, "%-10s %12d %14.1f %12.1f%n", name, count, retained / 1e6, bytesPerEntry);
+        System.out.printf(Locale.ROOT, "{\"cache\":\"%s\",\"entries\":%d,\"retainedBytes\":%d,\"bytesPerEntry\":%.1f}%n",
+            name, count, retained, bytesPerEntry);
+
+        // Keep the cache reachable until it has been measured
+        shutdown(cache);
+    }
+
+    private static long settledHeapUsed() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < SETTLE_ROUNDS; i++) {
+            System.gc();
+            Thread.sleep(100);
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+
+    private static void shutdown(OtpCacheService cache) {
+        if (cache instanceof InMemoryOtpCacheServiceImpl inMemory) {
+            inMemory.shutdown();
+        } else if (cache instanceof PackedOtpCacheServiceImpl packed) {
+            packed.shutdown();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.fscip.benchmarks;
+
+import com.fscip.identity.service.impl.OtpGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link OtpGenerator} against the generator it replaced: six
+ * nextInt(10) calls on one shared SecureRandom appended to a StringBuilder.
+ *
+ * Run {@link #main} to sweep 1 to 64 threads, or pass -t to the shaded jar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OtpGeneratorBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    private OtpGenerator otpGenerator;
+    private SharedSecureRandomGenerator sharedGenerator;
+
+    @Setup
+    public void setUp() {
+        otpGenerator = new OtpGenerator("DRBG");
+        sharedGenerator = new SharedSecureRandomGenerator();
+    }
+
+    @Benchmark
+    public String perThreadDrbg() {
+        return otpGenerator.generate();
+    }
+
+    @Benchmark
+    public String sharedSecureRandom() {
+        return sharedGenerator.generate();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(OtpGeneratorBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+    // Copy of the original OtpServiceImpl.generateOtp, kept as the baseline
+    static final class SharedSecureRandomGenerator {
+        private final SecureRandom secureRandom = new SecureRandom();
+
+        String generate() {
+            StringBuilder otp = new StringBuilder();
+            for (int i = 0; i < OtpGenerator.OTP_LENGTH; i++) {
+                otp.append(secureRandom.nextInt(10));
+            }
+            return otp.toString();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.fscip.benchmarks;
+
+import com.fscip.identity.dto.OtpRequestDto;
+import com.fscip.identity.dto.OtpResponseDto;
+import com.fscip.identity.dto.OtpVerificationDto;
+import com.fscip.identity.dto.OtpVerificationResponseDto;
+import com.fscip.identity.dto.UserSummary;
+import com.fscip.identity.entity.UserStatus;
+import com.fscip.identity.service.EmailService;
+import com.fscip.identity.service.UserLookupService;
+import com.fscip.identity.service.impl.InMemoryOtpCacheServiceImpl;
+import com.fscip.identity.service.impl.OtpGenerator;
+import com.fscip.identity.service.impl.OtpMetrics;
+import com.fscip.identity.service.impl.OtpServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OtpServiceImpl} request and verify paths with the database, mail and rate
+ * limiter replaced by in-memory fakes, so the numbers cover the service's own work:
+ * lookups, code generation, cache operations and the repository calls it makes.
+ *
+ * requestThenVerify is one full sign-up round trip; verify cost alone is its time
+ * minus requestOtp's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class OtpServiceBenchmark {
+
+    private static final int USERS = 10_000;
+
+    private InMemoryOtpCacheServiceImpl otpCache;
+    private CapturingEmailService emailService;
+    private OtpServiceImpl otpService;
+    private String[] emails;
+
+    @Setup
+    public void setUp() {
+        otpCache = new InMemoryOtpCacheServiceImpl();
+        emailService = new CapturingEmailService();
+        InMemoryUserLookupService userLookupService = new InMemoryUserLookupService();
+        emails = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            emails[i] = "bench.user" + i + "@example.com";
+            userLookupService.add(new UserSummary(UUID.randomUUID(), emails[i], "Bench User " + i, UserStatus.PENDING));
+        }
+
+        otpService = new OtpServiceImpl(
+                InMemoryRepositories.users(),
+                InMemoryRepositories.otpCodes(),
+                emailService,
+                otpCache,
+                userId -> true,
+                userLookupService,
+                new OtpGenerator("DRBG"),
+                new OtpMetrics(new SimpleMeterRegistry()),
+                TransactionOperations.withoutTransaction(),
+                Duration.ofSeconds(1));
+        Field expiry = ReflectionUtils.findField(OtpServiceImpl.class, "otpExpiryMinutes");
+        ReflectionUtils.makeAccessible(expiry);
+        ReflectionUtils.setField(expiry, otpService, 10);
+    }
+
+    @TearDown
+    public void tearDown() {
+        otpCache.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next = (int) (Math.random() * USERS);
+
+        String nextEmail(String[] emails) {
+            next = next + 1 == emails.length ? 0 : next + 1;
+            return emails[next];
+        }
+    }
+
+    @Benchmark
+    public OtpResponseDto requestOtp(Cursor cursor) {
+        return otpService.requestOtp(new OtpRequestDto(cursor.nextEmail(emails)));
+    }
+
+    @Benchmark
+    public OtpVerificationResponseDto requestThenVerify(Cursor cursor) {
+        String email = cursor.nextEmail(emails);
+        otpService.requestOtp(new OtpRequestDto(email));
+        return otpService.verifyOtp(new OtpVerificationDto(email, emailService.lastOtp(email)));
+    }
+
+    @Benchmark
+    public OtpVerificationResponseDto verifyWrongCode(Cursor cursor) {
+        // Cycles through invalid and locked outcomes once a user's attempts run out
+        return otpService.verifyOtp(new OtpVerificationDto(cursor.nextEmail(emails), "not-a-code"));
+    }
+
+    // Users stay PENDING on verification so every request in the run takes the same path
+    private static final class InMemoryUserLookupService implements UserLookupService {
+        private final Map<String, UserSummary> byEmail = new ConcurrentHashMap<>();
+
+        void add(UserSummary user) {
+            byEmail.put(user.getEmail(), user);
+        }
+
+        @Override
+        public Optional<UserSummary> findByEmail(String email) {
+            return Optional.ofNullable(byEmail.get(email));
+        }
+
+        @Override
+        public int updateUserStatus(UUID userId, UserStatus status) {
+            return 1;
+        }
+
+        @Override
+        public void invalidate(UUID userId) {
+        }
+    }
+
+    private static final class CapturingEmailService implements EmailService {
+        private final Map<String, String> lastOtpByEmail = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean sendOtp(String email, String otp, int expirationMinutes) {
+            lastOtpByEmail.put(email, otp);
+            return true;
+        }
+
+        @Override
+        public boolean sendWelcomeEmail(String email, String fullName) {
+            return true;
+        }
+
+        String lastOtp(String email) {
+            return lastOtpByEmail.get(email);
+        }
+    }
+}
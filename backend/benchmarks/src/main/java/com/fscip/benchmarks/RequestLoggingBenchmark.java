@@ -0,0 +1,163 @@
+package com.fscip.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.fscip.security.RequestLoggingFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-thread cost of {@link RequestLoggingFilter} against a copy of the filter it
+ * replaced, which logged a REQ and a RES line synchronously. The ACCESS logger is
+ * enabled and encodes to a discarding stream, so the baseline pays for formatting
+ * and encoding but not for I/O. Run with -prof gc to compare allocation per request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestLoggingBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private RequestLoggingFilter ringBufferFilter;
+    private SynchronousLoggingFilter synchronousFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private OutputStreamAppender<ILoggingEvent> appender;
+
+    @Setup
+    public void setUp() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} [%X{correlationId}] - %msg%n");
+        encoder.start();
+        appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        ch.qos.logback.classic.Logger accessLogger = context.getLogger("ACCESS");
+        accessLogger.setLevel(Level.INFO);
+        accessLogger.setAdditive(false);
+        accessLogger.addAppender(appender);
+
+        ringBufferFilter = new RequestLoggingFilter();
+        ringBufferFilter.start();
+        synchronousFilter = new SynchronousLoggingFilter();
+
+        request = new MockHttpServletRequest("GET", "/api/v1/accounts/42/transactions");
+        request.addHeader("X-Request-ID", UUID.randomUUID().toString());
+        request.addHeader("X-Forwarded-For", "203.0.113.7, 10.0.0.1");
+        request.addHeader("User-Agent", "Mozilla/5.0 (X11; Linux x86_64) Firefox/121.0");
+        request.setRemoteAddr("10.0.0.1");
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ringBufferFilter.shutdown();
+        appender.stop();
+        System.out.printf("%nRing buffer filter: %d written, %d dropped%n",
+            ringBufferFilter.getWrittenCount(), ringBufferFilter.getDroppedCount());
+    }
+
+    @Benchmark
+    public void ringBuffer() throws IOException, ServletException {
+        ringBufferFilter.doFilter(request, response, NO_OP_CHAIN);
+    }
+
+    @Benchmark
+    public void synchronous() throws IOException, ServletException {
+        synchronousFilter.doFilter(request, response, NO_OP_CHAIN);
+    }
+
+    // Copy of the original RequestLoggingFilter.doFilter, kept as the baseline
+    static final class SynchronousLoggingFilter {
+        private static final Logger logger = LoggerFactory.getLogger(RequestLoggingFilter.class);
+        private static final Logger accessLogger = LoggerFactory.getLogger("ACCESS");
+
+        void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws IOException, ServletException {
+            String requestId = request.getHeader("X-Request-ID");
+            if (requestId == null || requestId.trim().isEmpty()) {
+                requestId = UUID.randomUUID().toString();
+            }
+            MDC.put("correlationId", requestId);
+            response.setHeader("X-Request-ID", requestId);
+
+            long startTime = System.currentTimeMillis();
+            try {
+                String method = request.getMethod();
+                String uri = request.getRequestURI();
+                String queryString = request.getQueryString();
+                String userAgent = request.getHeader("User-Agent");
+                String clientIp = getClientIpAddress(request);
+                StringBuilder logMessage = new StringBuilder()
+                    .append("Incoming request: ")
+                    .append(method).append(" ")
+                    .append(uri);
+                if (queryString != null) {
+                    logMessage.append("?").append(queryString);
+                }
+                accessLogger.info("REQ {} {} from {} - UserAgent: {}", method, uri, clientIp, userAgent);
+                logger.debug("{} - IP: {}, UserAgent: {}", logMessage.toString(), clientIp, userAgent);
+
+                chain.doFilter(request, response);
+            } finally {
+                long duration = System.currentTimeMillis() - startTime;
+                String method = request.getMethod();
+                String uri = request.getRequestURI();
+                int status = response.getStatus();
+                String clientIp = getClientIpAddress(request);
+                accessLogger.info("RES {} {} {} {}ms from {}", method, uri, status, duration, clientIp);
+                logger.debug("Response: {} {} - Status: {}, Duration: {}ms", method, uri, status, duration);
+                if (duration > 1000) {
+                    logger.warn("Slow request detected: {} {} - Duration: {}ms", method, uri, duration);
+                }
+                MDC.clear();
+            }
+        }
+
+        private static String getClientIpAddress(HttpServletRequest request) {
+            String xForwardedFor = request.getHeader("X-Forwarded-For");
+            if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+                return xForwardedFor.split(",")[0].trim();
+            }
+            String xRealIp = request.getHeader("X-Real-IP");
+            if (xRealIp != null && !xRealIp.isEmpty()) {
+                return xRealIp;
+            }
+            return request.getRemoteAddr();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.fscip.benchmarks;
+
+import com.fscip.security.JwtAuthenticationConverter;
+import com.fscip.security.SecurityExpressions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one authorization check made by {@link SecurityExpressions}, with the roles
+ * held as a RoleSet on the request's authentication against the original string scan
+ * of the authorities. The user has a typical Keycloak role list and none of the roles
+ * being checked, so every check has to look at every role.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoleCheckBenchmark {
+
+    private static final List<String> REALM_ROLES = List.of(
+        "offline_access", "uma_authorization", "default-roles-fscip", "CUSTOMER", "SUPPORT_AGENT", "AUDITOR");
+
+    @State(Scope.Thread)
+    public static class BitsetContext {
+        final SecurityExpressions expressions = new SecurityExpressions();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationConverter().convert(jwt()));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class StringScanContext {
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            AbstractAuthenticationToken converted = new JwtAuthenticationConverter().convert(jwt());
+            SecurityContextHolder.getContext().setAuthentication(
+                new JwtAuthenticationToken(jwt(), converted.getAuthorities(), converted.getName()));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public boolean bitsetCanSearch(BitsetContext context) {
+        return context.expressions.canSearch();
+    }
+
+    @Benchmark
+    public boolean stringScanCanSearch(StringScanContext context) {
+        return StringScan.hasAnyRole("ADMIN", "ANALYST", "INVESTIGATOR");
+    }
+
+    @Benchmark
+    public boolean bitsetCanAccessAccount(BitsetContext context) {
+        return context.expressions.canAccessAccount("account-1");
+    }
+
+    @Benchmark
+    public boolean stringScanCanAccessAccount(StringScanContext context) {
+        return StringScan.hasRole("ADMIN") || StringScan.hasAnyRole("OPERATOR", "ANALYST");
+    }
+
+    private static Jwt jwt() {
+        Instant now = Instant.now();
+        return Jwt.withTokenValue("benchmark")
+            .header("alg", "none")
+            .subject(UUID.randomUUID().toString())
+            .claim("preferred_username", "benchmark-user")
+            .claim("realm_access", Map.of("roles", REALM_ROLES))
+            .issuedAt(now)
+            .expiresAt(now.plusSeconds(300))
+            .build();
+    }
+
+    // Copy of the original SecurityUtils role checks, kept as the baseline
+    static final class StringScan {
+
+        static boolean hasRole(String role) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+            if (authentication == null || !authentication.isAuthenticated()) {
+                return false;
+            }
+
+            String roleWithPrefix = role.startsWith("ROLE_") ? role : "ROLE_" + role.toUpperCase();
+
+            return authentication.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals(roleWithPrefix));
+        }
+
+        static boolean hasAnyRole(String... roles) {
+            for (String role : roles) {
+                if (hasRole(role)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.fscip.common.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Size-bounded, time-to-live on-heap cache.
+ * Keys are spread over independently locked LRU stripes, so contention is limited to
+ * keys sharing a stripe and eviction never walks the whole cache. The bound is enforced
+ * per stripe, which keeps the total within one stripe's rounding of the configured size.
+ *
+ * The optional removal listener is told about entries dropped by size eviction,
+ * expiry on lookup or invalidation; overwriting a key is not reported. It runs
+ * outside the stripe lock.
+ */
+public class BoundedCache<K, V> {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe<K, V>[] stripes;
+    private final long timeToLiveMillis;
+    private final Clock clock;
+    private final BiConsumer<K, V> removalListener;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public BoundedCache(int maximumSize, Duration timeToLive) {
+        this(maximumSize, timeToLive, Clock.systemUTC(), null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public BoundedCache(int maximumSize, Duration timeToLive, Clock clock, BiConsumer<K, V> removalListener) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        if (timeToLive.toMillis() <= 0) {
+            throw new IllegalArgumentException("Time to live must be at least one millisecond");
+        }
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.clock = clock;
+        this.removalListener = removalListener;
+
+        int stripeCount = Math.min(STRIPES, maximumSize);
+        int stripeCapacity = (maximumSize + stripeCount - 1) / stripeCount;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<>(stripeCapacity);
+        }
+    }
+
+    /**
+     * Look up a live entry, refreshing its recency
+     *
+     * @return cached value, or null when absent or expired
+     */
+    public V get(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        long now = clock.millis();
+        Entry<V> expired = null;
+
+        stripe.lock.lock();
+        try {
+            Entry<V> entry = stripe.entries.get(key);
+            if (entry != null && entry.expiresAtMillis >= now) {
+                hits.increment();
+                return entry.value;
+            }
+            if (entry != null) {
+                stripe.entries.remove(key);
+                expired = entry;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        misses.increment();
+        notifyRemoval(key, expired);
+        return null;
+    }
+
+    public void put(K key, V value) {
+        Stripe<K, V> stripe = stripeFor(key);
+        Entry<V> entry = new Entry<>(value, clock.millis() + timeToLiveMillis);
+        K evictedKey = null;
+        Entry<V> evicted = null;
+
+        stripe.lock.lock();
+        try {
+            stripe.entries.put(key, entry);
+            if (stripe.entries.size() > stripe.capacity) {
+                Iterator<Map.Entry<K, Entry<V>>> eldest = stripe.entries.entrySet().iterator();
+                Map.Entry<K, Entry<V>> victim = eldest.next();
+                evictedKey = victim.getKey();
+                evicted = victim.getValue();
+                eldest.remove();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        notifyRemoval(evictedKey, evicted);
+    }
+
+    /**
+     * Drop a single entry
+     *
+     * @return the value that was cached, or null
+     */
+    public V invalidate(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        Entry<V> removed;
+
+        stripe.lock.lock();
+        try {
+            removed = stripe.entries.remove(key);
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        notifyRemoval(key, removed);
+        return removed != null ? removed.value : null;
+    }
+
+    public void invalidateAll() {
+        for (Stripe<K, V> stripe : stripes) {
+            Map<K, Entry<V>> removed;
+            stripe.lock.lock();
+            try {
+                removed = removalListener != null ? new LinkedHashMap<>(stripe.entries) : Map.of();
+                stripe.entries.clear();
+            } finally {
+                stripe.lock.unlock();
+            }
+            removed.forEach(this::notifyRemoval);
+        }
+    }
+
+    /**
+     * Number of entries held, including expired entries not yet looked up
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    private Stripe<K, V> stripeFor(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+
+    private void notifyRemoval(K key, Entry<V> entry) {
+        if (removalListener != null && entry != null) {
+            removalListener.accept(key, entry.value);
+        }
+    }
+
+    private static final class Stripe<K, V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int capacity;
+
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAtMillis;
+
+        private Entry(V value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
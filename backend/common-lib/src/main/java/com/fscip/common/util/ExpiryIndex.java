@@ -0,0 +1,80 @@
+package com.fscip.common.util;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * Time-bucketed expiry index for in-memory caches.
+ * Keys are filed under the tick in which they expire, so draining only touches
+ * buckets whose tick has passed: cost is proportional to the number of expired
+ * keys, not to the size of the cache the index sits next to.
+ *
+ * The index is advisory. A key may be scheduled more than once or outlive its
+ * cache entry; callers re-check the entry itself before evicting it.
+ */
+public class ExpiryIndex<K> {
+
+    private final long tickMillis;
+    private final ConcurrentSkipListMap<Long, Set<K>> buckets = new ConcurrentSkipListMap<>();
+
+    public ExpiryIndex(Duration tick) {
+        if (tick.toMillis() <= 0) {
+            throw new IllegalArgumentException("Tick must be at least one millisecond");
+        }
+        this.tickMillis = tick.toMillis();
+    }
+
+    /**
+     * Schedule a key to be handed back once the given instant has passed
+     *
+     * @param key cache key
+     * @param expiresAtMillis expiry as epoch milliseconds
+     */
+    public void schedule(K key, long expiresAtMillis) {
+        // File under the next tick so a bucket is only drained once every key in it has expired.
+        // The remapping function may run more than once; adding to a set is idempotent.
+        buckets.compute(Math.floorDiv(expiresAtMillis, tickMillis) + 1, (tick, keys) -> {
+            Set<K> bucket = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            bucket.add(key);
+            return bucket;
+        });
+    }
+
+    /**
+     * Remove every bucket that is due and pass its keys to the consumer
+     *
+     * @param nowMillis current time as epoch milliseconds
+     * @param consumer receives each key whose scheduled expiry has passed
+     * @return number of keys handed to the consumer
+     */
+    public int drainExpired(long nowMillis, Consumer<K> consumer) {
+        long currentTick = Math.floorDiv(nowMillis, tickMillis);
+        int drained = 0;
+
+        Map.Entry<Long, Set<K>> bucket;
+        while ((bucket = buckets.firstEntry()) != null && bucket.getKey() <= currentTick) {
+            if (buckets.remove(bucket.getKey(), bucket.getValue())) {
+                for (K key : bucket.getValue()) {
+                    consumer.accept(key);
+                    drained++;
+                }
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Number of buckets currently held by the index
+     */
+    public int bucketCount() {
+        return buckets.size();
+    }
+
+    public void clear() {
+        buckets.clear();
+    }
+}
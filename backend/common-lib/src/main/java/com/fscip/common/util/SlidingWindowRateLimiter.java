@@ -0,0 +1,156 @@
+package com.fscip.common.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free sliding-window rate limiter keyed by an arbitrary id.
+ * Each key holds one {@link AtomicLong} packing the current window index with the
+ * request counts of the current and previous fixed windows; the sliding count is the
+ * previous window weighted by how much of it still overlaps, plus the current one.
+ * Acquiring is a single CAS loop with no locks or allocation on the hot path.
+ *
+ * Idle keys are filed in an {@link ExpiryIndex} and dropped by {@link #evictIdle()}
+ * once both of their windows have passed.
+ */
+public class SlidingWindowRateLimiter<K> {
+
+    private static final int COUNT_BITS = 12;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int MAX_LIMIT = (int) COUNT_MASK;
+
+    private final ConcurrentHashMap<K, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final ExpiryIndex<K> idleIndex;
+    private final int limit;
+    private final long windowMillis;
+    private final Clock clock;
+
+    public SlidingWindowRateLimiter(int limit, Duration window) {
+        this(limit, window, Clock.systemUTC());
+    }
+
+    public SlidingWindowRateLimiter(int limit, Duration window, Clock clock) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        // 40 bits of window index cover epoch milliseconds only from one-second windows up
+        if (window.toSeconds() <= 0) {
+            throw new IllegalArgumentException("Window must be at least one second");
+        }
+        this.limit = limit;
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+        this.idleIndex = new ExpiryIndex<>(window);
+    }
+
+    /**
+     * Record a request for the key if it is within the limit
+     *
+     * @return true if the request is allowed, false if the key is over its limit
+     */
+    public boolean tryAcquire(K key) {
+        long now = clock.millis();
+        long nowWindow = now / windowMillis;
+        double nowWeight = 1.0 - (double) (now % windowMillis) / windowMillis;
+
+        while (true) {
+            AtomicLong counter = counters.computeIfAbsent(key, k -> new AtomicLong(pack(nowWindow, 0, 0)));
+            long state = counter.get();
+            // A racing thread that read a later clock may already have rolled the window
+            long window = Math.max(nowWindow, windowOf(state));
+            double previousWeight = window == nowWindow ? nowWeight : 1.0;
+            long current = currentCount(state, window);
+            long previous = previousCount(state, window);
+
+            if (previous * previousWeight + current + 1 > limit) {
+                return false;
+            }
+
+            long next = pack(window, previous, current + 1);
+            if (counter.compareAndSet(state, next)) {
+                // The counter may have been evicted concurrently; retry against the live one
+                if (counters.get(key) != counter) {
+                    continue;
+                }
+                if (current == 0) {
+                    idleIndex.schedule(key, (window + 2) * windowMillis);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Remaining time until the key can make another request, zero if it can now
+     */
+    public Duration retryAfter(K key) {
+        AtomicLong counter = counters.get(key);
+        if (counter == null) {
+            return Duration.ZERO;
+        }
+
+        long now = clock.millis();
+        long window = now / windowMillis;
+        long state = counter.get();
+        long current = currentCount(state, window);
+        long previous = previousCount(state, window);
+        if (current + 1 > limit) {
+            // Not before the next window, once enough of this window's count has slid out
+            return untilWeightAllows(window + 1, current, 0, now);
+        }
+        return untilWeightAllows(window, previous, current, now);
+    }
+
+    /**
+     * Drop keys that have made no request in the current or previous window
+     *
+     * @return number of keys examined
+     */
+    public int evictIdle() {
+        long now = clock.millis();
+        long window = now / windowMillis;
+        return idleIndex.drainExpired(now, key -> {
+            AtomicLong counter = counters.get(key);
+            if (counter != null && windowOf(counter.get()) < window - 1) {
+                counters.remove(key, counter);
+            }
+        });
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    private Duration untilWeightAllows(long window, long previous, long current, long now) {
+        if (previous == 0) {
+            return Duration.ZERO;
+        }
+        // Weight at which the previous window's share leaves room for one more request
+        double allowedWeight = (limit - current - 1) / (double) previous;
+        long freeAt = window * windowMillis + (long) Math.ceil(Math.max(0.0, 1.0 - allowedWeight) * windowMillis);
+        return Duration.ofMillis(Math.max(0, freeAt - now));
+    }
+
+    private long currentCount(long state, long window) {
+        return windowOf(state) == window ? state & COUNT_MASK : 0;
+    }
+
+    private long previousCount(long state, long window) {
+        long stateWindow = windowOf(state);
+        if (stateWindow == window) {
+            return (state >>> COUNT_BITS) & COUNT_MASK;
+        }
+        // The stored current window has become the previous one
+        return stateWindow == window - 1 ? state & COUNT_MASK : 0;
+    }
+
+    private static long windowOf(long state) {
+        return state >>> (2 * COUNT_BITS);
+    }
+
+    private static long pack(long window, long previous, long current) {
+        return (window << (2 * COUNT_BITS)) | (previous << COUNT_BITS) | current;
+    }
+}
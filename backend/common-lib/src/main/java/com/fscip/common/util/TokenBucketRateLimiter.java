@@ -0,0 +1,159 @@
+package com.fscip.common.util;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token-bucket rate limiter keyed by an arbitrary id (client IP, principal name, ...).
+ * Buckets live in independently locked stripes kept in access order, so the map is
+ * bounded by evicting the least recently used bucket of a full stripe, and idle
+ * buckets can be dropped by walking each stripe from its eldest entry.
+ *
+ * A bucket left idle long enough to refill completely is indistinguishable from a new
+ * one, which is what makes eviction of idle keys safe.
+ */
+public class TokenBucketRateLimiter<K> {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe<K>[] stripes;
+    private final double capacity;
+    private final double tokensPerMilli;
+    private final long fullRefillMillis;
+    private final Clock clock;
+
+    public TokenBucketRateLimiter(int tokensPerMinute, int burstCapacity, int maximumKeys) {
+        this(tokensPerMinute, burstCapacity, maximumKeys, Clock.systemUTC());
+    }
+
+    @SuppressWarnings("unchecked")
+    public TokenBucketRateLimiter(int tokensPerMinute, int burstCapacity, int maximumKeys, Clock clock) {
+        if (tokensPerMinute <= 0 || burstCapacity <= 0 || maximumKeys <= 0) {
+            throw new IllegalArgumentException("Rate, burst capacity and maximum keys must be positive");
+        }
+        this.capacity = burstCapacity;
+        this.tokensPerMilli = tokensPerMinute / 60_000.0;
+        this.fullRefillMillis = (long) Math.ceil(capacity / tokensPerMilli);
+        this.clock = clock;
+
+        int stripeCount = Math.min(STRIPES, maximumKeys);
+        int stripeCapacity = (maximumKeys + stripeCount - 1) / stripeCount;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<>(stripeCapacity);
+        }
+    }
+
+    /**
+     * Take one token from the key's bucket
+     *
+     * @return 0 if a token was taken, otherwise milliseconds until one becomes available
+     */
+    public long tryAcquire(K key) {
+        Stripe<K> stripe = stripeFor(key);
+        long now = clock.millis();
+
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.buckets.put(key, bucket);
+                if (stripe.buckets.size() > stripe.capacity) {
+                    Iterator<Bucket> eldest = stripe.buckets.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            } else {
+                bucket.refill(now, capacity, tokensPerMilli);
+            }
+
+            if (bucket.tokens >= 1.0) {
+                bucket.tokens -= 1.0;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1.0 - bucket.tokens) / tokensPerMilli));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Drop buckets that have been idle long enough to be full again
+     *
+     * @return number of buckets dropped
+     */
+    public int evictIdle() {
+        long idleBefore = clock.millis() - fullRefillMillis;
+        int evicted = 0;
+
+        for (Stripe<K> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                // Access order: stop at the first bucket touched recently
+                Iterator<Map.Entry<K, Bucket>> entries = stripe.buckets.entrySet().iterator();
+                while (entries.hasNext()) {
+                    if (entries.next().getValue().lastRefillMillis > idleBefore) {
+                        break;
+                    }
+                    entries.remove();
+                    evicted++;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<K> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private Stripe<K> stripeFor(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+
+    private static final class Stripe<K> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<K, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+        private final int capacity;
+
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    // Mutable bucket state, only touched under the stripe lock
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillMillis;
+
+        private Bucket(double tokens, long nowMillis) {
+            this.tokens = tokens;
+            this.lastRefillMillis = nowMillis;
+        }
+
+        private void refill(long nowMillis, double capacity, double tokensPerMilli) {
+            long elapsed = nowMillis - lastRefillMillis;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * tokensPerMilli);
+                lastRefillMillis = nowMillis;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.fscip.common.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent Bloom filter of UUIDs. {@link #mightContain} never returns false for a
+ * key that was added, and returns true for an absent key with roughly the false
+ * positive probability the filter was sized for, as long as no more than the expected
+ * number of keys are added.
+ *
+ * Keys cannot be removed; callers that need to forget keys build a fresh filter and
+ * swap it in. Bit positions are derived from the key mixed with a per-instance random
+ * seed, so a caller who does not know the seed cannot pick keys that collide.
+ */
+public class UuidBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+    private final long seed;
+    private final LongAdder added = new LongAdder();
+
+    /**
+     * @param expectedKeys number of keys the filter is sized for
+     * @param falsePositiveRate target false positive probability at that size, between 0 and 1
+     */
+    public UuidBloomFilter(long expectedKeys, double falsePositiveRate) {
+        if (expectedKeys <= 0) {
+            throw new IllegalArgumentException("Expected keys must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        // Optimal m = -n ln p / (ln 2)^2 and k = m/n ln 2, with m rounded up to whole words
+        long optimalBits = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = Math.toIntExact(Math.max(1, (optimalBits + Long.SIZE - 1) / Long.SIZE));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * Long.SIZE;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * Math.log(2)));
+        this.seed = new SecureRandom().nextLong();
+    }
+
+    public void add(UUID key) {
+        long h1 = mix(key.getMostSignificantBits() ^ seed);
+        long h2 = mix(key.getLeastSignificantBits() ^ h1) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+        added.increment();
+    }
+
+    public boolean mightContain(UUID key) {
+        long h1 = mix(key.getMostSignificantBits() ^ seed);
+        long h2 = mix(key.getLeastSignificantBits() ^ h1) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of add calls, counting a key added twice twice
+     */
+    public long addedCount() {
+        return added.sum();
+    }
+
+    public long sizeInBytes() {
+        return bitCount / Byte.SIZE;
+    }
+
+    public int hashFunctionCount() {
+        return hashFunctions;
+    }
+
+    // Finalizer of MurmurHash3's 64-bit variant
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
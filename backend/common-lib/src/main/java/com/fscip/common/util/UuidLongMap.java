@@ -0,0 +1,284 @@
+package com.fscip.common.util;
+
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Concurrent map from UUID to a primitive long, stored without per-entry objects.
+ * Keys are kept as their two long halves in parallel arrays of independently locked,
+ * linearly probed open-addressing stripes; a slot costs 24 bytes, so even at the lowest
+ * load right after growth an entry takes at most 64 bytes, against roughly 150 for a
+ * boxed UUID, a value object and a ConcurrentHashMap node.
+ *
+ * Deletion shifts later entries of the probe run back instead of leaving tombstones,
+ * so lookups never slow down as entries come and go. {@link #NO_VALUE} marks absence
+ * and cannot be stored; the nil UUID is reserved as the empty-slot marker.
+ */
+public class UuidLongMap {
+
+    public static final long NO_VALUE = -1L;
+
+    private static final int STRIPES = 64;
+    private static final int MIN_STRIPE_CAPACITY = 16;
+    private static final int SLOT_BYTES = 3 * Long.BYTES;
+
+    private final Stripe[] stripes;
+
+    public UuidLongMap() {
+        this(STRIPES * MIN_STRIPE_CAPACITY);
+    }
+
+    public UuidLongMap(int expectedSize) {
+        int perStripe = Math.max(MIN_STRIPE_CAPACITY, tableSizeFor((int) Math.ceil(expectedSize / (double) STRIPES / 0.75)));
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * @return the value, or {@link #NO_VALUE} if the key is absent
+     */
+    public long get(UUID key) {
+        long hi = key.getMostSignificantBits();
+        long lo = key.getLeastSignificantBits();
+        if (hi == 0 && lo == 0) {
+            return NO_VALUE;
+        }
+        long hash = hash(hi, lo);
+        Stripe stripe = stripeFor(hash);
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(hi, lo, hash);
+            return slot < 0 ? NO_VALUE : stripe.values[slot];
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void put(UUID key, long value) {
+        compute(key, current -> value);
+    }
+
+    /**
+     * @return the removed value, or {@link #NO_VALUE} if the key was absent
+     */
+    public long remove(UUID key) {
+        long[] removed = {NO_VALUE};
+        compute(key, current -> {
+            removed[0] = current;
+            return NO_VALUE;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Atomically replace the key's value. The function receives the current value or
+     * {@link #NO_VALUE}, and returns the new value or {@link #NO_VALUE} to remove the
+     * key (or leave it absent). It runs under the stripe lock, so keep it short.
+     *
+     * @return the new value, or {@link #NO_VALUE} if the key is now absent
+     */
+    public long compute(UUID key, LongUnaryOperator function) {
+        long hi = key.getMostSignificantBits();
+        long lo = key.getLeastSignificantBits();
+        if (hi == 0 && lo == 0) {
+            throw new IllegalArgumentException("The nil UUID cannot be used as a key");
+        }
+        long hash = hash(hi, lo);
+        Stripe stripe = stripeFor(hash);
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(hi, lo, hash);
+            long current = slot < 0 ? NO_VALUE : stripe.values[slot];
+            long next = function.applyAsLong(current);
+            if (next == NO_VALUE) {
+                if (slot >= 0) {
+                    stripe.delete(slot);
+                }
+            } else if (slot >= 0) {
+                stripe.values[slot] = next;
+            } else {
+                stripe.insert(hi, lo, hash, next);
+            }
+            return next;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Remove every entry whose value matches, one stripe at a time
+     *
+     * @return number of entries removed
+     */
+    public int removeIf(LongPredicate predicate) {
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                removed += stripe.removeIf(predicate);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Bytes held by the slot arrays, excluding the fixed per-stripe overhead
+     */
+    public long tableBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                bytes += (long) stripe.values.length * SLOT_BYTES;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return bytes;
+    }
+
+    private Stripe stripeFor(long hash) {
+        // Top bits pick the stripe, low bits the slot, so the two stay independent
+        return stripes[(int) (hash >>> 58)];
+    }
+
+    private static long hash(long hi, long lo) {
+        // Murmur3 finalizer over both halves
+        long h = hi * 0x9E3779B97F4A7C15L ^ lo;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        return size < 0 ? 1 << 30 : size;
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long[] keysHi;
+        private long[] keysLo;
+        private long[] values;
+        private int mask;
+        private int size;
+
+        private Stripe(int capacity) {
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            keysHi = new long[capacity];
+            keysLo = new long[capacity];
+            values = new long[capacity];
+            mask = capacity - 1;
+        }
+
+        private int find(long hi, long lo, long hash) {
+            for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+                if (keysHi[slot] == hi && keysLo[slot] == lo) {
+                    return slot;
+                }
+                if (isEmpty(slot)) {
+                    return -1;
+                }
+            }
+        }
+
+        private void insert(long hi, long lo, long hash, long value) {
+            if (size + 1 > (values.length >> 2) * 3) {
+                grow();
+            }
+            int slot = (int) hash & mask;
+            while (!isEmpty(slot)) {
+                slot = (slot + 1) & mask;
+            }
+            keysHi[slot] = hi;
+            keysLo[slot] = lo;
+            values[slot] = value;
+            size++;
+        }
+
+        // Backward-shift deletion: pull later entries of the run into the hole
+        private void delete(int hole) {
+            int slot = hole;
+            while (true) {
+                slot = (slot + 1) & mask;
+                if (isEmpty(slot)) {
+                    break;
+                }
+                int home = (int) hash(keysHi[slot], keysLo[slot]) & mask;
+                // Move the entry if its home is not cyclically within (hole, slot]
+                if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    keysHi[hole] = keysHi[slot];
+                    keysLo[hole] = keysLo[slot];
+                    values[hole] = values[slot];
+                    hole = slot;
+                }
+            }
+            keysHi[hole] = 0;
+            keysLo[hole] = 0;
+            values[hole] = 0;
+            size--;
+        }
+
+        private int removeIf(LongPredicate predicate) {
+            int removed = 0;
+            int slot = 0;
+            while (slot < values.length) {
+                // A deletion may shift another entry into this slot, so look again
+                if (!isEmpty(slot) && predicate.test(values[slot])) {
+                    delete(slot);
+                    removed++;
+                } else {
+                    slot++;
+                }
+            }
+            return removed;
+        }
+
+        private void grow() {
+            long[] oldHi = keysHi;
+            long[] oldLo = keysLo;
+            long[] oldValues = values;
+            allocate(oldValues.length << 1);
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldHi[i] != 0 || oldLo[i] != 0) {
+                    int slot = (int) hash(oldHi[i], oldLo[i]) & mask;
+                    while (!isEmpty(slot)) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keysHi[slot] = oldHi[i];
+                    keysLo[slot] = oldLo[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private boolean isEmpty(int slot) {
+            return keysHi[slot] == 0 && keysLo[slot] == 0;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.fscip.common.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+    // One token a second, bursts of three
+    private static final int TOKENS_PER_MINUTE = 60;
+    private static final int BURST = 3;
+
+    private MutableClock clock;
+    private TokenBucketRateLimiter<String> limiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        limiter = new TokenBucketRateLimiter<>(TOKENS_PER_MINUTE, BURST, 100, clock);
+    }
+
+    @Test
+    void testTryAcquire_AllowsBurstThenReportsWait() {
+        // Act & Assert
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        }
+        assertEquals(1000, limiter.tryAcquire("10.0.0.1"));
+    }
+
+    @Test
+    void testTryAcquire_RefillsOverTime() {
+        // Arrange
+        for (int i = 0; i < BURST; i++) {
+            limiter.tryAcquire("10.0.0.1");
+        }
+
+        // Act
+        clock.advance(Duration.ofMillis(400));
+        long waitAfter400 = limiter.tryAcquire("10.0.0.1");
+        clock.advance(Duration.ofMillis(600));
+        long waitAfter1000 = limiter.tryAcquire("10.0.0.1");
+
+        // Assert
+        assertEquals(600, waitAfter400);
+        assertEquals(0, waitAfter1000);
+        assertEquals(1000, limiter.tryAcquire("10.0.0.1"));
+    }
+
+    @Test
+    void testTryAcquire_RefillIsCappedAtBurst() {
+        // Arrange
+        limiter.tryAcquire("10.0.0.1");
+        clock.advance(Duration.ofHours(1));
+
+        // Act & Assert
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        }
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+    }
+
+    @Test
+    void testTryAcquire_KeysHaveSeparateBuckets() {
+        // Arrange
+        for (int i = 0; i < BURST; i++) {
+            limiter.tryAcquire("10.0.0.1");
+        }
+
+        // Act & Assert
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+        assertEquals(0, limiter.tryAcquire("10.0.0.2"));
+    }
+
+    @Test
+    void testEvictIdle_DropsOnlyBucketsThatHaveRefilled() {
+        // Arrange
+        limiter.tryAcquire("idle");
+        clock.advance(Duration.ofSeconds(2));
+        limiter.tryAcquire("recent");
+
+        // Act: a full refill takes BURST seconds, so only "idle" has been quiet long enough
+        clock.advance(Duration.ofSeconds(1));
+        int evicted = limiter.evictIdle();
+
+        // Assert
+        assertEquals(1, evicted);
+        assertEquals(1, limiter.size());
+        clock.advance(Duration.ofSeconds(2));
+        assertEquals(1, limiter.evictIdle());
+        assertEquals(0, limiter.size());
+    }
+
+    @Test
+    void testEvictIdle_EvictedKeyStartsWithFullBucket() {
+        // Arrange
+        for (int i = 0; i < BURST; i++) {
+            limiter.tryAcquire("10.0.0.1");
+        }
+        clock.advance(Duration.ofSeconds(BURST));
+        limiter.evictIdle();
+
+        // Act & Assert
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        }
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+    }
+
+    @Test
+    void testTryAcquire_FullStripeEvictsLeastRecentlyUsedKey() {
+        // Arrange: one stripe holding two keys
+        TokenBucketRateLimiter<String> small = new TokenBucketRateLimiter<>(TOKENS_PER_MINUTE, 1, 1, clock);
+
+        // Act
+        small.tryAcquire("a");
+        small.tryAcquire("b");
+
+        // Assert: "a" was evicted, so it starts again with a full bucket
+        assertEquals(1, small.size());
+        assertEquals(0, small.tryAcquire("a"));
+    }
+
+    @Test
+    void testConstructor_RejectsNonPositiveSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter<>(0, BURST, 100, clock));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter<>(TOKENS_PER_MINUTE, 0, 100, clock));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter<>(TOKENS_PER_MINUTE, BURST, 0, clock));
+    }
+}
@@ -3,9 +3,11 @@ package com.fscip.config;
 import com.fscip.security.CustomAuthenticationEntryPoint;
 import com.fscip.security.CustomAccessDeniedHandler;
 import com.fscip.security.JwtAuthenticationConverter;
+import com.fscip.security.RateLimitFilter;
 import com.fscip.security.RequestLoggingFilter;
 import com.fscip.security.SecurityAuditEventListener;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -20,6 +22,7 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtGra
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -43,6 +46,12 @@ public class SecurityConfiguration {
     @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}")
     private String jwtIssuerUri;
 
+    private final SecurityProperties securityProperties;
+
+    public SecurityConfiguration(SecurityProperties securityProperties) {
+        this.securityProperties = securityProperties;
+    }
+
     /**
      * Main security filter chain for API endpoints
      */
@@ -59,6 +68,7 @@ public class SecurityConfiguration {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(AbstractHttpConfigurer::disable)
             .addFilterBefore(requestLoggingFilter(), UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(rateLimitFilter(), AuthorizationFilter.class)
             .headers(headers -> headers
                 .frameOptions().deny()
                 .contentTypeOptions().and()
@@ -91,7 +101,8 @@ public class SecurityConfiguration {
                 .anyRequest().permitAll()
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-            .csrf(AbstractHttpConfigurer::disable);
+            .csrf(AbstractHttpConfigurer::disable)
+            .addFilterBefore(rateLimitFilter(), AuthorizationFilter.class);
 
         return http.build();
     }
@@ -109,7 +120,8 @@ public class SecurityConfiguration {
                 .anyRequest().permitAll()
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-            .csrf(AbstractHttpConfigurer::disable);
+            .csrf(AbstractHttpConfigurer::disable)
+            .addFilterBefore(rateLimitFilter(), AuthorizationFilter.class);
 
         return http.build();
     }
@@ -243,4 +255,23 @@ public class SecurityConfiguration {
     public RequestLoggingFilter requestLoggingFilter() {
         return new RequestLoggingFilter();
     }
+
+    /**
+     * Token-bucket rate limit filter driven by fscip.security.rate-limit
+     */
+    @Bean
+    public RateLimitFilter rateLimitFilter() {
+        return new RateLimitFilter(securityProperties);
+    }
+
+    /**
+     * Keep the rate limit filter out of the servlet container chain; it runs inside the
+     * security chains, after authentication, so the principal bucket can be applied
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
 }
\ No newline at end of file
@@ -159,6 +159,7 @@ public class SecurityProperties {
         private boolean enabled = true;
         private int requestsPerMinute = 100;
         private int burstCapacity = 200;
+        private int maxTrackedClients = 100_000;
 
         // Getters and setters
         public boolean isEnabled() {
@@ -184,6 +185,14 @@ public class SecurityProperties {
         public void setBurstCapacity(int burstCapacity) {
             this.burstCapacity = burstCapacity;
         }
+
+        public int getMaxTrackedClients() {
+            return maxTrackedClients;
+        }
+
+        public void setMaxTrackedClients(int maxTrackedClients) {
+            this.maxTrackedClients = maxTrackedClients;
+        }
     }
 
     public static class Session {
@@ -0,0 +1,32 @@
+package com.fscip.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.Collection;
+
+/**
+ * JWT authentication for FSCIP application
+ * Carries the user's roles as a {@link RoleSet}, built once when the request is
+ * authenticated, so role checks during the request do not touch the authority strings
+ */
+public class FscipAuthenticationToken extends JwtAuthenticationToken {
+
+    // Bit positions are assigned per JVM, so the set is rebuilt rather than serialized
+    private transient volatile RoleSet roles;
+
+    public FscipAuthenticationToken(Jwt jwt, Collection<? extends GrantedAuthority> authorities, String name) {
+        super(jwt, authorities, name);
+        this.roles = RoleSet.fromAuthorities(authorities);
+    }
+
+    public RoleSet getRoles() {
+        RoleSet current = roles;
+        if (current == null) {
+            current = RoleSet.fromAuthorities(getAuthorities());
+            roles = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,110 @@
+package com.fscip.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fscip.common.util.TokenBucketRateLimiter;
+import com.fscip.config.SecurityProperties;
+import com.fscip.dto.ErrorResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+
+/**
+ * Global rate limit filter for FSCIP application
+ * Enforces fscip.security.rate-limit with one token bucket per client IP and one per
+ * authenticated principal; rejected requests get 429 with Retry-After before any
+ * controller, service or JPA work is done
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final boolean enabled;
+    private final TokenBucketRateLimiter<String> clientIpLimiter;
+    private final TokenBucketRateLimiter<String> principalLimiter;
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    public RateLimitFilter(SecurityProperties securityProperties) {
+        this(securityProperties.getRateLimit(), Clock.systemUTC());
+    }
+
+    public RateLimitFilter(SecurityProperties.RateLimit rateLimit, Clock clock) {
+        this.enabled = rateLimit.isEnabled();
+        this.clientIpLimiter = new TokenBucketRateLimiter<>(rateLimit.getRequestsPerMinute(),
+            rateLimit.getBurstCapacity(), rateLimit.getMaxTrackedClients(), clock);
+        this.principalLimiter = new TokenBucketRateLimiter<>(rateLimit.getRequestsPerMinute(),
+            rateLimit.getBurstCapacity(), rateLimit.getMaxTrackedClients(), clock);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        // With server.forward-headers-strategy=native, Tomcat's RemoteIpValve replaces remoteAddr
+        // with the X-Forwarded-For client only for connections from server.tomcat.remoteip.internal-proxies,
+        // so clients behind the ingress get their own bucket and a spoofed header from outside is ignored
+        long retryAfterMillis = clientIpLimiter.tryAcquire(request.getRemoteAddr());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (retryAfterMillis == 0 && authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            retryAfterMillis = principalLimiter.tryAcquire(authentication.getName());
+        }
+
+        if (retryAfterMillis > 0) {
+            reject(request, response, retryAfterMillis);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Drop buckets of clients that have been quiet long enough to be full again
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdleBuckets() {
+        int evicted = clientIpLimiter.evictIdle() + principalLimiter.evictIdle();
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle rate limit buckets", evicted);
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response,
+                        long retryAfterMillis) throws IOException {
+        long retryAfterSeconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+        logger.warn("Rate limit exceeded for {} on {} - retry after {}s",
+            request.getRemoteAddr(), request.getRequestURI(), retryAfterSeconds);
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.TOO_MANY_REQUESTS.value(),
+            HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase(),
+            "Too many requests. Please retry later",
+            request.getServletPath(),
+            "RATE_LIMIT_EXCEEDED",
+            request.getHeader("X-Request-ID")
+        );
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+}
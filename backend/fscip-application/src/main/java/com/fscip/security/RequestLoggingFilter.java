@@ -1,5 +1,10 @@
 package com.fscip.security;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -10,59 +15,137 @@ import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Request logging filter for FSCIP application
- * Adds request correlation ID and logs incoming requests
+ * Adds request correlation ID and logs completed requests
  * Follows observability requirements from architecture design
+ *
+ * The request thread only copies references to the request's method, URI, headers and
+ * status into a preallocated slot of a ring buffer; a single background thread resolves
+ * the client address, formats the ACCESS lines and writes them a batch at a time. When
+ * the ring is full the record is dropped and counted rather than holding up the request.
  */
 @Component
 @Order(1)
-public class RequestLoggingFilter implements Filter {
+public class RequestLoggingFilter implements Filter, MeterBinder {
 
     private static final Logger logger = LoggerFactory.getLogger(RequestLoggingFilter.class);
     private static final Logger accessLogger = LoggerFactory.getLogger("ACCESS");
-    
+
     private static final String REQUEST_ID_HEADER = "X-Request-ID";
     private static final String CORRELATION_ID_MDC_KEY = "correlationId";
     private static final String USER_ID_MDC_KEY = "userId";
 
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int MAX_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW_REQUEST_MILLIS = 1000;
+
+    private final Slot[] ring;
+    private final int mask;
+    // Next sequence to hand to a request thread, and the next one the writer will read
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public RequestLoggingFilter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity number of records the ring holds, rounded up to a power of two
+     */
+    public RequestLoggingFilter(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Slot();
+        }
+        this.mask = size - 1;
+
+        this.writer = new Thread(this::runWriter, "access-log-writer");
+        writer.setDaemon(true);
+    }
+
+    /**
+     * Start the writer thread; until then records wait in the ring, and are dropped once it is full
+     */
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
-        
+
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
-        
+
         // Generate or extract request ID
         String requestId = getOrGenerateRequestId(httpRequest);
-        
+
         // Set correlation ID in MDC for structured logging
         MDC.put(CORRELATION_ID_MDC_KEY, requestId);
-        
+
         // Add request ID to response headers
         httpResponse.setHeader(REQUEST_ID_HEADER, requestId);
-        
-        long startTime = System.currentTimeMillis();
-        
+
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+
         try {
-            // Log incoming request
-            logIncomingRequest(httpRequest, requestId);
-            
             // Continue with the request
             chain.doFilter(request, response);
-            
+
         } finally {
-            // Log outgoing response
-            long duration = System.currentTimeMillis() - startTime;
-            logOutgoingResponse(httpRequest, httpResponse, requestId, duration);
-            
+            // Hand the completed request to the access log writer
+            publish(httpRequest, httpResponse, requestId, startMillis, System.nanoTime() - startNanos);
+
             // Clean up MDC
             MDC.clear();
         }
     }
 
+    /**
+     * Records written to the ACCESS log
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * Records dropped because the ring was full, the writer had stopped or the request
+     * could not be read
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("access.log.written", this, RequestLoggingFilter::getWrittenCount)
+            .description("Access log records written")
+            .register(registry);
+        FunctionCounter.builder("access.log.dropped", this, RequestLoggingFilter::getDroppedCount)
+            .description("Access log records dropped because the writer could not keep up")
+            .register(registry);
+    }
+
     private String getOrGenerateRequestId(HttpServletRequest request) {
         String requestId = request.getHeader(REQUEST_ID_HEADER);
         if (requestId == null || requestId.trim().isEmpty()) {
@@ -71,65 +154,106 @@ public class RequestLoggingFilter implements Filter {
         return requestId;
     }
 
-    private void logIncomingRequest(HttpServletRequest request, String requestId) {
-        String method = request.getMethod();
-        String uri = request.getRequestURI();
-        String queryString = request.getQueryString();
-        String userAgent = request.getHeader("User-Agent");
-        String clientIp = getClientIpAddress(request);
-        
-        StringBuilder logMessage = new StringBuilder()
-            .append("Incoming request: ")
-            .append(method).append(" ")
-            .append(uri);
-            
-        if (queryString != null) {
-            logMessage.append("?").append(queryString);
+    private void publish(HttpServletRequest request, HttpServletResponse response, String requestId,
+                         long startMillis, long durationNanos) {
+        // Read everything before claiming a slot: once claimed, the sequence must be published
+        // or the writer waits on it forever, so nothing after the claim may throw
+        String method;
+        String uri;
+        int status;
+        String forwardedFor;
+        String realIp;
+        String remoteAddr;
+        String userAgent;
+        try {
+            method = request.getMethod();
+            uri = request.getRequestURI();
+            status = response.getStatus();
+            forwardedFor = request.getHeader("X-Forwarded-For");
+            realIp = request.getHeader("X-Real-IP");
+            remoteAddr = request.getRemoteAddr();
+            userAgent = request.getHeader("User-Agent");
+        } catch (RuntimeException e) {
+            dropped.increment();
+            return;
+        }
+
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (!running || sequence - consumed.get() >= ring.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = ring[(int) sequence & mask];
+        slot.timestampMillis = startMillis;
+        slot.durationNanos = durationNanos;
+        slot.requestId = requestId;
+        slot.method = method;
+        slot.uri = uri;
+        slot.status = status;
+        slot.forwardedFor = forwardedFor;
+        slot.realIp = realIp;
+        slot.remoteAddr = remoteAddr;
+        slot.userAgent = userAgent;
+        // Volatile write: everything above is visible to the writer once it sees the sequence
+        slot.sequence = sequence;
+    }
+
+    private void runWriter() {
+        long cursor = 0;
+        while (running || ring[(int) cursor & mask].sequence == cursor) {
+            int batch = 0;
+            Slot slot;
+            while (batch < MAX_BATCH && (slot = ring[(int) cursor & mask]).sequence == cursor) {
+                write(slot);
+                slot.clear();
+                cursor++;
+                consumed.lazySet(cursor);
+                batch++;
+            }
+            if (batch == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
         }
-        
-        // Log at INFO level for access logging
-        accessLogger.info("REQ {} {} from {} - UserAgent: {}", 
-            method, uri, clientIp, userAgent);
-            
-        // Log at DEBUG level for detailed request info
-        logger.debug("{} - IP: {}, UserAgent: {}", 
-            logMessage.toString(), clientIp, userAgent);
-    }
-
-    private void logOutgoingResponse(HttpServletRequest request, HttpServletResponse response, 
-                                   String requestId, long duration) {
-        String method = request.getMethod();
-        String uri = request.getRequestURI();
-        int status = response.getStatus();
-        String clientIp = getClientIpAddress(request);
-        
-        // Log at INFO level for access logging
-        accessLogger.info("RES {} {} {} {}ms from {}", 
-            method, uri, status, duration, clientIp);
-            
-        // Log at DEBUG level for detailed response info
-        logger.debug("Response: {} {} - Status: {}, Duration: {}ms", 
-            method, uri, status, duration);
-            
-        // Log slow requests at WARN level
-        if (duration > 1000) { // Requests taking more than 1 second
-            logger.warn("Slow request detected: {} {} - Duration: {}ms", 
-                method, uri, duration);
+    }
+
+    private void write(Slot slot) {
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(slot.durationNanos);
+        String clientIp = getClientIpAddress(slot);
+        try {
+            // Written after the fact, so the line carries the time the request arrived
+            accessLogger.info("RES {} {} {} {}ms from {} at {} - UserAgent: {} - RequestId: {}",
+                slot.method, slot.uri, slot.status, durationMillis, clientIp,
+                Instant.ofEpochMilli(slot.timestampMillis), slot.userAgent, slot.requestId);
+
+            // Log slow requests at WARN level
+            if (durationMillis > SLOW_REQUEST_MILLIS) {
+                logger.warn("Slow request detected: {} {} - Duration: {}ms - RequestId: {}",
+                    slot.method, slot.uri, durationMillis, slot.requestId);
+            }
+            written.increment();
+        } catch (RuntimeException e) {
+            // A failing appender must not stop the writer
+            dropped.increment();
         }
     }
 
-    private String getClientIpAddress(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
+    private static String getClientIpAddress(Slot slot) {
+        String xForwardedFor = slot.forwardedFor;
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
+            int comma = xForwardedFor.indexOf(',');
+            return (comma < 0 ? xForwardedFor : xForwardedFor.substring(0, comma)).trim();
         }
-        
-        String xRealIp = request.getHeader("X-Real-IP");
+
+        String xRealIp = slot.realIp;
         if (xRealIp != null && !xRealIp.isEmpty()) {
             return xRealIp;
         }
-        
-        return request.getRemoteAddr();
+
+        return slot.remoteAddr;
     }
 
     @Override
@@ -141,4 +265,43 @@ public class RequestLoggingFilter implements Filter {
     public void destroy() {
         logger.info("RequestLoggingFilter destroyed");
     }
-}
\ No newline at end of file
+
+    /**
+     * Stop accepting records and write what is in the ring, waiting up to five seconds
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // One preallocated record; the writer clears the references once it has written them
+    private static final class Slot {
+        private volatile long sequence = -1;
+        private long timestampMillis;
+        private long durationNanos;
+        private String requestId;
+        private String method;
+        private String uri;
+        private int status;
+        private String forwardedFor;
+        private String realIp;
+        private String remoteAddr;
+        private String userAgent;
+
+        private void clear() {
+            requestId = null;
+            method = null;
+            uri = null;
+            forwardedFor = null;
+            realIp = null;
+            remoteAddr = null;
+            userAgent = null;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.fscip.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable set of roles stored as a bitset
+ * Each role name is given a bit the first time it is seen, process-wide, so checking a
+ * set built once per request against a set of required roles built once per call site
+ * is a single AND for the first 64 roles instead of a scan of the authority strings
+ */
+public final class RoleSet {
+
+    public static final RoleSet EMPTY = new RoleSet(0L, null);
+
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final Map<String, Integer> BIT_BY_AUTHORITY = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_BIT = new AtomicInteger();
+
+    // Roles 0-63, and beyond that one word per further 64 roles (null while there are none)
+    private final long bits;
+    private final long[] overflow;
+
+    private RoleSet(long bits, long[] overflow) {
+        this.bits = bits;
+        this.overflow = overflow;
+    }
+
+    /**
+     * Build a set from role names, with or without the ROLE_ prefix
+     */
+    public static RoleSet of(String... roles) {
+        return of(Arrays.asList(roles));
+    }
+
+    /**
+     * Build a set from role names, with or without the ROLE_ prefix
+     */
+    public static RoleSet of(Collection<String> roles) {
+        Builder builder = new Builder();
+        for (String role : roles) {
+            if (StringUtils.hasText(role)) {
+                builder.add(bitFor(toAuthority(role)));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Build a set from the ROLE_ authorities of an authentication; other authorities are ignored
+     */
+    public static RoleSet fromAuthorities(Collection<? extends GrantedAuthority> authorities) {
+        Builder builder = new Builder();
+        for (GrantedAuthority authority : authorities) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith(ROLE_PREFIX)) {
+                builder.add(bitFor(name));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Check for a single role by name; prefer a precomputed set with {@link #containsAny}
+     * on hot paths, as this looks the name up first
+     */
+    public boolean contains(String role) {
+        Integer bit = BIT_BY_AUTHORITY.get(toAuthority(role));
+        return bit != null && isSet(bit);
+    }
+
+    /**
+     * @return true if this set has at least one of the given roles
+     */
+    public boolean containsAny(RoleSet roles) {
+        if ((bits & roles.bits) != 0) {
+            return true;
+        }
+        if (overflow == null || roles.overflow == null) {
+            return false;
+        }
+        int words = Math.min(overflow.length, roles.overflow.length);
+        for (int i = 0; i < words; i++) {
+            if ((overflow[i] & roles.overflow[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if this set has every one of the given roles
+     */
+    public boolean containsAll(RoleSet roles) {
+        if ((bits & roles.bits) != roles.bits) {
+            return false;
+        }
+        if (roles.overflow == null) {
+            return true;
+        }
+        for (int i = 0; i < roles.overflow.length; i++) {
+            long mine = overflow != null && i < overflow.length ? overflow[i] : 0L;
+            if ((mine & roles.overflow[i]) != roles.overflow[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return this == EMPTY || (bits == 0 && overflow == null);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RoleSet)) {
+            return false;
+        }
+        RoleSet other = (RoleSet) o;
+        return bits == other.bits && Arrays.equals(overflow, other.overflow);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(bits) + Arrays.hashCode(overflow);
+    }
+
+    private boolean isSet(int bit) {
+        if (bit < Long.SIZE) {
+            return (bits & (1L << bit)) != 0;
+        }
+        int word = (bit >>> 6) - 1;
+        return overflow != null && word < overflow.length && (overflow[word] & (1L << bit)) != 0;
+    }
+
+    // Same normalisation as JwtAuthenticationConverter applies to role claims
+    private static String toAuthority(String role) {
+        return role.startsWith(ROLE_PREFIX) ? role : ROLE_PREFIX + role.toUpperCase();
+    }
+
+    private static int bitFor(String authority) {
+        return BIT_BY_AUTHORITY.computeIfAbsent(authority, name -> NEXT_BIT.getAndIncrement());
+    }
+
+    private static final class Builder {
+        private long bits;
+        private long[] overflow;
+
+        void add(int bit) {
+            if (bit < Long.SIZE) {
+                bits |= 1L << bit;
+                return;
+            }
+            int word = (bit >>> 6) - 1;
+            if (overflow == null) {
+                overflow = new long[word + 1];
+            } else if (word >= overflow.length) {
+                overflow = Arrays.copyOf(overflow, word + 1);
+            }
+            overflow[word] |= 1L << bit;
+        }
+
+        RoleSet build() {
+            return bits == 0 && overflow == null ? EMPTY : new RoleSet(bits, overflow);
+        }
+    }
+}
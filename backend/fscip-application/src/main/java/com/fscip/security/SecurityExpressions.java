@@ -12,61 +12,63 @@ import java.lang.annotation.*;
 @Component("securityExpressions")
 public class SecurityExpressions {
 
+    // Role sets are resolved once here so each check below is a bitwise test
+    private static final RoleSet ADMIN_OPERATOR_ANALYST = RoleSet.of("ADMIN", "OPERATOR", "ANALYST");
+    private static final RoleSet ADMIN_OPERATOR = RoleSet.of("ADMIN", "OPERATOR");
+    private static final RoleSet USER = RoleSet.of("USER");
+    private static final RoleSet COMPLIANCE = RoleSet.of("ADMIN", "COMPLIANCE_OFFICER", "ANALYST");
+    private static final RoleSet SEARCH = RoleSet.of("ADMIN", "ANALYST", "INVESTIGATOR");
+    private static final RoleSet RULES = RoleSet.of("ADMIN", "RULES_MANAGER");
+
     /**
      * Check if user can access account data
      */
     public boolean canAccessAccount(String accountId) {
-        return SecurityUtils.isAdmin() || 
-               SecurityUtils.hasAnyRole("OPERATOR", "ANALYST") ||
-               isAccountOwner(accountId);
+        return SecurityUtils.hasAnyRole(ADMIN_OPERATOR_ANALYST) || isAccountOwner(accountId);
     }
 
     /**
      * Check if user can modify account data
      */
     public boolean canModifyAccount(String accountId) {
-        return SecurityUtils.isAdmin() || 
-               SecurityUtils.hasRole("OPERATOR") ||
-               (isAccountOwner(accountId) && SecurityUtils.hasRole("USER"));
+        RoleSet roles = SecurityUtils.getCurrentRoles();
+        return roles.containsAny(ADMIN_OPERATOR) ||
+               (roles.containsAny(USER) && isAccountOwner(accountId));
     }
 
     /**
      * Check if user can access transaction data
      */
     public boolean canAccessTransaction(String transactionId) {
-        return SecurityUtils.isAdmin() || 
-               SecurityUtils.hasAnyRole("OPERATOR", "ANALYST") ||
-               isTransactionOwner(transactionId);
+        return SecurityUtils.hasAnyRole(ADMIN_OPERATOR_ANALYST) || isTransactionOwner(transactionId);
     }
 
     /**
      * Check if user can perform compliance operations
      */
     public boolean canPerformCompliance() {
-        return SecurityUtils.hasAnyRole("ADMIN", "COMPLIANCE_OFFICER", "ANALYST");
+        return SecurityUtils.hasAnyRole(COMPLIANCE);
     }
 
     /**
      * Check if user can access search functionality
      */
     public boolean canSearch() {
-        return SecurityUtils.hasAnyRole("ADMIN", "ANALYST", "INVESTIGATOR");
+        return SecurityUtils.hasAnyRole(SEARCH);
     }
 
     /**
      * Check if user can manage rules
      */
     public boolean canManageRules() {
-        return SecurityUtils.hasAnyRole("ADMIN", "RULES_MANAGER");
+        return SecurityUtils.hasAnyRole(RULES);
     }
 
     /**
      * Check if user can access documents
      */
     public boolean canAccessDocuments(String documentId) {
-        return SecurityUtils.isAdmin() || 
-               SecurityUtils.hasAnyRole("OPERATOR", "ANALYST") ||
-               isDocumentOwner(documentId);
+        return SecurityUtils.hasAnyRole(ADMIN_OPERATOR_ANALYST) || isDocumentOwner(documentId);
     }
 
     /**
@@ -18,6 +18,8 @@ import java.util.Optional;
 @Component
 public class SecurityUtils {
 
+    private static final RoleSet ADMIN = RoleSet.of("ADMIN");
+
     /**
      * Get the current authenticated user's username
      */
@@ -108,45 +110,69 @@ public class SecurityUtils {
     }
 
     /**
-     * Check if the current user has a specific role
+     * Get the current user's roles; empty when not authenticated
      */
-    public static boolean hasRole(String role) {
+    public static RoleSet getCurrentRoles() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        
+
         if (authentication == null || !authentication.isAuthenticated()) {
-            return false;
+            return RoleSet.EMPTY;
         }
 
-        String roleWithPrefix = role.startsWith("ROLE_") ? role : "ROLE_" + role.toUpperCase();
-        
-        return authentication.getAuthorities().stream()
-            .anyMatch(authority -> authority.getAuthority().equals(roleWithPrefix));
+        if (authentication instanceof FscipAuthenticationToken) {
+            return ((FscipAuthenticationToken) authentication).getRoles();
+        }
+
+        return RoleSet.fromAuthorities(authentication.getAuthorities());
+    }
+
+    /**
+     * Check if the current user has a specific role
+     */
+    public static boolean hasRole(String role) {
+        return getCurrentRoles().contains(role);
     }
 
     /**
      * Check if the current user has any of the specified roles
      */
     public static boolean hasAnyRole(String... roles) {
+        RoleSet currentRoles = getCurrentRoles();
         for (String role : roles) {
-            if (hasRole(role)) {
+            if (currentRoles.contains(role)) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Check if the current user has any of the specified roles
+     */
+    public static boolean hasAnyRole(RoleSet roles) {
+        return getCurrentRoles().containsAny(roles);
+    }
+
     /**
      * Check if the current user has all of the specified roles
      */
     public static boolean hasAllRoles(String... roles) {
+        RoleSet currentRoles = getCurrentRoles();
         for (String role : roles) {
-            if (!hasRole(role)) {
+            if (!currentRoles.contains(role)) {
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * Check if the current user has all of the specified roles
+     */
+    public static boolean hasAllRoles(RoleSet roles) {
+        return getCurrentRoles().containsAll(roles);
+    }
+
     /**
      * Get all current user's authorities
      */
@@ -190,7 +216,7 @@ public class SecurityUtils {
      * Check if the current user has admin privileges
      */
     public static boolean isAdmin() {
-        return hasRole("ADMIN");
+        return hasAnyRole(ADMIN);
     }
 
     /**
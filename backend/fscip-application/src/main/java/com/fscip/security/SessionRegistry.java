@@ -0,0 +1,337 @@
+package com.fscip.security;
+
+import com.fscip.common.util.ExpiryIndex;
+import com.fscip.config.SecurityProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory registry of user sessions for FSCIP application
+ * Enforces fscip.security.session: a session idle for longer than timeout expires, and
+ * registering a session beyond max-concurrent-sessions revokes the user's oldest one.
+ *
+ * Checking a session on a request is one lookup in a concurrent map, with no lock and
+ * no database query. Changes to a user's sessions are serialised by one of a fixed set
+ * of locks chosen by user ID, so logins of different users do not contend. Expired
+ * sessions are dropped by a sweep over an {@link ExpiryIndex}, which only visits the
+ * time buckets that have come due.
+ *
+ * Sessions live in this node's memory only: a session registered, touched or revoked on
+ * one node is unknown to the others, so with more than one node a revocation only takes
+ * effect where it was made. Until revocations are shared between nodes, run behind
+ * session-affine routing or check the session with the node that issued it.
+ */
+@Component
+public class SessionRegistry implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionRegistry.class);
+    private static final int STRIPES = 64;
+    private static final Duration SWEEP_TICK = Duration.ofSeconds(1);
+
+    private final Clock clock;
+    private final long timeoutMillis;
+    private final int maxConcurrentSessions;
+
+    private final Map<String, SessionEntry> sessions = new ConcurrentHashMap<>();
+    private final ExpiryIndex<String> expiryIndex = new ExpiryIndex<>(SWEEP_TICK);
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final LongAdder revokedLogout = new LongAdder();
+    private final LongAdder revokedLimit = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    @Autowired
+    public SessionRegistry(SecurityProperties securityProperties) {
+        this(securityProperties.getSession(), Clock.systemUTC());
+    }
+
+    public SessionRegistry(SecurityProperties.Session session, Clock clock) {
+        if (session.getMaxConcurrentSessions() <= 0) {
+            throw new IllegalArgumentException("Max concurrent sessions must be positive");
+        }
+        this.clock = clock;
+        this.timeoutMillis = session.getTimeout().toMillis();
+        this.maxConcurrentSessions = session.getMaxConcurrentSessions();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Register a new session for the user, revoking the user's oldest live sessions
+     * if this one would exceed max-concurrent-sessions
+     *
+     * @param userId owner of the session
+     * @param sessionId session or token ID, e.g. the JWT sid or jti claim
+     * @return IDs of the sessions revoked to make room, oldest first
+     */
+    public List<String> register(String userId, String sessionId) {
+        long now = clock.millis();
+        SessionEntry entry = new SessionEntry(sessionId, userId, now + timeoutMillis);
+        List<String> revoked = Collections.emptyList();
+
+        Stripe stripe = stripeFor(userId);
+        stripe.lock.lock();
+        try {
+            SessionEntry existing = sessions.get(sessionId);
+            if (existing != null) {
+                if (!existing.userId.equals(userId)) {
+                    throw new IllegalArgumentException("Session " + sessionId + " belongs to another user");
+                }
+                // Registering the same session again replaces it rather than counting twice
+                removeFromUser(existing);
+            }
+            ArrayDeque<SessionEntry> userSessions = stripe.sessionsByUser.computeIfAbsent(userId, id -> new ArrayDeque<>());
+            // Drop what has already expired so it does not count against the limit
+            userSessions.removeIf(candidate -> {
+                if (!candidate.isExpired(now)) {
+                    return false;
+                }
+                if (sessions.remove(candidate.sessionId, candidate)) {
+                    expired.increment();
+                }
+                return true;
+            });
+            while (userSessions.size() >= maxConcurrentSessions) {
+                SessionEntry oldest = userSessions.pollFirst();
+                sessions.remove(oldest.sessionId, oldest);
+                revokedLimit.increment();
+                if (revoked.isEmpty()) {
+                    revoked = new ArrayList<>();
+                }
+                revoked.add(oldest.sessionId);
+            }
+            sessions.put(sessionId, entry);
+            userSessions.addLast(entry);
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        expiryIndex.schedule(sessionId, entry.expiresAt);
+        if (!revoked.isEmpty()) {
+            logger.info("Revoked {} sessions of user {} over the limit of {}", revoked.size(), userId,
+                maxConcurrentSessions);
+        }
+        return revoked;
+    }
+
+    /**
+     * Check that a session is registered, not revoked and not idle past the timeout
+     */
+    public boolean isActive(String sessionId) {
+        SessionEntry entry = sessions.get(sessionId);
+        return entry != null && !entry.isExpired(clock.millis());
+    }
+
+    /**
+     * Check a session and, if it is active, extend its idle timeout from now
+     *
+     * @return true if the session is active
+     */
+    public boolean touch(String sessionId) {
+        SessionEntry entry = sessions.get(sessionId);
+        long now = clock.millis();
+        if (entry == null || entry.isExpired(now)) {
+            return false;
+        }
+        // The sweep finds the old expiry, sees the new one and reschedules
+        entry.expiresAt = now + timeoutMillis;
+        return true;
+    }
+
+    /**
+     * Revoke one session, e.g. on logout
+     *
+     * @return true if the session was registered
+     */
+    public boolean revoke(String sessionId) {
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry == null) {
+            return false;
+        }
+        Stripe stripe = stripeFor(entry.userId);
+        stripe.lock.lock();
+        try {
+            if (!sessions.remove(sessionId, entry)) {
+                return false;
+            }
+            removeFromUser(entry);
+        } finally {
+            stripe.lock.unlock();
+        }
+        revokedLogout.increment();
+        return true;
+    }
+
+    /**
+     * Revoke every session of a user, e.g. on logout from all devices or a password change
+     *
+     * @return number of sessions revoked
+     */
+    public int revokeAll(String userId) {
+        Stripe stripe = stripeFor(userId);
+        stripe.lock.lock();
+        try {
+            ArrayDeque<SessionEntry> userSessions = stripe.sessionsByUser.remove(userId);
+            if (userSessions == null) {
+                return 0;
+            }
+            for (SessionEntry entry : userSessions) {
+                sessions.remove(entry.sessionId, entry);
+            }
+            revokedLogout.add(userSessions.size());
+            return userSessions.size();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Number of the user's sessions that have not expired
+     */
+    public int activeSessionCount(String userId) {
+        long now = clock.millis();
+        Stripe stripe = stripeFor(userId);
+        stripe.lock.lock();
+        try {
+            ArrayDeque<SessionEntry> userSessions = stripe.sessionsByUser.get(userId);
+            if (userSessions == null) {
+                return 0;
+            }
+            int active = 0;
+            for (SessionEntry entry : userSessions) {
+                if (!entry.isExpired(now)) {
+                    active++;
+                }
+            }
+            return active;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Drop sessions whose idle timeout has passed; sessions touched since they were
+     * scheduled are filed again under their new expiry
+     *
+     * @return number of sessions dropped
+     */
+    @Scheduled(fixedDelay = 1_000)
+    public int sweepExpired() {
+        long now = clock.millis();
+        int[] dropped = {0};
+        expiryIndex.drainExpired(now, sessionId -> {
+            SessionEntry entry = sessions.get(sessionId);
+            if (entry == null) {
+                return;
+            }
+            if (!entry.isExpired(now)) {
+                expiryIndex.schedule(sessionId, entry.expiresAt);
+                return;
+            }
+            Stripe stripe = stripeFor(entry.userId);
+            stripe.lock.lock();
+            try {
+                if (sessions.remove(sessionId, entry)) {
+                    removeFromUser(entry);
+                    dropped[0]++;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        });
+        expired.add(dropped[0]);
+        if (dropped[0] > 0) {
+            logger.debug("Dropped {} expired sessions", dropped[0]);
+        }
+        return dropped[0];
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("sessions.registered", this, SessionRegistry::size)
+            .description("Sessions held by the registry, including expired ones not yet swept")
+            .register(registry);
+        FunctionCounter.builder("sessions.revoked", revokedLogout, LongAdder::sum)
+            .description("Sessions revoked")
+            .tag("reason", "logout")
+            .register(registry);
+        FunctionCounter.builder("sessions.revoked", revokedLimit, LongAdder::sum)
+            .description("Sessions revoked")
+            .tag("reason", "concurrent_limit")
+            .register(registry);
+        FunctionCounter.builder("sessions.expired", expired, LongAdder::sum)
+            .description("Sessions dropped after their idle timeout")
+            .register(registry);
+    }
+
+    // Caller holds the lock of the entry's user
+    private void removeFromUser(SessionEntry entry) {
+        Stripe stripe = stripeFor(entry.userId);
+        ArrayDeque<SessionEntry> userSessions = stripe.sessionsByUser.get(entry.userId);
+        if (userSessions == null) {
+            return;
+        }
+        Iterator<SessionEntry> iterator = userSessions.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == entry) {
+                iterator.remove();
+                break;
+            }
+        }
+        if (userSessions.isEmpty()) {
+            stripe.sessionsByUser.remove(entry.userId);
+        }
+    }
+
+    private Stripe stripeFor(String userId) {
+        int hash = userId.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        // A user's sessions in registration order, oldest first
+        private final Map<String, ArrayDeque<SessionEntry>> sessionsByUser = new HashMap<>();
+    }
+
+    private static final class SessionEntry {
+        private final String sessionId;
+        private final String userId;
+        private volatile long expiresAt;
+
+        private SessionEntry(String sessionId, String userId, long expiresAt) {
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long nowMillis) {
+            return expiresAt <= nowMillis;
+        }
+    }
+}
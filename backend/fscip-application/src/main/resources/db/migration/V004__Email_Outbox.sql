@@ -0,0 +1,26 @@
+-- =====================================================
+-- Transactional outbox for identity-module emails
+-- Rows are written in the same transaction as the OTP or
+-- activation change and relayed to the email provider
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    outbox_id BIGSERIAL PRIMARY KEY,
+    email_type VARCHAR(30) NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    otp VARCHAR(6),
+    expiration_minutes INTEGER,
+    full_name VARCHAR(255),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error TEXT,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+-- The relay only scans pending rows that are due
+CREATE INDEX IF NOT EXISTS idx_email_outbox_pending
+    ON email_outbox(next_attempt_at) WHERE status = 'PENDING';
+
+COMMENT ON TABLE email_outbox IS 'Outbound emails written transactionally and relayed to the email provider';
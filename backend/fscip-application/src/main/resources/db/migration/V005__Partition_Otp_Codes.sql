@@ -0,0 +1,85 @@
+-- =====================================================
+-- Range-partition otp_codes by created_at, one partition per day
+-- Expired codes are purged in bounded chunks by the application;
+-- days past retention are dropped as whole partitions
+-- =====================================================
+
+ALTER TABLE otp_codes RENAME TO otp_codes_unpartitioned;
+ALTER TABLE otp_codes_unpartitioned RENAME CONSTRAINT otp_codes_pkey TO otp_codes_unpartitioned_pkey;
+ALTER INDEX IF EXISTS idx_otp_codes_user_id RENAME TO idx_otp_codes_unpartitioned_user_id;
+ALTER INDEX IF EXISTS idx_otp_codes_expires_at RENAME TO idx_otp_codes_unpartitioned_expires_at;
+-- Keep the id sequence when the old table is dropped
+ALTER SEQUENCE otp_codes_otp_id_seq OWNED BY NONE;
+
+-- The partition key has to be part of the primary key
+CREATE TABLE otp_codes (
+    otp_id BIGINT NOT NULL DEFAULT nextval('otp_codes_otp_id_seq'),
+    user_id UUID NOT NULL REFERENCES users(user_id) ON DELETE CASCADE,
+    otp VARCHAR(6) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    attempts INTEGER DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (otp_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE otp_codes_otp_id_seq OWNED BY otp_codes.otp_id;
+
+CREATE INDEX IF NOT EXISTS idx_otp_codes_user_id ON otp_codes(user_id);
+CREATE INDEX IF NOT EXISTS idx_otp_codes_expires_at ON otp_codes(expires_at);
+
+-- Catches rows outside the maintained days, e.g. while maintenance is not running;
+-- the chunked purge empties it as those codes expire
+CREATE TABLE IF NOT EXISTS otp_codes_default PARTITION OF otp_codes DEFAULT;
+
+-- Creates daily partitions from today to days_ahead and drops those whose day ended
+-- more than retention_days ago; returns the number of partitions dropped
+CREATE OR REPLACE FUNCTION maintain_otp_codes_partitions(days_ahead INTEGER, retention_days INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    partition_day DATE;
+    partition_name TEXT;
+    expired RECORD;
+    dropped INTEGER := 0;
+BEGIN
+    IF retention_days < 1 THEN
+        RAISE EXCEPTION 'retention_days must be at least 1, got %', retention_days;
+    END IF;
+
+    FOR partition_day IN
+        SELECT generate_series(CURRENT_DATE::TIMESTAMP, (CURRENT_DATE + days_ahead)::TIMESTAMP, INTERVAL '1 day')::DATE
+    LOOP
+        partition_name := 'otp_codes_p' || to_char(partition_day, 'YYYYMMDD');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF otp_codes FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, partition_day, partition_day + 1);
+        END IF;
+    END LOOP;
+
+    FOR expired IN
+        SELECT child.relname
+        FROM pg_inherits inh
+        JOIN pg_class child ON child.oid = inh.inhrelid
+        JOIN pg_class parent ON parent.oid = inh.inhparent
+        WHERE parent.relname = 'otp_codes'
+          AND child.relname ~ '^otp_codes_p[0-9]{8}$'
+          AND to_date(substring(child.relname FROM 12), 'YYYYMMDD') < CURRENT_DATE - retention_days
+    LOOP
+        EXECUTE format('DROP TABLE %I', expired.relname);
+        dropped := dropped + 1;
+    END LOOP;
+
+    RETURN dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT maintain_otp_codes_partitions(7, 1);
+
+-- Rows from before today land in the default partition
+INSERT INTO otp_codes (otp_id, user_id, otp, expires_at, attempts, created_at)
+SELECT otp_id, user_id, otp, expires_at, attempts, COALESCE(created_at, expires_at)
+FROM otp_codes_unpartitioned;
+
+DROP TABLE otp_codes_unpartitioned;
+
+COMMENT ON TABLE otp_codes IS 'One-time password codes for 2FA authentication, partitioned daily by created_at';
+COMMENT ON FUNCTION maintain_otp_codes_partitions(INTEGER, INTEGER) IS 'Rolls otp_codes daily partitions forward and drops those past retention';
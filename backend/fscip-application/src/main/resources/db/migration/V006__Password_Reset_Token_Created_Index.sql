@@ -0,0 +1,7 @@
+-- =====================================================
+-- Index password_reset_tokens by created_at
+-- Each node's token filter catches up on tokens issued
+-- by other nodes since its last load with a range scan
+-- =====================================================
+
+CREATE INDEX IF NOT EXISTS idx_password_reset_tokens_created_at ON password_reset_tokens(created_at);
@@ -0,0 +1,11 @@
+-- =====================================================
+-- Email outbox retention
+-- Sent and failed rows no longer need the OTP they carried,
+-- and are deleted by the purge once past retention
+-- =====================================================
+
+UPDATE email_outbox SET otp = NULL WHERE status IN ('SENT', 'FAILED') AND otp IS NOT NULL;
+
+-- The purge walks completed rows by age
+CREATE INDEX IF NOT EXISTS idx_email_outbox_completed
+    ON email_outbox(created_at) WHERE status IN ('SENT', 'FAILED');
@@ -0,0 +1,72 @@
+-- =====================================================
+-- Let otp_codes partition maintenance recover after a lapse
+-- While maintenance is not running, live rows for a day land
+-- in otp_codes_default, and PostgreSQL refuses to create that
+-- day's partition while the default holds rows for its range.
+-- The default partition is now detached, the day's partition
+-- created, its rows moved across and the default reattached,
+-- all in the transaction of the maintenance call
+-- =====================================================
+
+CREATE OR REPLACE FUNCTION maintain_otp_codes_partitions(days_ahead INTEGER, retention_days INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    partition_day DATE;
+    partition_name TEXT;
+    default_detached BOOLEAN := FALSE;
+    expired RECORD;
+    dropped INTEGER := 0;
+BEGIN
+    IF retention_days < 1 THEN
+        RAISE EXCEPTION 'retention_days must be at least 1, got %', retention_days;
+    END IF;
+
+    FOR partition_day IN
+        SELECT generate_series(CURRENT_DATE::TIMESTAMP, (CURRENT_DATE + days_ahead)::TIMESTAMP, INTERVAL '1 day')::DATE
+    LOOP
+        partition_name := 'otp_codes_p' || to_char(partition_day, 'YYYYMMDD');
+        IF to_regclass(partition_name) IS NULL THEN
+            -- Detaching locks otp_codes until commit, so no row can slip into a range
+            -- that has no partition while the default is away
+            IF NOT default_detached AND EXISTS (
+                SELECT 1 FROM otp_codes_default
+                WHERE created_at >= partition_day AND created_at < partition_day + 1) THEN
+                ALTER TABLE otp_codes DETACH PARTITION otp_codes_default;
+                default_detached := TRUE;
+            END IF;
+
+            EXECUTE format('CREATE TABLE %I PARTITION OF otp_codes FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, partition_day, partition_day + 1);
+
+            IF default_detached THEN
+                WITH moved AS (
+                    DELETE FROM otp_codes_default
+                    WHERE created_at >= partition_day AND created_at < partition_day + 1
+                    RETURNING otp_id, user_id, otp, expires_at, attempts, created_at
+                )
+                INSERT INTO otp_codes (otp_id, user_id, otp, expires_at, attempts, created_at)
+                SELECT otp_id, user_id, otp, expires_at, attempts, created_at FROM moved;
+            END IF;
+        END IF;
+    END LOOP;
+
+    IF default_detached THEN
+        ALTER TABLE otp_codes ATTACH PARTITION otp_codes_default DEFAULT;
+    END IF;
+
+    FOR expired IN
+        SELECT child.relname
+        FROM pg_inherits inh
+        JOIN pg_class child ON child.oid = inh.inhrelid
+        JOIN pg_class parent ON parent.oid = inh.inhparent
+        WHERE parent.relname = 'otp_codes'
+          AND child.relname ~ '^otp_codes_p[0-9]{8}$'
+          AND to_date(substring(child.relname FROM 12), 'YYYYMMDD') < CURRENT_DATE - retention_days
+    LOOP
+        EXECUTE format('DROP TABLE %I', expired.relname);
+        dropped := dropped + 1;
+    END LOOP;
+
+    RETURN dropped;
+END;
+$$ LANGUAGE plpgsql;
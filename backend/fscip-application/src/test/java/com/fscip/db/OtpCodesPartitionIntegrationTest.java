@@ -0,0 +1,131 @@
+package com.fscip.db;
+
+import com.fscip.identity.service.impl.OtpCodePurger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.util.StreamUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the otp_codes partitioning migrations and partition maintenance against
+ * PostgreSQL; the H2 test database has no partitioned tables. Skipped where Docker is
+ * not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class OtpCodesPartitionIntegrationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private JdbcTemplate jdbcTemplate;
+    private OtpCodePurger purger;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS otp_codes, users CASCADE");
+        // The tables as V002 leaves them, cut down to what the partition migrations touch
+        jdbcTemplate.execute("CREATE TABLE users (user_id UUID PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE otp_codes (" +
+            "otp_id BIGSERIAL PRIMARY KEY, " +
+            "user_id UUID NOT NULL REFERENCES users(user_id) ON DELETE CASCADE, " +
+            "otp VARCHAR(6) NOT NULL, expires_at TIMESTAMP NOT NULL, attempts INTEGER DEFAULT 0, " +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        jdbcTemplate.execute("CREATE INDEX idx_otp_codes_user_id ON otp_codes(user_id)");
+        jdbcTemplate.execute("CREATE INDEX idx_otp_codes_expires_at ON otp_codes(expires_at)");
+        migrate("V005__Partition_Otp_Codes.sql");
+        migrate("V008__Otp_Codes_Partition_Recovery.sql");
+
+        userId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (user_id) VALUES (?)", userId);
+        purger = new OtpCodePurger(null, TransactionOperations.withoutTransaction(), jdbcTemplate,
+            1000, 100, true, 7, 1);
+    }
+
+    @Test
+    void testMaintainPartitions_MovesLiveRowsOutOfDefaultAfterLapse() {
+        // Arrange: maintenance lapsed, so today has no partition and today's codes sit in the default
+        String today = jdbcTemplate.queryForObject("SELECT to_char(CURRENT_DATE, 'YYYYMMDD')", String.class);
+        jdbcTemplate.execute("DROP TABLE otp_codes_p" + today);
+        for (int i = 0; i < 3; i++) {
+            insertOtp("CURRENT_TIMESTAMP");
+        }
+        assertEquals(3, count("otp_codes_default"));
+
+        // Act
+        purger.maintainPartitions();
+
+        // Assert
+        assertEquals(3, count("otp_codes_p" + today));
+        assertEquals(0, count("otp_codes_default"));
+        assertEquals(3, count("otp_codes"));
+        assertEquals("otp_codes_p" + today, partitionOf(insertOtp("CURRENT_TIMESTAMP")));
+    }
+
+    @Test
+    void testMaintainPartitions_DefaultStaysAttachedForRowsOutsideMaintainedDays() {
+        // Arrange
+        String today = jdbcTemplate.queryForObject("SELECT to_char(CURRENT_DATE, 'YYYYMMDD')", String.class);
+        jdbcTemplate.execute("DROP TABLE otp_codes_p" + today);
+        insertOtp("CURRENT_TIMESTAMP");
+        long old = insertOtp("CURRENT_TIMESTAMP - INTERVAL '30 days'");
+
+        // Act
+        purger.maintainPartitions();
+        long older = insertOtp("CURRENT_TIMESTAMP - INTERVAL '40 days'");
+
+        // Assert: rows from before retention still have somewhere to go
+        assertEquals("otp_codes_default", partitionOf(old));
+        assertEquals("otp_codes_default", partitionOf(older));
+        assertEquals(2, count("otp_codes_default"));
+    }
+
+    @Test
+    void testMaintainPartitions_DropsDaysPastRetention() {
+        // Arrange: a partition for a day long past
+        jdbcTemplate.execute("CREATE TABLE otp_codes_p20000101 PARTITION OF otp_codes " +
+            "FOR VALUES FROM ('2000-01-01') TO ('2000-01-02')");
+
+        // Act
+        int dropped = purger.maintainPartitions();
+
+        // Assert
+        assertEquals(1, dropped);
+        assertNull(jdbcTemplate.queryForObject("SELECT to_regclass('otp_codes_p20000101')::text", String.class));
+    }
+
+    private long insertOtp(String createdAt) {
+        return jdbcTemplate.queryForObject("INSERT INTO otp_codes (user_id, otp, expires_at, created_at) " +
+            "VALUES (?, '123456', CURRENT_TIMESTAMP + INTERVAL '10 minutes', " + createdAt + ") RETURNING otp_id",
+            Long.class, userId);
+    }
+
+    private String partitionOf(long otpId) {
+        return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM otp_codes WHERE otp_id = ?",
+            String.class, otpId);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private void migrate(String script) throws IOException {
+        String sql = StreamUtils.copyToString(
+            new ClassPathResource("db/migration/" + script).getInputStream(), StandardCharsets.UTF_8);
+        jdbcTemplate.execute(sql);
+    }
+}
@@ -0,0 +1,254 @@
+package com.fscip.security;
+
+import com.fscip.common.util.MutableClock;
+import com.fscip.config.SecurityProperties;
+import jakarta.servlet.FilterChain;
+import org.apache.catalina.filters.RemoteIpFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private MutableClock clock;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        filter = new RateLimitFilter(rateLimit(true), clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testDoFilter_RejectsOverBurstWith429AndRetryAfter() throws Exception {
+        // Arrange
+        assertEquals(200, send("203.0.113.7").getStatus());
+        assertEquals(200, send("203.0.113.7").getStatus());
+
+        // Act
+        MockHttpServletResponse rejected = send("203.0.113.7");
+
+        // Assert
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(rejected.getContentAsString().contains("RATE_LIMIT_EXCEEDED"));
+    }
+
+    @Test
+    void testDoFilter_RejectedRequestDoesNotReachChain() throws Exception {
+        // Arrange
+        send("203.0.113.7");
+        send("203.0.113.7");
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(request("203.0.113.7"), new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void testDoFilter_RetryAfterRoundsUpToWholeSeconds() throws Exception {
+        // Arrange: 6 a minute, so one token takes 10 seconds
+        SecurityProperties.RateLimit slow = rateLimit(true);
+        slow.setRequestsPerMinute(6);
+        slow.setBurstCapacity(1);
+        filter = new RateLimitFilter(slow, clock);
+        send("203.0.113.7");
+        clock.advance(Duration.ofMillis(500));
+
+        // Act
+        MockHttpServletResponse rejected = send("203.0.113.7");
+
+        // Assert
+        assertEquals(429, rejected.getStatus());
+        assertEquals("10", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void testDoFilter_AllowsAgainAfterRefill() throws Exception {
+        // Arrange
+        send("203.0.113.7");
+        send("203.0.113.7");
+        assertEquals(429, send("203.0.113.7").getStatus());
+
+        // Act
+        clock.advance(Duration.ofSeconds(1));
+
+        // Assert
+        assertEquals(200, send("203.0.113.7").getStatus());
+        assertEquals(429, send("203.0.113.7").getStatus());
+    }
+
+    @Test
+    void testDoFilter_ClientsHaveSeparateBuckets() throws Exception {
+        // Arrange
+        send("203.0.113.7");
+        send("203.0.113.7");
+
+        // Act & Assert
+        assertEquals(429, send("203.0.113.7").getStatus());
+        assertEquals(200, send("198.51.100.20").getStatus());
+    }
+
+    @Test
+    void testDoFilter_LimitsPrincipalAcrossAddresses() throws Exception {
+        // Arrange
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken("alice", null, AuthorityUtils.createAuthorityList("ROLE_CUSTOMER")));
+
+        // Act: each request comes from a new address, so only the principal bucket runs out
+        MockHttpServletResponse first = send("203.0.113.1");
+        MockHttpServletResponse second = send("203.0.113.2");
+        MockHttpServletResponse third = send("203.0.113.3");
+
+        // Assert
+        assertEquals(200, first.getStatus());
+        assertEquals(200, second.getStatus());
+        assertEquals(429, third.getStatus());
+
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken("bob", null, AuthorityUtils.createAuthorityList("ROLE_CUSTOMER")));
+        assertEquals(200, send("203.0.113.4").getStatus());
+    }
+
+    @Test
+    void testDoFilter_AnonymousUsersAreLimitedByAddressOnly() throws Exception {
+        // Arrange
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken(
+            "key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+
+        // Act & Assert
+        for (int i = 1; i <= 5; i++) {
+            assertEquals(200, send("203.0.113." + i).getStatus());
+        }
+    }
+
+    @Test
+    void testEvictIdleBuckets_ForgetsClientsOnceRefilled() throws Exception {
+        // Arrange
+        send("203.0.113.7");
+        send("203.0.113.7");
+        assertEquals(429, send("203.0.113.7").getStatus());
+
+        // Act: two seconds refills a burst of two
+        clock.advance(Duration.ofSeconds(2));
+        filter.evictIdleBuckets();
+
+        // Assert: the client starts again with a full bucket
+        assertEquals(200, send("203.0.113.7").getStatus());
+        assertEquals(200, send("203.0.113.7").getStatus());
+        assertEquals(429, send("203.0.113.7").getStatus());
+    }
+
+    @Test
+    void testDoFilter_DisabledLetsEverythingThrough() throws Exception {
+        // Arrange
+        filter = new RateLimitFilter(rateLimit(false), clock);
+
+        // Act & Assert
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, send("203.0.113.7").getStatus());
+        }
+    }
+
+    @Test
+    void testDoFilter_ClientsBehindTrustedProxyHaveSeparateBuckets() throws Exception {
+        // Arrange: the valve settings from application.properties, applied to the filter equivalent
+        RemoteIpFilter remoteIp = remoteIpFilter();
+
+        // Act: both clients reach the application through the same ingress pod
+        MockHttpServletResponse first = sendThrough(remoteIp, "10.42.0.7", "203.0.113.7");
+        MockHttpServletResponse second = sendThrough(remoteIp, "10.42.0.7", "203.0.113.7");
+        MockHttpServletResponse third = sendThrough(remoteIp, "10.42.0.7", "203.0.113.7");
+        MockHttpServletResponse otherClient = sendThrough(remoteIp, "10.42.0.7", "198.51.100.20");
+
+        // Assert
+        assertEquals(200, first.getStatus());
+        assertEquals(200, second.getStatus());
+        assertEquals(429, third.getStatus());
+        assertEquals(200, otherClient.getStatus());
+    }
+
+    @Test
+    void testDoFilter_ForwardedHeaderFromUntrustedPeerIsIgnored() throws Exception {
+        // Arrange
+        RemoteIpFilter remoteIp = remoteIpFilter();
+        sendThrough(remoteIp, "203.0.113.7", "198.51.100.1");
+        sendThrough(remoteIp, "203.0.113.7", "198.51.100.2");
+
+        // Act: a client outside the cluster cannot pick a fresh bucket by forging the header
+        MockHttpServletResponse spoofed = sendThrough(remoteIp, "203.0.113.7", "198.51.100.3");
+
+        // Assert
+        assertEquals(429, spoofed.getStatus());
+    }
+
+    private MockHttpServletResponse sendThrough(RemoteIpFilter remoteIp, String peerAddr, String forwardedFor)
+            throws Exception {
+        MockHttpServletRequest request = request(peerAddr);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        remoteIp.doFilter(request, response, (req, res) -> filter.doFilter(req, res, new MockFilterChain()));
+        return response;
+    }
+
+    private static RemoteIpFilter remoteIpFilter() throws Exception {
+        Properties properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+        assertEquals("native", properties.getProperty("server.forward-headers-strategy"));
+
+        MockFilterConfig config = new MockFilterConfig();
+        config.addInitParameter("internalProxies", properties.getProperty("server.tomcat.remoteip.internal-proxies"));
+        config.addInitParameter("remoteIpHeader", properties.getProperty("server.tomcat.remoteip.remote-ip-header"));
+        config.addInitParameter("protocolHeader", properties.getProperty("server.tomcat.remoteip.protocol-header"));
+        RemoteIpFilter remoteIp = new RemoteIpFilter();
+        remoteIp.init(config);
+        return remoteIp;
+    }
+
+    private MockHttpServletResponse send(String remoteAddr) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = new MockFilterChain();
+        filter.doFilter(request(remoteAddr), response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/accounts");
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    // One token a second, bursts of two
+    private static SecurityProperties.RateLimit rateLimit(boolean enabled) {
+        SecurityProperties.RateLimit rateLimit = new SecurityProperties.RateLimit();
+        rateLimit.setEnabled(enabled);
+        rateLimit.setRequestsPerMinute(60);
+        rateLimit.setBurstCapacity(2);
+        rateLimit.setMaxTrackedClients(1000);
+        return rateLimit;
+    }
+}
@@ -0,0 +1,133 @@
+package com.fscip.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLoggingFilterTest {
+
+    private RequestLoggingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        // Four slots, and the writer is not started until a test does so
+        filter = new RequestLoggingFilter(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        filter.shutdown();
+    }
+
+    @Test
+    void testDoFilter_FullRingDropsAndCountsRecords() throws Exception {
+        // Act
+        for (int i = 0; i < 6; i++) {
+            send(request());
+        }
+
+        // Assert
+        assertEquals(2, filter.getDroppedCount());
+        assertEquals(0, filter.getWrittenCount());
+    }
+
+    @Test
+    void testStart_WriterDrainsRingAndAcceptsMore() throws Exception {
+        // Arrange
+        for (int i = 0; i < 6; i++) {
+            send(request());
+        }
+
+        // Act
+        filter.start();
+        awaitCount(filter::getWrittenCount, 4);
+        send(request());
+        send(request());
+
+        // Assert
+        awaitCount(filter::getWrittenCount, 6);
+        assertEquals(2, filter.getDroppedCount());
+    }
+
+    @Test
+    void testDoFilter_UnreadableRequestIsDroppedWithoutStallingWriter() throws Exception {
+        // Arrange
+        filter.start();
+        HttpServletRequestWrapper unreadable = new HttpServletRequestWrapper(request()) {
+            @Override
+            public String getHeader(String name) {
+                if ("User-Agent".equals(name)) {
+                    throw new IllegalStateException("Request already recycled");
+                }
+                return super.getHeader(name);
+            }
+        };
+
+        // Act
+        send(unreadable);
+        send(request());
+
+        // Assert: the request after it is still written
+        awaitCount(filter::getWrittenCount, 1);
+        assertEquals(1, filter.getDroppedCount());
+    }
+
+    @Test
+    void testShutdown_WritesWhatIsInRingThenDrops() throws Exception {
+        // Arrange
+        filter.start();
+        send(request());
+        send(request());
+
+        // Act
+        filter.shutdown();
+        send(request());
+
+        // Assert
+        assertEquals(2, filter.getWrittenCount());
+        assertEquals(1, filter.getDroppedCount());
+    }
+
+    @Test
+    void testDoFilter_EchoesRequestId() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = request();
+        request.addHeader("X-Request-ID", "req-42");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(request, response, new MockFilterChain());
+
+        // Assert
+        assertEquals("req-42", response.getHeader("X-Request-ID"));
+    }
+
+    private void send(HttpServletRequest request) throws Exception {
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/accounts");
+        request.addHeader("User-Agent", "test-agent");
+        request.setRemoteAddr("203.0.113.7");
+        return request;
+    }
+
+    private static void awaitCount(LongSupplier count, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count.getAsLong() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, count.getAsLong());
+    }
+}
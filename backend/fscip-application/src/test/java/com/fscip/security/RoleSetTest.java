@@ -0,0 +1,141 @@
+package com.fscip.security;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoleSetTest {
+
+    // Bits are handed out process-wide, so registering this many new roles puts the last
+    // ones past the first 64 whatever other tests registered before
+    private static final int ROLES = 70;
+
+    private static List<String> roles;
+
+    @BeforeAll
+    static void registerRoles() {
+        String prefix = "T" + UUID.randomUUID().toString().replace("-", "").substring(0, 8).toUpperCase() + "_";
+        roles = new ArrayList<>();
+        for (int i = 0; i < ROLES; i++) {
+            roles.add(prefix + i);
+        }
+        RoleSet.of(roles);
+    }
+
+    @Test
+    void testContains_AcceptsNameWithOrWithoutPrefix() {
+        // Arrange
+        RoleSet set = RoleSet.of("admin", "CUSTOMER");
+
+        // Act & Assert
+        assertTrue(set.contains("admin"));
+        assertTrue(set.contains("ADMIN"));
+        assertTrue(set.contains("ROLE_ADMIN"));
+        assertTrue(set.contains("ROLE_CUSTOMER"));
+        assertFalse(set.contains("SUPPORT"));
+        assertFalse(set.contains("ROLE_NEVER_SEEN_" + UUID.randomUUID()));
+    }
+
+    @Test
+    void testFromAuthorities_KeepsOnlyRoleAuthorities() {
+        // Act
+        RoleSet set = RoleSet.fromAuthorities(AuthorityUtils.createAuthorityList("ROLE_ADMIN", "SCOPE_read"));
+
+        // Assert
+        assertEquals(RoleSet.of("ADMIN"), set);
+        assertFalse(set.contains("SCOPE_read"));
+    }
+
+    @Test
+    void testContains_RolesBeyondFirstWord() {
+        // Arrange
+        RoleSet all = RoleSet.of(roles);
+        String last = roles.get(ROLES - 1);
+
+        // Act & Assert
+        for (String role : roles) {
+            assertTrue(all.contains(role), role);
+        }
+        assertTrue(RoleSet.of(last).contains("ROLE_" + last));
+        assertFalse(RoleSet.of(roles.get(0)).contains(last));
+        assertFalse(RoleSet.of(last).contains(roles.get(ROLES - 2)));
+    }
+
+    @Test
+    void testContainsAny_MatchesInOverflowWords() {
+        // Arrange
+        String last = roles.get(ROLES - 1);
+        RoleSet user = RoleSet.of("CUSTOMER", last);
+
+        // Act & Assert
+        assertTrue(user.containsAny(RoleSet.of(last)));
+        assertTrue(user.containsAny(RoleSet.of("ADMIN", last)));
+        assertFalse(user.containsAny(RoleSet.of(roles.get(ROLES - 2))));
+        assertFalse(RoleSet.of("CUSTOMER").containsAny(RoleSet.of(last)));
+        assertFalse(RoleSet.of(last).containsAny(RoleSet.of("ADMIN")));
+    }
+
+    @Test
+    void testContainsAll_ChecksEveryWord() {
+        // Arrange
+        RoleSet all = RoleSet.of(roles);
+        String last = roles.get(ROLES - 1);
+        RoleSet required = RoleSet.of(roles.get(0), last);
+
+        // Act & Assert
+        assertTrue(all.containsAll(required));
+        assertTrue(all.containsAll(all));
+        assertFalse(RoleSet.of(roles.get(0)).containsAll(required));
+        assertFalse(RoleSet.of(last).containsAll(required));
+        assertTrue(RoleSet.of(roles.get(0)).containsAll(RoleSet.of(roles.get(0))));
+    }
+
+    @Test
+    void testEquals_IgnoresOrderAndPrefix() {
+        // Arrange
+        List<String> reversed = new ArrayList<>(roles);
+        Collections.reverse(reversed);
+
+        // Act & Assert
+        assertEquals(RoleSet.of(roles), RoleSet.of(reversed));
+        assertEquals(RoleSet.of(roles).hashCode(), RoleSet.of(reversed).hashCode());
+        assertEquals(RoleSet.of("admin"), RoleSet.of("ROLE_ADMIN"));
+        assertNotEquals(RoleSet.of(roles), RoleSet.of(roles.subList(0, ROLES - 1)));
+    }
+
+    @Test
+    void testEmpty_HasNoRolesAndRequiresNone() {
+        // Arrange
+        RoleSet empty = RoleSet.of();
+
+        // Act & Assert
+        assertSame(RoleSet.EMPTY, empty);
+        assertSame(RoleSet.EMPTY, RoleSet.of("", " "));
+        assertTrue(empty.isEmpty());
+        assertFalse(empty.contains("ADMIN"));
+        assertFalse(empty.containsAny(RoleSet.of("ADMIN")));
+        assertFalse(RoleSet.of("ADMIN").containsAny(empty));
+        assertTrue(RoleSet.of("ADMIN").containsAll(empty));
+        assertFalse(empty.containsAll(RoleSet.of(roles.get(ROLES - 1))));
+    }
+
+    @Test
+    void testFromAuthorities_AnonymousHasOnlyAnonymousRole() {
+        // Act
+        RoleSet anonymous = RoleSet.fromAuthorities(AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+        RoleSet noRoles = RoleSet.fromAuthorities(AuthorityUtils.NO_AUTHORITIES);
+
+        // Assert
+        assertTrue(anonymous.contains("ANONYMOUS"));
+        assertFalse(anonymous.isEmpty());
+        assertFalse(anonymous.containsAny(RoleSet.of("ADMIN", "CUSTOMER", roles.get(ROLES - 1))));
+        assertSame(RoleSet.EMPTY, noRoles);
+    }
+}
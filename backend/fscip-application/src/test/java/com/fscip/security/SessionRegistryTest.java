@@ -0,0 +1,191 @@
+package com.fscip.security;
+
+import com.fscip.common.util.MutableClock;
+import com.fscip.config.SecurityProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionRegistryTest {
+
+    private MutableClock clock;
+    private SessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        registry = new SessionRegistry(session(Duration.ofMinutes(30), 2), clock);
+    }
+
+    @Test
+    void testRegister_OverLimitRevokesOldestSession() {
+        // Arrange
+        registry.register("alice", "s1");
+        clock.advance(Duration.ofSeconds(1));
+        registry.register("alice", "s2");
+
+        // Act
+        List<String> revoked = registry.register("alice", "s3");
+
+        // Assert
+        assertEquals(List.of("s1"), revoked);
+        assertFalse(registry.isActive("s1"));
+        assertTrue(registry.isActive("s2"));
+        assertTrue(registry.isActive("s3"));
+        assertEquals(2, registry.activeSessionCount("alice"));
+    }
+
+    @Test
+    void testRegister_LimitIsPerUser() {
+        // Arrange
+        registry.register("alice", "a1");
+        registry.register("alice", "a2");
+
+        // Act
+        List<String> revoked = registry.register("bob", "b1");
+
+        // Assert
+        assertTrue(revoked.isEmpty());
+        assertEquals(2, registry.activeSessionCount("alice"));
+        assertEquals(1, registry.activeSessionCount("bob"));
+    }
+
+    @Test
+    void testRegister_SameSessionAgainIsNotCountedTwice() {
+        // Arrange
+        registry.register("alice", "s1");
+        registry.register("alice", "s2");
+
+        // Act: s1 moves to the newest position instead of taking another slot
+        List<String> again = registry.register("alice", "s1");
+        List<String> revoked = registry.register("alice", "s3");
+
+        // Assert
+        assertTrue(again.isEmpty());
+        assertEquals(List.of("s2"), revoked);
+        assertTrue(registry.isActive("s1"));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void testRegister_SessionOfAnotherUserIsRejected() {
+        // Arrange
+        registry.register("alice", "s1");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> registry.register("bob", "s1"));
+        assertTrue(registry.isActive("s1"));
+        assertEquals(1, registry.activeSessionCount("alice"));
+        assertEquals(0, registry.activeSessionCount("bob"));
+    }
+
+    @Test
+    void testRevoke_RemovesOnlyThatSession() {
+        // Arrange
+        registry.register("alice", "s1");
+        registry.register("alice", "s2");
+
+        // Act
+        boolean revoked = registry.revoke("s1");
+
+        // Assert
+        assertTrue(revoked);
+        assertFalse(registry.revoke("s1"));
+        assertFalse(registry.isActive("s1"));
+        assertTrue(registry.isActive("s2"));
+        assertEquals(1, registry.activeSessionCount("alice"));
+        assertTrue(registry.register("alice", "s3").isEmpty());
+    }
+
+    @Test
+    void testRevokeAll_RemovesEverySessionOfUser() {
+        // Arrange
+        registry.register("alice", "a1");
+        registry.register("alice", "a2");
+        registry.register("bob", "b1");
+
+        // Act
+        int revoked = registry.revokeAll("alice");
+
+        // Assert
+        assertEquals(2, revoked);
+        assertEquals(0, registry.revokeAll("alice"));
+        assertFalse(registry.isActive("a1"));
+        assertFalse(registry.isActive("a2"));
+        assertTrue(registry.isActive("b1"));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testSweepExpired_DropsIdleSessions() {
+        // Arrange
+        registry.register("alice", "s1");
+
+        // Act
+        clock.advance(Duration.ofMinutes(30));
+        boolean activeAtTimeout = registry.isActive("s1");
+        clock.advance(Duration.ofSeconds(2));
+        int dropped = registry.sweepExpired();
+
+        // Assert
+        assertFalse(activeAtTimeout);
+        assertEquals(1, dropped);
+        assertEquals(0, registry.size());
+        assertEquals(0, registry.activeSessionCount("alice"));
+    }
+
+    @Test
+    void testTouch_ExtendsExpiryAcrossSweep() {
+        // Arrange
+        registry.register("alice", "s1");
+        clock.advance(Duration.ofMinutes(20));
+
+        // Act: the sweep reaches the original expiry, but the session was used since
+        assertTrue(registry.touch("s1"));
+        clock.advance(Duration.ofMinutes(15));
+        int droppedAfterOriginalExpiry = registry.sweepExpired();
+        boolean activeAfterOriginalExpiry = registry.isActive("s1");
+        clock.advance(Duration.ofMinutes(16));
+        int droppedAfterNewExpiry = registry.sweepExpired();
+
+        // Assert
+        assertEquals(0, droppedAfterOriginalExpiry);
+        assertTrue(activeAfterOriginalExpiry);
+        assertEquals(1, droppedAfterNewExpiry);
+        assertFalse(registry.touch("s1"));
+    }
+
+    @Test
+    void testRegister_ExpiredSessionsDoNotCountAgainstLimit() {
+        // Arrange
+        registry.register("alice", "s1");
+        registry.register("alice", "s2");
+        clock.advance(Duration.ofMinutes(31));
+
+        // Act: nothing has been swept yet
+        List<String> revoked = registry.register("alice", "s3");
+
+        // Assert
+        assertTrue(revoked.isEmpty());
+        assertEquals(1, registry.activeSessionCount("alice"));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testConstructor_RejectsNonPositiveLimit() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new SessionRegistry(session(Duration.ofMinutes(30), 0), clock));
+    }
+
+    private static SecurityProperties.Session session(Duration timeout, int maxConcurrentSessions) {
+        SecurityProperties.Session session = new SecurityProperties.Session();
+        session.setTimeout(timeout);
+        session.setMaxConcurrentSessions(maxConcurrentSessions);
+        return session;
+    }
+}
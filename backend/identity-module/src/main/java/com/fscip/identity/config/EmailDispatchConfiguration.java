@@ -0,0 +1,78 @@
+package com.fscip.identity.config;
+
+import com.fscip.identity.repository.EmailOutboxRepository;
+import com.fscip.identity.service.EmailDeliveryListener;
+import com.fscip.identity.service.EmailService;
+import com.fscip.identity.service.impl.AsyncEmailServiceImpl;
+import com.fscip.identity.service.impl.EmailOutboxRelay;
+import com.fscip.identity.service.impl.OutboxEmailServiceImpl;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Email dispatch modes selected by app.email.dispatch-mode:
+ * sync (default) calls the provider bean directly, async wraps it in a queueing
+ * dispatcher and outbox records emails in the email_outbox table for a relay to send
+ */
+@Configuration
+public class EmailDispatchConfiguration {
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "app.email.dispatch-mode", havingValue = "async")
+    public AsyncEmailServiceImpl asyncEmailService(
+            List<EmailService> emailServices,
+            ObjectProvider<EmailDeliveryListener> deliveryListeners,
+            @Value("${app.email.async.workers:4}") int workers,
+            @Value("${app.email.async.queue-capacity:1000}") int queueCapacity) {
+        return new AsyncEmailServiceImpl(emailProvider(emailServices), workers, queueCapacity,
+            deliveryListeners.orderedStream().collect(Collectors.toList()));
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "app.email.dispatch-mode", havingValue = "outbox")
+    public OutboxEmailServiceImpl outboxEmailService(EmailOutboxRepository outboxRepository) {
+        return new OutboxEmailServiceImpl(outboxRepository);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.email.dispatch-mode", havingValue = "outbox")
+    public EmailOutboxRelay emailOutboxRelay(
+            EmailOutboxRepository outboxRepository,
+            List<EmailService> emailServices,
+            PlatformTransactionManager transactionManager,
+            ObjectProvider<EmailDeliveryListener> deliveryListeners,
+            @Value("${app.email.outbox.batch-size:50}") int batchSize,
+            @Value("${app.email.outbox.max-attempts:5}") int maxAttempts,
+            @Value("${app.email.outbox.retry-delay-seconds:30}") long retryDelaySeconds) {
+        return new EmailOutboxRelay(outboxRepository, emailProvider(emailServices),
+            new TransactionTemplate(transactionManager),
+            deliveryListeners.orderedStream().collect(Collectors.toList()),
+            batchSize, maxAttempts, Duration.ofSeconds(retryDelaySeconds));
+    }
+
+    /**
+     * The provider that actually sends email: the one EmailService that is not a dispatcher
+     */
+    private static EmailService emailProvider(List<EmailService> emailServices) {
+        List<EmailService> providers = emailServices.stream()
+            .filter(service -> !(service instanceof AsyncEmailServiceImpl || service instanceof OutboxEmailServiceImpl))
+            .collect(Collectors.toList());
+        if (providers.size() != 1) {
+            throw new IllegalStateException("Expected exactly one email provider to dispatch to, found: "
+                + providers.stream().map(p -> p.getClass().getSimpleName()).collect(Collectors.joining(", ")));
+        }
+        return providers.get(0);
+    }
+}
@@ -0,0 +1,53 @@
+package com.fscip.identity.config;
+
+import com.fscip.identity.service.OtpCacheInvalidationBus;
+import com.fscip.identity.service.OtpCacheService;
+import com.fscip.identity.service.impl.LayeredOtpCacheServiceImpl;
+import com.fscip.identity.service.impl.RedisOtpCacheInvalidationBus;
+import com.fscip.identity.service.impl.RedisOtpCacheServiceImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+
+/**
+ * Wiring for the layered OTP cache (app.otp.cache.type=layered):
+ * a node-local near-cache in front of the shared Redis store, kept coherent
+ * through Redis pub/sub invalidations
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.otp.cache.type", havingValue = "layered")
+public class OtpCacheConfiguration {
+
+    @Bean
+    public RedisMessageListenerContainer otpCacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    @Bean
+    public OtpCacheInvalidationBus otpCacheInvalidationBus(
+            StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer otpCacheInvalidationListenerContainer,
+            @Value("${app.otp.cache.layered.channel:fscip:otp:invalidate}") String channel) {
+        return new RedisOtpCacheInvalidationBus(redisTemplate, otpCacheInvalidationListenerContainer, channel);
+    }
+
+    @Bean
+    public OtpCacheService layeredOtpCacheService(
+            StringRedisTemplate redisTemplate,
+            OtpCacheInvalidationBus otpCacheInvalidationBus,
+            @Value("${app.otp.cache.redis.key-prefix:fscip:otp:}") String keyPrefix,
+            @Value("${app.otp.cache.layered.l1-maximum-size:10000}") int l1MaximumSize,
+            @Value("${app.otp.cache.layered.l1-ttl-seconds:5}") long l1TtlSeconds) {
+        OtpCacheService sharedStore = new RedisOtpCacheServiceImpl(redisTemplate, keyPrefix);
+        return new LayeredOtpCacheServiceImpl(sharedStore, otpCacheInvalidationBus,
+            l1MaximumSize, Duration.ofSeconds(l1TtlSeconds));
+    }
+}
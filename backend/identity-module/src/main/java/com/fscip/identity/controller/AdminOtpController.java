@@ -0,0 +1,79 @@
+package com.fscip.identity.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fscip.identity.dto.BulkOtpIssuanceProgressDto;
+import com.fscip.identity.service.BulkOtpIssuanceService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/admin/otp")
+@Tag(name = "OTP Administration", description = "Administrative OTP operations")
+public class AdminOtpController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminOtpController.class);
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final BulkOtpIssuanceService bulkOtpIssuanceService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public AdminOtpController(BulkOtpIssuanceService bulkOtpIssuanceService, ObjectMapper objectMapper) {
+        this.bulkOtpIssuanceService = bulkOtpIssuanceService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Operation(
+        summary = "Bulk issue activation OTPs",
+        description = "Stream email addresses, one per line, and issue activation OTPs to the PENDING users among them. "
+            + "Progress is streamed back as one JSON object per line after every chunk; the last line has done=true."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Issuance progress stream"),
+        @ApiResponse(responseCode = "403", description = "Caller is not an administrator")
+    })
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/bulk", consumes = MediaType.TEXT_PLAIN_VALUE, produces = NDJSON)
+    public void issueOtps(InputStream body, HttpServletResponse response) throws IOException {
+        logger.info("Received bulk OTP issuance request");
+
+        // Read the list and write progress on the request thread, so neither is buffered whole
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            bulkOtpIssuanceService.issueOtps(reader.lines().iterator(), progress -> writeLine(out, progress));
+        } catch (UncheckedIOException e) {
+            logger.warn("Bulk OTP issuance stream aborted", e);
+            throw e.getCause();
+        }
+    }
+
+    private void writeLine(OutputStream out, BulkOtpIssuanceProgressDto progress) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(progress));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
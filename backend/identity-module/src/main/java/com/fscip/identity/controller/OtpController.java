@@ -4,15 +4,18 @@ import com.fscip.identity.dto.OtpRequestDto;
 import com.fscip.identity.dto.OtpResponseDto;
 import com.fscip.identity.dto.OtpVerificationDto;
 import com.fscip.identity.dto.OtpVerificationResponseDto;
+import com.fscip.identity.service.LoginHistoryRecorder;
 import com.fscip.identity.service.OtpService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -26,10 +29,12 @@ public class OtpController {
     private static final Logger logger = LoggerFactory.getLogger(OtpController.class);
 
     private final OtpService otpService;
+    private final LoginHistoryRecorder loginHistoryRecorder;
 
     @Autowired
-    public OtpController(OtpService otpService) {
+    public OtpController(OtpService otpService, LoginHistoryRecorder loginHistoryRecorder) {
         this.otpService = otpService;
+        this.loginHistoryRecorder = loginHistoryRecorder;
     }
 
     @Operation(
@@ -79,7 +84,8 @@ public class OtpController {
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PostMapping("/verify")
-    public ResponseEntity<OtpVerificationResponseDto> verifyOtp(@Valid @RequestBody OtpVerificationDto verification) {
+    public ResponseEntity<OtpVerificationResponseDto> verifyOtp(@Valid @RequestBody OtpVerificationDto verification,
+                                                                HttpServletRequest httpRequest) {
         logger.info("Received OTP verification for email: {}", verification.getEmail());
         
         try {
@@ -88,6 +94,12 @@ public class OtpController {
             if (response.isSuccess()) {
                 logger.info("OTP verification successful for email: {} | User ID: {}", 
                            verification.getEmail(), response.getUserId());
+                // Queued for a background batch insert; never delays the response. Behind the
+                // ingress, remoteAddr is already the client: fscip-application runs with
+                // server.forward-headers-strategy=native, so Tomcat takes it from X-Forwarded-For
+                // for connections from trusted proxies only
+                loginHistoryRecorder.record(response.getUserId(), httpRequest.getRemoteAddr(),
+                    httpRequest.getHeader(HttpHeaders.USER_AGENT));
                 return ResponseEntity.ok(response);
             } else {
                 logger.warn("OTP verification failed for email: {} | Reason: {} | Remaining attempts: {}", 
@@ -105,7 +117,7 @@ public class OtpController {
     }
 
     private HttpStatus determineErrorStatus(String errorMessage) {
-        if (errorMessage.contains("Too many OTP requests")) {
+        if (errorMessage.contains("Too many OTP requests") || errorMessage.contains("already in progress")) {
             return HttpStatus.TOO_MANY_REQUESTS;
         } else if (errorMessage.contains("User not found")) {
             return HttpStatus.NOT_FOUND;
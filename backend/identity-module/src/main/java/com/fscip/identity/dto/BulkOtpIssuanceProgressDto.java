@@ -0,0 +1,74 @@
+package com.fscip.identity.dto;
+
+/**
+ * Running totals of a bulk OTP issuance, reported after every chunk
+ */
+public class BulkOtpIssuanceProgressDto {
+
+    private final int chunks;
+    private final long processed;
+    private final long issued;
+    private final long notFound;
+    private final long notPending;
+    private final long emailsNotAccepted;
+    private final long elapsedMillis;
+    private final boolean done;
+
+    public BulkOtpIssuanceProgressDto(int chunks, long processed, long issued, long notFound, long notPending,
+                                      long emailsNotAccepted, long elapsedMillis, boolean done) {
+        this.chunks = chunks;
+        this.processed = processed;
+        this.issued = issued;
+        this.notFound = notFound;
+        this.notPending = notPending;
+        this.emailsNotAccepted = emailsNotAccepted;
+        this.elapsedMillis = elapsedMillis;
+        this.done = done;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getIssued() {
+        return issued;
+    }
+
+    public long getNotFound() {
+        return notFound;
+    }
+
+    public long getNotPending() {
+        return notPending;
+    }
+
+    public long getEmailsNotAccepted() {
+        return emailsNotAccepted;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkOtpIssuanceProgressDto{" +
+                "chunks=" + chunks +
+                ", processed=" + processed +
+                ", issued=" + issued +
+                ", notFound=" + notFound +
+                ", notPending=" + notPending +
+                ", emailsNotAccepted=" + emailsNotAccepted +
+                ", elapsedMillis=" + elapsedMillis +
+                ", done=" + done +
+                '}';
+    }
+}
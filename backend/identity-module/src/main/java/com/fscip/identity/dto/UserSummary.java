@@ -0,0 +1,71 @@
+package com.fscip.identity.dto;
+
+import com.fscip.identity.entity.User;
+import com.fscip.identity.entity.UserStatus;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Read-only projection of a user holding only what the OTP endpoints need
+ */
+public class UserSummary {
+
+    private final UUID userId;
+    private final String email;
+    private final String fullName;
+    private final UserStatus status;
+
+    public UserSummary(UUID userId, String email, String fullName, UserStatus status) {
+        this.userId = userId;
+        this.email = email;
+        this.fullName = fullName;
+        this.status = status;
+    }
+
+    public static UserSummary of(User user) {
+        return new UserSummary(user.getUserId(), user.getEmail(), user.getFullName(), user.getStatus());
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public UserStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserSummary that = (UserSummary) o;
+        return Objects.equals(userId, that.userId) &&
+                Objects.equals(email, that.email) &&
+                Objects.equals(fullName, that.fullName) &&
+                status == that.status;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, email, fullName, status);
+    }
+
+    @Override
+    public String toString() {
+        return "UserSummary{" +
+                "userId=" + userId +
+                ", email='" + email + '\'' +
+                ", fullName='" + fullName + '\'' +
+                ", status=" + status +
+                '}';
+    }
+}
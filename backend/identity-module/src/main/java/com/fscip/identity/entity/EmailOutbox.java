@@ -0,0 +1,217 @@
+package com.fscip.identity.entity;
+
+import com.fscip.identity.service.EmailDelivery;
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "email_outbox")
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outbox_id")
+    private Long outboxId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "email_type", nullable = false, length = 30)
+    private EmailDelivery.Type emailType;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "otp", length = 6)
+    private String otp;
+
+    @Column(name = "expiration_minutes")
+    private Integer expirationMinutes;
+
+    @Column(name = "full_name")
+    private String fullName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private EmailOutboxStatus status = EmailOutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public EmailOutbox() {
+    }
+
+    public static EmailOutbox otp(String recipient, String otp, int expirationMinutes) {
+        EmailOutbox outbox = new EmailOutbox();
+        outbox.emailType = EmailDelivery.Type.OTP_VERIFICATION;
+        outbox.recipient = recipient;
+        outbox.otp = otp;
+        outbox.expirationMinutes = expirationMinutes;
+        return outbox;
+    }
+
+    public static EmailOutbox welcome(String recipient, String fullName) {
+        EmailOutbox outbox = new EmailOutbox();
+        outbox.emailType = EmailDelivery.Type.WELCOME;
+        outbox.recipient = recipient;
+        outbox.fullName = fullName;
+        return outbox;
+    }
+
+    public Long getOutboxId() {
+        return outboxId;
+    }
+
+    public void setOutboxId(Long outboxId) {
+        this.outboxId = outboxId;
+    }
+
+    public EmailDelivery.Type getEmailType() {
+        return emailType;
+    }
+
+    public void setEmailType(EmailDelivery.Type emailType) {
+        this.emailType = emailType;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    public String getOtp() {
+        return otp;
+    }
+
+    public void setOtp(String otp) {
+        this.otp = otp;
+    }
+
+    public Integer getExpirationMinutes() {
+        return expirationMinutes;
+    }
+
+    public void setExpirationMinutes(Integer expirationMinutes) {
+        this.expirationMinutes = expirationMinutes;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public void setFullName(String fullName) {
+        this.fullName = fullName;
+    }
+
+    public EmailOutboxStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(EmailOutboxStatus status) {
+        this.status = status;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    /**
+     * Mark the email as sent; the OTP it carried is no longer needed and is cleared
+     */
+    public void markSent() {
+        this.status = EmailOutboxStatus.SENT;
+        this.sentAt = LocalDateTime.now();
+        this.lastError = null;
+        this.otp = null;
+    }
+
+    public void markAttemptFailed(String error, int maxAttempts, LocalDateTime retryAt) {
+        this.attempts = (this.attempts == null ? 0 : this.attempts) + 1;
+        this.lastError = error;
+        if (this.attempts >= maxAttempts) {
+            this.status = EmailOutboxStatus.FAILED;
+            this.otp = null;
+        } else {
+            this.nextAttemptAt = retryAt;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EmailOutbox that = (EmailOutbox) o;
+        return Objects.equals(outboxId, that.outboxId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(outboxId);
+    }
+
+    @Override
+    public String toString() {
+        return "EmailOutbox{" +
+                "outboxId=" + outboxId +
+                ", emailType=" + emailType +
+                ", recipient='" + recipient + '\'' +
+                ", otp='[REDACTED]'" +
+                ", status=" + status +
+                ", attempts=" + attempts +
+                ", nextAttemptAt=" + nextAttemptAt +
+                '}';
+    }
+}
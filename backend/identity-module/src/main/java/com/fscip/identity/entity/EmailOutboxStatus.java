@@ -0,0 +1,7 @@
+package com.fscip.identity.entity;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
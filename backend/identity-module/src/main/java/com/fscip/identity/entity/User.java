@@ -2,7 +2,9 @@ package com.fscip.identity.entity;
 
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -10,6 +12,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserChangeListener.class)
 public class User {
 
     @Id
@@ -29,8 +32,10 @@ public class User {
     @Column(name = "mobile", unique = true, length = 15)
     private String mobile;
 
+    // users.status is the PostgreSQL enum USER_STATUS, so bind the name as that type, not varchar
     @Enumerated(EnumType.STRING)
-    @Column(name = "status")
+    @JdbcTypeCode(SqlTypes.NAMED_ENUM)
+    @Column(name = "status", columnDefinition = "user_status")
     private UserStatus status = UserStatus.PENDING;
 
     @Column(name = "two_factor_enabled")
@@ -0,0 +1,33 @@
+package com.fscip.identity.entity;
+
+import java.util.UUID;
+
+/**
+ * Published when a user row is inserted, updated or deleted through the persistence context
+ */
+public class UserChangedEvent {
+
+    private final UUID userId;
+    private final String email;
+
+    public UserChangedEvent(UUID userId, String email) {
+        this.userId = userId;
+        this.email = email;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    @Override
+    public String toString() {
+        return "UserChangedEvent{" +
+                "userId=" + userId +
+                ", email='" + email + '\'' +
+                '}';
+    }
+}
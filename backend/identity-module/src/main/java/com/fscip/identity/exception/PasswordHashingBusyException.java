@@ -0,0 +1,16 @@
+package com.fscip.identity.exception;
+
+/**
+ * The password hashing pool is saturated; the caller should fail the attempt fast
+ * (for example with 503 and Retry-After) instead of waiting for capacity.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,35 @@
+package com.fscip.identity.repository;
+
+import com.fscip.identity.entity.EmailOutbox;
+import com.fscip.identity.entity.EmailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    /**
+     * Lock a batch of due pending rows. Rows locked by another relay are skipped,
+     * so several nodes can drain the outbox in parallel without sending twice.
+     */
+    @Query(value = "SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY outbox_id LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutbox> lockPendingBatch(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+
+    long countByStatus(EmailOutboxStatus status);
+
+    /**
+     * Delete at most limit SENT or FAILED rows created before the cutoff, oldest first
+     */
+    @Modifying
+    @Query(value = "DELETE FROM email_outbox WHERE outbox_id IN (" +
+                   "SELECT outbox_id FROM email_outbox WHERE status IN ('SENT', 'FAILED') AND created_at < :before " +
+                   "ORDER BY created_at LIMIT :limit)", nativeQuery = true)
+    int deleteCompletedBatch(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
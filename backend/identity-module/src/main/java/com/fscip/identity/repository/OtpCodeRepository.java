@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -21,18 +22,37 @@ public interface OtpCodeRepository extends JpaRepository<OtpCode, Long> {
 
     Optional<OtpCode> findTopByUserIdOrderByCreatedAtDesc(UUID userId);
 
+    List<OtpCode> findByUserIdIn(Collection<UUID> userIds);
+
     @Modifying
     @Query("DELETE FROM OtpCode o WHERE o.userId = :userId")
     void deleteByUserId(@Param("userId") UUID userId);
 
+    @Modifying
+    @Query("DELETE FROM OtpCode o WHERE o.userId IN :userIds")
+    int deleteByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+
     @Modifying
     @Query("DELETE FROM OtpCode o WHERE o.expiresAt < :now")
     void deleteExpiredOtps(@Param("now") LocalDateTime now);
 
+    /**
+     * Delete at most limit expired OTPs, oldest expiry first, walking idx_otp_codes_expires_at
+     */
+    @Modifying
+    @Query(value = "DELETE FROM otp_codes WHERE otp_id IN (" +
+                   "SELECT otp_id FROM otp_codes WHERE expires_at < :now ORDER BY expires_at LIMIT :limit)",
+           nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
     @Modifying
     @Query("UPDATE OtpCode o SET o.attempts = o.attempts + 1 WHERE o.otpId = :otpId")
     int incrementAttempts(@Param("otpId") Long otpId);
 
+    @Modifying
+    @Query("UPDATE OtpCode o SET o.attempts = o.attempts + 1 WHERE o.userId = :userId")
+    int incrementAttemptsByUserId(@Param("userId") UUID userId);
+
     @Query("SELECT COUNT(o) FROM OtpCode o WHERE o.userId = :userId AND o.createdAt > :since")
     long countOtpRequestsSince(@Param("userId") UUID userId, @Param("since") LocalDateTime since);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.fscip.identity.repository;
 
+import com.fscip.identity.dto.UserSummary;
 import com.fscip.identity.entity.User;
 import com.fscip.identity.entity.UserStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -7,8 +8,11 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,19 +21,40 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     Optional<User> findByEmail(String email);
 
+    // Own read-only transaction: OTP requests look users up outside one, and a non-transactional
+    // read would keep its connection for the rest of the request
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.fscip.identity.dto.UserSummary(u.userId, u.email, u.fullName, u.status) " +
+           "FROM User u WHERE u.email = :email")
+    Optional<UserSummary> findSummaryByEmail(@Param("email") String email);
+
+    @Query("SELECT new com.fscip.identity.dto.UserSummary(u.userId, u.email, u.fullName, u.status) " +
+           "FROM User u WHERE u.email IN :emails")
+    List<UserSummary> findSummariesByEmailIn(@Param("emails") Collection<String> emails);
+
     boolean existsByEmail(String email);
 
     boolean existsByMobile(String mobile);
 
-    @Modifying
+    // Bulk updates bypass the persistence context; flush before and clear after so no stale User is read back
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query("UPDATE User u SET u.status = :status, u.updatedAt = :updatedAt WHERE u.userId = :userId")
     int updateUserStatus(@Param("userId") UUID userId, 
                          @Param("status") UserStatus status, 
                          @Param("updatedAt") LocalDateTime updatedAt);
 
-    @Modifying
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query("UPDATE User u SET u.lastLogin = :lastLogin, u.updatedAt = :updatedAt WHERE u.userId = :userId")
     int updateLastLogin(@Param("userId") UUID userId, 
                         @Param("lastLogin") LocalDateTime lastLogin, 
                         @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Compare-and-set, so a re-hash cannot overwrite a password changed in the meantime
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.passwordHash = :newHash, u.updatedAt = :updatedAt " +
+           "WHERE u.userId = :userId AND u.passwordHash = :oldHash")
+    int replacePasswordHash(@Param("userId") UUID userId,
+                            @Param("oldHash") String oldHash,
+                            @Param("newHash") String newHash,
+                            @Param("updatedAt") LocalDateTime updatedAt);
 }
\ No newline at end of file
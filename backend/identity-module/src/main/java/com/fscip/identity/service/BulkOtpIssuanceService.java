@@ -0,0 +1,20 @@
+package com.fscip.identity.service;
+
+import com.fscip.identity.dto.BulkOtpIssuanceProgressDto;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+public interface BulkOtpIssuanceService {
+
+    /**
+     * Issue activation OTPs to the PENDING users among a stream of email addresses.
+     * Addresses are consumed lazily and processed in fixed-size chunks; unknown and
+     * non-pending addresses are counted and skipped.
+     * 
+     * @param emails email addresses, one per element
+     * @param progressListener called with the running totals after every chunk
+     * @return final totals
+     */
+    BulkOtpIssuanceProgressDto issueOtps(Iterator<String> emails, Consumer<BulkOtpIssuanceProgressDto> progressListener);
+}
@@ -0,0 +1,67 @@
+package com.fscip.identity.service;
+
+import java.time.Instant;
+
+/**
+ * Outcome of an email handed to the asynchronous dispatcher.
+ * Carries no message content, so it is safe to log or persist.
+ */
+public final class EmailDelivery {
+
+    public enum Type {
+        OTP_VERIFICATION,
+        WELCOME
+    }
+
+    public enum Status {
+        DELIVERED,
+        FAILED
+    }
+
+    private final Type type;
+    private final String recipient;
+    private final Status status;
+    private final Throwable failure;
+    private final Instant completedAt;
+
+    public EmailDelivery(Type type, String recipient, Status status, Throwable failure, Instant completedAt) {
+        this.type = type;
+        this.recipient = recipient;
+        this.status = status;
+        this.failure = failure;
+        this.completedAt = completedAt;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Exception raised by the provider, or null when it simply reported failure
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "EmailDelivery{" +
+                "type=" + type +
+                ", recipient='" + recipient + '\'' +
+                ", status=" + status +
+                ", completedAt=" + completedAt +
+                '}';
+    }
+}
@@ -0,0 +1,15 @@
+package com.fscip.identity.service;
+
+/**
+ * Callback for emails sent by the asynchronous dispatcher.
+ * Runs on a dispatch worker thread and should return quickly.
+ */
+public interface EmailDeliveryListener {
+
+    /**
+     * Called once per email after the provider call completes
+     * 
+     * @param delivery delivery outcome
+     */
+    void onDeliveryCompleted(EmailDelivery delivery);
+}
@@ -1,5 +1,11 @@
 package com.fscip.identity.service;
 
+import java.util.Map;
+
+/**
+ * Email provider. With app.email.dispatch-mode=async the primary bean is a dispatcher
+ * that only queues the email, so true means accepted for delivery.
+ */
 public interface EmailService {
 
     /**
@@ -20,4 +26,34 @@ public interface EmailService {
      * @return true if email was sent successfully, false otherwise
      */
     boolean sendWelcomeEmail(String email, String fullName);
-}
\ No newline at end of file
+
+    /**
+     * Sends OTP emails to a batch of recipients. Dispatchers override this to hand the
+     * whole batch over at once; the default sends them one by one.
+     * 
+     * @param otpsByEmail OTP code by recipient email address
+     * @param expirationMinutes expiration time in minutes
+     * @return number of emails sent (or accepted for delivery)
+     */
+    default int sendOtpBatch(Map<String, String> otpsByEmail, int expirationMinutes) {
+        int sent = 0;
+        for (Map.Entry<String, String> entry : otpsByEmail.entrySet()) {
+            if (sendOtp(entry.getKey(), entry.getValue(), expirationMinutes)) {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Whether emails are recorded in the caller's transaction instead of being sent, as
+     * the outbox does. Callers submit to such a service inside their transaction, and to
+     * any other once their transaction has committed, so no email goes out for writes
+     * that are rolled back and no connection is held while a provider is called.
+     *
+     * @return true if the email commits or rolls back with the caller's transaction
+     */
+    default boolean isTransactional() {
+        return false;
+    }
+}
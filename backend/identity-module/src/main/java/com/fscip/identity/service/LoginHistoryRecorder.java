@@ -0,0 +1,20 @@
+package com.fscip.identity.service;
+
+import java.util.UUID;
+
+/**
+ * Records successful logins in the login_history table without holding up the login.
+ */
+public interface LoginHistoryRecorder {
+
+    /**
+     * Queue a login for writing. Never blocks; when the writer cannot keep up the
+     * event is dropped and counted instead.
+     * 
+     * @param userId user that logged in
+     * @param ipAddress client address, or null if unknown
+     * @param userAgent client User-Agent header, or null if absent
+     * @return true if the event was queued, false if it was dropped
+     */
+    boolean record(UUID userId, String ipAddress, String userAgent);
+}
@@ -0,0 +1,25 @@
+package com.fscip.identity.service;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts OTP cache invalidations between application nodes so that
+ * node-local near-caches drop entries changed elsewhere.
+ */
+public interface OtpCacheInvalidationBus {
+
+    /**
+     * Tell every other node that the cached OTP state of a user changed
+     * 
+     * @param userId user ID
+     */
+    void publish(UUID userId);
+
+    /**
+     * Register a handler for invalidations published by other nodes
+     * 
+     * @param listener receives the user ID of each invalidated entry
+     */
+    void subscribe(Consumer<UUID> listener);
+}
@@ -1,5 +1,6 @@
 package com.fscip.identity.service;
 
+import java.util.Map;
 import java.util.UUID;
 
 public interface OtpCacheService {
@@ -13,6 +14,17 @@ public interface OtpCacheService {
      */
     void storeOtp(UUID userId, String otp, long expirationSeconds);
 
+    /**
+     * Store OTPs for many users with the same expiration. Shared stores override this
+     * to write the batch in one round trip; the default stores them one by one.
+     * 
+     * @param otpsByUserId OTP code by user ID
+     * @param expirationSeconds expiration time in seconds
+     */
+    default void storeOtps(Map<UUID, String> otpsByUserId, long expirationSeconds) {
+        otpsByUserId.forEach((userId, otp) -> storeOtp(userId, otp, expirationSeconds));
+    }
+
     /**
      * Retrieve OTP from memory cache
      * 
@@ -58,4 +70,14 @@ public interface OtpCacheService {
      * @param userId user ID
      */
     void resetAttempts(UUID userId);
+
+    /**
+     * Check an OTP against the cache in a single atomic step: expired entries are
+     * treated as missing, a match consumes the entry and a mismatch uses one attempt
+     * 
+     * @param userId user ID
+     * @param otp the OTP code submitted by the user
+     * @return outcome of the check with the attempts left after it
+     */
+    OtpVerifyResult verifyAndConsume(UUID userId, String otp);
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.fscip.identity.service;
+
+import java.util.UUID;
+
+public interface OtpRateLimiter {
+
+    /**
+     * Record an OTP request for the user if it is within the rate limit
+     * 
+     * @param userId user ID
+     * @return true if the request is allowed, false if the user is rate limited
+     */
+    boolean tryAcquire(UUID userId);
+}
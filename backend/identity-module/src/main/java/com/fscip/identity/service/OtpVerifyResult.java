@@ -0,0 +1,63 @@
+package com.fscip.identity.service;
+
+/**
+ * Result of an atomic OTP check against the cache.
+ * Instances are preallocated, so the verify hot path does not allocate.
+ */
+public final class OtpVerifyResult {
+
+    public enum Outcome {
+        /** Code matched; the cached entry has been consumed */
+        VERIFIED,
+        /** Code did not match; one attempt has been used */
+        INVALID,
+        /** No attempts left for the cached entry */
+        LOCKED,
+        /** Nothing cached for the user, or the entry has expired */
+        MISSING
+    }
+
+    private static final int PREALLOCATED_INVALID = 16;
+    private static final OtpVerifyResult[] INVALID_RESULTS = new OtpVerifyResult[PREALLOCATED_INVALID];
+
+    static {
+        for (int i = 0; i < PREALLOCATED_INVALID; i++) {
+            INVALID_RESULTS[i] = new OtpVerifyResult(Outcome.INVALID, i);
+        }
+    }
+
+    public static final OtpVerifyResult VERIFIED = new OtpVerifyResult(Outcome.VERIFIED, 0);
+    public static final OtpVerifyResult LOCKED = new OtpVerifyResult(Outcome.LOCKED, 0);
+    public static final OtpVerifyResult MISSING = new OtpVerifyResult(Outcome.MISSING, 0);
+
+    private final Outcome outcome;
+    private final int remainingAttempts;
+
+    private OtpVerifyResult(Outcome outcome, int remainingAttempts) {
+        this.outcome = outcome;
+        this.remainingAttempts = remainingAttempts;
+    }
+
+    public static OtpVerifyResult invalid(int remainingAttempts) {
+        int remaining = Math.max(0, remainingAttempts);
+        return remaining < PREALLOCATED_INVALID
+            ? INVALID_RESULTS[remaining]
+            : new OtpVerifyResult(Outcome.INVALID, remaining);
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public int getRemainingAttempts() {
+        return remainingAttempts;
+    }
+
+    @Override
+    public String toString() {
+        return "OtpVerifyResult{" +
+                "outcome=" + outcome +
+                ", remainingAttempts=" + remainingAttempts +
+                '}';
+    }
+}
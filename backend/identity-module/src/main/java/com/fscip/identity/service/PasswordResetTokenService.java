@@ -0,0 +1,27 @@
+package com.fscip.identity.service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Single-use password reset tokens stored in password_reset_tokens.
+ */
+public interface PasswordResetTokenService {
+
+    /**
+     * Create a reset token for the user, valid for the configured lifetime
+     *
+     * @param userId user resetting their password
+     * @return the token to put in the reset link
+     */
+    UUID issue(UUID userId);
+
+    /**
+     * Mark a token used if it exists, is unused and has not expired. A token can be
+     * consumed at most once, even by concurrent callers.
+     *
+     * @param token token from the reset link
+     * @return the user the token was issued to, or empty if the token is not valid
+     */
+    Optional<UUID> consume(UUID token);
+}
@@ -0,0 +1,31 @@
+package com.fscip.identity.service;
+
+import java.util.UUID;
+
+/**
+ * Password hashing and checking for password login. Hashing is CPU-bound and runs on
+ * a dedicated bounded pool, so a burst of login attempts cannot occupy every request thread.
+ */
+public interface PasswordVerificationService {
+
+    /**
+     * Check a password against the user's stored hash. When it matches and the hash was
+     * made with an outdated cost factor, it is re-hashed and saved in the background.
+     * 
+     * @param userId user the hash belongs to
+     * @param rawPassword password submitted by the user
+     * @param storedHash the user's current password_hash
+     * @return true if the password matches
+     * @throws com.fscip.identity.exception.PasswordHashingBusyException if the hashing pool is saturated
+     */
+    boolean verify(UUID userId, String rawPassword, String storedHash);
+
+    /**
+     * Hash a password with the configured cost factor
+     * 
+     * @param rawPassword password to hash
+     * @return encoded hash for password_hash
+     * @throws com.fscip.identity.exception.PasswordHashingBusyException if the hashing pool is saturated
+     */
+    String encode(String rawPassword);
+}
@@ -0,0 +1,34 @@
+package com.fscip.identity.service;
+
+import com.fscip.identity.dto.UserSummary;
+import com.fscip.identity.entity.UserStatus;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface UserLookupService {
+
+    /**
+     * Find the user registered under an email address
+     * 
+     * @param email email address as entered
+     * @return user projection, or empty if no user has that email
+     */
+    Optional<UserSummary> findByEmail(String email);
+
+    /**
+     * Change a user's status and drop any cached projection of the user
+     * 
+     * @param userId user ID
+     * @param status new status
+     * @return number of rows updated
+     */
+    int updateUserStatus(UUID userId, UserStatus status);
+
+    /**
+     * Drop any cached projection of the user
+     * 
+     * @param userId user ID
+     */
+    void invalidate(UUID userId);
+}
@@ -0,0 +1,196 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.identity.service.EmailDelivery;
+import com.fscip.identity.service.EmailDeliveryListener;
+import com.fscip.identity.service.EmailService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sends email on a dedicated worker pool instead of the request thread.
+ * A queue slot is reserved when the email is submitted, so a full queue is reported
+ * to the caller straight away; inside a transaction the email is only handed to the
+ * workers after commit, so no email goes out for a rolled-back OTP.
+ *
+ * Delivery outcomes are reported to the registered {@link EmailDeliveryListener}s.
+ */
+public class AsyncEmailServiceImpl implements EmailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncEmailServiceImpl.class);
+
+    private final EmailService delegate;
+    private final List<EmailDeliveryListener> listeners;
+    private final Semaphore queueSlots;
+    private final ThreadPoolExecutor workers;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public AsyncEmailServiceImpl(EmailService delegate, int workerCount, int queueCapacity,
+                                 List<EmailDeliveryListener> listeners) {
+        this.delegate = delegate;
+        this.listeners = List.copyOf(listeners);
+        this.queueSlots = new Semaphore(queueCapacity);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Capacity is enforced by queueSlots; the executor queue never holds more than that
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "email-dispatch-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @Override
+    public boolean sendOtp(String email, String otp, int expirationMinutes) {
+        return submit(EmailDelivery.Type.OTP_VERIFICATION, email,
+            () -> delegate.sendOtp(email, otp, expirationMinutes));
+    }
+
+    @Override
+    public boolean sendWelcomeEmail(String email, String fullName) {
+        return submit(EmailDelivery.Type.WELCOME, email,
+            () -> delegate.sendWelcomeEmail(email, fullName));
+    }
+
+    /**
+     * Reserves queue slots for the whole batch at once and registers a single commit hook;
+     * when the queue cannot take the whole batch, as many emails as fit are accepted
+     */
+    @Override
+    public int sendOtpBatch(Map<String, String> otpsByEmail, int expirationMinutes) {
+        if (otpsByEmail.isEmpty()) {
+            return 0;
+        }
+        if (!queueSlots.tryAcquire(otpsByEmail.size())) {
+            return EmailService.super.sendOtpBatch(otpsByEmail, expirationMinutes);
+        }
+
+        List<Runnable> tasks = new ArrayList<>(otpsByEmail.size());
+        otpsByEmail.forEach((email, otp) -> tasks.add(() -> deliver(EmailDelivery.Type.OTP_VERIFICATION, email,
+            () -> delegate.sendOtp(email, otp, expirationMinutes))));
+        schedule(tasks);
+        return tasks.size();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Emails committed and waiting for a worker
+     */
+    public int getQueuedCount() {
+        return workers.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Email dispatch workers did not drain within 10s; {} emails dropped",
+                           workers.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean submit(EmailDelivery.Type type, String recipient, BooleanSupplier send) {
+        if (!queueSlots.tryAcquire()) {
+            rejected.increment();
+            logger.warn("Email dispatch queue full, rejecting {} email to: {}", type, recipient);
+            return false;
+        }
+
+        schedule(List.of(() -> deliver(type, recipient, send)));
+        return true;
+    }
+
+    /**
+     * Hand tasks whose queue slots are already reserved to the workers, after commit
+     * when a transaction is active
+     */
+    private void schedule(List<Runnable> tasks) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        tasks.forEach(AsyncEmailServiceImpl.this::enqueue);
+                    } else {
+                        queueSlots.release(tasks.size());
+                    }
+                }
+            });
+        } else {
+            tasks.forEach(this::enqueue);
+        }
+    }
+
+    private void enqueue(Runnable task) {
+        try {
+            workers.execute(task);
+        } catch (RuntimeException e) {
+            queueSlots.release();
+            rejected.increment();
+            logger.error("Email dispatch workers unavailable", e);
+        }
+    }
+
+    private void deliver(EmailDelivery.Type type, String recipient, BooleanSupplier send) {
+        boolean sent = false;
+        Throwable failure = null;
+        try {
+            sent = send.getAsBoolean();
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            queueSlots.release();
+        }
+
+        EmailDelivery delivery = new EmailDelivery(type, recipient,
+            sent ? EmailDelivery.Status.DELIVERED : EmailDelivery.Status.FAILED, failure, Instant.now());
+        if (sent) {
+            delivered.increment();
+        } else {
+            failed.increment();
+            logger.error("Failed to deliver {} email to: {}", type, recipient, failure);
+        }
+
+        for (EmailDeliveryListener listener : listeners) {
+            try {
+                listener.onDeliveryCompleted(delivery);
+            } catch (RuntimeException e) {
+                logger.error("Email delivery listener failed for: {}", recipient, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.identity.service.LoginHistoryRecorder;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes login_history rows off the request path. Request threads offer events to a
+ * bounded queue drained by a single writer thread, which inserts them with one
+ * multi-row INSERT per batch once batch-size events have arrived or flush-interval
+ * has passed since the batch was started.
+ *
+ * Nothing here blocks a login: when the queue is full the event is dropped, and when
+ * a batch insert fails its rows are dropped rather than retried, so a slow or
+ * unavailable database costs history rows, never latency. Both are counted.
+ */
+@Service
+public class BatchingLoginHistoryRecorder implements LoginHistoryRecorder, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchingLoginHistoryRecorder.class);
+    private static final String INSERT_PREFIX = "INSERT INTO login_history (user_id, login_at, ip_address, user_agent) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, CAST(? AS inet), ?)";
+    private static final int COLUMNS = 4;
+    // Well below PostgreSQL's limit of 65535 bind parameters per statement
+    static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_USER_AGENT_LENGTH = 512;
+
+    private final JdbcOperations jdbcOperations;
+    private final Clock clock;
+    private final BlockingQueue<LoginEvent> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final String fullBatchSql;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder droppedQueueFull = new LongAdder();
+    private final LongAdder droppedWriteFailed = new LongAdder();
+
+    @Autowired
+    public BatchingLoginHistoryRecorder(JdbcOperations jdbcOperations,
+                                        @Value("${app.login-history.queue-capacity:10000}") int queueCapacity,
+                                        @Value("${app.login-history.batch-size:500}") int batchSize,
+                                        @Value("${app.login-history.flush-interval-ms:200}") long flushIntervalMillis) {
+        this(jdbcOperations, queueCapacity, batchSize, Duration.ofMillis(flushIntervalMillis), Clock.systemDefaultZone());
+    }
+
+    public BatchingLoginHistoryRecorder(JdbcOperations jdbcOperations, int queueCapacity, int batchSize,
+                                        Duration flushInterval, Clock clock) {
+        if (batchSize <= 0 || batchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        this.jdbcOperations = jdbcOperations;
+        this.clock = clock;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.fullBatchSql = insertSql(batchSize);
+
+        this.writer = new Thread(this::runWriter, "login-history-writer");
+        writer.setDaemon(true);
+    }
+
+    /**
+     * Start the writer thread; until then events wait in the queue, and are dropped once it is full
+     */
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    @Override
+    public boolean record(UUID userId, String ipAddress, String userAgent) {
+        if (userAgent != null && userAgent.length() > MAX_USER_AGENT_LENGTH) {
+            userAgent = userAgent.substring(0, MAX_USER_AGENT_LENGTH);
+        }
+        LoginEvent event = new LoginEvent(userId, Timestamp.valueOf(LocalDateTime.now(clock)), ipAddress, userAgent);
+        if (!running || !queue.offer(event)) {
+            droppedQueueFull.increment();
+            logger.debug("Login history queue full, dropping login of user: {}", userId);
+            return false;
+        }
+        return true;
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * Events dropped because the queue was full or the recorder was shutting down
+     */
+    public long getDroppedQueueFullCount() {
+        return droppedQueueFull.sum();
+    }
+
+    /**
+     * Events dropped because their batch insert failed
+     */
+    public long getDroppedWriteFailedCount() {
+        return droppedWriteFailed.sum();
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("login.history.written", this, BatchingLoginHistoryRecorder::getWrittenCount)
+            .description("Login history rows inserted")
+            .register(registry);
+        FunctionCounter.builder("login.history.dropped", this, BatchingLoginHistoryRecorder::getDroppedQueueFullCount)
+            .description("Login history events dropped instead of written")
+            .tag("reason", "queue_full")
+            .register(registry);
+        FunctionCounter.builder("login.history.dropped", this, BatchingLoginHistoryRecorder::getDroppedWriteFailedCount)
+            .description("Login history events dropped instead of written")
+            .tag("reason", "write_failed")
+            .register(registry);
+        Gauge.builder("login.history.queued", this, BatchingLoginHistoryRecorder::getQueuedCount)
+            .description("Login history events waiting for the writer")
+            .register(registry);
+    }
+
+    /**
+     * Stop accepting events and write what is queued, waiting up to ten seconds
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            logger.warn("Login history writer did not drain within 10s; {} events dropped", queue.size());
+        }
+    }
+
+    private void runWriter() {
+        List<LoginEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                fill(batch);
+            } catch (InterruptedException e) {
+                // Shutdown: keep draining without waiting
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Collect events until the batch is full or the flush interval since its first event has passed
+    private void fill(List<LoginEvent> batch) throws InterruptedException {
+        if (running) {
+            LoginEvent first = queue.take();
+            batch.add(first);
+        }
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            LoginEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<LoginEvent> batch) {
+        Object[] args = new Object[batch.size() * COLUMNS];
+        int i = 0;
+        for (LoginEvent event : batch) {
+            args[i++] = event.userId;
+            args[i++] = event.loginAt;
+            args[i++] = event.ipAddress;
+            args[i++] = event.userAgent;
+        }
+        String sql = batch.size() == batchSize ? fullBatchSql : insertSql(batch.size());
+        try {
+            jdbcOperations.update(sql, args);
+            written.add(batch.size());
+            logger.debug("Wrote {} login history rows", batch.size());
+        } catch (RuntimeException e) {
+            droppedWriteFailed.add(batch.size());
+            logger.error("Failed to write {} login history rows; dropping them", batch.size(), e);
+        }
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDERS.length() + 2));
+        sql.append(INSERT_PREFIX);
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        return sql.toString();
+    }
+
+    private static final class LoginEvent {
+        private final UUID userId;
+        private final Timestamp loginAt;
+        private final String ipAddress;
+        private final String userAgent;
+
+        private LoginEvent(UUID userId, Timestamp loginAt, String ipAddress, String userAgent) {
+            this.userId = userId;
+            this.loginAt = loginAt;
+            this.ipAddress = ipAddress;
+            this.userAgent = userAgent;
+        }
+    }
+}
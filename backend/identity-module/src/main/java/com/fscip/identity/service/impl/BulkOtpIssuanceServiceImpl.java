@@ -0,0 +1,198 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.identity.dto.BulkOtpIssuanceProgressDto;
+import com.fscip.identity.dto.UserSummary;
+import com.fscip.identity.entity.UserStatus;
+import com.fscip.identity.repository.OtpCodeRepository;
+import com.fscip.identity.repository.UserRepository;
+import com.fscip.identity.service.BulkOtpIssuanceService;
+import com.fscip.identity.service.EmailService;
+import com.fscip.identity.service.OtpCacheService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Issues activation OTPs for mass onboarding.
+ * Each chunk of addresses costs one projection query, then one bulk delete of previous
+ * OTPs and one JDBC batch insert in a single transaction; the OTP cache is populated in
+ * bulk once the chunk has committed, and the chunk's emails are handed to the email
+ * service in one batch after that. Only the outbox, which records the emails in the
+ * chunk's transaction, is called inside it.
+ * The per-user request rate limit does not apply to this admin path.
+ */
+@Service
+public class BulkOtpIssuanceServiceImpl implements BulkOtpIssuanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkOtpIssuanceServiceImpl.class);
+    private static final String INSERT_OTP_SQL =
+        "INSERT INTO otp_codes (user_id, otp, expires_at, attempts, created_at) VALUES (?, ?, ?, 0, ?)";
+
+    private final UserRepository userRepository;
+    private final OtpCodeRepository otpCodeRepository;
+    private final JdbcOperations jdbcOperations;
+    private final TransactionOperations transactionOperations;
+    private final OtpCacheService otpCacheService;
+    private final EmailService emailService;
+    private final int chunkSize;
+    private final int otpExpiryMinutes;
+    private final OtpGenerator otpGenerator;
+
+    @Autowired
+    public BulkOtpIssuanceServiceImpl(UserRepository userRepository,
+                                      OtpCodeRepository otpCodeRepository,
+                                      JdbcOperations jdbcOperations,
+                                      PlatformTransactionManager transactionManager,
+                                      OtpCacheService otpCacheService,
+                                      EmailService emailService,
+                                      OtpGenerator otpGenerator,
+                                      @Value("${app.otp.bulk.chunk-size:1000}") int chunkSize,
+                                      @Value("${app.otp.bulk.expiry-minutes:${app.otp.expiry-minutes:10}}") int otpExpiryMinutes) {
+        this(userRepository, otpCodeRepository, jdbcOperations, new TransactionTemplate(transactionManager),
+            otpCacheService, emailService, otpGenerator, chunkSize, otpExpiryMinutes);
+    }
+
+    public BulkOtpIssuanceServiceImpl(UserRepository userRepository,
+                                      OtpCodeRepository otpCodeRepository,
+                                      JdbcOperations jdbcOperations,
+                                      TransactionOperations transactionOperations,
+                                      OtpCacheService otpCacheService,
+                                      EmailService emailService,
+                                      OtpGenerator otpGenerator,
+                                      int chunkSize,
+                                      int otpExpiryMinutes) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.userRepository = userRepository;
+        this.otpCodeRepository = otpCodeRepository;
+        this.jdbcOperations = jdbcOperations;
+        this.transactionOperations = transactionOperations;
+        this.otpCacheService = otpCacheService;
+        this.emailService = emailService;
+        this.otpGenerator = otpGenerator;
+        this.chunkSize = chunkSize;
+        this.otpExpiryMinutes = otpExpiryMinutes;
+    }
+
+    @Override
+    public BulkOtpIssuanceProgressDto issueOtps(Iterator<String> emails,
+                                                Consumer<BulkOtpIssuanceProgressDto> progressListener) {
+        Totals totals = new Totals(System.currentTimeMillis());
+        // Duplicates within a chunk collapse to one address
+        Set<String> chunk = new LinkedHashSet<>();
+
+        while (emails.hasNext()) {
+            String email = emails.next();
+            if (email == null || email.isBlank()) {
+                continue;
+            }
+            chunk.add(email.trim());
+            if (chunk.size() == chunkSize) {
+                issueChunk(chunk, totals);
+                chunk.clear();
+                progressListener.accept(totals.snapshot(false));
+            }
+        }
+        if (!chunk.isEmpty()) {
+            issueChunk(chunk, totals);
+        }
+
+        BulkOtpIssuanceProgressDto result = totals.snapshot(true);
+        progressListener.accept(result);
+        logger.info("Bulk OTP issuance completed: {}", result);
+        return result;
+    }
+
+    private void issueChunk(Set<String> emails, Totals totals) {
+        List<UserSummary> users = userRepository.findSummariesByEmailIn(emails);
+
+        Map<UUID, String> otpsByUserId = new HashMap<>();
+        Map<String, String> otpsByEmail = new LinkedHashMap<>();
+        for (UserSummary user : users) {
+            if (user.getStatus() != UserStatus.PENDING) {
+                totals.notPending++;
+                continue;
+            }
+            String otp = otpGenerator.generate();
+            otpsByUserId.put(user.getUserId(), otp);
+            otpsByEmail.put(user.getEmail(), otp);
+        }
+
+        totals.chunks++;
+        totals.processed += emails.size();
+        totals.notFound += emails.size() - users.size();
+        if (otpsByUserId.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp createdAt = Timestamp.valueOf(now);
+        Timestamp expiresAt = Timestamp.valueOf(now.plusMinutes(otpExpiryMinutes));
+        List<Object[]> rows = new ArrayList<>(otpsByUserId.size());
+        otpsByUserId.forEach((userId, otp) -> rows.add(new Object[] {userId, otp, expiresAt, createdAt}));
+
+        boolean enqueueInTransaction = emailService.isTransactional();
+        Integer enqueued = transactionOperations.execute(status -> {
+            otpCodeRepository.deleteByUserIdIn(otpsByUserId.keySet());
+            jdbcOperations.batchUpdate(INSERT_OTP_SQL, rows);
+            return enqueueInTransaction ? emailService.sendOtpBatch(otpsByEmail, otpExpiryMinutes) : null;
+        });
+
+        otpCacheService.storeOtps(otpsByUserId, otpExpiryMinutes * 60L);
+
+        int accepted = enqueueInTransaction ? (enqueued != null ? enqueued : 0) : sendCommitted(otpsByEmail);
+        totals.issued += otpsByUserId.size();
+        totals.emailsNotAccepted += otpsByUserId.size() - accepted;
+        logger.debug("Bulk OTP chunk {} issued {} OTPs", totals.chunks, otpsByUserId.size());
+    }
+
+    // The OTPs are committed whatever happens here; users whose email failed can request a new code
+    private int sendCommitted(Map<String, String> otpsByEmail) {
+        try {
+            return emailService.sendOtpBatch(otpsByEmail, otpExpiryMinutes);
+        } catch (RuntimeException e) {
+            logger.error("Failed to send {} bulk OTP emails", otpsByEmail.size(), e);
+            return 0;
+        }
+    }
+
+    // Mutable totals owned by the issuing thread
+    private static final class Totals {
+        private final long startedAtMillis;
+        private int chunks;
+        private long processed;
+        private long issued;
+        private long notFound;
+        private long notPending;
+        private long emailsNotAccepted;
+
+        private Totals(long startedAtMillis) {
+            this.startedAtMillis = startedAtMillis;
+        }
+
+        private BulkOtpIssuanceProgressDto snapshot(boolean done) {
+            return new BulkOtpIssuanceProgressDto(chunks, processed, issued, notFound, notPending,
+                emailsNotAccepted, System.currentTimeMillis() - startedAtMillis, done);
+        }
+    }
+}
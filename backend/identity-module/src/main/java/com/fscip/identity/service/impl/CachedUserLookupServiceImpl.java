@@ -0,0 +1,176 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.common.util.BoundedCache;
+import com.fscip.identity.dto.UserSummary;
+import com.fscip.identity.entity.UserChangedEvent;
+import com.fscip.identity.entity.UserStatus;
+import com.fscip.identity.repository.UserRepository;
+import com.fscip.identity.service.UserLookupService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * User lookup backed by a bounded, TTL'd cache of {@link UserSummary} projections
+ * keyed by lower-cased email, so repeated OTP requests and verification retries
+ * do not load the full user entity each time.
+ *
+ * Entries are dropped when the user changes through JPA ({@link UserChangedEvent})
+ * or through {@link #updateUserStatus}, once immediately and again when the
+ * surrounding transaction completes, so a concurrent lookup cannot cache the
+ * pre-commit row for longer than it takes the writer to commit. Changes made
+ * outside this application are picked up when the entry's time to live runs out.
+ *
+ * Hits, misses and size are exported as user.lookup.cache{result=hit|miss} and
+ * user.lookup.cache.size.
+ */
+@Service
+public class CachedUserLookupServiceImpl implements UserLookupService, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachedUserLookupServiceImpl.class);
+    private static final int EPOCH_SLOTS = 256;
+
+    private final UserRepository userRepository;
+    private final BoundedCache<String, UserSummary> cache;
+    // Cache key by user ID, so ID-only invalidations and email changes find the entry
+    private final ConcurrentHashMap<UUID, String> keysByUserId = new ConcurrentHashMap<>();
+    // Bumped on every invalidation; a lookup only caches if its slot did not move meanwhile
+    private final AtomicLongArray invalidationEpochs = new AtomicLongArray(EPOCH_SLOTS);
+
+    @Autowired
+    public CachedUserLookupServiceImpl(UserRepository userRepository,
+                                       @Value("${app.user-cache.maximum-size:10000}") int maximumSize,
+                                       @Value("${app.user-cache.ttl-seconds:60}") long ttlSeconds) {
+        this(userRepository, maximumSize, Duration.ofSeconds(ttlSeconds), Clock.systemUTC());
+    }
+
+    public CachedUserLookupServiceImpl(UserRepository userRepository, int maximumSize, Duration ttl, Clock clock) {
+        this.userRepository = userRepository;
+        this.cache = new BoundedCache<>(maximumSize, ttl, clock,
+            (key, summary) -> keysByUserId.remove(summary.getUserId(), key));
+    }
+
+    @Override
+    public Optional<UserSummary> findByEmail(String email) {
+        String key = cacheKey(email);
+        UserSummary cached = cache.get(key);
+        // The key folds case; only serve entries stored under the exact address asked for
+        if (cached != null && cached.getEmail().equals(email)) {
+            return Optional.of(cached);
+        }
+
+        int slot = slot(key);
+        long epoch = invalidationEpochs.get(slot);
+        Optional<UserSummary> loaded = userRepository.findSummaryByEmail(email);
+        loaded.ifPresent(summary -> {
+            if (invalidationEpochs.get(slot) == epoch) {
+                keysByUserId.put(summary.getUserId(), key);
+                cache.put(key, summary);
+                // An invalidation that raced the put wins
+                if (invalidationEpochs.get(slot) != epoch) {
+                    cache.invalidate(key);
+                }
+            }
+        });
+        return loaded;
+    }
+
+    @Override
+    public int updateUserStatus(UUID userId, UserStatus status) {
+        int updated = userRepository.updateUserStatus(userId, status, LocalDateTime.now());
+        invalidate(userId);
+        return updated;
+    }
+
+    @Override
+    public void invalidate(UUID userId) {
+        String key = keysByUserId.get(userId);
+        if (key != null) {
+            invalidateNowAndOnCompletion(key);
+        }
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getEmail() != null) {
+            invalidateNowAndOnCompletion(cacheKey(event.getEmail()));
+        }
+        // Also covers an email change, where the entry sits under the old address
+        if (event.getUserId() != null) {
+            invalidate(event.getUserId());
+        }
+    }
+
+    public long getHits() {
+        return cache.hitCount();
+    }
+
+    public long getMisses() {
+        return cache.missCount();
+    }
+
+    public int getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("user.lookup.cache", this, CachedUserLookupServiceImpl::getHits)
+            .description("User lookups answered from the cache")
+            .tag("result", "hit")
+            .register(registry);
+        FunctionCounter.builder("user.lookup.cache", this, CachedUserLookupServiceImpl::getMisses)
+            .description("User lookups that went to the database")
+            .tag("result", "miss")
+            .register(registry);
+        Gauge.builder("user.lookup.cache.size", this, CachedUserLookupServiceImpl::getSize)
+            .description("Entries in the user lookup cache")
+            .register(registry);
+    }
+
+    private void invalidateNowAndOnCompletion(String key) {
+        invalidateKey(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateKey(key);
+                }
+            });
+        }
+    }
+
+    private void invalidateKey(String key) {
+        invalidationEpochs.incrementAndGet(slot(key));
+        if (cache.invalidate(key) != null) {
+            logger.debug("User cache entry invalidated for: {}", key);
+        }
+    }
+
+    private static String cacheKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private static int slot(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (EPOCH_SLOTS - 1);
+    }
+}
@@ -0,0 +1,85 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.identity.repository.EmailOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Background cleanup of email_outbox.
+ * Rows the relay has finished with, SENT or FAILED, are kept for the retention period
+ * for troubleshooting and then deleted in bounded chunks, each in its own short
+ * transaction, the same way {@link OtpCodePurger} deletes expired OTPs.
+ */
+@Component
+@ConditionalOnProperty(name = "app.email.dispatch-mode", havingValue = "outbox")
+public class EmailOutboxPurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxPurger.class);
+
+    private final EmailOutboxRepository outboxRepository;
+    private final TransactionOperations transactionOperations;
+    private final Duration retention;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    @Autowired
+    public EmailOutboxPurger(EmailOutboxRepository outboxRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.email.outbox.retention-hours:72}") long retentionHours,
+                             @Value("${app.email.outbox.purge.batch-size:1000}") int batchSize,
+                             @Value("${app.email.outbox.purge.max-batches-per-run:100}") int maxBatchesPerRun) {
+        this(outboxRepository, new TransactionTemplate(transactionManager), Duration.ofHours(retentionHours),
+            batchSize, maxBatchesPerRun);
+    }
+
+    public EmailOutboxPurger(EmailOutboxRepository outboxRepository,
+                             TransactionOperations transactionOperations,
+                             Duration retention,
+                             int batchSize,
+                             int maxBatchesPerRun) {
+        if (batchSize <= 0 || maxBatchesPerRun <= 0) {
+            throw new IllegalArgumentException("Batch size and batches per run must be positive");
+        }
+        this.outboxRepository = outboxRepository;
+        this.transactionOperations = transactionOperations;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    /**
+     * Delete completed rows older than the retention period chunk by chunk until a chunk
+     * comes back short or the per-run cap is reached
+     *
+     * @return number of rows deleted
+     */
+    @Scheduled(fixedDelayString = "${app.email.outbox.purge.interval-ms:3600000}",
+               initialDelayString = "${app.email.outbox.purge.interval-ms:3600000}")
+    public int purgeCompleted() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int total = 0;
+        int deleted;
+        int batches = 0;
+        do {
+            deleted = transactionOperations.execute(status -> outboxRepository.deleteCompletedBatch(cutoff, batchSize));
+            total += deleted;
+            batches++;
+        } while (deleted == batchSize && batches < maxBatchesPerRun);
+
+        if (total > 0) {
+            logger.debug("Purged {} completed outbox emails in {} batches", total, batches);
+        }
+        return total;
+    }
+}
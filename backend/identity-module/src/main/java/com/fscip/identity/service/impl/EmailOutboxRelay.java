@@ -0,0 +1,126 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.identity.entity.EmailOutbox;
+import com.fscip.identity.repository.EmailOutboxRepository;
+import com.fscip.identity.service.EmailDelivery;
+import com.fscip.identity.service.EmailDeliveryListener;
+import com.fscip.identity.service.EmailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drains the email outbox into the email provider.
+ * Each batch is claimed with FOR UPDATE SKIP LOCKED and stays locked until its transaction
+ * commits the SENT/retry state, so relays on other nodes work on disjoint rows.
+ * Failed sends are retried with exponential backoff until the attempt limit is reached.
+ */
+public class EmailOutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxRelay.class);
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailService provider;
+    private final TransactionOperations transactionOperations;
+    private final List<EmailDeliveryListener> listeners;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+
+    public EmailOutboxRelay(EmailOutboxRepository outboxRepository,
+                            EmailService provider,
+                            TransactionOperations transactionOperations,
+                            List<EmailDeliveryListener> listeners,
+                            int batchSize,
+                            int maxAttempts,
+                            Duration retryDelay) {
+        this.outboxRepository = outboxRepository;
+        this.provider = provider;
+        this.transactionOperations = transactionOperations;
+        this.listeners = List.copyOf(listeners);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Relay due rows batch by batch until a batch comes back short
+     *
+     * @return number of rows processed
+     */
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-interval-ms:1000}")
+    public int relayPending() {
+        int total = 0;
+        List<EmailDelivery> deliveries;
+        do {
+            deliveries = transactionOperations.execute(status -> relayBatch());
+            total += deliveries.size();
+            notifyListeners(deliveries);
+        } while (deliveries.size() == batchSize);
+
+        if (total > 0) {
+            logger.debug("Relayed {} emails from outbox", total);
+        }
+        return total;
+    }
+
+    private List<EmailDelivery> relayBatch() {
+        List<EmailOutbox> batch = outboxRepository.lockPendingBatch(LocalDateTime.now(), batchSize);
+        List<EmailDelivery> deliveries = new ArrayList<>(batch.size());
+
+        for (EmailOutbox row : batch) {
+            boolean sent = false;
+            Throwable failure = null;
+            try {
+                sent = send(row);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+
+            if (sent) {
+                row.markSent();
+            } else {
+                String error = failure != null ? failure.getMessage() : "Email provider reported failure";
+                int attempts = row.getAttempts() == null ? 0 : row.getAttempts();
+                Duration backoff = retryDelay.multipliedBy(1L << Math.min(attempts, 10));
+                row.markAttemptFailed(error, maxAttempts, LocalDateTime.now().plus(backoff));
+                logger.warn("Outbox email {} to {} failed (attempt {}/{}): {}",
+                           row.getOutboxId(), row.getRecipient(), row.getAttempts(), maxAttempts, error);
+            }
+            deliveries.add(new EmailDelivery(row.getEmailType(), row.getRecipient(),
+                sent ? EmailDelivery.Status.DELIVERED : EmailDelivery.Status.FAILED, failure, Instant.now()));
+        }
+        // Row state is flushed by dirty checking when the batch transaction commits
+        return deliveries;
+    }
+
+    private boolean send(EmailOutbox row) {
+        switch (row.getEmailType()) {
+            case OTP_VERIFICATION:
+                return provider.sendOtp(row.getRecipient(), row.getOtp(), row.getExpirationMinutes());
+            case WELCOME:
+                return provider.sendWelcomeEmail(row.getRecipient(), row.getFullName());
+            default:
+                throw new IllegalStateException("Unsupported outbox email type: " + row.getEmailType());
+        }
+    }
+
+    private void notifyListeners(List<EmailDelivery> deliveries) {
+        for (EmailDelivery delivery : deliveries) {
+            for (EmailDeliveryListener listener : listeners) {
+                try {
+                    listener.onDeliveryCompleted(delivery);
+                } catch (RuntimeException e) {
+                    logger.error("Email delivery listener failed for: {}", delivery.getRecipient(), e);
+                }
+            }
+        }
+    }
+}
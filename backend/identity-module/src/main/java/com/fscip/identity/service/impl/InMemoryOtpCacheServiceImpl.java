@@ -1,38 +1,206 @@
 package com.fscip.identity.service.impl;
 
+import com.fscip.common.util.ExpiryIndex;
+import com.fscip.identity.entity.OtpCode;
+import com.fscip.identity.repository.OtpCodeRepository;
 import com.fscip.identity.service.OtpCacheService;
+import com.fscip.identity.service.OtpVerifyResult;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Node-local OTP cache. With app.otp.cache.snapshot.enabled the live entries are saved
+ * to an {@link OtpCacheSnapshot} periodically and on shutdown, and reloaded while the
+ * bean initialises, so a restarted node keeps its codes and attempt counters instead
+ * of sending every verify to the database until the old codes expire.
+ *
+ * The snapshot is deleted once loaded. After a crash the periodic snapshot can be up
+ * to one interval old, so each restored entry is checked against the user's otp_codes
+ * row: codes consumed or replaced since are dropped, and the attempt counter is the
+ * lower of the snapshot's and the one the row implies, since failed attempts are
+ * counted in the row too.
+ */
 @Service
-public class InMemoryOtpCacheServiceImpl implements OtpCacheService {
+@ConditionalOnProperty(name = "app.otp.cache.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpCacheServiceImpl implements OtpCacheService, MeterBinder {
 
     private static final Logger logger = LoggerFactory.getLogger(InMemoryOtpCacheServiceImpl.class);
     private static final int MAX_ATTEMPTS = 5;
+    private static final Duration EXPIRY_TICK = Duration.ofSeconds(1);
+    private static final int RESTORE_BATCH_SIZE = 500;
 
     private final ConcurrentHashMap<UUID, OtpCacheEntry> otpCache = new ConcurrentHashMap<>();
+    private final ExpiryIndex<UUID> expiryIndex = new ExpiryIndex<>(EXPIRY_TICK);
     private final ScheduledExecutorService cleanupExecutor = Executors.newScheduledThreadPool(1);
+    private final Clock clock;
+    private final OtpCacheSnapshot snapshot;
+    private final OtpCodeRepository otpCodeRepository;
+    private final LongAdder evictions = new LongAdder();
 
     public InMemoryOtpCacheServiceImpl() {
+        this(Clock.systemUTC());
+    }
+
+    @Autowired
+    public InMemoryOtpCacheServiceImpl(OtpCodeRepository otpCodeRepository,
+                                       @Value("${app.otp.cache.snapshot.enabled:false}") boolean snapshotEnabled,
+                                       @Value("${app.otp.cache.snapshot.path:data/otp-cache.snapshot}") String snapshotPath,
+                                       @Value("${app.otp.cache.snapshot.interval-seconds:30}") long snapshotIntervalSeconds) {
+        this(Clock.systemUTC(), snapshotEnabled ? new OtpCacheSnapshot(Path.of(snapshotPath)) : null,
+             otpCodeRepository, Duration.ofSeconds(snapshotIntervalSeconds));
+    }
+
+    public InMemoryOtpCacheServiceImpl(Clock clock) {
+        this(clock, null, null, null);
+    }
+
+    /**
+     * @param snapshot where to save and restore entries, or null to run without one
+     * @param otpCodeRepository rows that restored entries are checked against
+     * @param snapshotInterval time between periodic saves
+     */
+    public InMemoryOtpCacheServiceImpl(Clock clock, OtpCacheSnapshot snapshot, OtpCodeRepository otpCodeRepository,
+                                       Duration snapshotInterval) {
+        if (snapshot != null && otpCodeRepository == null) {
+            throw new IllegalArgumentException("Restoring a snapshot needs the OTP code repository");
+        }
+        this.clock = clock;
+        this.snapshot = snapshot;
+        this.otpCodeRepository = otpCodeRepository;
         // Schedule cleanup task to run every minute
         cleanupExecutor.scheduleAtFixedRate(this::cleanupExpiredEntries, 1, 1, TimeUnit.MINUTES);
+        if (snapshot != null) {
+            long intervalMillis = snapshotInterval.toMillis();
+            cleanupExecutor.scheduleAtFixedRate(this::saveSnapshot, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Reload the entries of the last snapshot that have not expired yet and still match
+     * the user's otp_codes row. Runs during bean initialisation, before the application
+     * reports ready.
+     *
+     * @return number of entries restored
+     */
+    @PostConstruct
+    public int restoreSnapshot() {
+        if (snapshot == null) {
+            return 0;
+        }
+        try {
+            List<OtpCacheSnapshot.Entry> entries = snapshot.read(clock.millis());
+            // Loaded once: a later start must not bring back codes consumed since
+            snapshot.delete();
+            int restored = 0;
+            for (int from = 0; from < entries.size(); from += RESTORE_BATCH_SIZE) {
+                restored += restoreConfirmed(entries.subList(from, Math.min(entries.size(), from + RESTORE_BATCH_SIZE)));
+            }
+            logger.info("Restored {} of {} OTP cache entries from {}", restored, entries.size(), snapshot.getPath());
+            return restored;
+        } catch (IOException e) {
+            logger.warn("Could not restore OTP cache snapshot from {}: {}", snapshot.getPath(), e.getMessage());
+            return 0;
+        } catch (RuntimeException e) {
+            // Entries that cannot be checked are not trusted; verifies go to the database instead
+            logger.warn("Could not check OTP cache snapshot {} against otp_codes; starting empty", snapshot.getPath(), e);
+            otpCache.clear();
+            return 0;
+        }
+    }
+
+    // Restore the entries whose code is still the user's unconsumed OTP in the database
+    private int restoreConfirmed(List<OtpCacheSnapshot.Entry> entries) {
+        Map<UUID, String> codes = new HashMap<>(entries.size() * 2);
+        for (OtpCacheSnapshot.Entry entry : entries) {
+            codes.put(entry.getUserId(), entry.getOtp());
+        }
+        // Requesting a code deletes the user's earlier rows and a successful verify deletes the row
+        Map<UUID, OtpCode> rows = new HashMap<>(entries.size() * 2);
+        for (OtpCode row : otpCodeRepository.findByUserIdIn(codes.keySet())) {
+            if (row.getOtp().equals(codes.get(row.getUserId())) && !row.isExpired()) {
+                rows.put(row.getUserId(), row);
+            }
+        }
+
+        int restored = 0;
+        for (OtpCacheSnapshot.Entry entry : entries) {
+            OtpCode row = rows.get(entry.getUserId());
+            if (row == null) {
+                continue;
+            }
+            int failedAttempts = row.getAttempts() != null ? row.getAttempts() : 0;
+            int remainingAttempts = Math.min(entry.getRemainingAttempts(), MAX_ATTEMPTS - failedAttempts);
+            // A code stored since startup is newer than the snapshot's
+            if (otpCache.putIfAbsent(entry.getUserId(), new OtpCacheEntry(
+                    entry.getOtp(), entry.getExpiresAtMillis(), remainingAttempts)) == null) {
+                expiryIndex.schedule(entry.getUserId(), entry.getExpiresAtMillis());
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Write the live entries to the snapshot file
+     *
+     * @return number of entries written
+     */
+    public int saveSnapshot() {
+        if (snapshot == null) {
+            return 0;
+        }
+        long now = clock.millis();
+        List<OtpCacheSnapshot.Entry> entries = new ArrayList<>(otpCache.size());
+        otpCache.forEach((userId, entry) -> {
+            if (!entry.isExpired(now)) {
+                entries.add(new OtpCacheSnapshot.Entry(userId, entry.getOtp(), entry.expiresAtMillis,
+                    entry.getRemainingAttempts()));
+            }
+        });
+        try {
+            int written = snapshot.write(entries, now);
+            logger.debug("Saved {} OTP cache entries to {}", written, snapshot.getPath());
+            return written;
+        } catch (IOException e) {
+            logger.error("Could not save OTP cache snapshot to {}", snapshot.getPath(), e);
+            return 0;
+        }
     }
 
     @Override
     public void storeOtp(UUID userId, String otp, long expirationSeconds) {
-        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(expirationSeconds);
+        long expiresAt = clock.millis() + expirationSeconds * 1000L;
         OtpCacheEntry entry = new OtpCacheEntry(otp, expiresAt, MAX_ATTEMPTS);
         otpCache.put(userId, entry);
-        
-        logger.debug("OTP stored in cache for user: {} | Expires at: {}", userId, expiresAt);
+        expiryIndex.schedule(userId, expiresAt);
+
+        logger.debug("OTP stored in cache for user: {} | Expires at: {}", userId, Instant.ofEpochMilli(expiresAt));
     }
 
     @Override
@@ -43,13 +211,13 @@ public class InMemoryOtpCacheServiceImpl implements OtpCacheService {
             return null;
         }
 
-        if (entry.isExpired()) {
-            otpCache.remove(userId);
+        if (entry.isExpired(clock.millis())) {
+            otpCache.remove(userId, entry);
             logger.debug("OTP expired and removed from cache for user: {}", userId);
             return null;
         }
 
-        return entry.getOtp();
+        return entry.isLocked() ? null : entry.getOtp();
     }
 
     @Override
@@ -67,18 +235,18 @@ public class InMemoryOtpCacheServiceImpl implements OtpCacheService {
             return false;
         }
 
-        if (entry.isExpired()) {
-            otpCache.remove(userId);
+        if (entry.isExpired(clock.millis())) {
+            otpCache.remove(userId, entry);
             return false;
         }
 
-        return true;
+        return !entry.isLocked();
     }
 
     @Override
     public int getRemainingAttempts(UUID userId) {
         OtpCacheEntry entry = otpCache.get(userId);
-        if (entry == null || entry.isExpired()) {
+        if (entry == null || entry.isExpired(clock.millis())) {
             return 0;
         }
         return entry.getRemainingAttempts();
@@ -86,88 +254,160 @@ public class InMemoryOtpCacheServiceImpl implements OtpCacheService {
 
     @Override
     public int decrementAttempts(UUID userId) {
-        OtpCacheEntry entry = otpCache.get(userId);
-        if (entry == null || entry.isExpired()) {
+        long now = clock.millis();
+        OtpCacheEntry entry = otpCache.computeIfPresent(userId, (id, current) ->
+            current.isExpired(now) ? null : current.withRemainingAttempts(current.getRemainingAttempts() - 1));
+        if (entry == null) {
             return 0;
         }
 
-        int remaining = entry.decrementAttempts();
+        int remaining = entry.getRemainingAttempts();
         logger.debug("Decremented OTP attempts for user: {} | Remaining: {}", userId, remaining);
-        
+
         if (remaining <= 0) {
-            otpCache.remove(userId);
-            logger.debug("OTP locked and removed from cache for user: {}", userId);
+            logger.debug("OTP locked in cache for user: {}", userId);
         }
-        
+
         return remaining;
     }
 
     @Override
     public void resetAttempts(UUID userId) {
-        OtpCacheEntry entry = otpCache.get(userId);
-        if (entry != null && !entry.isExpired()) {
-            entry.resetAttempts(MAX_ATTEMPTS);
+        long now = clock.millis();
+        OtpCacheEntry entry = otpCache.computeIfPresent(userId, (id, current) ->
+            current.isExpired(now) ? null : current.withRemainingAttempts(MAX_ATTEMPTS));
+        if (entry != null) {
             logger.debug("OTP attempts reset for user: {}", userId);
         }
     }
 
-    private void cleanupExpiredEntries() {
-        int removedCount = 0;
-        for (UUID userId : otpCache.keySet()) {
-            OtpCacheEntry entry = otpCache.get(userId);
-            if (entry != null && entry.isExpired()) {
-                otpCache.remove(userId);
-                removedCount++;
+    @Override
+    public OtpVerifyResult verifyAndConsume(UUID userId, String otp) {
+        long now = clock.millis();
+        OtpVerifyResult[] result = {OtpVerifyResult.MISSING};
+
+        // Expiry check, comparison, attempt accounting and removal all happen
+        // under the bin lock of a single compute call
+        otpCache.computeIfPresent(userId, (id, entry) -> {
+            if (entry.isExpired(now)) {
+                return null;
+            }
+            if (entry.isLocked()) {
+                result[0] = OtpVerifyResult.LOCKED;
+                return entry;
+            }
+            if (entry.getOtp().equals(otp)) {
+                result[0] = OtpVerifyResult.VERIFIED;
+                return null;
             }
+            int remaining = entry.getRemainingAttempts() - 1;
+            result[0] = OtpVerifyResult.invalid(remaining);
+            return entry.withRemainingAttempts(remaining);
+        });
+
+        logger.debug("OTP verification against cache for user: {} | Result: {}", userId, result[0]);
+        return result[0];
+    }
+
+    /**
+     * Evict entries whose expiry tick has passed. Only keys filed in due buckets
+     * of the expiry index are examined, so the cost does not grow with cache size.
+     *
+     * @return number of cache keys examined by the sweep
+     */
+    public int cleanupExpiredEntries() {
+        long now = clock.millis();
+        int[] removedCount = new int[1];
+        int examined = expiryIndex.drainExpired(now, userId ->
+            otpCache.computeIfPresent(userId, (id, entry) -> {
+                if (entry.isExpired(now)) {
+                    removedCount[0]++;
+                    return null;
+                }
+                return entry;
+            }));
+
+        if (removedCount[0] > 0) {
+            evictions.add(removedCount[0]);
+            logger.debug("Cleaned up {} expired OTP entries from cache", removedCount[0]);
         }
-        
-        if (removedCount > 0) {
-            logger.debug("Cleaned up {} expired OTP entries from cache", removedCount);
+        return examined;
+    }
+
+    public int size() {
+        return otpCache.size();
+    }
+
+    /**
+     * Expired entries removed by the cleanup sweep
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("otp.cache.size", this, InMemoryOtpCacheServiceImpl::size)
+            .description("Entries in the OTP cache")
+            .tag("cache", "memory")
+            .register(registry);
+        FunctionCounter.builder("otp.cache.evictions", this, InMemoryOtpCacheServiceImpl::getEvictionCount)
+            .description("Expired entries removed from the OTP cache by the cleanup sweep")
+            .tag("cache", "memory")
+            .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleanupExecutor.shutdownNow();
+        try {
+            // Let a periodic save in progress finish before the final one replaces it
+            cleanupExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        saveSnapshot();
     }
 
-    // Inner class to represent cache entry
+    // Immutable cache entry; attempt changes replace the entry inside compute
     private static class OtpCacheEntry {
         private final String otp;
-        private final LocalDateTime expiresAt;
-        private int remainingAttempts;
+        private final long expiresAtMillis;
+        private final int remainingAttempts;
 
-        public OtpCacheEntry(String otp, LocalDateTime expiresAt, int maxAttempts) {
+        public OtpCacheEntry(String otp, long expiresAtMillis, int remainingAttempts) {
             this.otp = otp;
-            this.expiresAt = expiresAt;
-            this.remainingAttempts = maxAttempts;
+            this.expiresAtMillis = expiresAtMillis;
+            this.remainingAttempts = Math.max(0, remainingAttempts);
         }
 
         public String getOtp() {
             return otp;
         }
 
-        public boolean isExpired() {
-            return LocalDateTime.now().isAfter(expiresAt);
+        public boolean isExpired(long nowMillis) {
+            return nowMillis > expiresAtMillis;
         }
 
-        public int getRemainingAttempts() {
-            return remainingAttempts;
+        public boolean isLocked() {
+            return remainingAttempts <= 0;
         }
 
-        public int decrementAttempts() {
-            if (remainingAttempts > 0) {
-                remainingAttempts--;
-            }
+        public int getRemainingAttempts() {
             return remainingAttempts;
         }
 
-        public void resetAttempts(int maxAttempts) {
-            this.remainingAttempts = maxAttempts;
+        public OtpCacheEntry withRemainingAttempts(int remainingAttempts) {
+            return new OtpCacheEntry(otp, expiresAtMillis, remainingAttempts);
         }
 
         @Override
         public String toString() {
             return "OtpCacheEntry{" +
                     "otp='[REDACTED]'" +
-                    ", expiresAt=" + expiresAt +
+                    ", expiresAt=" + Instant.ofEpochMilli(expiresAtMillis) +
                     ", remainingAttempts=" + remainingAttempts +
                     '}';
         }
     }
-}
\ No newline at end of file
+}
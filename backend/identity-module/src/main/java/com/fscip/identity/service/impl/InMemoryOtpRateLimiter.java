@@ -0,0 +1,62 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.common.util.SlidingWindowRateLimiter;
+import com.fscip.identity.service.OtpRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Node-local OTP request rate limiter backed by a lock-free sliding-window counter.
+ * Limits apply per node; use the redis store when requests are spread over several nodes.
+ */
+@Service
+@ConditionalOnProperty(name = "app.otp.rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpRateLimiter implements OtpRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryOtpRateLimiter.class);
+
+    private final SlidingWindowRateLimiter<UUID> limiter;
+
+    @Autowired
+    public InMemoryOtpRateLimiter(@Value("${app.otp.max-requests-per-hour:5}") int maxRequests,
+                                  @Value("${app.otp.rate-limit-minutes:1}") int windowMinutes) {
+        this(maxRequests, Duration.ofMinutes(windowMinutes), Clock.systemUTC());
+    }
+
+    public InMemoryOtpRateLimiter(int maxRequests, Duration window, Clock clock) {
+        this.limiter = new SlidingWindowRateLimiter<>(maxRequests, window, clock);
+    }
+
+    @Override
+    public boolean tryAcquire(UUID userId) {
+        return limiter.tryAcquire(userId);
+    }
+
+    /**
+     * Remaining time until the user may request another OTP
+     */
+    public Duration retryAfter(UUID userId) {
+        return limiter.retryAfter(userId);
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        int examined = limiter.evictIdle();
+        if (examined > 0) {
+            logger.debug("Examined {} idle OTP rate limit counters", examined);
+        }
+    }
+
+    public int size() {
+        return limiter.size();
+    }
+}
@@ -0,0 +1,282 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.common.util.BoundedCache;
+import com.fscip.identity.service.OtpCacheInvalidationBus;
+import com.fscip.identity.service.OtpCacheService;
+import com.fscip.identity.service.OtpVerifyResult;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-tier OTP cache: a small bounded on-heap near-cache (L1) per node in front of a
+ * shared store (L2). Reads of the active OTP are answered from L1 when possible.
+ * A verification is answered from L1 only when L1 already knows its outcome. That is
+ * the case when an earlier verification found nothing to consume or found the entry
+ * locked, so retries and hammering of a spent or locked code stay on the node.
+ * Everything that consumes an OTP or counts an attempt goes to L2, which stays the
+ * source of truth.
+ *
+ * Every change that can alter the active OTP of a user drops the local L1 entry and is
+ * broadcast on the invalidation bus. The L1 time-to-live bounds staleness should a
+ * message be lost. A stale MISSING falls back to the database in the caller.
+ */
+public class LayeredOtpCacheServiceImpl implements OtpCacheService, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LayeredOtpCacheServiceImpl.class);
+    private static final int EPOCH_SLOTS = 256;
+
+    // Cached marker for users with no active OTP: nothing stored, or locked
+    private static final NearEntry NO_OTP = new NearEntry(null);
+    // Outcomes of earlier verifications that a repeat would get again from L2
+    private static final NearEntry MISSING_OTP = new NearEntry(null);
+    private static final NearEntry LOCKED_OTP = new NearEntry(null);
+
+    private final OtpCacheService l2;
+    private final OtpCacheInvalidationBus invalidationBus;
+    private final BoundedCache<UUID, NearEntry> l1;
+
+    // Bumped on every invalidation so a slow L2 read cannot repopulate L1 with stale state
+    private final AtomicLongArray invalidationEpochs = new AtomicLongArray(EPOCH_SLOTS);
+
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+
+    public LayeredOtpCacheServiceImpl(OtpCacheService l2, OtpCacheInvalidationBus invalidationBus,
+                                      int l1MaximumSize, Duration l1TimeToLive) {
+        this(l2, invalidationBus, l1MaximumSize, l1TimeToLive, Clock.systemUTC());
+    }
+
+    public LayeredOtpCacheServiceImpl(OtpCacheService l2, OtpCacheInvalidationBus invalidationBus,
+                                      int l1MaximumSize, Duration l1TimeToLive, Clock clock) {
+        this.l2 = l2;
+        this.invalidationBus = invalidationBus;
+        this.l1 = new BoundedCache<>(l1MaximumSize, l1TimeToLive, clock, null);
+        invalidationBus.subscribe(this::invalidateLocal);
+    }
+
+    @Override
+    public void storeOtp(UUID userId, String otp, long expirationSeconds) {
+        l2.storeOtp(userId, otp, expirationSeconds);
+        invalidateAndPublish(userId);
+    }
+
+    @Override
+    public void storeOtps(Map<UUID, String> otpsByUserId, long expirationSeconds) {
+        l2.storeOtps(otpsByUserId, expirationSeconds);
+        otpsByUserId.keySet().forEach(this::invalidateAndPublish);
+    }
+
+    @Override
+    public String getOtp(UUID userId) {
+        NearEntry cached = l1.get(userId);
+        if (cached != null) {
+            return cached.otp;
+        }
+
+        int slot = slot(userId);
+        long epoch = invalidationEpochs.get(slot);
+        String otp = l2.getOtp(userId);
+        recordL2Read(otp != null);
+        cacheUnlessInvalidated(userId, slot, epoch, otp != null ? new NearEntry(otp) : NO_OTP);
+        return otp;
+    }
+
+    @Override
+    public void removeOtp(UUID userId) {
+        l2.removeOtp(userId);
+        invalidateAndPublish(userId);
+    }
+
+    @Override
+    public boolean hasActiveOtp(UUID userId) {
+        return getOtp(userId) != null;
+    }
+
+    @Override
+    public int getRemainingAttempts(UUID userId) {
+        return l2.getRemainingAttempts(userId);
+    }
+
+    @Override
+    public int decrementAttempts(UUID userId) {
+        int remaining = l2.decrementAttempts(userId);
+        if (remaining <= 0) {
+            invalidateAndPublish(userId);
+        }
+        return remaining;
+    }
+
+    @Override
+    public void resetAttempts(UUID userId) {
+        l2.resetAttempts(userId);
+        invalidateAndPublish(userId);
+    }
+
+    @Override
+    public OtpVerifyResult verifyAndConsume(UUID userId, String otp) {
+        NearEntry cached = l1.get(userId);
+        if (cached == MISSING_OTP) {
+            return OtpVerifyResult.MISSING;
+        }
+        if (cached == LOCKED_OTP) {
+            return OtpVerifyResult.LOCKED;
+        }
+
+        int slot = slot(userId);
+        long epoch = invalidationEpochs.get(slot);
+        OtpVerifyResult result = l2.verifyAndConsume(userId, otp);
+        recordL2Read(result.getOutcome() != OtpVerifyResult.Outcome.MISSING);
+
+        switch (result.getOutcome()) {
+            case VERIFIED:
+                // A consumed entry is no longer an active OTP anywhere
+                replaceAndPublish(userId, slot, epoch, MISSING_OTP);
+                break;
+            case INVALID:
+                // Nor is a newly locked one
+                if (result.getRemainingAttempts() == 0) {
+                    replaceAndPublish(userId, slot, epoch, LOCKED_OTP);
+                }
+                break;
+            case LOCKED:
+                cacheUnlessInvalidated(userId, slot, epoch, LOCKED_OTP);
+                break;
+            default:
+                cacheUnlessInvalidated(userId, slot, epoch, MISSING_OTP);
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * Share of OTP reads and verifications answered by the node-local near-cache
+     */
+    public double getL1HitRatio() {
+        return ratio(l1.hitCount(), l1.missCount());
+    }
+
+    /**
+     * Share of calls that missed L1 and found an OTP entry in the shared store
+     */
+    public double getL2HitRatio() {
+        return ratio(l2Hits.sum(), l2Misses.sum());
+    }
+
+    public long getL1Hits() {
+        return l1.hitCount();
+    }
+
+    public long getL1Misses() {
+        return l1.missCount();
+    }
+
+    /**
+     * Number of reads and verifications that had to go to the shared store
+     */
+    public long getL2Reads() {
+        return l2Hits.sum() + l2Misses.sum();
+    }
+
+    public long getL2Hits() {
+        return l2Hits.sum();
+    }
+
+    public int getL1Size() {
+        return l1.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("otp.cache.size", this, LayeredOtpCacheServiceImpl::getL1Size)
+            .description("Entries in the OTP cache")
+            .tag("cache", "layered-l1")
+            .register(registry);
+        FunctionCounter.builder("otp.cache.near.lookups", this, LayeredOtpCacheServiceImpl::getL1Hits)
+            .description("OTP reads and verifications checked against the node-local near-cache")
+            .tag("result", "hit")
+            .register(registry);
+        FunctionCounter.builder("otp.cache.near.lookups", this, LayeredOtpCacheServiceImpl::getL1Misses)
+            .description("OTP reads and verifications checked against the node-local near-cache")
+            .tag("result", "miss")
+            .register(registry);
+        FunctionCounter.builder("otp.cache.shared.reads", this, LayeredOtpCacheServiceImpl::getL2Reads)
+            .description("OTP reads and verifications that went to the shared store")
+            .register(registry);
+    }
+
+    private void recordL2Read(boolean found) {
+        if (found) {
+            l2Hits.increment();
+        } else {
+            l2Misses.increment();
+        }
+    }
+
+    /**
+     * Cache what L2 answered, unless the user was invalidated since the epoch was read.
+     * Otherwise drop the local entry, which the answer may have made stale.
+     */
+    private void cacheUnlessInvalidated(UUID userId, int slot, long epoch, NearEntry entry) {
+        if (invalidationEpochs.get(slot) == epoch) {
+            l1.put(userId, entry);
+            // An invalidation that raced the put wins
+            if (invalidationEpochs.get(slot) == epoch) {
+                return;
+            }
+        }
+        l1.invalidate(userId);
+    }
+
+    /**
+     * Invalidate the user everywhere after a change made through this node, then cache
+     * the outcome locally unless another invalidation arrived since the epoch was read
+     */
+    private void replaceAndPublish(UUID userId, int slot, long epoch, NearEntry entry) {
+        long bumped = invalidationEpochs.incrementAndGet(slot);
+        l1.invalidate(userId);
+        invalidationBus.publish(userId);
+        if (bumped == epoch + 1) {
+            cacheUnlessInvalidated(userId, slot, bumped, entry);
+        }
+    }
+
+    private void invalidateAndPublish(UUID userId) {
+        invalidateLocal(userId);
+        invalidationBus.publish(userId);
+    }
+
+    private void invalidateLocal(UUID userId) {
+        invalidationEpochs.incrementAndGet(slot(userId));
+        if (l1.invalidate(userId) != null) {
+            logger.debug("OTP near-cache entry invalidated for user: {}", userId);
+        }
+    }
+
+    private static int slot(UUID userId) {
+        return (userId.hashCode() & Integer.MAX_VALUE) % EPOCH_SLOTS;
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    private static final class NearEntry {
+        private final String otp;
+
+        private NearEntry(String otp) {
+            this.otp = otp;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.fscip.identity.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of the in-memory OTP cache, written and read through a memory-mapped
+ * file so a restarted node comes back with the codes and attempt counters it had.
+ *
+ * Layout (big-endian): a 24-byte header of magic "OTPC", format version (u16),
+ * reserved (u16), write time in epoch millis (i64), entry count (i32) and the CRC32 of
+ * the entry section (i32); then per entry the user ID (2 x i64), expiry in epoch millis
+ * (i64), remaining attempts (u8), OTP length (u8) and the OTP as ASCII.
+ *
+ * A snapshot is written to a sibling temp file and moved into place, so readers only
+ * ever see complete files. The file holds live codes and is created owner-only where
+ * the file system supports POSIX permissions.
+ */
+public class OtpCacheSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(OtpCacheSnapshot.class);
+
+    static final int MAGIC = 0x4F545043;
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    private static final int ENTRY_FIXED_BYTES = 8 + 8 + 8 + 1 + 1;
+    private static final int MAX_OTP_BYTES = 255;
+
+    private final Path path;
+
+    public OtpCacheSnapshot(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Replace the snapshot with the given entries
+     *
+     * @return number of entries written
+     */
+    public int write(Collection<Entry> entries, long nowMillis) throws IOException {
+        List<byte[]> otps = new ArrayList<>(entries.size());
+        long size = HEADER_BYTES;
+        for (Entry entry : entries) {
+            byte[] otp = entry.getOtp().getBytes(StandardCharsets.US_ASCII);
+            if (otp.length > MAX_OTP_BYTES) {
+                throw new IllegalArgumentException("OTP too long for snapshot: " + otp.length + " bytes");
+            }
+            otps.add(otp);
+            size += ENTRY_FIXED_BYTES + otp.length;
+        }
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            restrictToOwner(temp);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.position(HEADER_BYTES);
+                int i = 0;
+                for (Entry entry : entries) {
+                    byte[] otp = otps.get(i++);
+                    buffer.putLong(entry.getUserId().getMostSignificantBits());
+                    buffer.putLong(entry.getUserId().getLeastSignificantBits());
+                    buffer.putLong(entry.getExpiresAtMillis());
+                    buffer.put((byte) Math.min(entry.getRemainingAttempts(), 0xFF));
+                    buffer.put((byte) otp.length);
+                    buffer.put(otp);
+                }
+
+                buffer.putInt(0, MAGIC);
+                buffer.putShort(4, VERSION);
+                buffer.putShort(6, (short) 0);
+                buffer.putLong(8, nowMillis);
+                buffer.putInt(16, entries.size());
+                buffer.putInt(20, (int) checksum(buffer, size));
+                buffer.force();
+            }
+            moveIntoPlace(temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return entries.size();
+    }
+
+    /**
+     * Read the entries that are still live at nowMillis. A missing file yields nothing;
+     * a file with another magic or version, a bad checksum or a truncated body is
+     * logged and ignored, so a damaged snapshot only costs the warm start.
+     */
+    public List<Entry> read(long nowMillis) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return entries;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                logger.warn("Ignoring OTP cache snapshot {}: unexpected size {}", path, size);
+                return entries;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                logger.warn("Ignoring OTP cache snapshot {}: not a snapshot file", path);
+                return entries;
+            }
+            short version = buffer.getShort(4);
+            if (version != VERSION) {
+                logger.warn("Ignoring OTP cache snapshot {}: format version {} (expected {})", path, version, VERSION);
+                return entries;
+            }
+            if ((int) checksum(buffer, size) != buffer.getInt(20)) {
+                logger.warn("Ignoring OTP cache snapshot {}: checksum mismatch", path);
+                return entries;
+            }
+
+            int count = buffer.getInt(16);
+            buffer.position(HEADER_BYTES);
+            for (int i = 0; i < count; i++) {
+                if (buffer.remaining() < ENTRY_FIXED_BYTES) {
+                    logger.warn("Ignoring OTP cache snapshot {}: truncated at entry {}", path, i);
+                    return new ArrayList<>();
+                }
+                UUID userId = new UUID(buffer.getLong(), buffer.getLong());
+                long expiresAtMillis = buffer.getLong();
+                int remainingAttempts = buffer.get() & 0xFF;
+                int otpLength = buffer.get() & 0xFF;
+                if (buffer.remaining() < otpLength) {
+                    logger.warn("Ignoring OTP cache snapshot {}: truncated at entry {}", path, i);
+                    return new ArrayList<>();
+                }
+                byte[] otp = new byte[otpLength];
+                buffer.get(otp);
+                if (expiresAtMillis >= nowMillis) {
+                    entries.add(new Entry(userId, new String(otp, StandardCharsets.US_ASCII), expiresAtMillis,
+                        remainingAttempts));
+                }
+            }
+        }
+        return entries;
+    }
+
+    public void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    private static long checksum(ByteBuffer buffer, long size) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_BYTES, (int) size - HEADER_BYTES));
+        return crc.getValue();
+    }
+
+    private void moveIntoPlace(Path temp) throws IOException {
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void restrictToOwner(Path file) throws IOException {
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        }
+    }
+
+    /**
+     * One cache entry as stored in the snapshot
+     */
+    public static final class Entry {
+        private final UUID userId;
+        private final String otp;
+        private final long expiresAtMillis;
+        private final int remainingAttempts;
+
+        public Entry(UUID userId, String otp, long expiresAtMillis, int remainingAttempts) {
+            this.userId = userId;
+            this.otp = otp;
+            this.expiresAtMillis = expiresAtMillis;
+            this.remainingAttempts = remainingAttempts;
+        }
+
+        public UUID getUserId() {
+            return userId;
+        }
+
+        public String getOtp() {
+            return otp;
+        }
+
+        public long getExpiresAtMillis() {
+            return expiresAtMillis;
+        }
+
+        public int getRemainingAttempts() {
+            return remainingAttempts;
+        }
+    }
+}
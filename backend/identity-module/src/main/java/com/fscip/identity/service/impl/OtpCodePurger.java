@@ -0,0 +1,117 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.identity.repository.OtpCodeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Background cleanup of otp_codes.
+ * Expired rows are deleted in bounded chunks, each in its own short transaction, so the
+ * purge never holds row locks on more than one chunk. When partition maintenance is
+ * enabled (PostgreSQL with the daily partitions of V005), upcoming partitions are created
+ * ahead of time and days past retention are dropped whole instead of row by row.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class OtpCodePurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(OtpCodePurger.class);
+
+    private final OtpCodeRepository otpCodeRepository;
+    private final TransactionOperations transactionOperations;
+    private final JdbcOperations jdbcOperations;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final boolean partitionMaintenance;
+    private final int partitionDaysAhead;
+    private final int partitionRetentionDays;
+
+    @Autowired
+    public OtpCodePurger(OtpCodeRepository otpCodeRepository,
+                         PlatformTransactionManager transactionManager,
+                         JdbcOperations jdbcOperations,
+                         @Value("${app.otp.purge.batch-size:1000}") int batchSize,
+                         @Value("${app.otp.purge.max-batches-per-run:100}") int maxBatchesPerRun,
+                         @Value("${app.otp.purge.partition-maintenance:false}") boolean partitionMaintenance,
+                         @Value("${app.otp.purge.partition-days-ahead:7}") int partitionDaysAhead,
+                         @Value("${app.otp.purge.partition-retention-days:1}") int partitionRetentionDays) {
+        this(otpCodeRepository, new TransactionTemplate(transactionManager), jdbcOperations,
+            batchSize, maxBatchesPerRun, partitionMaintenance, partitionDaysAhead, partitionRetentionDays);
+    }
+
+    public OtpCodePurger(OtpCodeRepository otpCodeRepository,
+                         TransactionOperations transactionOperations,
+                         JdbcOperations jdbcOperations,
+                         int batchSize,
+                         int maxBatchesPerRun,
+                         boolean partitionMaintenance,
+                         int partitionDaysAhead,
+                         int partitionRetentionDays) {
+        if (batchSize <= 0 || maxBatchesPerRun <= 0) {
+            throw new IllegalArgumentException("Batch size and batches per run must be positive");
+        }
+        this.otpCodeRepository = otpCodeRepository;
+        this.transactionOperations = transactionOperations;
+        this.jdbcOperations = jdbcOperations;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.partitionMaintenance = partitionMaintenance;
+        this.partitionDaysAhead = partitionDaysAhead;
+        this.partitionRetentionDays = partitionRetentionDays;
+    }
+
+    /**
+     * Delete expired OTPs chunk by chunk until a chunk comes back short or the
+     * per-run cap is reached; whatever is left is picked up by the next run
+     *
+     * @return number of rows deleted
+     */
+    @Scheduled(fixedDelayString = "${app.otp.purge.interval-ms:60000}",
+               initialDelayString = "${app.otp.purge.interval-ms:60000}")
+    public int purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now();
+        int total = 0;
+        int deleted;
+        int batches = 0;
+        do {
+            deleted = transactionOperations.execute(status -> otpCodeRepository.deleteExpiredBatch(cutoff, batchSize));
+            total += deleted;
+            batches++;
+        } while (deleted == batchSize && batches < maxBatchesPerRun);
+
+        if (total > 0) {
+            logger.debug("Purged {} expired OTP codes in {} batches", total, batches);
+        }
+        return total;
+    }
+
+    /**
+     * Create upcoming otp_codes partitions and drop those past retention
+     *
+     * @return number of partitions dropped
+     */
+    @Scheduled(cron = "${app.otp.purge.partition-cron:0 15 * * * *}")
+    public int maintainPartitions() {
+        if (!partitionMaintenance) {
+            return 0;
+        }
+        Integer dropped = jdbcOperations.queryForObject("SELECT maintain_otp_codes_partitions(?, ?)",
+            Integer.class, partitionDaysAhead, partitionRetentionDays);
+        int count = dropped != null ? dropped : 0;
+        if (count > 0) {
+            logger.info("Dropped {} otp_codes partitions past {} days retention", count, partitionRetentionDays);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,91 @@
+package com.fscip.identity.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.function.Supplier;
+
+/**
+ * Generates numeric OTP codes without a shared lock.
+ * Every thread draws from its own SecureRandom (a DRBG unless configured otherwise),
+ * so concurrent requests never queue on one generator. Each thread refills a small
+ * byte buffer with one nextBytes call and takes a single bounded integer per code
+ * from it, written right-to-left into a pre-sized char buffer.
+ *
+ * The entropy source is pluggable through app.otp.generator.algorithm or, in code,
+ * a supplier that creates the per-thread instances.
+ */
+@Component
+public class OtpGenerator {
+
+    public static final int OTP_LENGTH = 6;
+    private static final int BOUND = 1_000_000;
+    // Largest multiple of BOUND below 2^24, so three bytes reduce without modulo bias
+    private static final int UNBIASED_LIMIT = (1 << 24) / BOUND * BOUND;
+    private static final int BUFFER_SIZE = 96;
+
+    private final ThreadLocal<EntropyBuffer> buffers;
+
+    @Autowired
+    public OtpGenerator(@Value("${app.otp.generator.algorithm:DRBG}") String algorithm) {
+        this(() -> newSecureRandom(algorithm));
+    }
+
+    public OtpGenerator(Supplier<SecureRandom> entropySource) {
+        this.buffers = ThreadLocal.withInitial(() -> new EntropyBuffer(entropySource.get()));
+        // Fail at startup rather than on the first request if the source is unusable
+        buffers.get();
+    }
+
+    /**
+     * Generate a uniformly distributed code of {@link #OTP_LENGTH} digits, zero-padded
+     */
+    public String generate() {
+        EntropyBuffer buffer = buffers.get();
+        int code;
+        do {
+            code = buffer.nextUnsigned24();
+        } while (code >= UNBIASED_LIMIT);
+        code %= BOUND;
+        char[] digits = new char[OTP_LENGTH];
+        for (int i = OTP_LENGTH - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + code % 10);
+            code /= 10;
+        }
+        return new String(digits);
+    }
+
+    private static SecureRandom newSecureRandom(String algorithm) {
+        try {
+            return SecureRandom.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("OTP entropy source not available: " + algorithm, e);
+        }
+    }
+
+    // Per-thread source and its unread bytes; never shared, so no synchronization
+    private static final class EntropyBuffer {
+        private final SecureRandom random;
+        private final byte[] bytes = new byte[BUFFER_SIZE];
+        private int position = BUFFER_SIZE;
+
+        private EntropyBuffer(SecureRandom random) {
+            this.random = random;
+        }
+
+        private int nextUnsigned24() {
+            if (position + 3 > BUFFER_SIZE) {
+                random.nextBytes(bytes);
+                position = 0;
+            }
+            int value = (bytes[position] & 0xFF) << 16 | (bytes[position + 1] & 0xFF) << 8 | (bytes[position + 2] & 0xFF);
+            // Consumed entropy is not left lying in memory
+            bytes[position] = bytes[position + 1] = bytes[position + 2] = 0;
+            position += 3;
+            return value;
+        }
+    }
+}
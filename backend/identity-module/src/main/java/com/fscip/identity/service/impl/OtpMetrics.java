@@ -0,0 +1,145 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.identity.service.OtpCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Meters for the OTP flow, exported through Actuator (/actuator/prometheus):
+ *
+ *   otp.requests{outcome}               timer per OTP request, e.g. outcome=rate_limited or
+ *                                       coalesced (a duplicate that shared an in-flight result)
+ *   otp.verifications{outcome,source}   timer per verification; source=database marks a cache fallback
+ *   otp.cache.lookups{result}           verifications answered by the cache (hit) or not (miss)
+ *   otp.email.send{type,result}         time to hand an email to the configured EmailService
+ *
+ * Cache implementations that are {@link MeterBinder}s add their own size and eviction
+ * meters. Every tag value comes from a fixed enum, so the number of series is bounded.
+ */
+@Component
+public class OtpMetrics {
+
+    public enum RequestOutcome {
+        SENT, USER_NOT_FOUND, ALREADY_ACTIVE, RATE_LIMITED, EMAIL_FAILED, COALESCED, ERROR
+    }
+
+    public enum VerifyOutcome {
+        VERIFIED, INVALID, LOCKED, EXPIRED, NO_OTP, USER_NOT_FOUND, ERROR
+    }
+
+    public enum Source {
+        CACHE, DATABASE, NONE
+    }
+
+    public enum EmailType {
+        OTP, WELCOME
+    }
+
+    private final MeterRegistry registry;
+    private final Timer[] requestTimers;
+    private final Timer[][] verifyTimers;
+    private final Timer[][] emailTimers;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    public OtpMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
+        RequestOutcome[] requestOutcomes = RequestOutcome.values();
+        this.requestTimers = new Timer[requestOutcomes.length];
+        for (RequestOutcome outcome : requestOutcomes) {
+            requestTimers[outcome.ordinal()] = Timer.builder("otp.requests")
+                .description("OTP requests by outcome")
+                .tag("outcome", tagValue(outcome))
+                .register(registry);
+        }
+
+        VerifyOutcome[] verifyOutcomes = VerifyOutcome.values();
+        Source[] sources = Source.values();
+        this.verifyTimers = new Timer[verifyOutcomes.length][sources.length];
+        for (VerifyOutcome outcome : verifyOutcomes) {
+            for (Source source : sources) {
+                verifyTimers[outcome.ordinal()][source.ordinal()] = Timer.builder("otp.verifications")
+                    .description("OTP verifications by outcome and by where the code was checked")
+                    .tag("outcome", tagValue(outcome))
+                    .tag("source", tagValue(source))
+                    .register(registry);
+            }
+        }
+
+        EmailType[] emailTypes = EmailType.values();
+        this.emailTimers = new Timer[emailTypes.length][2];
+        for (EmailType type : emailTypes) {
+            for (int sent = 0; sent < 2; sent++) {
+                emailTimers[type.ordinal()][sent] = Timer.builder("otp.email.send")
+                    .description("Time to hand an email to the email service")
+                    .tag("type", tagValue(type))
+                    .tag("result", sent == 1 ? "sent" : "failed")
+                    .register(registry);
+            }
+        }
+
+        this.cacheHits = cacheLookups("hit");
+        this.cacheMisses = cacheLookups("miss");
+    }
+
+    /**
+     * Register the size and eviction meters of a cache that provides them
+     */
+    public void bindCache(OtpCacheService cache) {
+        if (cache instanceof MeterBinder binder) {
+            binder.bindTo(registry);
+        }
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void recordRequest(Timer.Sample sample, RequestOutcome outcome) {
+        sample.stop(requestTimers[outcome.ordinal()]);
+    }
+
+    public void recordVerification(Timer.Sample sample, VerifyOutcome outcome, Source source) {
+        sample.stop(verifyTimers[outcome.ordinal()][source.ordinal()]);
+    }
+
+    public void recordCacheLookup(boolean hit) {
+        (hit ? cacheHits : cacheMisses).increment();
+    }
+
+    /**
+     * Time an email hand-off; a send that throws counts as failed and the exception propagates
+     */
+    public boolean timeEmail(EmailType type, BooleanSupplier send) {
+        Timer.Sample sample = start();
+        boolean sent = false;
+        try {
+            sent = send.getAsBoolean();
+            return sent;
+        } finally {
+            sample.stop(emailTimers[type.ordinal()][sent ? 1 : 0]);
+        }
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    private Counter cacheLookups(String result) {
+        return Counter.builder("otp.cache.lookups")
+            .description("OTP verifications answered by the cache (hit) or sent to the database (miss)")
+            .tag("result", result)
+            .register(registry);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,210 +2,322 @@ package com.fscip.identity.service.impl;
 
 import com.fscip.identity.dto.*;
 import com.fscip.identity.entity.OtpCode;
-import com.fscip.identity.entity.User;
 import com.fscip.identity.entity.UserStatus;
 import com.fscip.identity.exception.OtpException;
 import com.fscip.identity.repository.OtpCodeRepository;
 import com.fscip.identity.repository.UserRepository;
 import com.fscip.identity.service.EmailService;
 import com.fscip.identity.service.OtpCacheService;
+import com.fscip.identity.service.OtpRateLimiter;
 import com.fscip.identity.service.OtpService;
+import com.fscip.identity.service.OtpVerifyResult;
+import com.fscip.identity.service.UserLookupService;
+import com.fscip.identity.service.impl.OtpMetrics.EmailType;
+import com.fscip.identity.service.impl.OtpMetrics.RequestOutcome;
+import com.fscip.identity.service.impl.OtpMetrics.Source;
+import com.fscip.identity.service.impl.OtpMetrics.VerifyOutcome;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @Transactional
 public class OtpServiceImpl implements OtpService {
 
     private static final Logger logger = LoggerFactory.getLogger(OtpServiceImpl.class);
-    private static final int OTP_LENGTH = 6;
     private static final int MAX_ATTEMPTS = 5;
 
     @Value("${app.otp.expiry-minutes:10}")
     private int otpExpiryMinutes;
 
-    @Value("${app.otp.rate-limit-minutes:1}")
-    private int rateLimitMinutes;
-
-    @Value("${app.otp.max-requests-per-hour:5}")
-    private int maxRequestsPerHour;
-
     private final UserRepository userRepository;
     private final OtpCodeRepository otpCodeRepository;
     private final EmailService emailService;
     private final OtpCacheService otpCacheService;
-    private final SecureRandom secureRandom = new SecureRandom();
+    private final OtpRateLimiter otpRateLimiter;
+    private final UserLookupService userLookupService;
+    private final OtpGenerator otpGenerator;
+    private final OtpMetrics metrics;
+    private final TransactionOperations transactionOperations;
+    private final long inFlightWaitMillis;
+
+    // OTP requests being processed, by user; concurrent duplicates share the result
+    private final ConcurrentHashMap<UUID, CompletableFuture<OtpResponseDto>> inFlightRequests = new ConcurrentHashMap<>();
 
     @Autowired
     public OtpServiceImpl(UserRepository userRepository,
                          OtpCodeRepository otpCodeRepository,
                          EmailService emailService,
-                         OtpCacheService otpCacheService) {
+                         OtpCacheService otpCacheService,
+                         OtpRateLimiter otpRateLimiter,
+                         UserLookupService userLookupService,
+                         OtpGenerator otpGenerator,
+                         OtpMetrics metrics,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.otp.request.in-flight-wait-ms:1000}") long inFlightWaitMillis) {
+        this(userRepository, otpCodeRepository, emailService, otpCacheService, otpRateLimiter, userLookupService,
+             otpGenerator, metrics, new TransactionTemplate(transactionManager), Duration.ofMillis(inFlightWaitMillis));
+    }
+
+    public OtpServiceImpl(UserRepository userRepository,
+                         OtpCodeRepository otpCodeRepository,
+                         EmailService emailService,
+                         OtpCacheService otpCacheService,
+                         OtpRateLimiter otpRateLimiter,
+                         UserLookupService userLookupService,
+                         OtpGenerator otpGenerator,
+                         OtpMetrics metrics,
+                         TransactionOperations transactionOperations,
+                         Duration inFlightWait) {
         this.userRepository = userRepository;
         this.otpCodeRepository = otpCodeRepository;
         this.emailService = emailService;
         this.otpCacheService = otpCacheService;
+        this.otpRateLimiter = otpRateLimiter;
+        this.userLookupService = userLookupService;
+        this.otpGenerator = otpGenerator;
+        this.metrics = metrics;
+        this.transactionOperations = transactionOperations;
+        this.inFlightWaitMillis = inFlightWait.toMillis();
+        metrics.bindCache(otpCacheService);
     }
 
+    /**
+     * Only one request per user is processed at a time. A request that arrives while
+     * another one for the same user is in flight (double-clicks, client retries) waits
+     * for it and returns its result once its transaction has committed, without writing,
+     * emailing or using up rate-limit budget itself. Only the OTP is issued in a
+     * transaction, so a waiting duplicate holds no database connection, and it gives up
+     * after app.otp.request.in-flight-wait-ms rather than outlast the request it joined.
+     */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public OtpResponseDto requestOtp(OtpRequestDto request) {
+        Timer.Sample sample = metrics.start();
         try {
             logger.info("Processing OTP request for email: {}", request.getEmail());
 
-            // Find user by email
-            Optional<User> userOpt = userRepository.findByEmail(request.getEmail());
+            // Find user by email (cached projection, not the full entity)
+            Optional<UserSummary> userOpt = userLookupService.findByEmail(request.getEmail());
             if (userOpt.isEmpty()) {
                 logger.warn("OTP request for non-existent email: {}", request.getEmail());
+                metrics.recordRequest(sample, RequestOutcome.USER_NOT_FOUND);
                 return OtpResponseDto.failure("User not found");
             }
 
-            User user = userOpt.get();
+            UserSummary user = userOpt.get();
             
             // Check if user is already active
             if (user.getStatus() == UserStatus.ACTIVE) {
                 logger.warn("OTP request for already active user: {}", request.getEmail());
+                metrics.recordRequest(sample, RequestOutcome.ALREADY_ACTIVE);
                 return OtpResponseDto.failure("Account is already active");
             }
 
-            // Check rate limiting
-            if (isRateLimited(user.getUserId())) {
-                logger.warn("Rate limit exceeded for user: {}", request.getEmail());
-                return OtpResponseDto.failure("Too many OTP requests. Please wait before requesting again");
+            CompletableFuture<OtpResponseDto> flight = new CompletableFuture<>();
+            CompletableFuture<OtpResponseDto> inFlight = inFlightRequests.putIfAbsent(user.getUserId(), flight);
+            if (inFlight != null) {
+                logger.info("Joining in-flight OTP request for email: {}", request.getEmail());
+                OtpResponseDto shared = awaitInFlight(inFlight);
+                metrics.recordRequest(sample, RequestOutcome.COALESCED);
+                return shared;
             }
 
-            // Generate new OTP
-            String otpCode = generateOtp();
-            LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(otpExpiryMinutes);
+            OtpResponseDto response;
+            try {
+                response = transactionOperations.execute(status -> issueOtp(request, user, sample));
+            } catch (RuntimeException e) {
+                // Rolled back, so waiting duplicates must not report an OTP that was never stored
+                inFlightRequests.remove(user.getUserId(), flight);
+                flight.completeExceptionally(e);
+                throw e;
+            }
+            inFlightRequests.remove(user.getUserId(), flight);
+            flight.complete(response);
+            return response;
 
-            // Clean up existing OTPs for this user
-            otpCodeRepository.deleteByUserId(user.getUserId());
+        } catch (Exception e) {
+            logger.error("Error processing OTP request for email: {}", request.getEmail(), e);
+            metrics.recordRequest(sample, RequestOutcome.ERROR);
+            throw new OtpException("Failed to process OTP request", e);
+        }
+    }
 
-            // Save OTP to database
-            OtpCode otpEntity = new OtpCode(user.getUserId(), otpCode, expiresAt);
-            otpCodeRepository.save(otpEntity);
+    private OtpResponseDto issueOtp(OtpRequestDto request, UserSummary user, Timer.Sample sample) {
+        // Check rate limiting (in memory or shared store, no database query)
+        if (!otpRateLimiter.tryAcquire(user.getUserId())) {
+            logger.warn("Rate limit exceeded for user: {}", request.getEmail());
+            metrics.recordRequest(sample, RequestOutcome.RATE_LIMITED);
+            return OtpResponseDto.failure("Too many OTP requests. Please wait before requesting again");
+        }
 
-            // Store in cache for quick access
-            otpCacheService.storeOtp(user.getUserId(), otpCode, otpExpiryMinutes * 60L);
+        // Generate new OTP
+        String otpCode = otpGenerator.generate();
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(otpExpiryMinutes);
 
-            // Send OTP via email
-            boolean emailSent = emailService.sendOtp(request.getEmail(), otpCode, otpExpiryMinutes);
-            if (!emailSent) {
-                logger.error("Failed to send OTP email to: {}", request.getEmail());
-                return OtpResponseDto.failure("Failed to send OTP email");
-            }
+        // Clean up existing OTPs for this user
+        otpCodeRepository.deleteByUserId(user.getUserId());
 
-            logger.info("OTP successfully generated and sent for email: {}", request.getEmail());
-            return OtpResponseDto.success(request.getEmail(), (long) otpExpiryMinutes * 60);
+        // Save OTP to database
+        OtpCode otpEntity = new OtpCode(user.getUserId(), otpCode, expiresAt);
+        otpCodeRepository.save(otpEntity);
 
-        } catch (Exception e) {
-            logger.error("Error processing OTP request for email: {}", request.getEmail(), e);
-            throw new OtpException("Failed to process OTP request", e);
+        // Store in cache for quick access
+        otpCacheService.storeOtp(user.getUserId(), otpCode, otpExpiryMinutes * 60L);
+
+        // Send OTP via email
+        boolean emailSent = metrics.timeEmail(EmailType.OTP,
+            () -> emailService.sendOtp(request.getEmail(), otpCode, otpExpiryMinutes));
+        if (!emailSent) {
+            logger.error("Failed to send OTP email to: {}", request.getEmail());
+            metrics.recordRequest(sample, RequestOutcome.EMAIL_FAILED);
+            return OtpResponseDto.failure("Failed to send OTP email");
+        }
+
+        logger.info("OTP successfully generated and sent for email: {}", request.getEmail());
+        metrics.recordRequest(sample, RequestOutcome.SENT);
+        return OtpResponseDto.success(request.getEmail(), (long) otpExpiryMinutes * 60);
+    }
+
+    private OtpResponseDto awaitInFlight(CompletableFuture<OtpResponseDto> inFlight) {
+        try {
+            return inFlight.get(inFlightWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return OtpResponseDto.failure("An OTP request for this account is already in progress");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("In-flight OTP request failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight OTP request", e);
         }
     }
 
     @Override
     public OtpVerificationResponseDto verifyOtp(OtpVerificationDto verification) {
+        Timer.Sample sample = metrics.start();
         try {
             logger.info("Processing OTP verification for email: {}", verification.getEmail());
 
-            // Find user by email
-            Optional<User> userOpt = userRepository.findByEmail(verification.getEmail());
+            // Find user by email (cached projection, not the full entity)
+            Optional<UserSummary> userOpt = userLookupService.findByEmail(verification.getEmail());
             if (userOpt.isEmpty()) {
                 logger.warn("OTP verification for non-existent email: {}", verification.getEmail());
+                metrics.recordVerification(sample, VerifyOutcome.USER_NOT_FOUND, Source.NONE);
                 return OtpVerificationResponseDto.failure("User not found", 0);
             }
 
-            User user = userOpt.get();
+            UserSummary user = userOpt.get();
 
-            // Check remaining attempts from cache first
-            int remainingAttempts = otpCacheService.getRemainingAttempts(user.getUserId());
-            if (remainingAttempts <= 0) {
-                logger.warn("OTP verification blocked - no attempts remaining for user: {}", verification.getEmail());
-                return OtpVerificationResponseDto.failure("OTP has been locked due to too many failed attempts", 0);
-            }
-
-            // Get OTP from cache
-            String cachedOtp = otpCacheService.getOtp(user.getUserId());
-            if (cachedOtp == null) {
-                // Fallback to database
-                Optional<OtpCode> otpOpt = otpCodeRepository.findTopByUserIdOrderByCreatedAtDesc(user.getUserId());
-                if (otpOpt.isEmpty()) {
-                    logger.warn("No OTP found for user: {}", verification.getEmail());
-                    return OtpVerificationResponseDto.failure("No active OTP found. Please request a new one", 0);
-                }
-
-                OtpCode otpEntity = otpOpt.get();
-                if (otpEntity.isExpired()) {
-                    logger.warn("Expired OTP verification attempt for user: {}", verification.getEmail());
-                    return OtpVerificationResponseDto.failure("OTP has expired. Please request a new one", 0);
-                }
-
-                if (otpEntity.isLocked()) {
-                    logger.warn("Locked OTP verification attempt for user: {}", verification.getEmail());
+            // Check, count and consume the OTP in one cache operation
+            OtpVerifyResult cacheResult = otpCacheService.verifyAndConsume(user.getUserId(), verification.getOtp());
+            metrics.recordCacheLookup(cacheResult.getOutcome() != OtpVerifyResult.Outcome.MISSING);
+            Source source = Source.CACHE;
+            switch (cacheResult.getOutcome()) {
+                case LOCKED:
+                    logger.warn("OTP verification blocked - no attempts remaining for user: {}", verification.getEmail());
+                    metrics.recordVerification(sample, VerifyOutcome.LOCKED, Source.CACHE);
                     return OtpVerificationResponseDto.failure("OTP has been locked due to too many failed attempts", 0);
-                }
 
-                cachedOtp = otpEntity.getOtp();
+                case INVALID:
+                    // Also update database (a user has at most one OTP row, see requestOtp)
+                    otpCodeRepository.incrementAttemptsByUserId(user.getUserId());
+
+                    logger.warn("Invalid OTP verification attempt for user: {} | Remaining attempts: {}", 
+                               verification.getEmail(), cacheResult.getRemainingAttempts());
+                    metrics.recordVerification(sample, VerifyOutcome.INVALID, Source.CACHE);
+                    return OtpVerificationResponseDto.failure("Invalid OTP code", cacheResult.getRemainingAttempts());
+
+                case MISSING:
+                    // Fallback to database
+                    OtpVerificationResponseDto failure = verifyAgainstDatabase(user, verification, sample);
+                    if (failure != null) {
+                        return failure;
+                    }
+                    source = Source.DATABASE;
+                    break;
+
+                default:
+                    break;
             }
 
-            // Verify OTP
-            if (!cachedOtp.equals(verification.getOtp())) {
-                // Decrement attempts
-                remainingAttempts = otpCacheService.decrementAttempts(user.getUserId());
-                
-                // Also update database
-                otpCodeRepository.findTopByUserIdOrderByCreatedAtDesc(user.getUserId())
-                    .ifPresent(otp -> {
-                        otp.incrementAttempts();
-                        otpCodeRepository.save(otp);
-                    });
-
-                logger.warn("Invalid OTP verification attempt for user: {} | Remaining attempts: {}", 
-                           verification.getEmail(), remainingAttempts);
-                return OtpVerificationResponseDto.failure("Invalid OTP code", remainingAttempts);
-            }
-
-            // OTP is valid - activate user
-            user.setStatus(UserStatus.ACTIVE);
-            user.setLastLogin(LocalDateTime.now());
-            userRepository.save(user);
+            // OTP is valid - activate user with bulk updates (no entity load or full-row update)
+            LocalDateTime now = LocalDateTime.now();
+            userLookupService.updateUserStatus(user.getUserId(), UserStatus.ACTIVE);
+            userRepository.updateLastLogin(user.getUserId(), now, now);
 
             // Clean up OTPs
             otpCodeRepository.deleteByUserId(user.getUserId());
-            otpCacheService.removeOtp(user.getUserId());
 
             // Send welcome email
-            emailService.sendWelcomeEmail(user.getEmail(), user.getFullName());
+            metrics.timeEmail(EmailType.WELCOME, () -> emailService.sendWelcomeEmail(user.getEmail(), user.getFullName()));
 
             logger.info("OTP successfully verified and user activated: {}", verification.getEmail());
-            return OtpVerificationResponseDto.success(user.getUserId(), user.getStatus().toString());
+            metrics.recordVerification(sample, VerifyOutcome.VERIFIED, source);
+            return OtpVerificationResponseDto.success(user.getUserId(), UserStatus.ACTIVE.toString());
 
         } catch (Exception e) {
             logger.error("Error processing OTP verification for email: {}", verification.getEmail(), e);
+            metrics.recordVerification(sample, VerifyOutcome.ERROR, Source.NONE);
             throw new OtpException("Failed to process OTP verification", e);
         }
     }
 
-    private String generateOtp() {
-        StringBuilder otp = new StringBuilder();
-        for (int i = 0; i < OTP_LENGTH; i++) {
-            otp.append(secureRandom.nextInt(10));
+    /**
+     * Verify against the latest persisted OTP when the cache has no entry for the user.
+     * Failures are recorded on the sample here; a match is recorded by the caller.
+     *
+     * @return failure response, or null when the OTP matched
+     */
+    private OtpVerificationResponseDto verifyAgainstDatabase(UserSummary user, OtpVerificationDto verification,
+                                                             Timer.Sample sample) {
+        Optional<OtpCode> otpOpt = otpCodeRepository.findTopByUserIdOrderByCreatedAtDesc(user.getUserId());
+        if (otpOpt.isEmpty()) {
+            logger.warn("No OTP found for user: {}", verification.getEmail());
+            metrics.recordVerification(sample, VerifyOutcome.NO_OTP, Source.DATABASE);
+            return OtpVerificationResponseDto.failure("No active OTP found. Please request a new one", 0);
+        }
+
+        OtpCode otpEntity = otpOpt.get();
+        if (otpEntity.isExpired()) {
+            logger.warn("Expired OTP verification attempt for user: {}", verification.getEmail());
+            metrics.recordVerification(sample, VerifyOutcome.EXPIRED, Source.DATABASE);
+            return OtpVerificationResponseDto.failure("OTP has expired. Please request a new one", 0);
+        }
+
+        if (otpEntity.isLocked()) {
+            logger.warn("Locked OTP verification attempt for user: {}", verification.getEmail());
+            metrics.recordVerification(sample, VerifyOutcome.LOCKED, Source.DATABASE);
+            return OtpVerificationResponseDto.failure("OTP has been locked due to too many failed attempts", 0);
+        }
+
+        if (!otpEntity.getOtp().equals(verification.getOtp())) {
+            otpCodeRepository.incrementAttempts(otpEntity.getOtpId());
+
+            int remainingAttempts = Math.max(0, MAX_ATTEMPTS - (otpEntity.getAttempts() + 1));
+            logger.warn("Invalid OTP verification attempt for user: {} | Remaining attempts: {}", 
+                       verification.getEmail(), remainingAttempts);
+            metrics.recordVerification(sample, VerifyOutcome.INVALID, Source.DATABASE);
+            return OtpVerificationResponseDto.failure("Invalid OTP code", remainingAttempts);
         }
-        return otp.toString();
-    }
 
-    private boolean isRateLimited(java.util.UUID userId) {
-        LocalDateTime since = LocalDateTime.now().minus(rateLimitMinutes, ChronoUnit.MINUTES);
-        long recentRequests = otpCodeRepository.countOtpRequestsSince(userId, since);
-        return recentRequests >= maxRequestsPerHour;
+        return null;
     }
 }
\ No newline at end of file
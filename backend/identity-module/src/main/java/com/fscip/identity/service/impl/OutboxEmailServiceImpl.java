@@ -0,0 +1,58 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.identity.entity.EmailOutbox;
+import com.fscip.identity.repository.EmailOutboxRepository;
+import com.fscip.identity.service.EmailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Records emails in the email_outbox table instead of sending them.
+ * The row joins the caller's transaction, so it commits or rolls back together with
+ * the OTP or activation change; {@link EmailOutboxRelay} delivers it afterwards.
+ */
+@Transactional
+public class OutboxEmailServiceImpl implements EmailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxEmailServiceImpl.class);
+
+    private final EmailOutboxRepository outboxRepository;
+
+    public OutboxEmailServiceImpl(EmailOutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    @Override
+    public boolean sendOtp(String email, String otp, int expirationMinutes) {
+        outboxRepository.save(EmailOutbox.otp(email, otp, expirationMinutes));
+        logger.debug("OTP email queued in outbox for: {}", email);
+        return true;
+    }
+
+    @Override
+    public int sendOtpBatch(Map<String, String> otpsByEmail, int expirationMinutes) {
+        List<EmailOutbox> rows = otpsByEmail.entrySet().stream()
+            .map(entry -> EmailOutbox.otp(entry.getKey(), entry.getValue(), expirationMinutes))
+            .collect(Collectors.toList());
+        outboxRepository.saveAll(rows);
+        logger.debug("{} OTP emails queued in outbox", rows.size());
+        return rows.size();
+    }
+
+    @Override
+    public boolean sendWelcomeEmail(String email, String fullName) {
+        outboxRepository.save(EmailOutbox.welcome(email, fullName));
+        logger.debug("Welcome email queued in outbox for: {}", email);
+        return true;
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+}
@@ -0,0 +1,278 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.common.util.UuidLongMap;
+import com.fscip.identity.service.OtpCacheService;
+import com.fscip.identity.service.OtpVerifyResult;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Node-local OTP cache for very many pending users. Each entry is one long in a
+ * {@link UuidLongMap}: expiry as milliseconds since the cache started (40 bits, about
+ * 34 years), remaining attempts (4 bits) and the 6-digit code as an integer (20 bits).
+ * Ten million pending users take about 400 MB, against about 2 GB for
+ * {@link InMemoryOtpCacheServiceImpl}.
+ *
+ * Expired entries are dropped on access and by a sweep of the packed tables once a
+ * minute. The sweep walks every slot, one lock stripe at a time, instead of keeping a
+ * per-entry expiry index, since that index alone would cost more than the entries.
+ * Only codes of exactly six digits can be stored.
+ */
+@Service
+@ConditionalOnProperty(name = "app.otp.cache.type", havingValue = "packed")
+public class PackedOtpCacheServiceImpl implements OtpCacheService, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PackedOtpCacheServiceImpl.class);
+    private static final int MAX_ATTEMPTS = 5;
+
+    private static final int OTP_BITS = 20;
+    private static final int ATTEMPT_BITS = 4;
+    private static final int EXPIRY_SHIFT = OTP_BITS + ATTEMPT_BITS;
+    private static final long OTP_MASK = (1L << OTP_BITS) - 1;
+    private static final long ATTEMPT_MASK = (1L << ATTEMPT_BITS) - 1;
+    private static final long MAX_EXPIRY_OFFSET = (1L << (Long.SIZE - EXPIRY_SHIFT)) - 1;
+    private static final int OTP_LENGTH = 6;
+
+    private final UuidLongMap entries;
+    private final ScheduledExecutorService cleanupExecutor = Executors.newScheduledThreadPool(1);
+    private final Clock clock;
+    private final long baseMillis;
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public PackedOtpCacheServiceImpl(@Value("${app.otp.cache.packed.expected-size:100000}") int expectedSize) {
+        this(expectedSize, Clock.systemUTC());
+    }
+
+    public PackedOtpCacheServiceImpl(int expectedSize, Clock clock) {
+        this.entries = new UuidLongMap(expectedSize);
+        this.clock = clock;
+        this.baseMillis = clock.millis();
+        cleanupExecutor.scheduleAtFixedRate(this::cleanupExpiredEntries, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void storeOtp(UUID userId, String otp, long expirationSeconds) {
+        long expiresAt = clock.millis() + expirationSeconds * 1000L;
+        entries.put(userId, pack(parseOtp(otp), MAX_ATTEMPTS, expiresAt));
+        logger.debug("OTP stored in packed cache for user: {}", userId);
+    }
+
+    @Override
+    public String getOtp(UUID userId) {
+        long entry = live(userId);
+        if (entry == UuidLongMap.NO_VALUE || attemptsOf(entry) == 0) {
+            return null;
+        }
+        return formatOtp(otpOf(entry));
+    }
+
+    @Override
+    public void removeOtp(UUID userId) {
+        if (entries.remove(userId) != UuidLongMap.NO_VALUE) {
+            logger.debug("OTP removed from packed cache for user: {}", userId);
+        }
+    }
+
+    @Override
+    public boolean hasActiveOtp(UUID userId) {
+        long entry = live(userId);
+        return entry != UuidLongMap.NO_VALUE && attemptsOf(entry) > 0;
+    }
+
+    @Override
+    public int getRemainingAttempts(UUID userId) {
+        long entry = entries.get(userId);
+        if (entry == UuidLongMap.NO_VALUE || isExpired(entry, clock.millis())) {
+            return 0;
+        }
+        return attemptsOf(entry);
+    }
+
+    @Override
+    public int decrementAttempts(UUID userId) {
+        long now = clock.millis();
+        long entry = entries.compute(userId, current -> {
+            if (current == UuidLongMap.NO_VALUE || isExpired(current, now)) {
+                return UuidLongMap.NO_VALUE;
+            }
+            return withAttempts(current, Math.max(0, attemptsOf(current) - 1));
+        });
+        return entry == UuidLongMap.NO_VALUE ? 0 : attemptsOf(entry);
+    }
+
+    @Override
+    public void resetAttempts(UUID userId) {
+        long now = clock.millis();
+        entries.compute(userId, current -> {
+            if (current == UuidLongMap.NO_VALUE || isExpired(current, now)) {
+                return UuidLongMap.NO_VALUE;
+            }
+            return withAttempts(current, MAX_ATTEMPTS);
+        });
+    }
+
+    @Override
+    public OtpVerifyResult verifyAndConsume(UUID userId, String otp) {
+        long now = clock.millis();
+        int submitted = tryParseOtp(otp);
+        OtpVerifyResult[] result = {OtpVerifyResult.MISSING};
+
+        // Same single-step semantics as the map-based cache, under one stripe lock
+        entries.compute(userId, current -> {
+            if (current == UuidLongMap.NO_VALUE || isExpired(current, now)) {
+                return UuidLongMap.NO_VALUE;
+            }
+            int attempts = attemptsOf(current);
+            if (attempts == 0) {
+                result[0] = OtpVerifyResult.LOCKED;
+                return current;
+            }
+            if (submitted == otpOf(current)) {
+                result[0] = OtpVerifyResult.VERIFIED;
+                return UuidLongMap.NO_VALUE;
+            }
+            result[0] = OtpVerifyResult.invalid(attempts - 1);
+            return withAttempts(current, attempts - 1);
+        });
+
+        logger.debug("OTP verification against packed cache for user: {} | Result: {}", userId, result[0]);
+        return result[0];
+    }
+
+    /**
+     * Drop expired entries by sweeping the packed tables
+     *
+     * @return number of entries removed
+     */
+    public int cleanupExpiredEntries() {
+        long now = clock.millis();
+        int removed = entries.removeIf(entry -> isExpired(entry, now));
+        if (removed > 0) {
+            evictions.add(removed);
+            logger.debug("Cleaned up {} expired OTP entries from packed cache", removed);
+        }
+        return removed;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Bytes held by the packed tables
+     */
+    public long tableBytes() {
+        return entries.tableBytes();
+    }
+
+    /**
+     * Expired entries removed by the cleanup sweep
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("otp.cache.size", this, PackedOtpCacheServiceImpl::size)
+            .description("Entries in the OTP cache")
+            .tag("cache", "packed")
+            .register(registry);
+        Gauge.builder("otp.cache.table.bytes", this, PackedOtpCacheServiceImpl::tableBytes)
+            .description("Bytes held by the packed OTP cache tables")
+            .tag("cache", "packed")
+            .baseUnit("bytes")
+            .register(registry);
+        FunctionCounter.builder("otp.cache.evictions", this, PackedOtpCacheServiceImpl::getEvictionCount)
+            .description("Expired entries removed from the OTP cache by the cleanup sweep")
+            .tag("cache", "packed")
+            .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleanupExecutor.shutdownNow();
+    }
+
+    private long live(UUID userId) {
+        long entry = entries.get(userId);
+        if (entry != UuidLongMap.NO_VALUE && isExpired(entry, clock.millis())) {
+            long expired = entry;
+            // Only remove the entry we saw expire, not one stored meanwhile
+            entries.compute(userId, current -> current == expired ? UuidLongMap.NO_VALUE : current);
+            return UuidLongMap.NO_VALUE;
+        }
+        return entry;
+    }
+
+    private long pack(int otp, int attempts, long expiresAtMillis) {
+        long offset = Math.min(Math.max(0, expiresAtMillis - baseMillis), MAX_EXPIRY_OFFSET);
+        return offset << EXPIRY_SHIFT | (long) attempts << OTP_BITS | otp;
+    }
+
+    private boolean isExpired(long entry, long nowMillis) {
+        return nowMillis > baseMillis + (entry >>> EXPIRY_SHIFT);
+    }
+
+    private static long withAttempts(long entry, int attempts) {
+        return entry & ~(ATTEMPT_MASK << OTP_BITS) | (long) attempts << OTP_BITS;
+    }
+
+    private static int attemptsOf(long entry) {
+        return (int) (entry >>> OTP_BITS & ATTEMPT_MASK);
+    }
+
+    private static int otpOf(long entry) {
+        return (int) (entry & OTP_MASK);
+    }
+
+    private static int parseOtp(String otp) {
+        int value = tryParseOtp(otp);
+        if (value < 0) {
+            throw new IllegalArgumentException("Packed OTP cache only holds codes of exactly " + OTP_LENGTH + " digits");
+        }
+        return value;
+    }
+
+    // -1 for anything that is not exactly OTP_LENGTH digits
+    private static int tryParseOtp(String otp) {
+        if (otp == null || otp.length() != OTP_LENGTH) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < OTP_LENGTH; i++) {
+            char c = otp.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static String formatOtp(int otp) {
+        char[] digits = new char[OTP_LENGTH];
+        for (int i = OTP_LENGTH - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + otp % 10);
+            otp /= 10;
+        }
+        return new String(digits);
+    }
+}
@@ -0,0 +1,275 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.common.util.UuidBloomFilter;
+import com.fscip.identity.service.PasswordResetTokenService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Password reset tokens with an in-memory Bloom filter of live tokens in front of the
+ * table. A token the filter has never seen is rejected without a query, so guessing
+ * reset links costs the database nothing; a token that passes is confirmed and marked
+ * used by one UPDATE ... RETURNING.
+ *
+ * Tokens issued on this node are added to the filter when their insert commits. Tokens
+ * issued on other nodes are picked up by a catch-up load of the rows created since the
+ * last load, which a filter miss triggers at most once per catch-up-interval; a token
+ * can only be missed if it is presented within that interval of being committed on
+ * another node, well under the time it takes to deliver the email. Used and expired
+ * tokens cannot be removed from a Bloom filter, so the filter is rebuilt from the live
+ * rows at startup and every rebuild-interval; until then they only cost a query that
+ * finds nothing. Before the first rebuild has loaded, and if a rebuild fails, every
+ * token goes to the database.
+ */
+@Service
+public class PasswordResetTokenServiceImpl implements PasswordResetTokenService, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordResetTokenServiceImpl.class);
+    private static final String INSERT_SQL =
+        "INSERT INTO password_reset_tokens (user_id, token, expires_at, created_at) VALUES (?, ?, ?, ?)";
+    private static final String CONSUME_SQL =
+        "UPDATE password_reset_tokens SET used = TRUE WHERE token = ? AND used = FALSE AND expires_at > ? RETURNING user_id";
+    private static final String LIVE_TOKENS_SQL =
+        "SELECT token FROM password_reset_tokens WHERE used = FALSE AND expires_at > ?";
+    private static final String RECENT_TOKENS_SQL =
+        "SELECT token FROM password_reset_tokens WHERE created_at > ? AND used = FALSE AND expires_at > ?";
+    // Catch-up loads reach back this far before the last load, to cover transactions that
+    // were still open when it ran and clock differences between nodes
+    private static final Duration CATCH_UP_OVERLAP = Duration.ofMinutes(1);
+
+    private final JdbcOperations jdbcOperations;
+    private final Clock clock;
+    private final Duration tokenLifetime;
+    private final long expectedTokens;
+    private final double falsePositiveRate;
+    private final long catchUpIntervalMillis;
+
+    private final Object filterLock = new Object();
+    private volatile UuidBloomFilter filter;
+    // Filter being loaded by a rebuild; tokens committed meanwhile go into both. Guarded by filterLock
+    private UuidBloomFilter rebuilding;
+    private final Object catchUpLock = new Object();
+    // Start of the last full or catch-up load; tokens committed after it may be missing
+    private volatile LocalDateTime loadedAt;
+    private volatile long lastCatchUpMillis;
+
+    private final LongAdder filtered = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder consumed = new LongAdder();
+    private final LongAdder catchUps = new LongAdder();
+
+    @Autowired
+    public PasswordResetTokenServiceImpl(JdbcOperations jdbcOperations,
+                                         @Value("${app.password-reset.token-ttl-minutes:30}") long tokenTtlMinutes,
+                                         @Value("${app.password-reset.filter.expected-tokens:100000}") long expectedTokens,
+                                         @Value("${app.password-reset.filter.false-positive-rate:0.001}") double falsePositiveRate,
+                                         @Value("${app.password-reset.filter.catch-up-interval-ms:1000}") long catchUpIntervalMillis) {
+        this(jdbcOperations, Clock.systemDefaultZone(), Duration.ofMinutes(tokenTtlMinutes), expectedTokens,
+             falsePositiveRate, Duration.ofMillis(catchUpIntervalMillis));
+    }
+
+    public PasswordResetTokenServiceImpl(JdbcOperations jdbcOperations, Clock clock, Duration tokenLifetime,
+                                         long expectedTokens, double falsePositiveRate, Duration catchUpInterval) {
+        this.jdbcOperations = jdbcOperations;
+        this.clock = clock;
+        this.tokenLifetime = tokenLifetime;
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.catchUpIntervalMillis = catchUpInterval.toMillis();
+    }
+
+    @Override
+    public UUID issue(UUID userId) {
+        UUID token = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now(clock);
+        jdbcOperations.update(INSERT_SQL, userId, token, Timestamp.valueOf(now.plus(tokenLifetime)),
+            Timestamp.valueOf(now));
+        addAfterCommit(token);
+        return token;
+    }
+
+    @Override
+    public Optional<UUID> consume(UUID token) {
+        UuidBloomFilter current = filter;
+        if (current != null && !current.mightContain(token) && !catchUpFinds(token)) {
+            filtered.increment();
+            return Optional.empty();
+        }
+        List<UUID> owners = jdbcOperations.query(CONSUME_SQL, (rs, row) -> rs.getObject(1, UUID.class),
+            token, Timestamp.valueOf(LocalDateTime.now(clock)));
+        if (owners.isEmpty()) {
+            rejected.increment();
+            return Optional.empty();
+        }
+        consumed.increment();
+        return Optional.of(owners.get(0));
+    }
+
+    /**
+     * Replace the filter with one loaded from the unused, unexpired tokens in the table
+     *
+     * @return number of tokens loaded, or -1 if the rebuild failed and the old filter was kept
+     */
+    @Scheduled(fixedDelayString = "${app.password-reset.filter.rebuild-interval-ms:300000}")
+    public long rebuildFilter() {
+        UuidBloomFilter previous = filter;
+        long size = Math.max(expectedTokens, previous != null ? 2 * previous.addedCount() : 0);
+        UuidBloomFilter next = new UuidBloomFilter(size, falsePositiveRate);
+        long startedAtMillis = clock.millis();
+        LocalDateTime startedAt = LocalDateTime.now(clock);
+        synchronized (filterLock) {
+            rebuilding = next;
+        }
+        try {
+            LongAdder loaded = new LongAdder();
+            jdbcOperations.query(LIVE_TOKENS_SQL, rs -> {
+                next.add(rs.getObject(1, UUID.class));
+                loaded.increment();
+            }, Timestamp.valueOf(startedAt));
+            synchronized (filterLock) {
+                loadedAt = startedAt;
+                lastCatchUpMillis = startedAtMillis;
+                filter = next;
+                rebuilding = null;
+            }
+            logger.debug("Rebuilt password reset token filter with {} live tokens", loaded.sum());
+            return loaded.sum();
+        } catch (RuntimeException e) {
+            synchronized (filterLock) {
+                rebuilding = null;
+            }
+            logger.warn("Could not rebuild password reset token filter; keeping the previous one", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Tokens rejected by the filter without a database query
+     */
+    public long getFilteredCount() {
+        return filtered.sum();
+    }
+
+    /**
+     * Tokens that passed the filter but were unknown, used or expired
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getConsumedCount() {
+        return consumed.sum();
+    }
+
+    /**
+     * Catch-up loads of tokens issued on other nodes
+     */
+    public long getCatchUpCount() {
+        return catchUps.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        checkCounter(registry, "filtered", PasswordResetTokenServiceImpl::getFilteredCount);
+        checkCounter(registry, "rejected", PasswordResetTokenServiceImpl::getRejectedCount);
+        checkCounter(registry, "consumed", PasswordResetTokenServiceImpl::getConsumedCount);
+        FunctionCounter.builder("password.reset.filter.catch.ups", this, PasswordResetTokenServiceImpl::getCatchUpCount)
+            .description("Loads of password reset tokens issued on other nodes since the last load")
+            .register(registry);
+        Gauge.builder("password.reset.filter.bytes", this, service -> {
+                UuidBloomFilter current = service.filter;
+                return current != null ? current.sizeInBytes() : 0;
+            })
+            .description("Memory held by the password reset token filter")
+            .register(registry);
+    }
+
+    // A token the filter does not know may have been issued on another node since the
+    // last load: load the rows created since then, unless that was done within the
+    // catch-up interval, and look again. Concurrent misses wait for one load
+    private boolean catchUpFinds(UUID token) {
+        if (clock.millis() - lastCatchUpMillis < catchUpIntervalMillis) {
+            return false;
+        }
+        synchronized (catchUpLock) {
+            if (filter.mightContain(token)) {
+                return true;
+            }
+            long startedAtMillis = clock.millis();
+            if (startedAtMillis - lastCatchUpMillis < catchUpIntervalMillis) {
+                return false;
+            }
+            lastCatchUpMillis = startedAtMillis;
+            LocalDateTime startedAt = LocalDateTime.now(clock);
+            try {
+                jdbcOperations.query(RECENT_TOKENS_SQL, (RowCallbackHandler) rs -> addToFilters(rs.getObject(1, UUID.class)),
+                    Timestamp.valueOf(loadedAt.minus(CATCH_UP_OVERLAP)), Timestamp.valueOf(startedAt));
+            } catch (RuntimeException e) {
+                // Cannot tell whether the token exists, so let the database decide
+                logger.warn("Could not load recent password reset tokens", e);
+                return true;
+            }
+            loadedAt = startedAt;
+            catchUps.increment();
+            return filter.mightContain(token);
+        }
+    }
+
+    // The filter must not miss a token whose row a concurrent rebuild could not yet see,
+    // so it is added once the insert has committed: into the live filter and, under the
+    // lock, into any filter still being loaded
+    private void addAfterCommit(UUID token) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addToFilters(token);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addToFilters(token);
+            }
+        });
+    }
+
+    private void addToFilters(UUID token) {
+        synchronized (filterLock) {
+            UuidBloomFilter current = filter;
+            if (current != null) {
+                current.add(token);
+            }
+            if (rebuilding != null) {
+                rebuilding.add(token);
+            }
+        }
+    }
+
+    private void checkCounter(MeterRegistry registry, String result,
+                              ToDoubleFunction<PasswordResetTokenServiceImpl> count) {
+        FunctionCounter.builder("password.reset.token.checks", this, count)
+            .description("Password reset tokens checked, by result")
+            .tag("result", result)
+            .register(registry);
+    }
+}
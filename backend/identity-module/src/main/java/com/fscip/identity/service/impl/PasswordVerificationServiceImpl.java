@@ -0,0 +1,212 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.identity.exception.PasswordHashingBusyException;
+import com.fscip.identity.repository.UserRepository;
+import com.fscip.identity.service.PasswordVerificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a fixed pool sized to the cores with a bounded queue. A full queue
+ * rejects the attempt straight away and a caller waits at most max-wait for its
+ * result, so a credential-stuffing burst is turned away with
+ * {@link PasswordHashingBusyException} instead of tying up request threads.
+ *
+ * A matching password whose hash was made with a lower cost factor than configured is
+ * re-hashed on the same pool after the check returns, and saved only if the stored hash
+ * has not changed meanwhile. When the pool is busy the upgrade is skipped and tried again
+ * on a later login.
+ */
+@Service
+public class PasswordVerificationServiceImpl implements PasswordVerificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordVerificationServiceImpl.class);
+
+    private final UserRepository userRepository;
+    private final TransactionOperations transactionOperations;
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor pool;
+    private final long maxWaitNanos;
+
+    private final Timer queueWait;
+    private final Timer verifyTime;
+    private final Timer encodeTime;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+    private final Counter rehashUpdated;
+    private final Counter rehashSkipped;
+
+    @Autowired
+    public PasswordVerificationServiceImpl(UserRepository userRepository,
+                                           PlatformTransactionManager transactionManager,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${app.password.bcrypt-strength:10}") int bcryptStrength,
+                                           @Value("${app.password.hashing.threads:0}") int threads,
+                                           @Value("${app.password.hashing.queue-capacity:64}") int queueCapacity,
+                                           @Value("${app.password.hashing.max-wait-ms:2000}") long maxWaitMillis) {
+        this(userRepository, new TransactionTemplate(transactionManager),
+             meterRegistry, new BCryptPasswordEncoder(bcryptStrength),
+             threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), queueCapacity,
+             Duration.ofMillis(maxWaitMillis));
+    }
+
+    public PasswordVerificationServiceImpl(UserRepository userRepository,
+                                           TransactionOperations transactionOperations,
+                                           MeterRegistry meterRegistry,
+                                           PasswordEncoder encoder,
+                                           int threads,
+                                           int queueCapacity,
+                                           Duration maxWait) {
+        this.userRepository = userRepository;
+        this.transactionOperations = transactionOperations;
+        this.encoder = encoder;
+        this.maxWaitNanos = maxWait.toNanos();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.queueWait = Timer.builder("password.hash.queue.wait")
+            .description("Time a password check or hash waited for a hashing thread")
+            .register(meterRegistry);
+        this.verifyTime = hashTimer(meterRegistry, "verify");
+        this.encodeTime = hashTimer(meterRegistry, "encode");
+        this.rejectedQueueFull = rejectedCounter(meterRegistry, "queue_full");
+        this.rejectedTimeout = rejectedCounter(meterRegistry, "timeout");
+        this.rehashUpdated = rehashCounter(meterRegistry, "updated");
+        this.rehashSkipped = rehashCounter(meterRegistry, "skipped");
+        Gauge.builder("password.hash.queued", pool, executor -> executor.getQueue().size())
+            .description("Password checks and hashes waiting for a hashing thread")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public boolean verify(UUID userId, String rawPassword, String storedHash) {
+        boolean matches = run(() -> encoder.matches(rawPassword, storedHash), verifyTime);
+        if (matches && encoder.upgradeEncoding(storedHash)) {
+            upgradeInBackground(userId, rawPassword, storedHash);
+        }
+        return matches;
+    }
+
+    @Override
+    public String encode(String rawPassword) {
+        return run(() -> encoder.encode(rawPassword), encodeTime);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> hashing, Timer hashTime) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = pool.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return hashing.call();
+                } finally {
+                    hashTime.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedQueueFull.increment();
+            throw new PasswordHashingBusyException("Password hashing is saturated, try again shortly", e);
+        }
+
+        try {
+            return future.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedTimeout.increment();
+            throw new PasswordHashingBusyException("Password hashing did not complete in time, try again shortly", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while waiting for password hashing", e);
+        }
+    }
+
+    private void upgradeInBackground(UUID userId, String rawPassword, String storedHash) {
+        try {
+            pool.execute(() -> {
+                try {
+                    String upgraded = encoder.encode(rawPassword);
+                    Integer updated = transactionOperations.execute(status -> userRepository.replacePasswordHash(
+                        userId, storedHash, upgraded, LocalDateTime.now()));
+                    if (updated != null && updated > 0) {
+                        rehashUpdated.increment();
+                        logger.debug("Password hash upgraded to the configured cost for user: {}", userId);
+                    } else {
+                        rehashSkipped.increment();
+                    }
+                } catch (RuntimeException e) {
+                    rehashSkipped.increment();
+                    logger.warn("Could not upgrade password hash for user: {}", userId, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Busy: the next successful login tries again
+            rehashSkipped.increment();
+        }
+    }
+
+    private static Timer hashTimer(MeterRegistry registry, String operation) {
+        return Timer.builder("password.hash.duration")
+            .description("CPU time of one password check or hash on the hashing pool")
+            .tag("operation", operation)
+            .register(registry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("password.hash.rejected")
+            .description("Password checks and hashes turned away because the hashing pool was saturated")
+            .tag("reason", reason)
+            .register(registry);
+    }
+
+    private static Counter rehashCounter(MeterRegistry registry, String result) {
+        return Counter.builder("password.rehash")
+            .description("Hashes of matching passwords upgraded to the configured cost factor")
+            .tag("result", result)
+            .register(registry);
+    }
+}
@@ -0,0 +1,57 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.identity.service.OtpCacheInvalidationBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Redis pub/sub invalidation bus. Messages are {@code <nodeId>|<userId>};
+ * a node ignores its own messages since it has already updated its near-cache.
+ */
+public class RedisOtpCacheInvalidationBus implements OtpCacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisOtpCacheInvalidationBus.class);
+    private static final char SEPARATOR = '|';
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ChannelTopic topic;
+    private final String ownPrefix = UUID.randomUUID().toString() + SEPARATOR;
+
+    public RedisOtpCacheInvalidationBus(StringRedisTemplate redisTemplate,
+                                        RedisMessageListenerContainer listenerContainer,
+                                        String channel) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.topic = new ChannelTopic(channel);
+    }
+
+    @Override
+    public void publish(UUID userId) {
+        redisTemplate.convertAndSend(topic.getTopic(), ownPrefix + userId);
+    }
+
+    @Override
+    public void subscribe(Consumer<UUID> listener) {
+        listenerContainer.addMessageListener((Message message, byte[] pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            int separator = body.indexOf(SEPARATOR);
+            if (separator < 0 || body.startsWith(ownPrefix)) {
+                return;
+            }
+            try {
+                listener.accept(UUID.fromString(body.substring(separator + 1)));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Ignoring malformed OTP cache invalidation: {}", body);
+            }
+        }, topic);
+    }
+}
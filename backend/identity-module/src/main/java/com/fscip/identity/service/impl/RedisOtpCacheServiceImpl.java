@@ -0,0 +1,162 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.identity.service.OtpCacheService;
+import com.fscip.identity.service.OtpVerifyResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Redis-backed OTP cache shared by all application nodes.
+ * Each OTP is a hash ({@code otp}, {@code attempts}) whose TTL is the OTP expiry;
+ * every mutating operation is a single command or Lua script, so it costs one round trip
+ * and stays atomic across nodes.
+ */
+@Service
+@ConditionalOnProperty(name = "app.otp.cache.type", havingValue = "redis")
+public class RedisOtpCacheServiceImpl implements OtpCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisOtpCacheServiceImpl.class);
+    private static final int MAX_ATTEMPTS = 5;
+    private static final String OTP_FIELD = "otp";
+    private static final String ATTEMPTS_FIELD = "attempts";
+
+    private static final long VERIFY_MISSING = -1;
+    private static final long VERIFY_LOCKED = -2;
+    private static final long VERIFY_MATCHED = -3;
+
+    private static final RedisScript<Long> STORE_SCRIPT = script("redis/otp-store.lua");
+    private static final RedisScript<Long> VERIFY_SCRIPT = script("redis/otp-verify.lua");
+    private static final RedisScript<Long> DECREMENT_SCRIPT = script("redis/otp-decrement.lua");
+    private static final RedisScript<Long> RESET_SCRIPT = script("redis/otp-reset.lua");
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+
+    @Autowired
+    public RedisOtpCacheServiceImpl(StringRedisTemplate redisTemplate,
+                                    @Value("${app.otp.cache.redis.key-prefix:fscip:otp:}") String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public void storeOtp(UUID userId, String otp, long expirationSeconds) {
+        redisTemplate.execute(STORE_SCRIPT, List.of(key(userId)),
+            otp, String.valueOf(MAX_ATTEMPTS), String.valueOf(expirationSeconds * 1000L));
+
+        logger.debug("OTP stored in Redis for user: {} | Expires in: {}s", userId, expirationSeconds);
+    }
+
+    @Override
+    public void storeOtps(Map<UUID, String> otpsByUserId, long expirationSeconds) {
+        if (otpsByUserId.isEmpty()) {
+            return;
+        }
+        // One pipelined round trip; EVAL rather than EVALSHA, since a NOSCRIPT reply
+        // cannot be retried from inside a pipeline. Keys stay single-key per script call.
+        byte[] script = STORE_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        byte[] maxAttempts = String.valueOf(MAX_ATTEMPTS).getBytes(StandardCharsets.UTF_8);
+        byte[] ttlMillis = String.valueOf(expirationSeconds * 1000L).getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            otpsByUserId.forEach((userId, otp) -> connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1,
+                key(userId).getBytes(StandardCharsets.UTF_8), otp.getBytes(StandardCharsets.UTF_8),
+                maxAttempts, ttlMillis));
+            return null;
+        });
+
+        logger.debug("{} OTPs stored in Redis | Expire in: {}s", otpsByUserId.size(), expirationSeconds);
+    }
+
+    @Override
+    public String getOtp(UUID userId) {
+        List<Object> entry = redisTemplate.opsForHash().multiGet(key(userId), List.of(OTP_FIELD, ATTEMPTS_FIELD));
+        if (entry.get(0) == null || remainingAttempts(entry.get(1)) <= 0) {
+            logger.debug("No active OTP found in Redis for user: {}", userId);
+            return null;
+        }
+        return (String) entry.get(0);
+    }
+
+    @Override
+    public void removeOtp(UUID userId) {
+        // A single DEL is already atomic and one round trip
+        if (Boolean.TRUE.equals(redisTemplate.delete(key(userId)))) {
+            logger.debug("OTP removed from Redis for user: {}", userId);
+        }
+    }
+
+    @Override
+    public boolean hasActiveOtp(UUID userId) {
+        return getOtp(userId) != null;
+    }
+
+    @Override
+    public int getRemainingAttempts(UUID userId) {
+        return remainingAttempts(redisTemplate.opsForHash().get(key(userId), ATTEMPTS_FIELD));
+    }
+
+    @Override
+    public int decrementAttempts(UUID userId) {
+        Long remaining = redisTemplate.execute(DECREMENT_SCRIPT, List.of(key(userId)));
+        logger.debug("Decremented OTP attempts in Redis for user: {} | Remaining: {}", userId, remaining);
+        return remaining == null ? 0 : remaining.intValue();
+    }
+
+    @Override
+    public void resetAttempts(UUID userId) {
+        Long reset = redisTemplate.execute(RESET_SCRIPT, List.of(key(userId)), String.valueOf(MAX_ATTEMPTS));
+        if (reset != null && reset == 1) {
+            logger.debug("OTP attempts reset in Redis for user: {}", userId);
+        }
+    }
+
+    @Override
+    public OtpVerifyResult verifyAndConsume(UUID userId, String otp) {
+        Long reply = redisTemplate.execute(VERIFY_SCRIPT, List.of(key(userId)), otp);
+
+        OtpVerifyResult result;
+        if (reply == null || reply == VERIFY_MISSING) {
+            result = OtpVerifyResult.MISSING;
+        } else if (reply == VERIFY_LOCKED) {
+            result = OtpVerifyResult.LOCKED;
+        } else if (reply == VERIFY_MATCHED) {
+            result = OtpVerifyResult.VERIFIED;
+        } else {
+            result = OtpVerifyResult.invalid(reply.intValue());
+        }
+
+        logger.debug("OTP verification against Redis for user: {} | Result: {}", userId, result);
+        return result;
+    }
+
+    private String key(UUID userId) {
+        return keyPrefix + userId;
+    }
+
+    private static int remainingAttempts(Object attempts) {
+        return attempts == null ? 0 : Math.max(0, Integer.parseInt((String) attempts));
+    }
+
+    private static RedisScript<Long> script(String location) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(location)));
+        script.setResultType(Long.class);
+        return script;
+    }
+}
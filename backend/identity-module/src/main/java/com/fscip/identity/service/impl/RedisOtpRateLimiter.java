@@ -0,0 +1,73 @@
+package com.fscip.identity.service.impl;
+
+import com.fscip.identity.service.OtpRateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * OTP request rate limiter shared by all nodes. Uses the same sliding-window estimate
+ * as the in-memory limiter, with one Redis counter per user and fixed window; the check
+ * and the increment run as a single Lua script.
+ */
+@Service
+@ConditionalOnProperty(name = "app.otp.rate-limit.store", havingValue = "redis")
+public class RedisOtpRateLimiter implements OtpRateLimiter {
+
+    private static final RedisScript<Long> RATE_LIMIT_SCRIPT = rateLimitScript();
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final int maxRequests;
+    private final long windowMillis;
+    private final Clock clock;
+
+    @Autowired
+    public RedisOtpRateLimiter(StringRedisTemplate redisTemplate,
+                               @Value("${app.otp.rate-limit.redis.key-prefix:fscip:otp-rate:}") String keyPrefix,
+                               @Value("${app.otp.max-requests-per-hour:5}") int maxRequests,
+                               @Value("${app.otp.rate-limit-minutes:1}") int windowMinutes) {
+        this(redisTemplate, keyPrefix, maxRequests, Duration.ofMinutes(windowMinutes), Clock.systemUTC());
+    }
+
+    public RedisOtpRateLimiter(StringRedisTemplate redisTemplate, String keyPrefix,
+                               int maxRequests, Duration window, Clock clock) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.maxRequests = maxRequests;
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean tryAcquire(UUID userId) {
+        long now = clock.millis();
+        long window = now / windowMillis;
+        double previousWeight = 1.0 - (double) (now % windowMillis) / windowMillis;
+
+        // Hash tag keeps both windows of a user in the same cluster slot
+        String userKey = keyPrefix + "{" + userId + "}:";
+        Long allowed = redisTemplate.execute(RATE_LIMIT_SCRIPT,
+            List.of(userKey + window, userKey + (window - 1)),
+            String.valueOf(maxRequests), String.valueOf(previousWeight), String.valueOf(2 * windowMillis));
+        return allowed != null && allowed == 1;
+    }
+
+    private static RedisScript<Long> rateLimitScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("redis/otp-rate-limit.lua")));
+        script.setResultType(Long.class);
+        return script;
+    }
+}
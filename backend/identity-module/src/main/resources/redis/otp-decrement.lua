@@ -0,0 +1,8 @@
+-- Use one attempt without going below zero
+-- KEYS[1] = OTP key
+-- Returns attempts left, or 0 when there is no entry
+local attempts = redis.call('HGET', KEYS[1], 'attempts')
+if not attempts or tonumber(attempts) <= 0 then
+    return 0
+end
+return redis.call('HINCRBY', KEYS[1], 'attempts', -1)
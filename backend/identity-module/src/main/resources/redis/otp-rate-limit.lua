@@ -0,0 +1,12 @@
+-- Sliding-window rate limit check that records the request when allowed
+-- KEYS[1] = counter of the current window, KEYS[2] = counter of the previous window
+-- ARGV[1] = limit, ARGV[2] = weight of the previous window, ARGV[3] = counter ttl in milliseconds
+-- Returns 1 when allowed, 0 when over the limit
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+if previous * tonumber(ARGV[2]) + current + 1 > tonumber(ARGV[1]) then
+    return 0
+end
+redis.call('INCR', KEYS[1])
+redis.call('PEXPIRE', KEYS[1], ARGV[3])
+return 1
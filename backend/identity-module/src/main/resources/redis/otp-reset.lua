@@ -0,0 +1,7 @@
+-- Restore the attempt budget of an existing entry
+-- KEYS[1] = OTP key, ARGV[1] = max attempts
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+redis.call('HSET', KEYS[1], 'attempts', ARGV[1])
+return 1
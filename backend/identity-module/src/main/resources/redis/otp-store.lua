@@ -0,0 +1,6 @@
+-- Replace the OTP entry for a user and set its expiry in one round trip
+-- KEYS[1] = OTP key, ARGV[1] = otp, ARGV[2] = max attempts, ARGV[3] = ttl in milliseconds
+redis.call('DEL', KEYS[1])
+redis.call('HSET', KEYS[1], 'otp', ARGV[1], 'attempts', ARGV[2])
+redis.call('PEXPIRE', KEYS[1], ARGV[3])
+return 1
@@ -0,0 +1,15 @@
+-- Check a submitted OTP, consume it on match and use one attempt on mismatch
+-- KEYS[1] = OTP key, ARGV[1] = submitted otp
+-- Returns -1 missing, -2 locked, -3 verified, otherwise attempts left after a mismatch
+local entry = redis.call('HMGET', KEYS[1], 'otp', 'attempts')
+if not entry[1] then
+    return -1
+end
+if tonumber(entry[2]) <= 0 then
+    return -2
+end
+if entry[1] == ARGV[1] then
+    redis.call('DEL', KEYS[1])
+    return -3
+end
+return redis.call('HINCRBY', KEYS[1], 'attempts', -1)
@@ -0,0 +1,24 @@
+package com.fscip.identity;
+
+import org.hibernate.boot.model.TypeContributions;
+import org.hibernate.boot.model.TypeContributor;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.jdbc.spi.JdbcServices;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.SqlTypes;
+import org.hibernate.type.descriptor.jdbc.VarcharJdbcType;
+
+/**
+ * H2 has no named enum types, so columns mapped to PostgreSQL enums such as users.status
+ * are bound as plain strings against the varchar domains declared in the test datasource URL
+ */
+public class H2NamedEnumTypeContributor implements TypeContributor {
+
+    @Override
+    public void contribute(TypeContributions typeContributions, ServiceRegistry serviceRegistry) {
+        if (serviceRegistry.getService(JdbcServices.class).getDialect() instanceof H2Dialect) {
+            typeContributions.getTypeConfiguration().getJdbcTypeRegistry()
+                .addDescriptor(SqlTypes.NAMED_ENUM, VarcharJdbcType.INSTANCE);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.fscip.identity;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource in a counting proxy, so tests can assert how many
+ * SQL statements of each kind a code path runs through QueryCountHolder.
+ * Counts are kept per thread; clear them before the code under test.
+ */
+@TestConfiguration
+public class StatementCountingConfig {
+
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .countQuery()
+                        .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
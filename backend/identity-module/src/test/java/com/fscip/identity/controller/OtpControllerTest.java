@@ -2,6 +2,7 @@ package com.fscip.identity.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fscip.identity.dto.*;
+import com.fscip.identity.service.LoginHistoryRecorder;
 import com.fscip.identity.service.OtpService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +15,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -29,6 +32,9 @@ class OtpControllerTest {
     @MockBean
     private OtpService otpService;
 
+    @MockBean
+    private LoginHistoryRecorder loginHistoryRecorder;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -154,6 +160,7 @@ class OtpControllerTest {
 
         // Act & Assert
         mockMvc.perform(post("/auth/otp/verify")
+                .header("User-Agent", "otp-client/1.0")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
@@ -162,6 +169,8 @@ class OtpControllerTest {
                 .andExpect(jsonPath("$.userId").value(testUserId.toString()))
                 .andExpect(jsonPath("$.status").value("ACTIVE"))
                 .andExpect(jsonPath("$.remainingAttempts").value(0));
+
+        verify(loginHistoryRecorder).record(testUserId, "127.0.0.1", "otp-client/1.0");
     }
 
     @Test
@@ -216,6 +225,8 @@ class OtpControllerTest {
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.message").value("Invalid OTP code"))
                 .andExpect(jsonPath("$.remainingAttempts").value(4));
+
+        verifyNoInteractions(loginHistoryRecorder);
     }
 
     @Test
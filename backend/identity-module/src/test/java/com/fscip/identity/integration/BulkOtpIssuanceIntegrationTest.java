@@ -0,0 +1,170 @@
+package com.fscip.identity.integration;
+
+import com.fscip.identity.dto.BulkOtpIssuanceProgressDto;
+import com.fscip.identity.entity.OtpCode;
+import com.fscip.identity.entity.User;
+import com.fscip.identity.entity.UserStatus;
+import com.fscip.identity.repository.OtpCodeRepository;
+import com.fscip.identity.repository.UserRepository;
+import com.fscip.identity.service.BulkOtpIssuanceService;
+import com.fscip.identity.service.EmailService;
+import com.fscip.identity.service.OtpCacheService;
+import com.fscip.identity.service.impl.BulkOtpIssuanceServiceImpl;
+import com.fscip.identity.service.impl.MockEmailServiceImpl;
+import com.fscip.identity.service.impl.OtpGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = {com.fscip.identity.TestApplication.class, com.fscip.identity.TestSecurityConfig.class},
+                properties = {"app.otp.bulk.chunk-size=3"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class BulkOtpIssuanceIntegrationTest {
+
+    @Autowired
+    private BulkOtpIssuanceService bulkOtpIssuanceService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OtpCodeRepository otpCodeRepository;
+
+    @Autowired
+    private OtpCacheService otpCacheService;
+
+    @Autowired
+    private MockEmailServiceImpl mockEmailService;
+
+    @Autowired
+    private JdbcOperations jdbcOperations;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OtpGenerator otpGenerator;
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        mockEmailService.clearHistory();
+        for (int i = 0; i < 5; i++) {
+            users.add(userRepository.save(new User(email(i), "hash", "Bulk User " + i)));
+        }
+        User active = new User("bulk.active@example.com", "hash", "Bulk Active User");
+        active.setStatus(UserStatus.ACTIVE);
+        users.add(userRepository.save(active));
+    }
+
+    @AfterEach
+    void tearDown() {
+        otpCodeRepository.deleteAll();
+        userRepository.deleteAll(users);
+        users.clear();
+    }
+
+    @Test
+    void testIssueOtps_IssuesToPendingUsersInChunks() {
+        // Arrange: five pending users, one active, one unknown, a duplicate within a chunk and a blank line
+        List<String> emails = List.of(email(0), email(0), email(1), "", email(2), "bulk.active@example.com",
+            email(3), "bulk.unknown@example.com", email(4));
+        List<BulkOtpIssuanceProgressDto> progress = new ArrayList<>();
+
+        // Act
+        BulkOtpIssuanceProgressDto result = bulkOtpIssuanceService.issueOtps(emails.iterator(), progress::add);
+
+        // Assert
+        assertTrue(result.isDone());
+        assertEquals(5, result.getIssued());
+        assertEquals(1, result.getNotPending());
+        assertEquals(1, result.getNotFound());
+        assertEquals(0, result.getEmailsNotAccepted());
+        assertEquals(7, result.getProcessed());
+        assertEquals(3, result.getChunks());
+        assertEquals(3, progress.size());
+        assertFalse(progress.get(0).isDone());
+        assertSame(result, progress.get(progress.size() - 1));
+
+        assertEquals(5, mockEmailService.getSentEmailCount());
+        for (int i = 0; i < 5; i++) {
+            User user = users.get(i);
+            List<OtpCode> otps = otpCodeRepository.findByUserIdOrderByCreatedAtDesc(user.getUserId());
+            assertEquals(1, otps.size());
+            String otp = mockEmailService.getLastOtpForEmail(user.getEmail());
+            assertEquals(otp, otps.get(0).getOtp());
+            assertEquals(otp, otpCacheService.getOtp(user.getUserId()));
+        }
+        assertTrue(otpCodeRepository.findByUserIdOrderByCreatedAtDesc(users.get(5).getUserId()).isEmpty());
+    }
+
+    @Test
+    void testIssueOtps_ReissueReplacesPreviousOtp() {
+        // Arrange
+        bulkOtpIssuanceService.issueOtps(List.of(email(0)).iterator(), progress -> { });
+
+        // Act
+        bulkOtpIssuanceService.issueOtps(List.of(email(0)).iterator(), progress -> { });
+
+        // Assert
+        List<OtpCode> otps = otpCodeRepository.findByUserIdOrderByCreatedAtDesc(users.get(0).getUserId());
+        assertEquals(1, otps.size());
+        assertEquals(mockEmailService.getLastOtpForEmail(email(0)), otps.get(0).getOtp());
+    }
+
+    @Test
+    void testIssueOtps_EmailsAreSentAfterCommitAndFailureKeepsOtps() {
+        // Arrange: a provider that fails, noting whether it was called inside a transaction
+        boolean[] calledInTransaction = {false};
+        EmailService failingProvider = new EmailService() {
+            @Override
+            public boolean sendOtp(String email, String otp, int expirationMinutes) {
+                return false;
+            }
+
+            @Override
+            public boolean sendWelcomeEmail(String email, String fullName) {
+                return false;
+            }
+
+            @Override
+            public int sendOtpBatch(Map<String, String> otpsByEmail, int expirationMinutes) {
+                calledInTransaction[0] = TransactionSynchronizationManager.isActualTransactionActive();
+                throw new IllegalStateException("provider unavailable");
+            }
+        };
+        BulkOtpIssuanceService service = new BulkOtpIssuanceServiceImpl(userRepository, otpCodeRepository,
+            jdbcOperations, new TransactionTemplate(transactionManager), otpCacheService, failingProvider,
+            otpGenerator, 3, 10);
+
+        // Act
+        BulkOtpIssuanceProgressDto result = service.issueOtps(List.of(email(0), email(1)).iterator(), progress -> { });
+
+        // Assert
+        assertFalse(calledInTransaction[0]);
+        assertEquals(2, result.getIssued());
+        assertEquals(2, result.getEmailsNotAccepted());
+        assertEquals(1, otpCodeRepository.findByUserIdOrderByCreatedAtDesc(users.get(0).getUserId()).size());
+        assertEquals(1, otpCodeRepository.findByUserIdOrderByCreatedAtDesc(users.get(1).getUserId()).size());
+    }
+
+    private static String email(int i) {
+        return "bulk.user" + i + "@example.com";
+    }
+}
@@ -0,0 +1,190 @@
+package com.fscip.identity.integration;
+
+import com.fscip.identity.dto.OtpRequestDto;
+import com.fscip.identity.dto.OtpResponseDto;
+import com.fscip.identity.entity.EmailOutbox;
+import com.fscip.identity.entity.EmailOutboxStatus;
+import com.fscip.identity.entity.User;
+import com.fscip.identity.entity.UserStatus;
+import com.fscip.identity.repository.EmailOutboxRepository;
+import com.fscip.identity.repository.OtpCodeRepository;
+import com.fscip.identity.repository.UserRepository;
+import com.fscip.identity.service.OtpService;
+import com.fscip.identity.service.impl.EmailOutboxPurger;
+import com.fscip.identity.service.impl.EmailOutboxRelay;
+import com.fscip.identity.service.impl.MockEmailServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = {com.fscip.identity.TestApplication.class, com.fscip.identity.TestSecurityConfig.class},
+                properties = {"app.email.dispatch-mode=outbox", "app.email.outbox.batch-size=10"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class EmailOutboxIntegrationTest {
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private EmailOutboxRelay outboxRelay;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OtpCodeRepository otpCodeRepository;
+
+    @Autowired
+    private MockEmailServiceImpl mockEmailService;
+
+    @Autowired
+    private EmailOutboxPurger outboxPurger;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcOperations jdbcOperations;
+
+    private final String testEmail = "outbox.test@example.com";
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        mockEmailService.clearHistory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+        userRepository.findByEmail(testEmail).ifPresent(user -> {
+            otpCodeRepository.findByUserIdOrderByCreatedAtDesc(user.getUserId()).forEach(otpCodeRepository::delete);
+            userRepository.delete(user);
+        });
+    }
+
+    @Test
+    void testRequestOtp_EmailIsWrittenToOutboxAndRelayed() {
+        // Arrange
+        User user = new User(testEmail, "hash", "Outbox Test User");
+        user.setStatus(UserStatus.PENDING);
+        userRepository.save(user);
+
+        // Act
+        OtpResponseDto response = otpService.requestOtp(new OtpRequestDto(testEmail));
+
+        // Assert
+        assertTrue(response.isSuccess());
+        assertEquals(0, mockEmailService.getSentEmailCount());
+        assertEquals(1, outboxRepository.countByStatus(EmailOutboxStatus.PENDING));
+
+        assertEquals(1, outboxRelay.relayPending());
+        assertEquals(1, mockEmailService.getSentEmailCount());
+        assertNotNull(mockEmailService.getLastOtpForEmail(testEmail));
+        assertEquals(1, outboxRepository.countByStatus(EmailOutboxStatus.SENT));
+        assertEquals(0, outboxRelay.relayPending());
+        assertNull(outboxRepository.findAll().get(0).getOtp());
+    }
+
+    @Test
+    void testMarkAttemptFailed_ClearsOtpOnlyOnceFailed() {
+        // Arrange
+        EmailOutbox row = EmailOutbox.otp(testEmail, "123456", 10);
+
+        // Act
+        row.markAttemptFailed("timeout", 2, LocalDateTime.now().plusSeconds(30));
+        String otpAfterRetry = row.getOtp();
+        row.markAttemptFailed("timeout", 2, LocalDateTime.now().plusSeconds(60));
+
+        // Assert
+        assertEquals("123456", otpAfterRetry);
+        assertEquals(EmailOutboxStatus.FAILED, row.getStatus());
+        assertNull(row.getOtp());
+    }
+
+    @Test
+    void testPurgeCompleted_DeletesOnlyCompletedRowsPastRetention() {
+        // Arrange
+        LocalDateTime old = LocalDateTime.now().minusDays(4);
+        long oldSent = saveRow(EmailOutboxStatus.SENT, old);
+        long oldFailed = saveRow(EmailOutboxStatus.FAILED, old);
+        long oldSentToo = saveRow(EmailOutboxStatus.SENT, old);
+        long oldPending = saveRow(EmailOutboxStatus.PENDING, old);
+        long recentSent = saveRow(EmailOutboxStatus.SENT, LocalDateTime.now().minusHours(1));
+        EmailOutboxPurger chunked = new EmailOutboxPurger(outboxRepository, new TransactionTemplate(transactionManager),
+            Duration.ofHours(72), 2, 100);
+
+        // Act
+        int purged = chunked.purgeCompleted();
+
+        // Assert
+        assertEquals(3, purged);
+        assertFalse(outboxRepository.existsById(oldSent));
+        assertFalse(outboxRepository.existsById(oldFailed));
+        assertFalse(outboxRepository.existsById(oldSentToo));
+        assertTrue(outboxRepository.existsById(oldPending));
+        assertTrue(outboxRepository.existsById(recentSent));
+        assertEquals(0, outboxPurger.purgeCompleted());
+    }
+
+    private long saveRow(EmailOutboxStatus status, LocalDateTime createdAt) {
+        EmailOutbox row = EmailOutbox.welcome("purge@example.com", "Purge User");
+        row.setStatus(status);
+        long id = outboxRepository.save(row).getOutboxId();
+        jdbcOperations.update("UPDATE email_outbox SET created_at = ? WHERE outbox_id = ?", Timestamp.valueOf(createdAt), id);
+        return id;
+    }
+
+    @Test
+    void testRelayPending_ConcurrentRelaysNeverSendTwice() throws Exception {
+        // Arrange
+        int emails = 40;
+        for (int i = 0; i < emails; i++) {
+            outboxRepository.save(EmailOutbox.welcome("user" + i + "@example.com", "User " + i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // Act
+        int relayed = 0;
+        try {
+            List<Callable<Integer>> relays = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                relays.add(outboxRelay::relayPending);
+            }
+            for (Future<Integer> result : executor.invokeAll(relays, 30, TimeUnit.SECONDS)) {
+                relayed += result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        assertEquals(emails, relayed);
+        assertEquals(emails, mockEmailService.getSentEmailCount());
+        assertEquals(emails, outboxRepository.countByStatus(EmailOutboxStatus.SENT));
+    }
+}
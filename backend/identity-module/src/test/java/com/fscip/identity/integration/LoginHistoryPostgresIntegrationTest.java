@@ -0,0 +1,94 @@
+package com.fscip.identity.integration;
+
+import com.fscip.identity.service.impl.BatchingLoginHistoryRecorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the batched login_history INSERT against PostgreSQL, which the H2 test database
+ * cannot stand in for: the ip_address column is inet and every row casts its address.
+ * Skipped where Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class LoginHistoryPostgresIntegrationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private JdbcTemplate jdbcTemplate;
+    private BatchingLoginHistoryRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        // The columns of V002; the users foreign key is left out as it plays no part here
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS login_history (" +
+            "login_id BIGSERIAL PRIMARY KEY, user_id UUID NOT NULL, login_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+            "ip_address INET, user_agent TEXT)");
+        jdbcTemplate.execute("TRUNCATE login_history");
+        recorder = new BatchingLoginHistoryRecorder(jdbcTemplate, 100, 3, Duration.ofMillis(500),
+            Clock.systemDefaultZone());
+        recorder.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recorder.shutdown();
+    }
+
+    @Test
+    void testRecord_WritesFullAndPartialBatchesWithInetAddresses() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+
+        // Act: one full batch of three and one partial batch of one
+        assertTrue(recorder.record(userId, "203.0.113.7", "Mozilla/5.0"));
+        assertTrue(recorder.record(userId, "2001:db8::1", "curl/8.0"));
+        assertTrue(recorder.record(userId, null, null));
+        assertTrue(recorder.record(userId, "198.51.100.20", "Mozilla/5.0"));
+        recorder.shutdown();
+
+        // Assert
+        assertEquals(4, recorder.getWrittenCount());
+        assertEquals(0, recorder.getDroppedWriteFailedCount());
+        List<String> addresses = jdbcTemplate.queryForList(
+            "SELECT host(ip_address) FROM login_history WHERE user_id = ? AND ip_address IS NOT NULL " +
+            "ORDER BY host(ip_address)", String.class, userId);
+        assertEquals(List.of("198.51.100.20", "2001:db8::1", "203.0.113.7"), addresses);
+        assertEquals(4, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM login_history WHERE user_id = ?", Integer.class, userId));
+    }
+
+    @Test
+    void testRecord_InvalidAddressDropsOnlyItsBatch() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+
+        // Act: the first batch holds an address PostgreSQL rejects, the second is valid
+        recorder.record(userId, "203.0.113.7", null);
+        recorder.record(userId, "not-an-address", null);
+        recorder.record(userId, "203.0.113.8", null);
+        recorder.record(userId, "203.0.113.9", null);
+        recorder.shutdown();
+
+        // Assert
+        assertEquals(3, recorder.getDroppedWriteFailedCount());
+        assertEquals(1, recorder.getWrittenCount());
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM login_history WHERE user_id = ?", Integer.class, userId));
+    }
+}
@@ -0,0 +1,105 @@
+package com.fscip.identity.integration;
+
+import com.fscip.identity.entity.OtpCode;
+import com.fscip.identity.entity.User;
+import com.fscip.identity.repository.OtpCodeRepository;
+import com.fscip.identity.repository.UserRepository;
+import com.fscip.identity.service.impl.OtpCodePurger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = {com.fscip.identity.TestApplication.class, com.fscip.identity.TestSecurityConfig.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class OtpCodePurgerIntegrationTest {
+
+    @Autowired
+    private OtpCodeRepository otpCodeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcOperations jdbcOperations;
+
+    private final String testEmail = "purge.test@example.com";
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        otpCodeRepository.deleteAll();
+        testUser = userRepository.save(new User(testEmail, "hash", "Purge Test User"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        otpCodeRepository.deleteAll();
+        userRepository.delete(testUser);
+    }
+
+    @Test
+    void testPurgeExpired_DeletesOnlyExpiredRowsInChunks() {
+        // Arrange
+        saveOtps(7, LocalDateTime.now().minusMinutes(5));
+        saveOtps(3, LocalDateTime.now().plusMinutes(5));
+        OtpCodePurger purger = purger(2, 100);
+
+        // Act
+        int purged = purger.purgeExpired();
+
+        // Assert
+        assertEquals(7, purged);
+        List<OtpCode> remaining = otpCodeRepository.findAll();
+        assertEquals(3, remaining.size());
+        assertTrue(remaining.stream().noneMatch(OtpCode::isExpired));
+    }
+
+    @Test
+    void testPurgeExpired_StopsAtBatchCapPerRun() {
+        // Arrange
+        saveOtps(10, LocalDateTime.now().minusMinutes(5));
+        OtpCodePurger purger = purger(3, 2);
+
+        // Act
+        int firstRun = purger.purgeExpired();
+        int secondRun = purger.purgeExpired();
+
+        // Assert
+        assertEquals(6, firstRun);
+        assertEquals(4, secondRun);
+        assertEquals(0, otpCodeRepository.count());
+    }
+
+    @Test
+    void testMaintainPartitions_DisabledDoesNothing() {
+        // Act & Assert: H2 has no partition function to call
+        assertEquals(0, purger(2, 1).maintainPartitions());
+    }
+
+    private OtpCodePurger purger(int batchSize, int maxBatchesPerRun) {
+        return new OtpCodePurger(otpCodeRepository, new TransactionTemplate(transactionManager), jdbcOperations,
+            batchSize, maxBatchesPerRun, false, 7, 1);
+    }
+
+    private void saveOtps(int count, LocalDateTime expiresAt) {
+        for (int i = 0; i < count; i++) {
+            otpCodeRepository.save(new OtpCode(testUser.getUserId(), "123456", expiresAt));
+        }
+    }
+}
@@ -6,21 +6,28 @@ import com.fscip.identity.entity.User;
 import com.fscip.identity.entity.UserStatus;
 import com.fscip.identity.repository.OtpCodeRepository;
 import com.fscip.identity.repository.UserRepository;
+import com.fscip.identity.service.LoginHistoryRecorder;
 import com.fscip.identity.service.impl.MockEmailServiceImpl;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -28,7 +35,6 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
-@Transactional
 public class OtpFlowIntegrationTest {
 
     @Autowired
@@ -46,6 +52,14 @@ public class OtpFlowIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // login_history has an inet column the H2 test database cannot create; the batched
+    // INSERT is covered against PostgreSQL by LoginHistoryPostgresIntegrationTest
+    @MockBean
+    private LoginHistoryRecorder loginHistoryRecorder;
+
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     private final String testEmail = "integration.test@example.com";
     private final String testName = "Integration Test User";
@@ -53,15 +67,18 @@ public class OtpFlowIntegrationTest {
     @BeforeEach
     void setUp() {
         // Clean up any existing test data
-        userRepository.findByEmail(testEmail).ifPresent(user -> {
-            otpCodeRepository.deleteByUserId(user.getUserId());
-            userRepository.delete(user);
-        });
+        deleteTestUser();
 
         // Clear email service history
         mockEmailService.clearHistory();
     }
 
+    @AfterEach
+    void tearDown() {
+        // OTP requests commit in their own transaction, so the test data is committed too
+        deleteTestUser();
+    }
+
     @Test
     void testCompleteOtpFlow_Success() throws Exception {
         // Step 1: Create a pending user
@@ -104,6 +121,9 @@ public class OtpFlowIntegrationTest {
 
         // Verify welcome email was sent
         assertEquals(2, mockEmailService.getSentEmailCount()); // OTP + Welcome email
+
+        // Verify the login was recorded with the client address
+        verify(loginHistoryRecorder).record(eq(testUser.getUserId()), eq("127.0.0.1"), any());
     }
 
     @Test
@@ -228,6 +248,14 @@ public class OtpFlowIntegrationTest {
                 .andExpect(status().isBadRequest());
     }
 
+    private void deleteTestUser() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+            userRepository.findByEmail(testEmail).ifPresent(user -> {
+                otpCodeRepository.deleteByUserId(user.getUserId());
+                userRepository.delete(user);
+            }));
+    }
+
     private User createPendingUser() {
         User user = new User(testEmail, passwordEncoder.encode("password123"), testName);
         user.setMobile("+1234567890");
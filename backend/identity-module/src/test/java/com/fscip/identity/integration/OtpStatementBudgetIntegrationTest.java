@@ -0,0 +1,186 @@
+package com.fscip.identity.integration;
+
+import com.fscip.identity.StatementCountingConfig;
+import com.fscip.identity.dto.OtpRequestDto;
+import com.fscip.identity.dto.OtpVerificationDto;
+import com.fscip.identity.dto.OtpVerificationResponseDto;
+import com.fscip.identity.entity.User;
+import com.fscip.identity.entity.UserStatus;
+import com.fscip.identity.repository.OtpCodeRepository;
+import com.fscip.identity.repository.UserRepository;
+import com.fscip.identity.service.OtpCacheService;
+import com.fscip.identity.service.OtpService;
+import com.fscip.identity.service.impl.MockEmailServiceImpl;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pins the number of SQL statements each OTP outcome runs, so an extra query or a
+ * full-entity update sneaking back into the hot path fails the build
+ */
+@SpringBootTest(classes = {com.fscip.identity.TestApplication.class, com.fscip.identity.TestSecurityConfig.class,
+                           StatementCountingConfig.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class OtpStatementBudgetIntegrationTest {
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private OtpCacheService otpCacheService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OtpCodeRepository otpCodeRepository;
+
+    @Autowired
+    private MockEmailServiceImpl mockEmailService;
+
+    private final String testEmail = "statement.budget@example.com";
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User(testEmail, "hash", "Statement Budget User");
+        testUser.setStatus(UserStatus.PENDING);
+        testUser = userRepository.save(testUser);
+        mockEmailService.clearHistory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.findByEmail(testEmail).ifPresent(user -> {
+            otpCodeRepository.findByUserIdOrderByCreatedAtDesc(user.getUserId()).forEach(otpCodeRepository::delete);
+            userRepository.delete(user);
+        });
+    }
+
+    @Test
+    void testRequestOtp_StatementBudget() {
+        // Act: user projection not cached yet
+        QueryCountHolder.clear();
+        assertTrue(otpService.requestOtp(new OtpRequestDto(testEmail)).isSuccess());
+
+        // Assert: load user, delete previous OTPs, insert new OTP
+        assertStatements(1, 1, 0, 1);
+
+        // Act: user projection cached
+        QueryCountHolder.clear();
+        assertTrue(otpService.requestOtp(new OtpRequestDto(testEmail)).isSuccess());
+
+        // Assert
+        assertStatements(0, 1, 0, 1);
+    }
+
+    @Test
+    void testVerifyOtp_SuccessStatementBudget() {
+        // Arrange
+        String otp = requestOtp();
+
+        // Act
+        QueryCountHolder.clear();
+        OtpVerificationResponseDto response = otpService.verifyOtp(new OtpVerificationDto(testEmail, otp));
+
+        // Assert: status update, last login update, OTP delete
+        assertTrue(response.isSuccess());
+        assertStatements(0, 0, 2, 1);
+        assertEquals(UserStatus.ACTIVE, userRepository.findByEmail(testEmail).orElseThrow().getStatus());
+    }
+
+    @Test
+    void testVerifyOtp_InvalidStatementBudget() {
+        // Arrange
+        String otp = requestOtp();
+
+        // Act
+        QueryCountHolder.clear();
+        OtpVerificationResponseDto response = otpService.verifyOtp(new OtpVerificationDto(testEmail, wrongOtp(otp)));
+
+        // Assert: attempt counter only
+        assertFalse(response.isSuccess());
+        assertStatements(0, 0, 1, 0);
+        assertEquals(1, otpCodeRepository.findTopByUserIdOrderByCreatedAtDesc(testUser.getUserId())
+            .orElseThrow().getAttempts());
+    }
+
+    @Test
+    void testVerifyOtp_LockedStatementBudget() {
+        // Arrange
+        String otp = requestOtp();
+        for (int i = 0; i < 5; i++) {
+            otpService.verifyOtp(new OtpVerificationDto(testEmail, wrongOtp(otp)));
+        }
+
+        // Act
+        QueryCountHolder.clear();
+        OtpVerificationResponseDto response = otpService.verifyOtp(new OtpVerificationDto(testEmail, otp));
+
+        // Assert: answered from the caches alone
+        assertFalse(response.isSuccess());
+        assertEquals(0, response.getRemainingAttempts());
+        assertStatements(0, 0, 0, 0);
+    }
+
+    @Test
+    void testVerifyOtp_DatabaseFallbackSuccessStatementBudget() {
+        // Arrange
+        String otp = requestOtp();
+        otpCacheService.removeOtp(testUser.getUserId());
+
+        // Act
+        QueryCountHolder.clear();
+        OtpVerificationResponseDto response = otpService.verifyOtp(new OtpVerificationDto(testEmail, otp));
+
+        // Assert: latest OTP select, then the same writes as a cache hit
+        assertTrue(response.isSuccess());
+        assertStatements(1, 0, 2, 1);
+    }
+
+    @Test
+    void testVerifyOtp_DatabaseFallbackInvalidStatementBudget() {
+        // Arrange
+        String otp = requestOtp();
+        otpCacheService.removeOtp(testUser.getUserId());
+
+        // Act
+        QueryCountHolder.clear();
+        OtpVerificationResponseDto response = otpService.verifyOtp(new OtpVerificationDto(testEmail, wrongOtp(otp)));
+
+        // Assert: latest OTP select and attempt counter, no full-row update
+        assertFalse(response.isSuccess());
+        assertEquals(4, response.getRemainingAttempts());
+        assertStatements(1, 0, 1, 0);
+    }
+
+    private String requestOtp() {
+        assertTrue(otpService.requestOtp(new OtpRequestDto(testEmail)).isSuccess());
+        return mockEmailService.getLastOtpForEmail(testEmail);
+    }
+
+    private static String wrongOtp(String otp) {
+        return otp.equals("000000") ? "111111" : "000000";
+    }
+
+    private static void assertStatements(int select, int insert, int update, int delete) {
+        QueryCount count = QueryCountHolder.getGrandTotal();
+        assertAll(
+            () -> assertEquals(select, count.getSelect(), "select statements"),
+            () -> assertEquals(insert, count.getInsert(), "insert statements"),
+            () -> assertEquals(update, count.getUpdate(), "update statements"),
+            () -> assertEquals(delete, count.getDelete(), "delete statements"),
+            () -> assertEquals(0, count.getOther(), "other statements")
+        );
+    }
+}
@@ -0,0 +1,202 @@
+package com.fscip.identity.service;
+
+import com.fscip.identity.config.EmailDispatchConfiguration;
+import com.fscip.identity.service.impl.AsyncEmailServiceImpl;
+import com.fscip.identity.service.impl.MockEmailServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class AsyncEmailServiceImplTest {
+
+    private final EmailService provider = mock(EmailService.class);
+    private final BlockingQueue<EmailDelivery> deliveries = new LinkedBlockingQueue<>();
+    private AsyncEmailServiceImpl dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void testSendOtp_ReturnsBeforeProviderCompletes() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        when(provider.sendOtp(any(), any(), anyInt())).thenAnswer(invocation -> release.await(5, TimeUnit.SECONDS));
+        dispatcher = new AsyncEmailServiceImpl(provider, 1, 10, List.of(deliveries::add));
+
+        // Act
+        boolean accepted = dispatcher.sendOtp("user@example.com", "123456", 10);
+
+        // Assert
+        assertTrue(accepted);
+        assertNull(deliveries.poll(50, TimeUnit.MILLISECONDS));
+        release.countDown();
+        EmailDelivery delivery = deliveries.poll(5, TimeUnit.SECONDS);
+        assertNotNull(delivery);
+        assertEquals(EmailDelivery.Status.DELIVERED, delivery.getStatus());
+        assertEquals(EmailDelivery.Type.OTP_VERIFICATION, delivery.getType());
+        assertEquals("user@example.com", delivery.getRecipient());
+    }
+
+    @Test
+    void testSendOtp_FullQueueIsRejected() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        when(provider.sendOtp(any(), any(), anyInt())).thenAnswer(invocation -> release.await(5, TimeUnit.SECONDS));
+        dispatcher = new AsyncEmailServiceImpl(provider, 1, 2, List.of(deliveries::add));
+
+        // Act
+        boolean first = dispatcher.sendOtp("a@example.com", "111111", 10);
+        boolean second = dispatcher.sendOtp("b@example.com", "222222", 10);
+        boolean third = dispatcher.sendOtp("c@example.com", "333333", 10);
+
+        // Assert
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertEquals(1, dispatcher.getRejectedCount());
+
+        release.countDown();
+        assertNotNull(deliveries.poll(5, TimeUnit.SECONDS));
+        assertNotNull(deliveries.poll(5, TimeUnit.SECONDS));
+        assertTrue(dispatcher.sendOtp("d@example.com", "444444", 10));
+    }
+
+    @Test
+    void testSendOtpBatch_AcceptsWhatFitsWhenQueueIsShort() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        when(provider.sendOtp(any(), any(), anyInt())).thenAnswer(invocation -> release.await(5, TimeUnit.SECONDS));
+        dispatcher = new AsyncEmailServiceImpl(provider, 1, 2, List.of(deliveries::add));
+        Map<String, String> batch = new LinkedHashMap<>();
+        batch.put("a@example.com", "111111");
+        batch.put("b@example.com", "222222");
+        batch.put("c@example.com", "333333");
+
+        // Act
+        int accepted = dispatcher.sendOtpBatch(batch, 10);
+
+        // Assert
+        assertEquals(2, accepted);
+        assertEquals(1, dispatcher.getRejectedCount());
+        release.countDown();
+        assertNotNull(deliveries.poll(5, TimeUnit.SECONDS));
+        assertNotNull(deliveries.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testSendOtpBatch_InsideTransactionIsSentOnlyAfterCommit() throws Exception {
+        // Arrange
+        when(provider.sendOtp(any(), any(), anyInt())).thenReturn(true);
+        dispatcher = new AsyncEmailServiceImpl(provider, 2, 10, List.of(deliveries::add));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        int accepted = dispatcher.sendOtpBatch(Map.of("a@example.com", "111111", "b@example.com", "222222"), 10);
+
+        // Assert
+        assertEquals(2, accepted);
+        assertNull(deliveries.poll(50, TimeUnit.MILLISECONDS));
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        assertNotNull(deliveries.poll(5, TimeUnit.SECONDS));
+        assertNotNull(deliveries.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testSendOtp_ProviderFailureIsReported() throws Exception {
+        // Arrange
+        when(provider.sendOtp(any(), any(), anyInt())).thenThrow(new IllegalStateException("SMTP down"));
+        dispatcher = new AsyncEmailServiceImpl(provider, 1, 10, List.of(deliveries::add));
+
+        // Act
+        dispatcher.sendOtp("user@example.com", "123456", 10);
+
+        // Assert
+        EmailDelivery delivery = deliveries.poll(5, TimeUnit.SECONDS);
+        assertNotNull(delivery);
+        assertEquals(EmailDelivery.Status.FAILED, delivery.getStatus());
+        assertInstanceOf(IllegalStateException.class, delivery.getFailure());
+        assertEquals(1, dispatcher.getFailedCount());
+    }
+
+    @Test
+    void testSendOtp_InsideTransactionIsSentOnlyAfterCommit() throws Exception {
+        // Arrange
+        when(provider.sendOtp(any(), any(), anyInt())).thenReturn(true);
+        dispatcher = new AsyncEmailServiceImpl(provider, 1, 1, List.of(deliveries::add));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        dispatcher.sendOtp("user@example.com", "123456", 10);
+
+        // Assert
+        assertNull(deliveries.poll(50, TimeUnit.MILLISECONDS));
+        verify(provider, never()).sendOtp(any(), any(), anyInt());
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        EmailDelivery delivery = deliveries.poll(5, TimeUnit.SECONDS);
+        assertNotNull(delivery);
+        assertEquals(EmailDelivery.Status.DELIVERED, delivery.getStatus());
+    }
+
+    @Test
+    void testSendOtp_RolledBackTransactionReleasesSlot() throws Exception {
+        // Arrange
+        when(provider.sendOtp(any(), any(), anyInt())).thenReturn(true);
+        dispatcher = new AsyncEmailServiceImpl(provider, 1, 1, List.of(deliveries::add));
+        TransactionSynchronizationManager.initSynchronization();
+        dispatcher.sendOtp("user@example.com", "123456", 10);
+
+        // Act
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Assert
+        assertNull(deliveries.poll(50, TimeUnit.MILLISECONDS));
+        verify(provider, never()).sendOtp(any(), any(), anyInt());
+        assertTrue(dispatcher.sendOtp("user@example.com", "654321", 10));
+        assertNotNull(deliveries.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testConfiguration_AsyncModeWrapsProviderAsPrimary() {
+        new ApplicationContextRunner()
+            .withBean(MockEmailServiceImpl.class)
+            .withUserConfiguration(EmailDispatchConfiguration.class)
+            .withPropertyValues("app.email.dispatch-mode=async")
+            .run(context -> assertInstanceOf(AsyncEmailServiceImpl.class, context.getBean(EmailService.class)));
+
+        new ApplicationContextRunner()
+            .withBean(MockEmailServiceImpl.class)
+            .withUserConfiguration(EmailDispatchConfiguration.class)
+            .run(context -> assertInstanceOf(MockEmailServiceImpl.class, context.getBean(EmailService.class)));
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
@@ -0,0 +1,162 @@
+package com.fscip.identity.service;
+
+import com.fscip.identity.service.impl.BatchingLoginHistoryRecorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcOperations;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class BatchingLoginHistoryRecorderTest {
+
+    private JdbcOperations jdbcOperations;
+    private final List<Object[]> inserts = new CopyOnWriteArrayList<>();
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+    private BatchingLoginHistoryRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        jdbcOperations = mock(JdbcOperations.class);
+        when(jdbcOperations.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            statements.add(invocation.getArgument(0));
+            // Varargs arrive expanded, after the SQL
+            Object[] args = Arrays.copyOfRange(invocation.getArguments(), 1, invocation.getArguments().length);
+            inserts.add(args);
+            return args.length / 4;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (recorder != null) {
+            recorder.shutdown();
+        }
+    }
+
+    @Test
+    void testRecord_FullBatchIsWrittenAsOneMultiRowInsert() {
+        // Arrange
+        recorder = newRecorder(100, 3, Duration.ofSeconds(30));
+        UUID userId = UUID.randomUUID();
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            assertTrue(recorder.record(userId, "10.0.0." + i, "agent"));
+        }
+
+        // Assert
+        verify(jdbcOperations, timeout(5000)).update(anyString(), any(Object[].class));
+        assertEquals(1, statements.size());
+        assertTrue(statements.get(0).startsWith("INSERT INTO login_history (user_id, login_at, ip_address, user_agent)"));
+        assertEquals(3, statements.get(0).split("CAST\\(\\? AS inet\\)", -1).length - 1);
+        Object[] args = inserts.get(0);
+        assertEquals(12, args.length);
+        assertEquals(userId, args[0]);
+        assertEquals("10.0.0.2", args[10]);
+        assertEquals("agent", args[11]);
+    }
+
+    @Test
+    void testRecord_PartialBatchIsWrittenAfterFlushInterval() {
+        // Arrange
+        recorder = newRecorder(100, 100, Duration.ofMillis(50));
+
+        // Act
+        recorder.record(UUID.randomUUID(), "10.0.0.1", null);
+        recorder.record(UUID.randomUUID(), null, "agent");
+
+        // Assert
+        verify(jdbcOperations, timeout(5000)).update(anyString(), any(Object[].class));
+        recorder.shutdown();
+        assertEquals(1, statements.size());
+        assertEquals(8, inserts.get(0).length);
+        assertEquals(2, recorder.getWrittenCount());
+    }
+
+    @Test
+    void testRecord_DropsInsteadOfBlockingWhenDatabaseIsSlow() throws Exception {
+        // Arrange
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch releaseDatabase = new CountDownLatch(1);
+        reset(jdbcOperations);
+        when(jdbcOperations.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            writing.countDown();
+            releaseDatabase.await(10, TimeUnit.SECONDS);
+            return 1;
+        });
+        recorder = newRecorder(2, 1, Duration.ofMillis(10));
+        recorder.record(UUID.randomUUID(), null, null);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // Act
+        long started = System.nanoTime();
+        boolean second = recorder.record(UUID.randomUUID(), null, null);
+        boolean third = recorder.record(UUID.randomUUID(), null, null);
+        boolean fourth = recorder.record(UUID.randomUUID(), null, null);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        releaseDatabase.countDown();
+
+        // Assert
+        assertTrue(second);
+        assertTrue(third);
+        assertFalse(fourth);
+        assertEquals(1, recorder.getDroppedQueueFullCount());
+        assertTrue(elapsedMillis < 1000, "record blocked for " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void testRecord_FailedBatchIsDroppedAndCounted() {
+        // Arrange
+        reset(jdbcOperations);
+        when(jdbcOperations.update(anyString(), any(Object[].class)))
+            .thenThrow(new DataAccessResourceFailureException("database down"));
+        recorder = newRecorder(100, 2, Duration.ofSeconds(30));
+
+        // Act
+        recorder.record(UUID.randomUUID(), null, null);
+        recorder.record(UUID.randomUUID(), null, null);
+
+        // Assert
+        verify(jdbcOperations, timeout(5000)).update(anyString(), any(Object[].class));
+        recorder.shutdown();
+        assertEquals(2, recorder.getDroppedWriteFailedCount());
+        assertEquals(0, recorder.getWrittenCount());
+    }
+
+    @Test
+    void testShutdown_WritesQueuedEvents() {
+        // Arrange
+        recorder = newRecorder(100, 100, Duration.ofSeconds(30));
+        for (int i = 0; i < 5; i++) {
+            recorder.record(UUID.randomUUID(), null, null);
+        }
+
+        // Act
+        recorder.shutdown();
+
+        // Assert
+        assertEquals(5, recorder.getWrittenCount());
+        assertFalse(recorder.record(UUID.randomUUID(), null, null));
+    }
+
+    private BatchingLoginHistoryRecorder newRecorder(int queueCapacity, int batchSize, Duration flushInterval) {
+        BatchingLoginHistoryRecorder recorder = new BatchingLoginHistoryRecorder(jdbcOperations, queueCapacity,
+            batchSize, flushInterval, Clock.systemDefaultZone());
+        recorder.start();
+        return recorder;
+    }
+}
@@ -0,0 +1,174 @@
+package com.fscip.identity.service;
+
+import com.fscip.common.util.MutableClock;
+import com.fscip.identity.dto.UserSummary;
+import com.fscip.identity.entity.UserChangedEvent;
+import com.fscip.identity.entity.UserStatus;
+import com.fscip.identity.repository.UserRepository;
+import com.fscip.identity.service.impl.CachedUserLookupServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachedUserLookupServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private MutableClock clock;
+    private CachedUserLookupServiceImpl lookupService;
+
+    private final String testEmail = "lookup.test@example.com";
+    private final UUID testUserId = UUID.randomUUID();
+    private UserSummary pendingUser;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        lookupService = new CachedUserLookupServiceImpl(userRepository, 100, Duration.ofSeconds(60), clock);
+        pendingUser = new UserSummary(testUserId, testEmail, "Lookup Test User", UserStatus.PENDING);
+    }
+
+    @Test
+    void testFindByEmail_RepeatedLookupsHitCache() {
+        // Arrange
+        when(userRepository.findSummaryByEmail(testEmail)).thenReturn(Optional.of(pendingUser));
+
+        // Act
+        lookupService.findByEmail(testEmail);
+        lookupService.findByEmail(testEmail);
+        Optional<UserSummary> result = lookupService.findByEmail(testEmail);
+
+        // Assert
+        assertEquals(Optional.of(pendingUser), result);
+        verify(userRepository, times(1)).findSummaryByEmail(testEmail);
+        assertEquals(2, lookupService.getHits());
+        assertEquals(1, lookupService.getMisses());
+    }
+
+    @Test
+    void testBindTo_ReportsHitsMissesAndSize() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        lookupService.bindTo(registry);
+        when(userRepository.findSummaryByEmail(testEmail)).thenReturn(Optional.of(pendingUser));
+
+        // Act
+        lookupService.findByEmail(testEmail);
+        lookupService.findByEmail(testEmail);
+        lookupService.findByEmail(testEmail);
+
+        // Assert
+        assertEquals(2, registry.get("user.lookup.cache").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("user.lookup.cache").tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("user.lookup.cache.size").gauge().value());
+    }
+
+    @Test
+    void testFindByEmail_UnknownEmailIsNotCached() {
+        // Arrange
+        when(userRepository.findSummaryByEmail(testEmail)).thenReturn(Optional.empty());
+
+        // Act
+        lookupService.findByEmail(testEmail);
+        Optional<UserSummary> result = lookupService.findByEmail(testEmail);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(userRepository, times(2)).findSummaryByEmail(testEmail);
+        assertEquals(0, lookupService.getSize());
+    }
+
+    @Test
+    void testFindByEmail_DifferentCaseGoesToDatabase() {
+        // Arrange
+        String upperCaseEmail = testEmail.toUpperCase();
+        when(userRepository.findSummaryByEmail(testEmail)).thenReturn(Optional.of(pendingUser));
+        when(userRepository.findSummaryByEmail(upperCaseEmail)).thenReturn(Optional.empty());
+        lookupService.findByEmail(testEmail);
+
+        // Act
+        Optional<UserSummary> result = lookupService.findByEmail(upperCaseEmail);
+
+        // Assert: same cache key, but the lookup keeps the repository's exact-match semantics
+        assertTrue(result.isEmpty());
+        verify(userRepository).findSummaryByEmail(upperCaseEmail);
+    }
+
+    @Test
+    void testFindByEmail_ExpiredEntryIsReloaded() {
+        // Arrange
+        when(userRepository.findSummaryByEmail(testEmail)).thenReturn(Optional.of(pendingUser));
+        lookupService.findByEmail(testEmail);
+
+        // Act
+        clock.advance(Duration.ofSeconds(61));
+        lookupService.findByEmail(testEmail);
+
+        // Assert
+        verify(userRepository, times(2)).findSummaryByEmail(testEmail);
+    }
+
+    @Test
+    void testUpdateUserStatus_InvalidatesCachedUser() {
+        // Arrange
+        UserSummary activeUser = new UserSummary(testUserId, testEmail, "Lookup Test User", UserStatus.ACTIVE);
+        when(userRepository.findSummaryByEmail(testEmail))
+            .thenReturn(Optional.of(pendingUser))
+            .thenReturn(Optional.of(activeUser));
+        when(userRepository.updateUserStatus(eq(testUserId), eq(UserStatus.ACTIVE), any())).thenReturn(1);
+        lookupService.findByEmail(testEmail);
+
+        // Act
+        int updated = lookupService.updateUserStatus(testUserId, UserStatus.ACTIVE);
+        Optional<UserSummary> result = lookupService.findByEmail(testEmail);
+
+        // Assert
+        assertEquals(1, updated);
+        assertEquals(UserStatus.ACTIVE, result.orElseThrow().getStatus());
+    }
+
+    @Test
+    void testOnUserChanged_InvalidatesEntryUnderPreviousEmail() {
+        // Arrange
+        when(userRepository.findSummaryByEmail(testEmail)).thenReturn(Optional.of(pendingUser));
+        lookupService.findByEmail(testEmail);
+
+        // Act: the event carries the new address, the entry sits under the old one
+        lookupService.onUserChanged(new UserChangedEvent(testUserId, "renamed@example.com"));
+        lookupService.findByEmail(testEmail);
+
+        // Assert
+        verify(userRepository, times(2)).findSummaryByEmail(testEmail);
+    }
+
+    @Test
+    void testFindByEmail_SizeIsBounded() {
+        // Arrange
+        when(userRepository.findSummaryByEmail(anyString())).thenAnswer(invocation -> Optional.of(
+            new UserSummary(UUID.randomUUID(), invocation.getArgument(0), "User", UserStatus.PENDING)));
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            lookupService.findByEmail("user" + i + "@example.com");
+        }
+
+        // Assert
+        assertTrue(lookupService.getSize() <= 112, "size was " + lookupService.getSize());
+    }
+}
@@ -0,0 +1,222 @@
+package com.fscip.identity.service;
+
+import com.fscip.common.util.MutableClock;
+import com.fscip.identity.service.impl.InMemoryOtpCacheServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryOtpCacheServiceImplTest {
+
+    private static final int EXPIRING_ENTRIES = 100;
+
+    private MutableClock clock;
+    private InMemoryOtpCacheServiceImpl cacheService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        cacheService = new InMemoryOtpCacheServiceImpl(clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheService.shutdown();
+    }
+
+    @Test
+    void testCleanup_RemovesOnlyExpiredEntries() {
+        // Arrange
+        UUID shortLived = UUID.randomUUID();
+        UUID longLived = UUID.randomUUID();
+        cacheService.storeOtp(shortLived, "111111", 60);
+        cacheService.storeOtp(longLived, "222222", 600);
+
+        // Act
+        clock.advance(Duration.ofSeconds(61));
+        cacheService.cleanupExpiredEntries();
+
+        // Assert
+        assertEquals(1, cacheService.size());
+        assertNull(cacheService.getOtp(shortLived));
+        assertEquals("222222", cacheService.getOtp(longLived));
+    }
+
+    @Test
+    void testBindTo_ReportsSizeAndSweptEvictions() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cacheService.bindTo(registry);
+        cacheService.storeOtp(UUID.randomUUID(), "111111", 60);
+        cacheService.storeOtp(UUID.randomUUID(), "222222", 600);
+
+        // Act
+        clock.advance(Duration.ofSeconds(61));
+        cacheService.cleanupExpiredEntries();
+
+        // Assert
+        assertEquals(1, registry.get("otp.cache.size").tag("cache", "memory").gauge().value());
+        assertEquals(1, registry.get("otp.cache.evictions").tag("cache", "memory").functionCounter().count());
+    }
+
+    @Test
+    void testCleanup_KeepsEntryRestoredAfterEarlierSchedule() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "111111", 60);
+        clock.advance(Duration.ofSeconds(30));
+        cacheService.storeOtp(userId, "222222", 600);
+
+        // Act
+        clock.advance(Duration.ofSeconds(31));
+        cacheService.cleanupExpiredEntries();
+
+        // Assert
+        assertEquals("222222", cacheService.getOtp(userId));
+    }
+
+    @Test
+    void testCleanup_EntryExpiringOnTickBoundaryIsSwept() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "111111", 60);
+
+        // Act
+        clock.advance(Duration.ofSeconds(60));
+        cacheService.cleanupExpiredEntries();
+        clock.advance(Duration.ofSeconds(1));
+        cacheService.cleanupExpiredEntries();
+
+        // Assert
+        assertEquals(0, cacheService.size());
+    }
+
+    @Test
+    void testCleanup_SweepCostIsIndependentOfCacheSize() {
+        int smallSweep = sweepWithLiveEntries(1_000);
+        int largeSweep = sweepWithLiveEntries(200_000);
+
+        assertEquals(EXPIRING_ENTRIES, smallSweep);
+        assertEquals(EXPIRING_ENTRIES, largeSweep);
+    }
+
+    @Test
+    void testVerifyAndConsume_MatchConsumesEntry() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "123456", 600);
+
+        // Act
+        OtpVerifyResult result = cacheService.verifyAndConsume(userId, "123456");
+
+        // Assert
+        assertEquals(OtpVerifyResult.Outcome.VERIFIED, result.getOutcome());
+        assertEquals(OtpVerifyResult.MISSING, cacheService.verifyAndConsume(userId, "123456"));
+    }
+
+    @Test
+    void testVerifyAndConsume_ExpiredEntryIsMissing() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "123456", 60);
+
+        // Act
+        clock.advance(Duration.ofSeconds(61));
+        OtpVerifyResult result = cacheService.verifyAndConsume(userId, "123456");
+
+        // Assert
+        assertEquals(OtpVerifyResult.Outcome.MISSING, result.getOutcome());
+        assertEquals(0, cacheService.size());
+    }
+
+    @Test
+    void testVerifyAndConsume_MismatchesLockEntry() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "123456", 600);
+
+        // Act & Assert
+        for (int remaining = 4; remaining >= 0; remaining--) {
+            OtpVerifyResult result = cacheService.verifyAndConsume(userId, "000000");
+            assertEquals(OtpVerifyResult.Outcome.INVALID, result.getOutcome());
+            assertEquals(remaining, result.getRemainingAttempts());
+        }
+        assertEquals(OtpVerifyResult.LOCKED, cacheService.verifyAndConsume(userId, "123456"));
+        assertFalse(cacheService.hasActiveOtp(userId));
+    }
+
+    @Test
+    void testVerifyAndConsume_ConcurrentWrongGuessesNeverExceedMaxAttempts() throws Exception {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "123456", 600);
+        int guesses = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger invalid = new AtomicInteger();
+        AtomicInteger locked = new AtomicInteger();
+
+        // Act
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < guesses; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    OtpVerifyResult result = cacheService.verifyAndConsume(userId, "000000");
+                    if (result.getOutcome() == OtpVerifyResult.Outcome.INVALID) {
+                        invalid.incrementAndGet();
+                    } else if (result.getOutcome() == OtpVerifyResult.Outcome.LOCKED) {
+                        locked.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        assertEquals(5, invalid.get());
+        assertEquals(guesses - 5, locked.get());
+        assertEquals(0, cacheService.getRemainingAttempts(userId));
+    }
+
+    private int sweepWithLiveEntries(int liveEntries) {
+        InMemoryOtpCacheServiceImpl cache = new InMemoryOtpCacheServiceImpl(clock);
+        try {
+            for (int i = 0; i < liveEntries; i++) {
+                cache.storeOtp(UUID.randomUUID(), "123456", 3600);
+            }
+            for (int i = 0; i < EXPIRING_ENTRIES; i++) {
+                cache.storeOtp(UUID.randomUUID(), "654321", 60);
+            }
+
+            clock.advance(Duration.ofMinutes(2));
+            int examined = cache.cleanupExpiredEntries();
+
+            assertEquals(liveEntries, cache.size());
+            return examined;
+        } finally {
+            cache.shutdown();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.fscip.identity.service;
+
+import com.fscip.identity.service.impl.InMemoryOtpCacheServiceImpl;
+import com.fscip.identity.service.impl.LayeredOtpCacheServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LayeredOtpCacheServiceImplTest {
+
+    private InMemoryOtpCacheServiceImpl sharedStore;
+    private LocalInvalidationBus bus;
+    private LayeredOtpCacheServiceImpl nodeA;
+    private LayeredOtpCacheServiceImpl nodeB;
+
+    @BeforeEach
+    void setUp() {
+        sharedStore = new InMemoryOtpCacheServiceImpl();
+        bus = new LocalInvalidationBus();
+        nodeA = new LayeredOtpCacheServiceImpl(sharedStore, bus.forNode(), 100, Duration.ofMinutes(1));
+        nodeB = new LayeredOtpCacheServiceImpl(sharedStore, bus.forNode(), 100, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sharedStore.shutdown();
+    }
+
+    @Test
+    void testGetOtp_RepeatedReadsAreServedFromNearCache() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        nodeA.storeOtp(userId, "123456", 600);
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            assertTrue(nodeA.hasActiveOtp(userId));
+        }
+
+        // Assert
+        assertEquals(1, nodeA.getL2Reads());
+        assertEquals(99, nodeA.getL1Hits());
+        assertEquals(0.99, nodeA.getL1HitRatio(), 0.0001);
+        assertEquals(1.0, nodeA.getL2HitRatio(), 0.0001);
+    }
+
+    @Test
+    void testStoreOtp_InvalidatesOtherNodes() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        nodeA.storeOtp(userId, "111111", 600);
+        assertEquals("111111", nodeB.getOtp(userId));
+
+        // Act
+        nodeA.storeOtp(userId, "222222", 600);
+
+        // Assert
+        assertEquals("222222", nodeB.getOtp(userId));
+        assertEquals(2, nodeB.getL2Reads());
+    }
+
+    @Test
+    void testGetOtp_NegativeEntryIsInvalidatedByRemoteStore() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        assertFalse(nodeB.hasActiveOtp(userId));
+        assertFalse(nodeB.hasActiveOtp(userId));
+
+        // Act
+        nodeA.storeOtp(userId, "123456", 600);
+
+        // Assert
+        assertTrue(nodeB.hasActiveOtp(userId));
+        assertEquals(1, nodeB.getL1Hits());
+        assertEquals(2, nodeB.getL2Reads());
+        assertEquals(1, nodeB.getL2Hits());
+    }
+
+    @Test
+    void testVerifyAndConsume_ClearsNearCacheOnEveryNode() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        nodeA.storeOtp(userId, "123456", 600);
+        assertTrue(nodeA.hasActiveOtp(userId));
+        assertTrue(nodeB.hasActiveOtp(userId));
+
+        // Act
+        OtpVerifyResult result = nodeB.verifyAndConsume(userId, "123456");
+
+        // Assert
+        assertEquals(OtpVerifyResult.VERIFIED, result);
+        assertFalse(nodeA.hasActiveOtp(userId));
+        assertFalse(nodeB.hasActiveOtp(userId));
+    }
+
+    @Test
+    void testVerifyAndConsume_LockingMismatchClearsNearCache() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        nodeA.storeOtp(userId, "123456", 600);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            assertTrue(nodeA.hasActiveOtp(userId));
+            nodeB.verifyAndConsume(userId, "000000");
+        }
+
+        // Assert
+        assertFalse(nodeA.hasActiveOtp(userId));
+        assertEquals(OtpVerifyResult.LOCKED, nodeA.verifyAndConsume(userId, "123456"));
+    }
+
+    @Test
+    void testVerifyAndConsume_RepeatedMissIsAnsweredFromNearCache() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        assertEquals(OtpVerifyResult.MISSING, nodeA.verifyAndConsume(userId, "123456"));
+
+        // Act
+        OtpVerifyResult result = nodeA.verifyAndConsume(userId, "123456");
+
+        // Assert
+        assertEquals(OtpVerifyResult.MISSING, result);
+        assertEquals(1, nodeA.getL2Reads());
+        assertEquals(1, nodeA.getL1Hits());
+    }
+
+    @Test
+    void testVerifyAndConsume_LockedEntryIsAnsweredFromNearCache() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        nodeA.storeOtp(userId, "123456", 600);
+        for (int i = 0; i < 5; i++) {
+            nodeA.verifyAndConsume(userId, "000000");
+        }
+
+        // Act
+        OtpVerifyResult result = nodeA.verifyAndConsume(userId, "123456");
+
+        // Assert
+        assertEquals(OtpVerifyResult.LOCKED, result);
+        assertEquals(5, nodeA.getL2Reads());
+        assertEquals(1, nodeA.getL1Hits());
+    }
+
+    @Test
+    void testVerifyAndConsume_ReplayOfConsumedCodeIsAnsweredFromNearCache() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        nodeA.storeOtp(userId, "123456", 600);
+        assertEquals(OtpVerifyResult.VERIFIED, nodeA.verifyAndConsume(userId, "123456"));
+
+        // Act
+        OtpVerifyResult result = nodeA.verifyAndConsume(userId, "123456");
+
+        // Assert
+        assertEquals(OtpVerifyResult.MISSING, result);
+        assertEquals(1, nodeA.getL2Reads());
+        assertFalse(sharedStore.hasActiveOtp(userId));
+    }
+
+    @Test
+    void testVerifyAndConsume_RemoteStoreReplacesCachedOutcome() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        assertEquals(OtpVerifyResult.MISSING, nodeA.verifyAndConsume(userId, "123456"));
+
+        // Act
+        nodeB.storeOtp(userId, "123456", 600);
+
+        // Assert
+        assertEquals(OtpVerifyResult.VERIFIED, nodeA.verifyAndConsume(userId, "123456"));
+    }
+
+    @Test
+    void testNearCache_IsBounded() {
+        // Arrange
+        LayeredOtpCacheServiceImpl smallNode =
+            new LayeredOtpCacheServiceImpl(sharedStore, bus.forNode(), 32, Duration.ofMinutes(1));
+
+        // Act
+        for (int i = 0; i < 1_000; i++) {
+            smallNode.getOtp(UUID.randomUUID());
+        }
+
+        // Assert
+        assertTrue(smallNode.getL1Size() <= 32);
+    }
+
+    // Delivers every published invalidation to all other nodes synchronously
+    private static class LocalInvalidationBus {
+        private final List<Node> nodes = new CopyOnWriteArrayList<>();
+
+        OtpCacheInvalidationBus forNode() {
+            Node node = new Node();
+            nodes.add(node);
+            return node;
+        }
+
+        private class Node implements OtpCacheInvalidationBus {
+            private final List<Consumer<UUID>> listeners = new CopyOnWriteArrayList<>();
+
+            @Override
+            public void publish(UUID userId) {
+                for (Node node : nodes) {
+                    if (node != this) {
+                        node.listeners.forEach(listener -> listener.accept(userId));
+                    }
+                }
+            }
+
+            @Override
+            public void subscribe(Consumer<UUID> listener) {
+                listeners.add(listener);
+            }
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.fscip.identity.service;
+
+import com.fscip.common.util.MutableClock;
+import com.fscip.identity.entity.OtpCode;
+import com.fscip.identity.repository.OtpCodeRepository;
+import com.fscip.identity.service.impl.InMemoryOtpCacheServiceImpl;
+import com.fscip.identity.service.impl.OtpCacheSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OtpCacheSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private MutableClock clock;
+    private OtpCacheSnapshot snapshot;
+    // Stands in for otp_codes: the user's current row, as OtpServiceImpl keeps it
+    private final Map<UUID, OtpCode> otpCodes = new ConcurrentHashMap<>();
+    private OtpCodeRepository otpCodeRepository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        snapshot = new OtpCacheSnapshot(directory.resolve("otp-cache.snapshot"));
+        otpCodeRepository = mock(OtpCodeRepository.class);
+        when(otpCodeRepository.findByUserIdIn(any())).thenAnswer(invocation -> {
+            List<OtpCode> rows = new ArrayList<>();
+            for (UUID userId : (Collection<UUID>) invocation.getArgument(0)) {
+                OtpCode row = otpCodes.get(userId);
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    void testRestart_RestoresLiveEntriesWithAttemptCounters() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        InMemoryOtpCacheServiceImpl before = newCache();
+        issue(before, userId, "123456", 600);
+        before.decrementAttempts(userId);
+        before.decrementAttempts(userId);
+
+        // Act
+        before.shutdown();
+        InMemoryOtpCacheServiceImpl after = newCache();
+        int restored = after.restoreSnapshot();
+
+        // Assert
+        try {
+            assertEquals(1, restored);
+            assertEquals("123456", after.getOtp(userId));
+            assertEquals(3, after.getRemainingAttempts(userId));
+        } finally {
+            after.shutdown();
+        }
+    }
+
+    @Test
+    void testRestore_SkipsEntriesThatExpiredWhileDown() {
+        // Arrange
+        UUID shortLived = UUID.randomUUID();
+        UUID longLived = UUID.randomUUID();
+        InMemoryOtpCacheServiceImpl before = newCache();
+        issue(before, shortLived, "111111", 60);
+        issue(before, longLived, "222222", 600);
+        before.shutdown();
+
+        // Act
+        clock.advance(Duration.ofMinutes(2));
+        InMemoryOtpCacheServiceImpl after = newCache();
+        int restored = after.restoreSnapshot();
+
+        // Assert
+        try {
+            assertEquals(1, restored);
+            assertNull(after.getOtp(shortLived));
+            assertEquals("222222", after.getOtp(longLived));
+        } finally {
+            after.shutdown();
+        }
+    }
+
+    @Test
+    void testRestore_ExpiryIsScheduledForRestoredEntries() {
+        // Arrange
+        InMemoryOtpCacheServiceImpl before = newCache();
+        issue(before, UUID.randomUUID(), "111111", 60);
+        before.shutdown();
+        InMemoryOtpCacheServiceImpl after = newCache();
+        after.restoreSnapshot();
+
+        // Act
+        clock.advance(Duration.ofMinutes(2));
+        after.cleanupExpiredEntries();
+
+        // Assert
+        try {
+            assertEquals(0, after.size());
+        } finally {
+            after.shutdown();
+        }
+    }
+
+    @Test
+    void testRestore_SnapshotIsConsumedOnce() throws IOException {
+        // Arrange
+        InMemoryOtpCacheServiceImpl before = newCache();
+        issue(before, UUID.randomUUID(), "123456", 600);
+        before.saveSnapshot();
+
+        // Act
+        InMemoryOtpCacheServiceImpl after = newCache();
+        after.restoreSnapshot();
+
+        // Assert
+        try {
+            assertFalse(Files.exists(snapshot.getPath()));
+            assertEquals(0, newCacheRestoring());
+        } finally {
+            before.shutdown();
+            after.shutdown();
+        }
+    }
+
+    @Test
+    void testRestore_IgnoresSnapshotWithBadChecksum() throws IOException {
+        // Arrange
+        InMemoryOtpCacheServiceImpl before = newCache();
+        issue(before, UUID.randomUUID(), "123456", 600);
+        before.shutdown();
+        overwriteByte(Files.size(snapshot.getPath()) - 1, '9');
+
+        // Act & Assert
+        assertEquals(0, newCacheRestoring());
+    }
+
+    @Test
+    void testRestore_IgnoresUnknownFormatVersion() throws IOException {
+        // Arrange
+        InMemoryOtpCacheServiceImpl before = newCache();
+        issue(before, UUID.randomUUID(), "123456", 600);
+        before.shutdown();
+        overwriteByte(5, 2);
+
+        // Act & Assert
+        assertEquals(0, newCacheRestoring());
+    }
+
+    @Test
+    void testRestoreAfterCrash_DropsCodeConsumedSinceLastSave() {
+        // Arrange: a periodic save, then the code is used, then the node dies without saving again
+        UUID userId = UUID.randomUUID();
+        InMemoryOtpCacheServiceImpl crashed = newCache();
+        issue(crashed, userId, "123456", 600);
+        crashed.saveSnapshot();
+        assertEquals(OtpVerifyResult.Outcome.VERIFIED, crashed.verifyAndConsume(userId, "123456").getOutcome());
+        otpCodes.remove(userId);
+
+        // Act
+        InMemoryOtpCacheServiceImpl restarted = newCache();
+        int restored = restarted.restoreSnapshot();
+
+        // Assert: the code cannot be replayed against the cache
+        try {
+            assertEquals(0, restored);
+            assertEquals(OtpVerifyResult.Outcome.MISSING, restarted.verifyAndConsume(userId, "123456").getOutcome());
+        } finally {
+            crashed.shutdown();
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    void testRestoreAfterCrash_DropsCodeReplacedSinceLastSave() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        InMemoryOtpCacheServiceImpl crashed = newCache();
+        issue(crashed, userId, "111111", 600);
+        crashed.saveSnapshot();
+        issue(crashed, userId, "222222", 600);
+
+        // Act
+        InMemoryOtpCacheServiceImpl restarted = newCache();
+        int restored = restarted.restoreSnapshot();
+
+        // Assert
+        try {
+            assertEquals(0, restored);
+            assertNull(restarted.getOtp(userId));
+        } finally {
+            crashed.shutdown();
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    void testRestoreAfterCrash_KeepsAttemptsUsedSinceLastSave() {
+        // Arrange: four wrong guesses after the save, counted in the row as verifyOtp does
+        UUID userId = UUID.randomUUID();
+        InMemoryOtpCacheServiceImpl crashed = newCache();
+        issue(crashed, userId, "123456", 600);
+        crashed.saveSnapshot();
+        for (int i = 0; i < 4; i++) {
+            crashed.verifyAndConsume(userId, "000000");
+            otpCodes.get(userId).incrementAttempts();
+        }
+
+        // Act
+        InMemoryOtpCacheServiceImpl restarted = newCache();
+        restarted.restoreSnapshot();
+
+        // Assert: one guess left, not a fresh five
+        try {
+            assertEquals(1, restarted.getRemainingAttempts(userId));
+            assertEquals(OtpVerifyResult.Outcome.INVALID, restarted.verifyAndConsume(userId, "000000").getOutcome());
+            assertEquals(OtpVerifyResult.Outcome.LOCKED, restarted.verifyAndConsume(userId, "123456").getOutcome());
+        } finally {
+            crashed.shutdown();
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    void testRestore_StartsEmptyWhenRowsCannotBeChecked() {
+        // Arrange
+        InMemoryOtpCacheServiceImpl before = newCache();
+        issue(before, UUID.randomUUID(), "123456", 600);
+        before.shutdown();
+        doThrow(new IllegalStateException("database down")).when(otpCodeRepository).findByUserIdIn(any());
+
+        // Act
+        InMemoryOtpCacheServiceImpl after = newCache();
+        int restored = after.restoreSnapshot();
+
+        // Assert
+        try {
+            assertEquals(0, restored);
+            assertEquals(0, after.size());
+        } finally {
+            after.shutdown();
+        }
+    }
+
+    @Test
+    void testWrite_EmptyCacheProducesHeaderOnlySnapshot() throws IOException {
+        // Act
+        int written = snapshot.write(List.of(), clock.millis());
+
+        // Assert
+        assertEquals(0, written);
+        assertEquals(24, Files.size(snapshot.getPath()));
+        assertTrue(snapshot.read(clock.millis()).isEmpty());
+    }
+
+    private InMemoryOtpCacheServiceImpl newCache() {
+        return new InMemoryOtpCacheServiceImpl(clock, snapshot, otpCodeRepository, Duration.ofHours(1));
+    }
+
+    // Store a code the way requestOtp does: replace the user's row, then cache it
+    private void issue(InMemoryOtpCacheServiceImpl cache, UUID userId, String otp, long expirationSeconds) {
+        otpCodes.put(userId, new OtpCode(userId, otp, LocalDateTime.now().plusSeconds(expirationSeconds)));
+        cache.storeOtp(userId, otp, expirationSeconds);
+    }
+
+    private int newCacheRestoring() {
+        InMemoryOtpCacheServiceImpl cache = newCache();
+        try {
+            return cache.restoreSnapshot();
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    private void overwriteByte(long position, int value) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(snapshot.getPath().toFile(), "rw")) {
+            file.seek(position);
+            file.write(value);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.fscip.identity.service;
+
+import com.fscip.identity.service.impl.OtpGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OtpGeneratorTest {
+
+    @Test
+    void testGenerate_ProducesSixDigitCodes() {
+        // Arrange
+        OtpGenerator generator = new OtpGenerator("DRBG");
+
+        // Act & Assert
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(generator.generate().matches("\\d{6}"));
+        }
+    }
+
+    @Test
+    void testGenerate_ZeroPadsSmallValues() {
+        // Arrange
+        OtpGenerator generator = new OtpGenerator(() -> new FixedRandom(42));
+
+        // Act
+        String otp = generator.generate();
+
+        // Assert
+        assertEquals("000042", otp);
+    }
+
+    @Test
+    void testGenerate_UsesOneEntropySourcePerThread() throws Exception {
+        // Arrange
+        AtomicInteger created = new AtomicInteger();
+        Set<Thread> drawingThreads = ConcurrentHashMap.newKeySet();
+        OtpGenerator generator = new OtpGenerator(() -> {
+            created.incrementAndGet();
+            return new FixedRandom(123456) {
+                @Override
+                public void nextBytes(byte[] bytes) {
+                    drawingThreads.add(Thread.currentThread());
+                    super.nextBytes(bytes);
+                }
+            };
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // Act
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                futures.add(executor.submit(generator::generate));
+            }
+            for (Future<String> future : futures) {
+                assertEquals("123456", future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert: the constructing thread plus at most one per pool thread
+        assertTrue(created.get() <= 5, "created " + created.get());
+        assertTrue(drawingThreads.size() <= 4);
+    }
+
+    @Test
+    void testGenerate_RejectsValuesThatWouldBiasTheModulo() {
+        // Arrange: 16_777_215 is above the unbiased limit, 16_000_000 - 1 just below it
+        OtpGenerator generator = new OtpGenerator(() -> new SecureRandom() {
+            private boolean first = true;
+
+            @Override
+            public void nextBytes(byte[] bytes) {
+                Arrays.fill(bytes, (byte) 0xFF);
+                if (first) {
+                    bytes[3] = (byte) 0xF4;
+                    bytes[4] = (byte) 0x23;
+                    bytes[5] = (byte) 0xFF;
+                    first = false;
+                }
+            }
+        });
+
+        // Act
+        String otp = generator.generate();
+
+        // Assert
+        assertEquals("999999", otp);
+    }
+
+    @Test
+    void testConstructor_UnknownAlgorithmFailsFast() {
+        assertThrows(IllegalStateException.class, () -> new OtpGenerator("NO-SUCH-RNG"));
+    }
+
+    private static class FixedRandom extends SecureRandom {
+        private final int value;
+
+        FixedRandom(int value) {
+            this.value = value;
+        }
+
+        // Repeats the value as big-endian 24-bit words
+        @Override
+        public void nextBytes(byte[] bytes) {
+            for (int i = 0; i + 2 < bytes.length; i += 3) {
+                bytes[i] = (byte) (value >>> 16);
+                bytes[i + 1] = (byte) (value >>> 8);
+                bytes[i + 2] = (byte) value;
+            }
+        }
+    }
+}
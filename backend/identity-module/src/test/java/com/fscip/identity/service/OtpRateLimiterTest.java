@@ -0,0 +1,203 @@
+package com.fscip.identity.service;
+
+import com.fscip.common.util.MutableClock;
+import com.fscip.identity.service.impl.InMemoryOtpRateLimiter;
+import com.fscip.identity.service.impl.RedisOtpRateLimiter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OtpRateLimiterTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private MutableClock clock;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        // Start exactly on a window boundary so weights are predictable
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+    }
+
+    @Test
+    void testInMemory_RejectsRequestsOverLimitWithinWindow() {
+        assertLimitWithinWindow(new InMemoryOtpRateLimiter(5, WINDOW, clock));
+    }
+
+    @Test
+    void testRedis_RejectsRequestsOverLimitWithinWindow() {
+        assertLimitWithinWindow(redisLimiter());
+    }
+
+    @Test
+    void testInMemory_PreviousWindowIsWeightedByOverlap() {
+        assertSlidingWeight(new InMemoryOtpRateLimiter(5, WINDOW, clock));
+    }
+
+    @Test
+    void testRedis_PreviousWindowIsWeightedByOverlap() {
+        assertSlidingWeight(redisLimiter());
+    }
+
+    @Test
+    void testInMemory_LimitsAreIndependentPerUser() {
+        // Arrange
+        InMemoryOtpRateLimiter limiter = new InMemoryOtpRateLimiter(1, WINDOW, clock);
+
+        // Act & Assert
+        assertTrue(limiter.tryAcquire(UUID.randomUUID()));
+        assertTrue(limiter.tryAcquire(UUID.randomUUID()));
+    }
+
+    @Test
+    void testInMemory_RetryAfterReportsWhenNextRequestFits() {
+        // Arrange
+        InMemoryOtpRateLimiter limiter = new InMemoryOtpRateLimiter(5, WINDOW, clock);
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire(userId);
+        }
+
+        // Act
+        Duration retryAfter = limiter.retryAfter(userId);
+
+        // Assert: the next window must be a fifth through before 5 * 0.8 + 1 fits
+        assertEquals(Duration.ofSeconds(72), retryAfter);
+        clock.advance(retryAfter.minusMillis(1));
+        assertFalse(limiter.tryAcquire(userId));
+        clock.advance(Duration.ofMillis(1));
+        assertTrue(limiter.tryAcquire(userId));
+    }
+
+    @Test
+    void testInMemory_IdleUsersAreEvicted() {
+        // Arrange
+        InMemoryOtpRateLimiter limiter = new InMemoryOtpRateLimiter(5, WINDOW, clock);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire(UUID.randomUUID());
+        }
+        UUID activeUser = UUID.randomUUID();
+
+        // Act
+        clock.advance(Duration.ofMinutes(2));
+        limiter.tryAcquire(activeUser);
+        clock.advance(Duration.ofMinutes(1));
+        limiter.evictIdle();
+
+        // Assert
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void testInMemory_ConcurrentRequestsNeverExceedLimit() throws Exception {
+        // Arrange
+        InMemoryOtpRateLimiter limiter = new InMemoryOtpRateLimiter(50, WINDOW, clock);
+        UUID userId = UUID.randomUUID();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger allowed = new AtomicInteger();
+
+        // Act
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    if (limiter.tryAcquire(userId)) {
+                        allowed.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        assertEquals(50, allowed.get());
+    }
+
+    private void assertLimitWithinWindow(OtpRateLimiter limiter) {
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(userId));
+        }
+        assertFalse(limiter.tryAcquire(userId));
+
+        clock.advance(Duration.ofSeconds(59));
+        assertFalse(limiter.tryAcquire(userId));
+    }
+
+    private void assertSlidingWeight(OtpRateLimiter limiter) {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(userId));
+        }
+
+        // Act: half way into the next window the previous five count as 2.5
+        clock.advance(Duration.ofSeconds(90));
+
+        // Assert
+        assertTrue(limiter.tryAcquire(userId));
+        assertTrue(limiter.tryAcquire(userId));
+        assertFalse(limiter.tryAcquire(userId));
+    }
+
+    private RedisOtpRateLimiter redisLimiter() {
+        return new RedisOtpRateLimiter(redisTemplate, "test:otp-rate:" + UUID.randomUUID() + ":", 5, WINDOW, clock);
+    }
+}
@@ -7,17 +7,30 @@ import com.fscip.identity.entity.UserStatus;
 import com.fscip.identity.exception.OtpException;
 import com.fscip.identity.repository.OtpCodeRepository;
 import com.fscip.identity.repository.UserRepository;
+import com.fscip.identity.service.impl.OtpGenerator;
+import com.fscip.identity.service.impl.OtpMetrics;
 import com.fscip.identity.service.impl.OtpServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -38,6 +51,13 @@ class OtpServiceImplTest {
     @Mock
     private OtpCacheService otpCacheService;
 
+    @Mock
+    private OtpRateLimiter otpRateLimiter;
+
+    @Mock
+    private UserLookupService userLookupService;
+
+    private SimpleMeterRegistry meterRegistry;
     private OtpServiceImpl otpService;
 
     private User testUser;
@@ -46,12 +66,13 @@ class OtpServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        otpService = new OtpServiceImpl(userRepository, otpCodeRepository, emailService, otpCacheService);
+        meterRegistry = new SimpleMeterRegistry();
+        otpService = new OtpServiceImpl(userRepository, otpCodeRepository, emailService, otpCacheService, otpRateLimiter,
+            userLookupService, new OtpGenerator("DRBG"), new OtpMetrics(meterRegistry),
+            TransactionOperations.withoutTransaction(), Duration.ofSeconds(10));
         
         // Set configuration properties
         ReflectionTestUtils.setField(otpService, "otpExpiryMinutes", 10);
-        ReflectionTestUtils.setField(otpService, "rateLimitMinutes", 1);
-        ReflectionTestUtils.setField(otpService, "maxRequestsPerHour", 5);
 
         // Create test user
         testUser = new User(testEmail, "hashedPassword", "Test User");
@@ -63,8 +84,8 @@ class OtpServiceImplTest {
     void testRequestOtp_Success() {
         // Arrange
         OtpRequestDto request = new OtpRequestDto(testEmail);
-        when(userRepository.findByEmail(testEmail)).thenReturn(Optional.of(testUser));
-        when(otpCodeRepository.countOtpRequestsSince(eq(testUserId), any())).thenReturn(0L);
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.of(UserSummary.of(testUser)));
+        when(otpRateLimiter.tryAcquire(testUserId)).thenReturn(true);
         when(emailService.sendOtp(eq(testEmail), any(), eq(10))).thenReturn(true);
         when(otpCodeRepository.save(any(OtpCode.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -87,7 +108,7 @@ class OtpServiceImplTest {
     void testRequestOtp_UserNotFound() {
         // Arrange
         OtpRequestDto request = new OtpRequestDto(testEmail);
-        when(userRepository.findByEmail(testEmail)).thenReturn(Optional.empty());
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.empty());
 
         // Act
         OtpResponseDto response = otpService.requestOtp(request);
@@ -105,7 +126,7 @@ class OtpServiceImplTest {
         // Arrange
         testUser.setStatus(UserStatus.ACTIVE);
         OtpRequestDto request = new OtpRequestDto(testEmail);
-        when(userRepository.findByEmail(testEmail)).thenReturn(Optional.of(testUser));
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.of(UserSummary.of(testUser)));
 
         // Act
         OtpResponseDto response = otpService.requestOtp(request);
@@ -121,8 +142,8 @@ class OtpServiceImplTest {
     void testRequestOtp_RateLimited() {
         // Arrange
         OtpRequestDto request = new OtpRequestDto(testEmail);
-        when(userRepository.findByEmail(testEmail)).thenReturn(Optional.of(testUser));
-        when(otpCodeRepository.countOtpRequestsSince(eq(testUserId), any())).thenReturn(10L);
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.of(UserSummary.of(testUser)));
+        when(otpRateLimiter.tryAcquire(testUserId)).thenReturn(false);
 
         // Act
         OtpResponseDto response = otpService.requestOtp(request);
@@ -132,14 +153,16 @@ class OtpServiceImplTest {
         assertEquals("Too many OTP requests. Please wait before requesting again", response.getMessage());
 
         verify(emailService, never()).sendOtp(any(), any(), anyInt());
+        verify(otpCodeRepository, never()).countOtpRequestsSince(any(), any());
+        assertEquals(1, meterRegistry.get("otp.requests").tag("outcome", "rate_limited").timer().count());
     }
 
     @Test
     void testRequestOtp_EmailSendFailure() {
         // Arrange
         OtpRequestDto request = new OtpRequestDto(testEmail);
-        when(userRepository.findByEmail(testEmail)).thenReturn(Optional.of(testUser));
-        when(otpCodeRepository.countOtpRequestsSince(eq(testUserId), any())).thenReturn(0L);
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.of(UserSummary.of(testUser)));
+        when(otpRateLimiter.tryAcquire(testUserId)).thenReturn(true);
         when(emailService.sendOtp(eq(testEmail), any(), eq(10))).thenReturn(false);
         when(otpCodeRepository.save(any(OtpCode.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -149,6 +172,115 @@ class OtpServiceImplTest {
         // Assert
         assertFalse(response.isSuccess());
         assertEquals("Failed to send OTP email", response.getMessage());
+        assertEquals(1, meterRegistry.get("otp.email.send").tags("type", "otp", "result", "failed").timer().count());
+        assertEquals(1, meterRegistry.get("otp.requests").tag("outcome", "email_failed").timer().count());
+    }
+
+    @Test
+    void testRequestOtp_ConcurrentDuplicatesShareInFlightResult() throws Exception {
+        // Arrange
+        OtpRequestDto request = new OtpRequestDto(testEmail);
+        CountDownLatch emailStarted = new CountDownLatch(1);
+        CountDownLatch releaseEmail = new CountDownLatch(1);
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.of(UserSummary.of(testUser)));
+        when(otpRateLimiter.tryAcquire(testUserId)).thenReturn(true);
+        when(otpCodeRepository.save(any(OtpCode.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(emailService.sendOtp(eq(testEmail), any(), eq(10))).thenAnswer(invocation -> {
+            emailStarted.countDown();
+            return releaseEmail.await(10, TimeUnit.SECONDS);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        // Act
+        OtpResponseDto first;
+        OtpResponseDto duplicate;
+        try {
+            Future<OtpResponseDto> leader = executor.submit(() -> otpService.requestOtp(request));
+            assertTrue(emailStarted.await(10, TimeUnit.SECONDS));
+            Future<OtpResponseDto> follower = executor.submit(() -> otpService.requestOtp(request));
+            Thread.sleep(100);
+            assertFalse(follower.isDone());
+            releaseEmail.countDown();
+            first = leader.get(10, TimeUnit.SECONDS);
+            duplicate = follower.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        assertTrue(first.isSuccess());
+        assertSame(first, duplicate);
+        verify(otpRateLimiter, times(1)).tryAcquire(testUserId);
+        verify(otpCodeRepository, times(1)).deleteByUserId(testUserId);
+        verify(otpCodeRepository, times(1)).save(any(OtpCode.class));
+        verify(emailService, times(1)).sendOtp(eq(testEmail), any(), eq(10));
+        assertEquals(1, meterRegistry.get("otp.requests").tag("outcome", "coalesced").timer().count());
+    }
+
+    @Test
+    void testRequestOtp_DuplicateWaitsOutsideTransactionAndGivesUp() throws Exception {
+        // Arrange: count the transactions opened, and let duplicates wait only briefly
+        AtomicInteger transactions = new AtomicInteger();
+        TransactionOperations counting = new TransactionOperations() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                transactions.incrementAndGet();
+                return action.doInTransaction(new SimpleTransactionStatus());
+            }
+        };
+        otpService = new OtpServiceImpl(userRepository, otpCodeRepository, emailService, otpCacheService, otpRateLimiter,
+            userLookupService, new OtpGenerator("DRBG"), new OtpMetrics(meterRegistry), counting, Duration.ofMillis(100));
+        ReflectionTestUtils.setField(otpService, "otpExpiryMinutes", 10);
+        OtpRequestDto request = new OtpRequestDto(testEmail);
+        CountDownLatch emailStarted = new CountDownLatch(1);
+        CountDownLatch releaseEmail = new CountDownLatch(1);
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.of(UserSummary.of(testUser)));
+        when(otpRateLimiter.tryAcquire(testUserId)).thenReturn(true);
+        when(otpCodeRepository.save(any(OtpCode.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(emailService.sendOtp(eq(testEmail), any(), eq(10))).thenAnswer(invocation -> {
+            emailStarted.countDown();
+            return releaseEmail.await(10, TimeUnit.SECONDS);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // Act
+        OtpResponseDto first;
+        OtpResponseDto duplicate;
+        try {
+            Future<OtpResponseDto> leader = executor.submit(() -> otpService.requestOtp(request));
+            assertTrue(emailStarted.await(10, TimeUnit.SECONDS));
+            duplicate = otpService.requestOtp(request);
+            releaseEmail.countDown();
+            first = leader.get(10, TimeUnit.SECONDS);
+        } finally {
+            releaseEmail.countDown();
+            executor.shutdownNow();
+        }
+
+        // Assert: the duplicate answered while the leader was still sending, without a transaction of its own
+        assertFalse(duplicate.isSuccess());
+        assertTrue(duplicate.getMessage().contains("already in progress"));
+        assertTrue(first.isSuccess());
+        assertEquals(1, transactions.get());
+        verify(emailService, times(1)).sendOtp(eq(testEmail), any(), eq(10));
+    }
+
+    @Test
+    void testRequestOtp_SequentialRequestsAreNotCoalesced() {
+        // Arrange
+        OtpRequestDto request = new OtpRequestDto(testEmail);
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.of(UserSummary.of(testUser)));
+        when(otpRateLimiter.tryAcquire(testUserId)).thenReturn(true);
+        when(emailService.sendOtp(eq(testEmail), any(), eq(10))).thenReturn(true);
+        when(otpCodeRepository.save(any(OtpCode.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        otpService.requestOtp(request);
+        otpService.requestOtp(request);
+
+        // Assert
+        verify(otpRateLimiter, times(2)).tryAcquire(testUserId);
+        verify(emailService, times(2)).sendOtp(eq(testEmail), any(), eq(10));
     }
 
     @Test
@@ -157,10 +289,8 @@ class OtpServiceImplTest {
         String validOtp = "123456";
         OtpVerificationDto verification = new OtpVerificationDto(testEmail, validOtp);
         
-        when(userRepository.findByEmail(testEmail)).thenReturn(Optional.of(testUser));
-        when(otpCacheService.getRemainingAttempts(testUserId)).thenReturn(5);
-        when(otpCacheService.getOtp(testUserId)).thenReturn(validOtp);
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.of(UserSummary.of(testUser)));
+        when(otpCacheService.verifyAndConsume(testUserId, validOtp)).thenReturn(OtpVerifyResult.VERIFIED);
 
         // Act
         OtpVerificationResponseDto response = otpService.verifyOtp(verification);
@@ -172,16 +302,18 @@ class OtpServiceImplTest {
         assertEquals("ACTIVE", response.getStatus());
 
         verify(otpCodeRepository).deleteByUserId(testUserId);
-        verify(otpCacheService).removeOtp(testUserId);
+        verify(otpCacheService, never()).removeOtp(testUserId);
         verify(emailService).sendWelcomeEmail(testEmail, testUser.getFullName());
-        verify(userRepository).save(argThat(user -> user.getStatus() == UserStatus.ACTIVE));
+        verify(userLookupService).updateUserStatus(testUserId, UserStatus.ACTIVE);
+        verify(userRepository).updateLastLogin(eq(testUserId), any(), any());
+        verify(userRepository, never()).save(any());
     }
 
     @Test
     void testVerifyOtp_UserNotFound() {
         // Arrange
         OtpVerificationDto verification = new OtpVerificationDto(testEmail, "123456");
-        when(userRepository.findByEmail(testEmail)).thenReturn(Optional.empty());
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.empty());
 
         // Act
         OtpVerificationResponseDto response = otpService.verifyOtp(verification);
@@ -196,8 +328,8 @@ class OtpServiceImplTest {
     void testVerifyOtp_NoAttemptsRemaining() {
         // Arrange
         OtpVerificationDto verification = new OtpVerificationDto(testEmail, "123456");
-        when(userRepository.findByEmail(testEmail)).thenReturn(Optional.of(testUser));
-        when(otpCacheService.getRemainingAttempts(testUserId)).thenReturn(0);
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.of(UserSummary.of(testUser)));
+        when(otpCacheService.verifyAndConsume(testUserId, "123456")).thenReturn(OtpVerifyResult.LOCKED);
 
         // Act
         OtpVerificationResponseDto response = otpService.verifyOtp(verification);
@@ -211,18 +343,11 @@ class OtpServiceImplTest {
     @Test
     void testVerifyOtp_InvalidOtp() {
         // Arrange
-        String validOtp = "123456";
         String invalidOtp = "654321";
         OtpVerificationDto verification = new OtpVerificationDto(testEmail, invalidOtp);
         
-        when(userRepository.findByEmail(testEmail)).thenReturn(Optional.of(testUser));
-        when(otpCacheService.getRemainingAttempts(testUserId)).thenReturn(5);
-        when(otpCacheService.getOtp(testUserId)).thenReturn(validOtp);
-        when(otpCacheService.decrementAttempts(testUserId)).thenReturn(4);
-
-        OtpCode otpEntity = new OtpCode(testUserId, validOtp, LocalDateTime.now().plusMinutes(10));
-        when(otpCodeRepository.findTopByUserIdOrderByCreatedAtDesc(testUserId))
-            .thenReturn(Optional.of(otpEntity));
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.of(UserSummary.of(testUser)));
+        when(otpCacheService.verifyAndConsume(testUserId, invalidOtp)).thenReturn(OtpVerifyResult.invalid(4));
 
         // Act
         OtpVerificationResponseDto response = otpService.verifyOtp(verification);
@@ -232,17 +357,21 @@ class OtpServiceImplTest {
         assertEquals("Invalid OTP code", response.getMessage());
         assertEquals(4, response.getRemainingAttempts());
 
-        verify(otpCacheService).decrementAttempts(testUserId);
+        verify(otpCodeRepository).incrementAttemptsByUserId(testUserId);
+        verify(otpCodeRepository, never()).findTopByUserIdOrderByCreatedAtDesc(any());
+        verify(otpCodeRepository, never()).save(any());
         verify(userRepository, never()).save(any());
+        assertEquals(1, meterRegistry.get("otp.cache.lookups").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("otp.verifications").tags("outcome", "invalid", "source", "cache")
+            .timer().count());
     }
 
     @Test
     void testVerifyOtp_NoActiveOtp() {
         // Arrange
         OtpVerificationDto verification = new OtpVerificationDto(testEmail, "123456");
-        when(userRepository.findByEmail(testEmail)).thenReturn(Optional.of(testUser));
-        when(otpCacheService.getRemainingAttempts(testUserId)).thenReturn(5);
-        when(otpCacheService.getOtp(testUserId)).thenReturn(null);
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.of(UserSummary.of(testUser)));
+        when(otpCacheService.verifyAndConsume(testUserId, "123456")).thenReturn(OtpVerifyResult.MISSING);
         when(otpCodeRepository.findTopByUserIdOrderByCreatedAtDesc(testUserId))
             .thenReturn(Optional.empty());
 
@@ -259,9 +388,8 @@ class OtpServiceImplTest {
     void testVerifyOtp_ExpiredOtp() {
         // Arrange
         OtpVerificationDto verification = new OtpVerificationDto(testEmail, "123456");
-        when(userRepository.findByEmail(testEmail)).thenReturn(Optional.of(testUser));
-        when(otpCacheService.getRemainingAttempts(testUserId)).thenReturn(5);
-        when(otpCacheService.getOtp(testUserId)).thenReturn(null);
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.of(UserSummary.of(testUser)));
+        when(otpCacheService.verifyAndConsume(testUserId, "123456")).thenReturn(OtpVerifyResult.MISSING);
 
         OtpCode expiredOtp = new OtpCode(testUserId, "123456", LocalDateTime.now().minusMinutes(1));
         when(otpCodeRepository.findTopByUserIdOrderByCreatedAtDesc(testUserId))
@@ -276,11 +404,59 @@ class OtpServiceImplTest {
         assertEquals(0, response.getRemainingAttempts());
     }
 
+    @Test
+    void testVerifyOtp_CacheMissFallsBackToDatabase() {
+        // Arrange
+        String validOtp = "123456";
+        OtpVerificationDto verification = new OtpVerificationDto(testEmail, validOtp);
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.of(UserSummary.of(testUser)));
+        when(otpCacheService.verifyAndConsume(testUserId, validOtp)).thenReturn(OtpVerifyResult.MISSING);
+        when(otpCodeRepository.findTopByUserIdOrderByCreatedAtDesc(testUserId))
+            .thenReturn(Optional.of(new OtpCode(testUserId, validOtp, LocalDateTime.now().plusMinutes(5))));
+
+        // Act
+        OtpVerificationResponseDto response = otpService.verifyOtp(verification);
+
+        // Assert
+        assertTrue(response.isSuccess());
+        verify(otpCodeRepository).deleteByUserId(testUserId);
+        verify(userLookupService).updateUserStatus(testUserId, UserStatus.ACTIVE);
+        verify(userRepository).updateLastLogin(eq(testUserId), any(), any());
+        verify(userRepository, never()).save(any());
+        assertEquals(1, meterRegistry.get("otp.cache.lookups").tag("result", "miss").counter().count());
+        assertEquals(1, meterRegistry.get("otp.verifications").tags("outcome", "verified", "source", "database")
+            .timer().count());
+    }
+
+    @Test
+    void testVerifyOtp_CacheMissInvalidOtpUsesDatabaseAttempts() {
+        // Arrange
+        OtpVerificationDto verification = new OtpVerificationDto(testEmail, "654321");
+        when(userLookupService.findByEmail(testEmail)).thenReturn(Optional.of(UserSummary.of(testUser)));
+        when(otpCacheService.verifyAndConsume(testUserId, "654321")).thenReturn(OtpVerifyResult.MISSING);
+
+        OtpCode otpEntity = new OtpCode(testUserId, "123456", LocalDateTime.now().plusMinutes(5));
+        otpEntity.setAttempts(2);
+        when(otpCodeRepository.findTopByUserIdOrderByCreatedAtDesc(testUserId))
+            .thenReturn(Optional.of(otpEntity));
+
+        // Act
+        OtpVerificationResponseDto response = otpService.verifyOtp(verification);
+
+        // Assert
+        assertFalse(response.isSuccess());
+        assertEquals("Invalid OTP code", response.getMessage());
+        assertEquals(2, response.getRemainingAttempts());
+        verify(otpCodeRepository).incrementAttempts(otpEntity.getOtpId());
+        verify(otpCodeRepository, never()).save(any());
+        verify(userRepository, never()).save(any());
+    }
+
     @Test
     void testRequestOtp_ThrowsException() {
         // Arrange
         OtpRequestDto request = new OtpRequestDto(testEmail);
-        when(userRepository.findByEmail(testEmail)).thenThrow(new RuntimeException("Database error"));
+        when(userLookupService.findByEmail(testEmail)).thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         assertThrows(OtpException.class, () -> otpService.requestOtp(request));
@@ -290,7 +466,7 @@ class OtpServiceImplTest {
     void testVerifyOtp_ThrowsException() {
         // Arrange
         OtpVerificationDto verification = new OtpVerificationDto(testEmail, "123456");
-        when(userRepository.findByEmail(testEmail)).thenThrow(new RuntimeException("Database error"));
+        when(userLookupService.findByEmail(testEmail)).thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         assertThrows(OtpException.class, () -> otpService.verifyOtp(verification));
@@ -0,0 +1,203 @@
+package com.fscip.identity.service;
+
+import com.fscip.common.util.MutableClock;
+import com.fscip.identity.service.impl.InMemoryOtpCacheServiceImpl;
+import com.fscip.identity.service.impl.PackedOtpCacheServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedOtpCacheServiceImplTest {
+
+    private MutableClock clock;
+    private PackedOtpCacheServiceImpl cacheService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        cacheService = new PackedOtpCacheServiceImpl(16, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheService.shutdown();
+    }
+
+    @Test
+    void testStoreOtp_KeepsLeadingZeros() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+
+        // Act
+        cacheService.storeOtp(userId, "000123", 600);
+
+        // Assert
+        assertEquals("000123", cacheService.getOtp(userId));
+        assertEquals(5, cacheService.getRemainingAttempts(userId));
+    }
+
+    @Test
+    void testStoreOtp_RejectsCodesThatCannotBePacked() {
+        UUID userId = UUID.randomUUID();
+        assertThrows(IllegalArgumentException.class, () -> cacheService.storeOtp(userId, "12a456", 600));
+        assertThrows(IllegalArgumentException.class, () -> cacheService.storeOtp(userId, "1234567", 600));
+    }
+
+    @Test
+    void testVerifyAndConsume_CountsAttemptsThenLocks() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "123456", 600);
+
+        // Act & Assert
+        for (int remaining = 4; remaining >= 0; remaining--) {
+            OtpVerifyResult result = cacheService.verifyAndConsume(userId, "654321");
+            assertEquals(OtpVerifyResult.Outcome.INVALID, result.getOutcome());
+            assertEquals(remaining, result.getRemainingAttempts());
+        }
+        assertEquals(OtpVerifyResult.Outcome.LOCKED, cacheService.verifyAndConsume(userId, "123456").getOutcome());
+        assertNull(cacheService.getOtp(userId));
+    }
+
+    @Test
+    void testVerifyAndConsume_MatchConsumesEntry() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "123456", 600);
+
+        // Act
+        OtpVerifyResult result = cacheService.verifyAndConsume(userId, "123456");
+
+        // Assert
+        assertEquals(OtpVerifyResult.Outcome.VERIFIED, result.getOutcome());
+        assertEquals(OtpVerifyResult.Outcome.MISSING, cacheService.verifyAndConsume(userId, "123456").getOutcome());
+        assertEquals(0, cacheService.size());
+    }
+
+    @Test
+    void testCleanup_RemovesOnlyExpiredEntries() {
+        // Arrange
+        List<UUID> shortLived = new ArrayList<>();
+        List<UUID> longLived = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            UUID userId = UUID.randomUUID();
+            if (i % 3 == 0) {
+                shortLived.add(userId);
+                cacheService.storeOtp(userId, "111111", 60);
+            } else {
+                longLived.add(userId);
+                cacheService.storeOtp(userId, "222222", 600);
+            }
+        }
+
+        // Act
+        clock.advance(Duration.ofSeconds(61));
+        int removed = cacheService.cleanupExpiredEntries();
+
+        // Assert: backward-shift deletion must not lose neighbours of removed entries
+        assertEquals(shortLived.size(), removed);
+        assertEquals(longLived.size(), cacheService.size());
+        longLived.forEach(userId -> assertEquals("222222", cacheService.getOtp(userId)));
+        shortLived.forEach(userId -> assertNull(cacheService.getOtp(userId)));
+    }
+
+    @Test
+    void testRandomOperations_MatchMapBasedCache() {
+        // Arrange
+        InMemoryOtpCacheServiceImpl reference = new InMemoryOtpCacheServiceImpl(clock);
+        Random random = new Random(42);
+        UUID[] users = new UUID[500];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = UUID.randomUUID();
+        }
+
+        // Act & Assert
+        try {
+            for (int step = 0; step < 50_000; step++) {
+                UUID userId = users[random.nextInt(users.length)];
+                String otp = String.format("%06d", random.nextInt(3));
+                switch (random.nextInt(8)) {
+                    case 0 -> {
+                        long expirationSeconds = 1 + random.nextInt(120);
+                        cacheService.storeOtp(userId, otp, expirationSeconds);
+                        reference.storeOtp(userId, otp, expirationSeconds);
+                    }
+                    case 1 -> assertEquals(reference.getOtp(userId), cacheService.getOtp(userId));
+                    case 2 -> {
+                        cacheService.removeOtp(userId);
+                        reference.removeOtp(userId);
+                    }
+                    case 3 -> assertEquals(reference.hasActiveOtp(userId), cacheService.hasActiveOtp(userId));
+                    case 4 -> assertEquals(reference.decrementAttempts(userId), cacheService.decrementAttempts(userId));
+                    case 5 -> {
+                        cacheService.resetAttempts(userId);
+                        reference.resetAttempts(userId);
+                    }
+                    case 6 -> {
+                        OtpVerifyResult expected = reference.verifyAndConsume(userId, otp);
+                        OtpVerifyResult actual = cacheService.verifyAndConsume(userId, otp);
+                        assertEquals(expected.getOutcome(), actual.getOutcome(), "step " + step);
+                        assertEquals(expected.getRemainingAttempts(), actual.getRemainingAttempts(), "step " + step);
+                    }
+                    default -> {
+                        clock.advance(Duration.ofSeconds(random.nextInt(5)));
+                        cacheService.cleanupExpiredEntries();
+                        reference.cleanupExpiredEntries();
+                    }
+                }
+                assertEquals(reference.getRemainingAttempts(userId), cacheService.getRemainingAttempts(userId));
+            }
+        } finally {
+            reference.shutdown();
+        }
+    }
+
+    @Test
+    void testVerifyAndConsume_ConcurrentGuessesNeverExceedAttempts() throws Exception {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "123456", 600);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger invalid = new AtomicInteger();
+
+        // Act
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    if (cacheService.verifyAndConsume(userId, "000000").getOutcome() == OtpVerifyResult.Outcome.INVALID) {
+                        invalid.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        assertEquals(5, invalid.get());
+        assertEquals(0, cacheService.getRemainingAttempts(userId));
+    }
+}
@@ -0,0 +1,320 @@
+package com.fscip.identity.service;
+
+import com.fscip.common.util.MutableClock;
+import com.fscip.identity.service.impl.PasswordResetTokenServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class PasswordResetTokenServiceImplTest {
+
+    private JdbcOperations jdbcOperations;
+    private final List<UUID> liveTokens = new ArrayList<>();
+    private PasswordResetTokenServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcOperations = mock(JdbcOperations.class);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (UUID token : new ArrayList<>(liveTokens)) {
+                ResultSet row = mock(ResultSet.class);
+                when(row.getObject(1, UUID.class)).thenReturn(token);
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcOperations).query(startsWith("SELECT token FROM password_reset_tokens"),
+            any(RowCallbackHandler.class), any(Object[].class));
+        // A long catch-up interval, so after a rebuild a miss is always answered by the filter
+        service = new PasswordResetTokenServiceImpl(jdbcOperations, Clock.systemDefaultZone(),
+            Duration.ofMinutes(30), 1000, 0.001, Duration.ofHours(1));
+    }
+
+    @Test
+    void testConsume_UnknownTokenIsRejectedWithoutQuery() {
+        // Arrange
+        liveTokens.add(UUID.randomUUID());
+        service.rebuildFilter();
+
+        // Act
+        Optional<UUID> owner = service.consume(UUID.randomUUID());
+
+        // Assert
+        assertTrue(owner.isEmpty());
+        assertEquals(1, service.getFilteredCount());
+        verify(jdbcOperations, never())
+            .query(startsWith("UPDATE"), ArgumentMatchers.<RowMapper<UUID>>any(), any(Object[].class));
+    }
+
+    @Test
+    void testConsume_LoadedTokenIsConfirmedByUpdateReturning() {
+        // Arrange
+        UUID token = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        liveTokens.add(token);
+        assertEquals(1, service.rebuildFilter());
+        stubConsume(token, userId);
+
+        // Act
+        Optional<UUID> owner = service.consume(token);
+
+        // Assert
+        assertEquals(Optional.of(userId), owner);
+        assertEquals(1, service.getConsumedCount());
+        verify(jdbcOperations).query(startsWith("UPDATE password_reset_tokens SET used = TRUE"),
+            ArgumentMatchers.<RowMapper<UUID>>any(), eq(token), any());
+    }
+
+    @Test
+    void testConsume_IssuedTokenPassesFilter() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        service.rebuildFilter();
+        UUID token = service.issue(userId);
+        stubConsume(token, userId);
+
+        // Act
+        Optional<UUID> owner = service.consume(token);
+
+        // Assert
+        assertEquals(Optional.of(userId), owner);
+        verify(jdbcOperations).update(startsWith("INSERT INTO password_reset_tokens"), eq(userId), eq(token), any(), any());
+    }
+
+    @Test
+    void testConsume_UsedTokenPassingFilterIsRejectedByDatabase() {
+        // Arrange
+        UUID token = UUID.randomUUID();
+        liveTokens.add(token);
+        service.rebuildFilter();
+        when(jdbcOperations.query(startsWith("UPDATE"), ArgumentMatchers.<RowMapper<UUID>>any(), any(Object[].class)))
+            .thenReturn(List.of());
+
+        // Act
+        Optional<UUID> owner = service.consume(token);
+
+        // Assert
+        assertTrue(owner.isEmpty());
+        assertEquals(1, service.getRejectedCount());
+        assertEquals(0, service.getFilteredCount());
+    }
+
+    @Test
+    void testConsume_GoesToDatabaseUntilFilterIsLoaded() {
+        // Arrange
+        UUID token = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        stubConsume(token, userId);
+
+        // Act
+        Optional<UUID> owner = service.consume(token);
+
+        // Assert
+        assertEquals(Optional.of(userId), owner);
+        assertEquals(0, service.getFilteredCount());
+    }
+
+    @Test
+    void testRebuildFilter_KeepsTokenIssuedWhileLoading() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        UUID[] issuedDuringRebuild = new UUID[1];
+        doAnswer(invocation -> {
+            // Committed after the snapshot was taken, so the query does not return it
+            issuedDuringRebuild[0] = service.issue(userId);
+            return null;
+        }).when(jdbcOperations).query(startsWith("SELECT token FROM password_reset_tokens"),
+            any(RowCallbackHandler.class), any(Object[].class));
+
+        // Act
+        service.rebuildFilter();
+        stubConsume(issuedDuringRebuild[0], userId);
+        Optional<UUID> owner = service.consume(issuedDuringRebuild[0]);
+
+        // Assert
+        assertEquals(Optional.of(userId), owner);
+    }
+
+    @Test
+    void testRebuildFilter_FailureKeepsPreviousFilter() {
+        // Arrange
+        UUID token = UUID.randomUUID();
+        liveTokens.add(token);
+        service.rebuildFilter();
+        doThrow(new DataAccessResourceFailureException("database down")).when(jdbcOperations)
+            .query(startsWith("SELECT token FROM password_reset_tokens"), any(RowCallbackHandler.class),
+                any(Object[].class));
+
+        // Act
+        long loaded = service.rebuildFilter();
+        Optional<UUID> owner = service.consume(UUID.randomUUID());
+
+        // Assert
+        assertEquals(-1, loaded);
+        assertTrue(owner.isEmpty());
+        assertEquals(1, service.getFilteredCount());
+    }
+
+    @Test
+    void testConsume_TokenIssuedOnAnotherNodeIsLoadedOnMiss() {
+        // Arrange
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        SharedTokenTable table = new SharedTokenTable();
+        PasswordResetTokenServiceImpl nodeA = table.node(clock);
+        PasswordResetTokenServiceImpl nodeB = table.node(clock);
+        nodeA.rebuildFilter();
+        nodeB.rebuildFilter();
+        UUID userId = UUID.randomUUID();
+        clock.advance(Duration.ofSeconds(5));
+        UUID token = nodeA.issue(userId);
+
+        // Act: the link is opened on the node that did not issue it
+        clock.advance(Duration.ofSeconds(30));
+        Optional<UUID> owner = nodeB.consume(token);
+
+        // Assert
+        assertEquals(Optional.of(userId), owner);
+        assertEquals(1, nodeB.getCatchUpCount());
+        assertEquals(0, nodeB.getFilteredCount());
+        assertTrue(nodeA.consume(token).isEmpty());
+    }
+
+    @Test
+    void testConsume_UnknownTokensTriggerAtMostOneCatchUpPerInterval() {
+        // Arrange
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        SharedTokenTable table = new SharedTokenTable();
+        PasswordResetTokenServiceImpl node = table.node(clock);
+        node.rebuildFilter();
+        clock.advance(Duration.ofSeconds(5));
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            assertTrue(node.consume(UUID.randomUUID()).isEmpty());
+        }
+        clock.advance(Duration.ofSeconds(1));
+        assertTrue(node.consume(UUID.randomUUID()).isEmpty());
+
+        // Assert: guesses are answered by the filter, with one catch-up load per interval
+        assertEquals(2, node.getCatchUpCount());
+        assertEquals(101, node.getFilteredCount());
+        assertEquals(0, table.consumeQueries);
+    }
+
+    @Test
+    void testConsume_CatchUpFailureSendsTokenToDatabase() {
+        // Arrange
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        SharedTokenTable table = new SharedTokenTable();
+        PasswordResetTokenServiceImpl nodeA = table.node(clock);
+        PasswordResetTokenServiceImpl nodeB = table.node(clock);
+        nodeB.rebuildFilter();
+        UUID userId = UUID.randomUUID();
+        UUID token = nodeA.issue(userId);
+        clock.advance(Duration.ofSeconds(5));
+        table.failRecentTokens = true;
+
+        // Act
+        Optional<UUID> owner = nodeB.consume(token);
+
+        // Assert
+        assertEquals(Optional.of(userId), owner);
+        assertEquals(0, nodeB.getCatchUpCount());
+    }
+
+    private void stubConsume(UUID token, UUID userId) {
+        when(jdbcOperations.query(startsWith("UPDATE"), ArgumentMatchers.<RowMapper<UUID>>any(), eq(token), any()))
+            .thenReturn(List.of(userId));
+    }
+
+    /**
+     * One password_reset_tokens table shared by several service instances, each with its
+     * own JdbcOperations, standing in for replicas behind a load balancer
+     */
+    private static final class SharedTokenTable {
+        private final List<Object[]> rows = new ArrayList<>();
+        private int consumeQueries;
+        private boolean failRecentTokens;
+
+        PasswordResetTokenServiceImpl node(Clock clock) {
+            JdbcOperations jdbc = mock(JdbcOperations.class);
+            doAnswer(invocation -> {
+                // user_id, token, expires_at, created_at, used
+                Object[] args = invocation.getArguments();
+                synchronized (rows) {
+                    rows.add(new Object[] {args[1], args[2], args[3], args[4], false});
+                }
+                return 1;
+            }).when(jdbc).update(startsWith("INSERT INTO password_reset_tokens"), any(Object[].class));
+            doAnswer(invocation -> {
+                Timestamp now = invocation.getArgument(2);
+                scan(invocation.getArgument(1), row -> !(boolean) row[4] && ((Timestamp) row[2]).after(now));
+                return null;
+            }).when(jdbc).query(startsWith("SELECT token FROM password_reset_tokens WHERE used"),
+                any(RowCallbackHandler.class), any(Object[].class));
+            doAnswer(invocation -> {
+                if (failRecentTokens) {
+                    throw new DataAccessResourceFailureException("database down");
+                }
+                Timestamp since = invocation.getArgument(2);
+                Timestamp now = invocation.getArgument(3);
+                scan(invocation.getArgument(1), row -> ((Timestamp) row[3]).after(since)
+                    && !(boolean) row[4] && ((Timestamp) row[2]).after(now));
+                return null;
+            }).when(jdbc).query(startsWith("SELECT token FROM password_reset_tokens WHERE created_at"),
+                any(RowCallbackHandler.class), any(Object[].class));
+            doAnswer(invocation -> {
+                Object[] params = Arrays.copyOfRange(invocation.getArguments(), 2, invocation.getArguments().length);
+                synchronized (rows) {
+                    consumeQueries++;
+                    for (Object[] row : rows) {
+                        if (row[1].equals(params[0]) && !(boolean) row[4] && ((Timestamp) row[2]).after((Timestamp) params[1])) {
+                            row[4] = true;
+                            return List.of(row[0]);
+                        }
+                    }
+                    return List.of();
+                }
+            }).when(jdbc).query(startsWith("UPDATE password_reset_tokens"), ArgumentMatchers.<RowMapper<UUID>>any(),
+                any(Object[].class));
+            return new PasswordResetTokenServiceImpl(jdbc, clock, Duration.ofMinutes(30), 1000, 0.001,
+                Duration.ofSeconds(1));
+        }
+
+        private void scan(RowCallbackHandler handler, Predicate<Object[]> matches) throws Exception {
+            List<Object[]> snapshot;
+            synchronized (rows) {
+                snapshot = new ArrayList<>(rows);
+            }
+            for (Object[] row : snapshot) {
+                if (matches.test(row)) {
+                    ResultSet resultSet = mock(ResultSet.class);
+                    when(resultSet.getObject(1, UUID.class)).thenReturn((UUID) row[1]);
+                    handler.processRow(resultSet);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.fscip.identity.service;
+
+import com.fscip.identity.exception.PasswordHashingBusyException;
+import com.fscip.identity.repository.UserRepository;
+import com.fscip.identity.service.impl.PasswordVerificationServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PasswordVerificationServiceImplTest {
+
+    private UserRepository userRepository;
+    private MeterRegistry meterRegistry;
+    private PasswordVerificationServiceImpl service;
+    private final CountDownLatch releaseHashing = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseHashing.countDown();
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void testVerify_MatchAndMismatchAreTimed() {
+        // Arrange
+        service = newService(new BCryptPasswordEncoder(4), 2, 8, Duration.ofSeconds(5));
+        String storedHash = new BCryptPasswordEncoder(4).encode("correct horse");
+
+        // Act
+        boolean matches = service.verify(UUID.randomUUID(), "correct horse", storedHash);
+        boolean mismatches = service.verify(UUID.randomUUID(), "wrong horse", storedHash);
+
+        // Assert
+        assertTrue(matches);
+        assertFalse(mismatches);
+        assertEquals(2, meterRegistry.get("password.hash.duration").tag("operation", "verify").timer().count());
+        assertEquals(2, meterRegistry.get("password.hash.queue.wait").timer().count());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testEncode_ProducesHashAtConfiguredStrength() {
+        // Arrange
+        service = newService(new BCryptPasswordEncoder(5), 1, 8, Duration.ofSeconds(5));
+
+        // Act
+        String hash = service.encode("secret");
+
+        // Assert
+        assertTrue(hash.startsWith("$2a$05$"));
+        assertEquals(1, meterRegistry.get("password.hash.duration").tag("operation", "encode").timer().count());
+    }
+
+    @Test
+    void testVerify_RejectsImmediatelyWhenQueueIsFull() throws Exception {
+        // Arrange
+        CountDownLatch hashing = new CountDownLatch(1);
+        service = newService(blockingEncoder(hashing), 1, 1, Duration.ofSeconds(10));
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(
+            () -> service.verify(UUID.randomUUID(), "a", "hash"));
+        assertTrue(hashing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(
+            () -> service.verify(UUID.randomUUID(), "b", "hash"));
+        waitForQueued(1);
+
+        // Act
+        long started = System.nanoTime();
+        assertThrows(PasswordHashingBusyException.class, () -> service.verify(UUID.randomUUID(), "c", "hash"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        releaseHashing.countDown();
+
+        // Assert
+        assertTrue(elapsedMillis < 1000, "rejection took " + elapsedMillis + " ms");
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("password.hash.rejected").tag("reason", "queue_full").counter().count());
+    }
+
+    @Test
+    void testVerify_RejectsWhenResultTakesLongerThanMaxWait() {
+        // Arrange
+        service = newService(blockingEncoder(new CountDownLatch(1)), 1, 4, Duration.ofMillis(50));
+
+        // Act & Assert
+        assertThrows(PasswordHashingBusyException.class, () -> service.verify(UUID.randomUUID(), "a", "hash"));
+        assertEquals(1.0, meterRegistry.get("password.hash.rejected").tag("reason", "timeout").counter().count());
+    }
+
+    @Test
+    void testVerify_UpgradesHashMadeWithLowerCost() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        String storedHash = new BCryptPasswordEncoder(4).encode("secret");
+        when(userRepository.replacePasswordHash(eq(userId), eq(storedHash), anyString(), any(LocalDateTime.class)))
+            .thenReturn(1);
+        service = newService(new BCryptPasswordEncoder(5), 1, 8, Duration.ofSeconds(5));
+
+        // Act
+        boolean matches = service.verify(userId, "secret", storedHash);
+
+        // Assert
+        assertTrue(matches);
+        verify(userRepository, timeout(5000)).replacePasswordHash(eq(userId), eq(storedHash),
+            argThat(hash -> hash.startsWith("$2a$05$") && new BCryptPasswordEncoder(5).matches("secret", hash)),
+            any(LocalDateTime.class));
+        service.shutdown();
+        assertEquals(1.0, meterRegistry.get("password.rehash").tag("result", "updated").counter().count());
+    }
+
+    @Test
+    void testVerify_DoesNotUpgradeMismatchOrCurrentCost() throws Exception {
+        // Arrange
+        String weakHash = new BCryptPasswordEncoder(4).encode("secret");
+        String currentHash = new BCryptPasswordEncoder(5).encode("secret");
+        service = newService(new BCryptPasswordEncoder(5), 1, 8, Duration.ofSeconds(5));
+
+        // Act
+        assertFalse(service.verify(UUID.randomUUID(), "wrong", weakHash));
+        assertTrue(service.verify(UUID.randomUUID(), "secret", currentHash));
+
+        // Assert
+        service.shutdown();
+        verifyNoInteractions(userRepository);
+    }
+
+    private PasswordVerificationServiceImpl newService(PasswordEncoder encoder, int threads, int queueCapacity,
+                                                       Duration maxWait) {
+        return new PasswordVerificationServiceImpl(userRepository, TransactionOperations.withoutTransaction(),
+            meterRegistry, encoder, threads, queueCapacity, maxWait);
+    }
+
+    // Signals once hashing has started, then holds every hashing thread until the test releases it
+    private PasswordEncoder blockingEncoder(CountDownLatch hashing) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                hashing.countDown();
+                try {
+                    return releaseHashing.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        };
+    }
+
+    private void waitForQueued(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("password.hash.queued").gauge().value() < expected) {
+            assertTrue(System.nanoTime() < deadline, "task was never queued");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.fscip.identity.service;
+
+import com.fscip.identity.service.impl.RedisOtpCacheServiceImpl;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisOtpCacheServiceImplTest {
+
+    private static final String KEY_PREFIX = "test:otp:";
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private RedisOtpCacheServiceImpl cacheService;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+        cacheService = new RedisOtpCacheServiceImpl(redisTemplate, KEY_PREFIX);
+    }
+
+    @Test
+    void testStoreOtp_SetsValueAttemptsAndExpiry() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+
+        // Act
+        cacheService.storeOtp(userId, "123456", 600);
+
+        // Assert
+        assertEquals("123456", cacheService.getOtp(userId));
+        assertTrue(cacheService.hasActiveOtp(userId));
+        assertEquals(5, cacheService.getRemainingAttempts(userId));
+        Long ttl = redisTemplate.getExpire(KEY_PREFIX + userId, TimeUnit.SECONDS);
+        assertNotNull(ttl);
+        assertTrue(ttl > 590 && ttl <= 600);
+    }
+
+    @Test
+    void testStoreOtps_StoresWholeBatchWithExpiry() {
+        // Arrange
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        cacheService.storeOtp(first, "000000", 600);
+        cacheService.decrementAttempts(first);
+
+        // Act
+        cacheService.storeOtps(Map.of(first, "111111", second, "222222"), 600);
+
+        // Assert: replaced entries start over with full attempts
+        assertEquals("111111", cacheService.getOtp(first));
+        assertEquals(5, cacheService.getRemainingAttempts(first));
+        assertEquals("222222", cacheService.getOtp(second));
+        Long ttl = redisTemplate.getExpire(KEY_PREFIX + second, TimeUnit.SECONDS);
+        assertNotNull(ttl);
+        assertTrue(ttl > 590 && ttl <= 600);
+    }
+
+    @Test
+    void testStoreOtp_ReplacesPreviousEntry() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "111111", 600);
+        cacheService.decrementAttempts(userId);
+
+        // Act
+        cacheService.storeOtp(userId, "222222", 600);
+
+        // Assert
+        assertEquals("222222", cacheService.getOtp(userId));
+        assertEquals(5, cacheService.getRemainingAttempts(userId));
+    }
+
+    @Test
+    void testRemoveOtp_DeletesEntry() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "123456", 600);
+
+        // Act
+        cacheService.removeOtp(userId);
+
+        // Assert
+        assertNull(cacheService.getOtp(userId));
+        assertFalse(redisTemplate.hasKey(KEY_PREFIX + userId));
+    }
+
+    @Test
+    void testDecrementAndResetAttempts() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "123456", 600);
+
+        // Act & Assert
+        assertEquals(4, cacheService.decrementAttempts(userId));
+        assertEquals(3, cacheService.decrementAttempts(userId));
+        cacheService.resetAttempts(userId);
+        assertEquals(5, cacheService.getRemainingAttempts(userId));
+        assertEquals(0, cacheService.decrementAttempts(UUID.randomUUID()));
+    }
+
+    @Test
+    void testVerifyAndConsume_MatchConsumesEntry() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "123456", 600);
+
+        // Act
+        OtpVerifyResult result = cacheService.verifyAndConsume(userId, "123456");
+
+        // Assert
+        assertEquals(OtpVerifyResult.VERIFIED, result);
+        assertEquals(OtpVerifyResult.MISSING, cacheService.verifyAndConsume(userId, "123456"));
+    }
+
+    @Test
+    void testVerifyAndConsume_ExpiredEntryIsMissing() throws InterruptedException {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "123456", 600);
+        redisTemplate.expire(KEY_PREFIX + userId, 50, TimeUnit.MILLISECONDS);
+
+        // Act
+        Thread.sleep(150);
+        OtpVerifyResult result = cacheService.verifyAndConsume(userId, "123456");
+
+        // Assert
+        assertEquals(OtpVerifyResult.MISSING, result);
+    }
+
+    @Test
+    void testVerifyAndConsume_MismatchesLockEntry() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "123456", 600);
+
+        // Act & Assert
+        for (int remaining = 4; remaining >= 0; remaining--) {
+            OtpVerifyResult result = cacheService.verifyAndConsume(userId, "000000");
+            assertEquals(OtpVerifyResult.Outcome.INVALID, result.getOutcome());
+            assertEquals(remaining, result.getRemainingAttempts());
+        }
+        assertEquals(OtpVerifyResult.LOCKED, cacheService.verifyAndConsume(userId, "123456"));
+        assertNull(cacheService.getOtp(userId));
+        assertFalse(cacheService.hasActiveOtp(userId));
+    }
+
+    @Test
+    void testVerifyAndConsume_ConcurrentWrongGuessesNeverExceedMaxAttempts() throws Exception {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        cacheService.storeOtp(userId, "123456", 600);
+        int guesses = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger invalid = new AtomicInteger();
+        AtomicInteger locked = new AtomicInteger();
+
+        // Act
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < guesses; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    OtpVerifyResult result = cacheService.verifyAndConsume(userId, "000000");
+                    if (result.getOutcome() == OtpVerifyResult.Outcome.INVALID) {
+                        invalid.incrementAndGet();
+                    } else if (result.getOutcome() == OtpVerifyResult.Outcome.LOCKED) {
+                        locked.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        assertEquals(5, invalid.get());
+        assertEquals(guesses - 5, locked.get());
+        assertEquals(0, cacheService.getRemainingAttempts(userId));
+    }
+}
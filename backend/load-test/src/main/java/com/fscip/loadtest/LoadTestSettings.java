@@ -0,0 +1,113 @@
+package com.fscip.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Load test knobs, read from loadtest.* system properties. Application properties
+ * (app.*, spring.*, server.*) can be passed the same way and reach the booted node.
+ */
+final class LoadTestSettings {
+
+    enum Arrivals {
+        /** Exponential gaps between arrivals, as independent clients produce */
+        POISSON,
+        /** Evenly spaced arrivals */
+        CONSTANT
+    }
+
+    private final int[] rates;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Arrivals arrivals;
+    private final int maxInFlight;
+    private final Duration timeout;
+    private final double p99ThresholdMillis;
+    private final double maxErrorRate;
+    private final String histogramDir;
+
+    private LoadTestSettings(int[] rates, Duration warmup, Duration duration, Arrivals arrivals, int maxInFlight,
+                             Duration timeout, double p99ThresholdMillis, double maxErrorRate, String histogramDir) {
+        if (rates.length == 0 || Arrays.stream(rates).anyMatch(rate -> rate <= 0)) {
+            throw new IllegalArgumentException("loadtest.rates must list positive arrival rates");
+        }
+        this.rates = rates;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.arrivals = arrivals;
+        this.maxInFlight = maxInFlight;
+        this.timeout = timeout;
+        this.p99ThresholdMillis = p99ThresholdMillis;
+        this.maxErrorRate = maxErrorRate;
+        this.histogramDir = histogramDir;
+    }
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Arrays.stream(System.getProperty("loadtest.rates", "25,50,100,200").split(","))
+                        .map(String::trim)
+                        .mapToInt(Integer::parseInt)
+                        .toArray(),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 10)),
+                Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 30)),
+                Arrivals.valueOf(System.getProperty("loadtest.arrivals", "poisson").toUpperCase()),
+                Integer.getInteger("loadtest.max-in-flight", 5000),
+                Duration.ofSeconds(Long.getLong("loadtest.timeout-seconds", 10)),
+                Double.parseDouble(System.getProperty("loadtest.p99-threshold-ms", "250")),
+                Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01")),
+                System.getProperty("loadtest.histogram-dir"));
+    }
+
+    /**
+     * Users to seed so every arrival of every step gets a fresh PENDING user,
+     * with headroom for Poisson arrivals running above the mean
+     */
+    int usersNeeded() {
+        double seconds = warmup.toSeconds() + duration.toSeconds();
+        return (int) Math.ceil(Arrays.stream(rates).sum() * seconds * 1.05) + 100;
+    }
+
+    int[] getRates() {
+        return rates.clone();
+    }
+
+    Duration getWarmup() {
+        return warmup;
+    }
+
+    Duration getDuration() {
+        return duration;
+    }
+
+    Arrivals getArrivals() {
+        return arrivals;
+    }
+
+    int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    Duration getTimeout() {
+        return timeout;
+    }
+
+    double getP99ThresholdMillis() {
+        return p99ThresholdMillis;
+    }
+
+    double getMaxErrorRate() {
+        return maxErrorRate;
+    }
+
+    String getHistogramDir() {
+        return histogramDir;
+    }
+
+    @Override
+    public String toString() {
+        return "rates=" + Arrays.toString(rates) + "/s, warmup=" + warmup.toSeconds() + "s, duration="
+                + duration.toSeconds() + "s, arrivals=" + arrivals.name().toLowerCase() + ", max-in-flight="
+                + maxInFlight + ", timeout=" + timeout.toSeconds() + "s, p99-threshold=" + p99ThresholdMillis
+                + "ms, max-error-rate=" + maxErrorRate;
+    }
+}
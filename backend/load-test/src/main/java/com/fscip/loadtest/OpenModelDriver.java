@@ -0,0 +1,160 @@
+package com.fscip.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Drives OTP request/verify pairs at a fixed arrival rate regardless of how fast the
+ * node answers (open model). A dispatcher thread starts each pair at its scheduled
+ * time; the verify call is chained onto the request's response with the code the
+ * node issued. Arrivals that would exceed the in-flight cap are counted as dropped
+ * rather than delayed, so the offered load never adapts to the node.
+ */
+final class OpenModelDriver {
+
+    private final HttpClient httpClient;
+    private final URI requestUri;
+    private final URI verifyUri;
+    private final SeededUsers users;
+    private final Function<UUID, String> issuedOtp;
+    private final LoadTestSettings settings;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    OpenModelDriver(HttpClient httpClient, URI baseUri, SeededUsers users, Function<UUID, String> issuedOtp,
+                    LoadTestSettings settings) {
+        this.httpClient = httpClient;
+        this.requestUri = baseUri.resolve("auth/otp/request");
+        this.verifyUri = baseUri.resolve("auth/otp/verify");
+        this.users = users;
+        this.issuedOtp = issuedOtp;
+        this.settings = settings;
+    }
+
+    /**
+     * Offer the rate for the warmup and measurement windows, then wait for stragglers
+     */
+    StepResult run(int rate) throws InterruptedException {
+        StepResult result = new StepResult(rate, settings.getDuration());
+        long start = System.nanoTime();
+        long measureFrom = start + settings.getWarmup().toNanos();
+        long end = measureFrom + settings.getDuration().toNanos();
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / (double) rate;
+
+        long next = start;
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            // Behind schedule: keep firing at the intended times without sleeping
+            arrive(next, next >= measureFrom ? result : null);
+            next += nextGap(meanGapNanos);
+        }
+
+        long drainDeadline = System.nanoTime() + settings.getTimeout().toNanos() * 2;
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        return result;
+    }
+
+    private long nextGap(double meanGapNanos) {
+        if (settings.getArrivals() == LoadTestSettings.Arrivals.CONSTANT) {
+            return Math.max(1, Math.round(meanGapNanos));
+        }
+        return Math.max(1, Math.round(-Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) * meanGapNanos));
+    }
+
+    // A null result marks a warmup arrival, which is sent but not recorded
+    private void arrive(long intendedStart, StepResult result) {
+        if (result != null) {
+            result.arrivals.increment();
+        }
+        int user = users.take();
+        if (user < 0 || inFlight.get() >= settings.getMaxInFlight()) {
+            if (result != null) {
+                result.dropped.increment();
+            }
+            return;
+        }
+
+        inFlight.incrementAndGet();
+        String email = SeededUsers.email(user);
+        httpClient.sendAsync(post(requestUri, "{\"email\":\"" + email + "\"}"), HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    long now = System.nanoTime();
+                    if (failure != null || !isSuccess(response)) {
+                        if (result != null) {
+                            result.requestErrors.increment();
+                            if (failure == null) {
+                                result.requestLatency.recordValue(micros(now - intendedStart));
+                            }
+                        }
+                        return CompletableFuture.<Void>completedFuture(null);
+                    }
+                    if (result != null) {
+                        result.requestLatency.recordValue(micros(now - intendedStart));
+                    }
+                    return verify(email, users.userId(user), intendedStart, result);
+                })
+                .thenCompose(Function.identity())
+                .whenComplete((ignored, failure) -> inFlight.decrementAndGet());
+    }
+
+    private CompletableFuture<Void> verify(String email, UUID userId, long intendedStart, StepResult result) {
+        String body = "{\"email\":\"" + email + "\",\"otp\":\"" + issuedOtp.apply(userId) + "\"}";
+        long verifyStart = System.nanoTime();
+        return httpClient.sendAsync(post(verifyUri, body), HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    long now = System.nanoTime();
+                    if (result == null) {
+                        return null;
+                    }
+                    if (failure != null) {
+                        result.verifyErrors.increment();
+                        return null;
+                    }
+                    result.verifyLatency.recordValue(micros(now - verifyStart));
+                    if (isSuccess(response)) {
+                        result.pairLatency.recordValue(micros(now - intendedStart));
+                    } else {
+                        result.verifyErrors.increment();
+                    }
+                    return null;
+                });
+    }
+
+    private HttpRequest post(URI uri, String json) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(settings.getTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static boolean isSuccess(HttpResponse<?> response) {
+        return response.statusCode() / 100 == 2;
+    }
+
+    private static long micros(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    static HttpClient newHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.fscip.loadtest;
+
+import com.fscip.FSCIPApplication;
+import com.fscip.identity.service.OtpCacheService;
+import com.fscip.identity.service.impl.MockEmailServiceImpl;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * End-to-end load test of the OTP sign-up flow on one node. Starts an embedded
+ * PostgreSQL, boots FSCIPApplication against it (Flyway builds the schema), seeds
+ * PENDING users and offers each rate in loadtest.rates in turn as an open-model
+ * stream of POST /auth/otp/request + /auth/otp/verify pairs. Each step reports
+ * HdrHistogram percentiles and error rates; the summary names the highest rate whose
+ * pair p99 and error rate stayed within loadtest.p99-threshold-ms and
+ * loadtest.max-error-rate.
+ *
+ * Needs nothing but a Linux box: no database, Redis or mail server. Run with
+ *
+ *   mvn -P load-test -DskipTests install
+ *   mvn -P load-test -pl load-test exec:java -Dloadtest.rates=50,100,200,400
+ *
+ * The embedded PostgreSQL refuses to start as root. The client shares the JVM with the
+ * node, so on small boxes the numbers are a floor rather than a ceiling.
+ */
+public class OtpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        System.out.println("OTP load test: " + settings);
+
+        List<StepResult> results = new ArrayList<>();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            configureNode(postgres);
+            try (ConfigurableApplicationContext node = new SpringApplicationBuilder(FSCIPApplication.class).run(args)) {
+                SeededUsers users = SeededUsers.insert(new JdbcTemplate(node.getBean(DataSource.class)),
+                        settings.usersNeeded());
+                OtpCacheService otpCache = node.getBean(OtpCacheService.class);
+                HttpClient httpClient = OpenModelDriver.newHttpClient();
+                OpenModelDriver driver = new OpenModelDriver(httpClient, baseUri(node.getEnvironment()), users,
+                        otpCache::getOtp, settings);
+
+                System.out.println(StepResult.header());
+                for (int rate : settings.getRates()) {
+                    StepResult result = driver.run(rate);
+                    results.add(result);
+                    System.out.println(result.row());
+                    if (settings.getHistogramDir() != null) {
+                        Path directory = Files.createDirectories(Path.of(settings.getHistogramDir()));
+                        result.writeDistribution(directory);
+                    }
+                    // The mock mailer keeps every message it "sends"
+                    node.getBeanProvider(MockEmailServiceImpl.class).ifAvailable(MockEmailServiceImpl::clearHistory);
+                }
+            }
+        }
+
+        printSummary(results, settings);
+        System.exit(0);
+    }
+
+    /**
+     * Point the node at the embedded database and quieten it. Set as system properties
+     * so they outrank application.properties; anything already given with -D wins.
+     */
+    private static void configureNode(EmbeddedPostgres postgres) {
+        // Same driver options as application.properties
+        System.setProperty("spring.datasource.url",
+                postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        System.setProperty("spring.datasource.username", "postgres");
+        System.setProperty("spring.datasource.password", "");
+
+        setDefault("server.port", "0");
+        // All load comes from one client address
+        setDefault("fscip.security.rate-limit.enabled", "false");
+        setDefault("spring.datasource.hikari.leak-detection-threshold", "0");
+        setDefault("logging.level.root", "WARN");
+        setDefault("logging.level.com.fscip", "WARN");
+        setDefault("logging.level.org.springframework.security", "WARN");
+        // Latency is what the report is for; no per-request slow warnings
+        setDefault("logging.level.com.fscip.security.RequestLoggingFilter", "ERROR");
+    }
+
+    private static void setDefault(String key, String value) {
+        System.getProperties().putIfAbsent(key, value);
+    }
+
+    private static URI baseUri(Environment environment) {
+        String contextPath = environment.getProperty("server.servlet.context-path", "");
+        return URI.create("http://localhost:" + environment.getProperty("local.server.port") + contextPath + "/");
+    }
+
+    private static void printSummary(List<StepResult> results, LoadTestSettings settings) {
+        StepResult best = null;
+        for (StepResult result : results) {
+            if (result.sustained(settings) && (best == null || result.getRate() > best.getRate())) {
+                best = result;
+            }
+        }
+        if (best == null) {
+            System.out.printf("No step kept pair p99 <= %.0f ms with errors <= %.1f%%%n",
+                    settings.getP99ThresholdMillis(), settings.getMaxErrorRate() * 100);
+        } else {
+            System.out.printf("Sustained %d pairs/s (%.1f achieved) with pair p99 %.1f ms <= %.0f ms and errors %.2f%% <= %.1f%%%n",
+                    best.getRate(), best.achievedRate(), best.pairP99Millis(), settings.getP99ThresholdMillis(),
+                    best.errorRate() * 100, settings.getMaxErrorRate() * 100);
+        }
+    }
+}
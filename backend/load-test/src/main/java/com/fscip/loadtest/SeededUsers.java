@@ -0,0 +1,57 @@
+package com.fscip.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PENDING users inserted before the run and handed out once each: a verified user is
+ * ACTIVE and the per-user OTP rate limit allows only a few requests, so reusing users
+ * would measure rejections instead of the sign-up path.
+ */
+final class SeededUsers {
+
+    private static final int INSERT_BATCH = 1000;
+
+    private final List<UUID> userIds;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private SeededUsers(List<UUID> userIds) {
+        this.userIds = userIds;
+    }
+
+    static SeededUsers insert(JdbcTemplate jdbcTemplate, int count) {
+        List<UUID> userIds = new ArrayList<>(count);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < count; i++) {
+            UUID userId = UUID.randomUUID();
+            userIds.add(userId);
+            batch.add(new Object[] {userId, email(i), "load-test", "Load Test User " + i});
+            if (batch.size() == INSERT_BATCH || i == count - 1) {
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO users (user_id, email, password_hash, full_name) VALUES (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        return new SeededUsers(userIds);
+    }
+
+    /**
+     * @return index of an unused user, or -1 once all have been handed out
+     */
+    int take() {
+        int index = next.getAndIncrement();
+        return index < userIds.size() ? index : -1;
+    }
+
+    UUID userId(int index) {
+        return userIds.get(index);
+    }
+
+    static String email(int index) {
+        return "load.user" + index + "@example.com";
+    }
+}
@@ -0,0 +1,100 @@
+package com.fscip.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcome of one arrival-rate step. Latencies are recorded in microseconds; request
+ * and pair latencies run from the intended arrival time, so a stalled node shows up
+ * as latency instead of silently lowering the offered load.
+ */
+final class StepResult {
+
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final int rate;
+    private final Duration duration;
+    final Histogram requestLatency = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+    final Histogram verifyLatency = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+    final Histogram pairLatency = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+    final LongAdder arrivals = new LongAdder();
+    final LongAdder requestErrors = new LongAdder();
+    final LongAdder verifyErrors = new LongAdder();
+    final LongAdder dropped = new LongAdder();
+
+    StepResult(int rate, Duration duration) {
+        this.rate = rate;
+        this.duration = duration;
+    }
+
+    int getRate() {
+        return rate;
+    }
+
+    long completedPairs() {
+        return pairLatency.getTotalCount();
+    }
+
+    double achievedRate() {
+        return completedPairs() / (double) duration.toSeconds();
+    }
+
+    /**
+     * Share of measured arrivals that did not complete a successful request/verify pair
+     */
+    double errorRate() {
+        long total = arrivals.sum();
+        return total == 0 ? 0.0 : (total - completedPairs()) / (double) total;
+    }
+
+    double pairP99Millis() {
+        return millis(pairLatency, 99.0);
+    }
+
+    boolean sustained(LoadTestSettings settings) {
+        return completedPairs() > 0
+                && pairP99Millis() <= settings.getP99ThresholdMillis()
+                && errorRate() <= settings.getMaxErrorRate();
+    }
+
+    static String header() {
+        return String.format("%8s %9s %7s %7s %7s | %-33s | %-33s | %-33s",
+                "rate/s", "achieved", "err%", "req-err", "dropped",
+                "request p50/p90/p99/p99.9/max ms", "verify p50/p90/p99/p99.9/max ms", "pair p50/p90/p99/p99.9/max ms");
+    }
+
+    String row() {
+        return String.format("%8d %9.1f %7.2f %7d %7d | %-33s | %-33s | %-33s",
+                rate, achievedRate(), errorRate() * 100, requestErrors.sum() + verifyErrors.sum(), dropped.sum(),
+                percentiles(requestLatency), percentiles(verifyLatency), percentiles(pairLatency));
+    }
+
+    /**
+     * Write the full pair latency distribution in HdrHistogram's .hgrm format, in milliseconds
+     */
+    void writeDistribution(Path directory) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(directory.resolve("otp-pair-" + rate + ".hgrm").toFile())) {
+            pairLatency.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static String percentiles(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return "-";
+        }
+        return String.format("%.1f/%.1f/%.1f/%.1f/%.1f",
+                millis(histogram, 50.0), millis(histogram, 90.0), millis(histogram, 99.0), millis(histogram, 99.9),
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}